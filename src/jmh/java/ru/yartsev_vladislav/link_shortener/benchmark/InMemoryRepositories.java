@@ -0,0 +1,119 @@
+package ru.yartsev_vladislav.link_shortener.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import ru.yartsev_vladislav.link_shortener.entity.Link;
+import ru.yartsev_vladislav.link_shortener.entity.User;
+import ru.yartsev_vladislav.link_shortener.repository.LinkRedirectView;
+import ru.yartsev_vladislav.link_shortener.repository.LinkRepository;
+import ru.yartsev_vladislav.link_shortener.repository.UserRepository;
+
+/**
+ * Хранилища в памяти вместо БД, чтобы бенчмарк измерял сам сервис. Реализованы только методы,
+ * которые вызывает {@code LinkShortenerService}, остальные бросают {@link
+ * UnsupportedOperationException}.
+ */
+final class InMemoryRepositories {
+  private InMemoryRepositories() {}
+
+  static LinkRepository linkRepository(Map<String, Link> links) {
+    // Индекс (url, владелец) -> slug, чтобы поиск дубликата не сканировал все ссылки
+    Map<String, String> slugsByUrlAndOwner = new ConcurrentHashMap<>();
+    return (LinkRepository)
+        Proxy.newProxyInstance(
+            LinkRepository.class.getClassLoader(),
+            new Class<?>[] {LinkRepository.class},
+            (proxy, method, args) ->
+                switch (method.getName()) {
+                  case "findById" -> Optional.ofNullable(links.get((String) args[0]));
+                  case "findRedirectViewBySlug" ->
+                      Optional.ofNullable(links.get((String) args[0]))
+                          .map(
+                              link ->
+                                  new LinkRedirectView(
+                                      link.getSlug(),
+                                      link.getFullUrl(),
+                                      link.getAttempts(),
+                                      link.getAttemptsLimit(),
+                                      link.getCreatedAt()));
+                  case "save" -> {
+                    Link link = (Link) args[0];
+                    if (link.getCreatedAt() == null) {
+                      link.setCreatedAt(LocalDateTime.now());
+                    }
+                    links.put(link.getSlug(), link);
+                    slugsByUrlAndOwner.put(
+                        urlAndOwnerKey(link.getFullUrl(), link.getOwnerId()),
+                        link.getSlug());
+                    yield link;
+                  }
+                  case "delete" -> {
+                    Link link = links.remove(((Link) args[0]).getSlug());
+                    if (link != null) {
+                      slugsByUrlAndOwner.remove(
+                          urlAndOwnerKey(link.getFullUrl(), link.getOwnerId()));
+                    }
+                    yield null;
+                  }
+                  case "findByFullUrlAndOwnerIdAndCreatedAtGreaterThanEqual" ->
+                      Optional.ofNullable(
+                              slugsByUrlAndOwner.get(
+                                  urlAndOwnerKey((String) args[0], (String) args[1])))
+                          .map(links::get)
+                          .filter(link -> !link.getCreatedAt().isBefore((LocalDateTime) args[2]));
+                  case "incrementAttemptsIfAllowed" -> incrementAttemptsIfAllowed(links, args);
+                  case "hashCode" -> System.identityHashCode(proxy);
+                  case "equals" -> proxy == args[0];
+                  case "toString" -> "InMemoryLinkRepository";
+                  default -> throw new UnsupportedOperationException(method.getName());
+                });
+  }
+
+  static UserRepository userRepository() {
+    Map<String, User> users = new ConcurrentHashMap<>();
+    return (UserRepository)
+        Proxy.newProxyInstance(
+            UserRepository.class.getClassLoader(),
+            new Class<?>[] {UserRepository.class},
+            (proxy, method, args) ->
+                switch (method.getName()) {
+                  case "findById" -> Optional.ofNullable(users.get((String) args[0]));
+                  case "save" -> {
+                    User user = (User) args[0];
+                    if (user.getId() == null) {
+                      user.setId(UUID.randomUUID().toString());
+                    }
+                    users.put(user.getId(), user);
+                    yield user;
+                  }
+                  case "hashCode" -> System.identityHashCode(proxy);
+                  case "equals" -> proxy == args[0];
+                  case "toString" -> "InMemoryUserRepository";
+                  default -> throw new UnsupportedOperationException(method.getName());
+                });
+  }
+
+  private static String urlAndOwnerKey(String fullUrl, String ownerId) {
+    return fullUrl + '\n' + ownerId;
+  }
+
+  private static int incrementAttemptsIfAllowed(Map<String, Link> links, Object[] args) {
+    Link link = links.get((String) args[0]);
+    if (link == null) {
+      return 0;
+    }
+    synchronized (link) {
+      Integer limit = link.getAttemptsLimit();
+      if (link.getCreatedAt().isBefore((LocalDateTime) args[1])
+          || (limit != null && link.getAttempts() >= limit)) {
+        return 0;
+      }
+      link.setAttempts(link.getAttempts() + 1);
+      return 1;
+    }
+  }
+}
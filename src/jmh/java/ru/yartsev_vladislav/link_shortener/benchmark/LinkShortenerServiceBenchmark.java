@@ -0,0 +1,144 @@
+package ru.yartsev_vladislav.link_shortener.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yartsev_vladislav.link_shortener.analytics.ClickAnalytics;
+import ru.yartsev_vladislav.link_shortener.cache.LinkCache;
+import ru.yartsev_vladislav.link_shortener.config.ClickAnalyticsConfig;
+import ru.yartsev_vladislav.link_shortener.config.DataSourceRoutingConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkCacheConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkExpiryConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkInvalidationConfig;
+import ru.yartsev_vladislav.link_shortener.config.SlugFilterConfig;
+import ru.yartsev_vladislav.link_shortener.config.SlugStoreConfig;
+import ru.yartsev_vladislav.link_shortener.config.UrlConfig;
+import ru.yartsev_vladislav.link_shortener.config.UserIdentityConfig;
+import ru.yartsev_vladislav.link_shortener.datasource.ReplicaReads;
+import ru.yartsev_vladislav.link_shortener.entity.Link;
+import ru.yartsev_vladislav.link_shortener.entity.User;
+import ru.yartsev_vladislav.link_shortener.expiry.LinkExpiryIndex;
+import ru.yartsev_vladislav.link_shortener.filter.SlugFilter;
+import ru.yartsev_vladislav.link_shortener.identity.UserIdentityService;
+import ru.yartsev_vladislav.link_shortener.invalidation.LinkInvalidationPublisher;
+import ru.yartsev_vladislav.link_shortener.model.CreateLinkOptions;
+import ru.yartsev_vladislav.link_shortener.model.CreateLinkResult;
+import ru.yartsev_vladislav.link_shortener.model.RedirectResolution;
+import ru.yartsev_vladislav.link_shortener.service.ClickCounter;
+import ru.yartsev_vladislav.link_shortener.service.HashSlugGenerator;
+import ru.yartsev_vladislav.link_shortener.service.LinkEvictions;
+import ru.yartsev_vladislav.link_shortener.service.LinkShortenerService;
+import ru.yartsev_vladislav.link_shortener.service.UrlService;
+import ru.yartsev_vladislav.link_shortener.store.SlugStore;
+
+/**
+ * Горячие пути {@link LinkShortenerService} поверх хранилищ в памяти: измеряется работа сервиса,
+ * кэша, счётчика переходов и индекса сроков истечения без сетевых обращений к БД.
+ */
+@State(Scope.Benchmark)
+public class LinkShortenerServiceBenchmark {
+  private static final String USER_ID = "f19b92f3-8a3e-4c63-9b77-1e9c50450fa1";
+  private static final String UNLIMITED_SLUG = "unlimit1";
+  private static final String LIMITED_SLUG = "limited1";
+  private static final String MISSING_SLUG = "missing1";
+
+  private final AtomicLong urlCounter = new AtomicLong();
+
+  private LinkShortenerService service;
+  private Map<String, Link> links;
+
+  @Setup(Level.Iteration)
+  public void setUp() throws Exception {
+    LinkConfig linkConfig = new LinkConfig();
+    linkConfig.setTimeToLeave(86400);
+
+    links = new ConcurrentHashMap<>();
+    // Аналитика выключена: итоги удалённых ссылок не удаляются из БД
+    ClickAnalyticsConfig clickAnalyticsConfig = new ClickAnalyticsConfig();
+    clickAnalyticsConfig.setEnabled(false);
+    LinkCache linkCache = new LinkCache(new LinkCacheConfig(), linkConfig);
+    ClickCounter clickCounter = new ClickCounter(new JdbcTemplate());
+    LinkExpiryIndex linkExpiryIndex =
+        new LinkExpiryIndex(linkConfig, new LinkExpiryConfig(), event -> {});
+    SlugFilter slugFilter =
+        new SlugFilter(new SlugFilterConfig(), new JdbcTemplate(), new TransactionTemplate());
+    SlugStore slugStore =
+        new SlugStore(
+            new SlugStoreConfig(),
+            linkConfig,
+            new LinkInvalidationConfig(),
+            new JdbcTemplate(),
+            new TransactionTemplate());
+    ReplicaReads replicaReads = new ReplicaReads(new DataSourceRoutingConfig());
+    LinkInvalidationPublisher linkInvalidationPublisher =
+        new LinkInvalidationPublisher(new LinkInvalidationConfig(), new JdbcTemplate());
+    service =
+        new LinkShortenerService(
+            new UserIdentityService(
+                new UserIdentityConfig(), InMemoryRepositories.userRepository()),
+            InMemoryRepositories.linkRepository(links),
+            new UrlService(new UrlConfig(), new HashSlugGenerator()),
+            linkConfig,
+            linkCache,
+            clickCounter,
+            linkExpiryIndex,
+            slugFilter,
+            slugStore,
+            replicaReads,
+            linkInvalidationPublisher,
+            new LinkEvictions(
+                replicaReads,
+                linkCache,
+                clickCounter,
+                linkExpiryIndex,
+                slugFilter,
+                slugStore,
+                linkInvalidationPublisher,
+                new ClickAnalytics(
+                    clickAnalyticsConfig,
+                    linkConfig,
+                    new JdbcTemplate(),
+                    new TransactionTemplate())));
+
+    User owner = new User(USER_ID);
+    Link unlimited = new Link(UNLIMITED_SLUG, "https://example.com", owner);
+    unlimited.setCreatedAt(LocalDateTime.now());
+    links.put(UNLIMITED_SLUG, unlimited);
+
+    Link limited = new Link(LIMITED_SLUG, "https://example.com/limited", owner, Integer.MAX_VALUE);
+    limited.setCreatedAt(LocalDateTime.now());
+    links.put(LIMITED_SLUG, limited);
+  }
+
+  @Benchmark
+  public String getFullLink() throws Exception {
+    return service.getFullLink(UNLIMITED_SLUG);
+  }
+
+  @Benchmark
+  public String getFullLinkWithLimit() throws Exception {
+    return service.getFullLink(LIMITED_SLUG);
+  }
+
+  // Переход по несуществующему slug (сканирование ботами) не бросает исключений
+  @Benchmark
+  public RedirectResolution resolveMissingLink() {
+    return service.resolveRedirect(MISSING_SLUG);
+  }
+
+  @Benchmark
+  public CreateLinkResult createLink() throws Exception {
+    CreateLinkOptions options = new CreateLinkOptions();
+    options.url = "https://example.com/page/" + urlCounter.incrementAndGet();
+    return service.createLink(options, null);
+  }
+}
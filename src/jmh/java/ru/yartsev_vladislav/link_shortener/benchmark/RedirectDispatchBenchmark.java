@@ -0,0 +1,217 @@
+package ru.yartsev_vladislav.link_shortener.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletConfig;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import ru.yartsev_vladislav.link_shortener.admission.AdmissionLimiter;
+import ru.yartsev_vladislav.link_shortener.analytics.ClickAnalytics;
+import ru.yartsev_vladislav.link_shortener.cache.LinkCache;
+import ru.yartsev_vladislav.link_shortener.config.ClickAnalyticsConfig;
+import ru.yartsev_vladislav.link_shortener.config.DataSourceRoutingConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkAdmissionConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkBatchConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkCacheConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkExpiryConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkInvalidationConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkRedirectConfig;
+import ru.yartsev_vladislav.link_shortener.config.SlugFilterConfig;
+import ru.yartsev_vladislav.link_shortener.config.SlugStoreConfig;
+import ru.yartsev_vladislav.link_shortener.config.UrlConfig;
+import ru.yartsev_vladislav.link_shortener.config.UserIdentityConfig;
+import ru.yartsev_vladislav.link_shortener.controller.LinkController;
+import ru.yartsev_vladislav.link_shortener.controller.RedirectCachePolicy;
+import ru.yartsev_vladislav.link_shortener.controller.RedirectFastPathFilter;
+import ru.yartsev_vladislav.link_shortener.controller.RedirectHandler;
+import ru.yartsev_vladislav.link_shortener.datasource.ReplicaReads;
+import ru.yartsev_vladislav.link_shortener.entity.Link;
+import ru.yartsev_vladislav.link_shortener.entity.User;
+import ru.yartsev_vladislav.link_shortener.expiry.LinkExpiryIndex;
+import ru.yartsev_vladislav.link_shortener.filter.SlugFilter;
+import ru.yartsev_vladislav.link_shortener.identity.UserIdentityService;
+import ru.yartsev_vladislav.link_shortener.invalidation.LinkInvalidationPublisher;
+import ru.yartsev_vladislav.link_shortener.metrics.LinkMetrics;
+import ru.yartsev_vladislav.link_shortener.service.ClickCounter;
+import ru.yartsev_vladislav.link_shortener.service.HashSlugGenerator;
+import ru.yartsev_vladislav.link_shortener.service.LinkEvictions;
+import ru.yartsev_vladislav.link_shortener.service.LinkShortenerService;
+import ru.yartsev_vladislav.link_shortener.service.UrlService;
+import ru.yartsev_vladislav.link_shortener.store.SlugStore;
+
+/**
+ * Стоимость обслуживания {@code GET /{slug}} через {@code DispatcherServlet} и {@link
+ * LinkController} против {@link RedirectFastPathFilter}.
+ *
+ * <p>Оба пути вызывают один и тот же {@link RedirectHandler} поверх хранилищ в памяти, а ссылка
+ * лежит в кэше, поэтому разница — это работа Spring MVC: поиск обработчика и разбор аргументов.
+ * Фильтры Spring Boot, через которые проходят оба пути, не подключаются.
+ */
+@State(Scope.Benchmark)
+public class RedirectDispatchBenchmark {
+  private static final String USER_ID = "f19b92f3-8a3e-4c63-9b77-1e9c50450fa1";
+  private static final String SLUG_PATH = "/unlimit1";
+  private static final String MISSING_SLUG_PATH = "/missing1";
+
+  private GenericWebApplicationContext context;
+  private DispatcherServlet dispatcherServlet;
+  private RedirectFastPathFilter filter;
+  private FilterChain toDispatcher;
+
+  // Без @Configuration: иначе сканирование компонентов в RedirectLoadBenchmark подхватило бы класс,
+  // и @EnableWebMvc отключил бы автоконфигурацию Spring MVC
+  @EnableWebMvc
+  static class WebMvcConfig {}
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    LinkConfig linkConfig = new LinkConfig();
+    linkConfig.setTimeToLeave(86400);
+
+    Map<String, Link> links = new ConcurrentHashMap<>();
+    Link link = new Link(SLUG_PATH.substring(1), "https://example.com", new User(USER_ID));
+    link.setCreatedAt(LocalDateTime.now());
+    links.put(link.getSlug(), link);
+
+    LinkCache linkCache = new LinkCache(new LinkCacheConfig(), linkConfig);
+    SlugFilter slugFilter =
+        new SlugFilter(new SlugFilterConfig(), new JdbcTemplate(), new TransactionTemplate());
+    SlugStore slugStore =
+        new SlugStore(
+            new SlugStoreConfig(),
+            linkConfig,
+            new LinkInvalidationConfig(),
+            new JdbcTemplate(),
+            new TransactionTemplate());
+    ReplicaReads replicaReads = new ReplicaReads(new DataSourceRoutingConfig());
+    // Аналитика выключена: её буфер без фоновой записи заполнился бы на первой итерации
+    ClickAnalyticsConfig clickAnalyticsConfig = new ClickAnalyticsConfig();
+    clickAnalyticsConfig.setEnabled(false);
+    ClickAnalytics clickAnalytics =
+        new ClickAnalytics(
+            clickAnalyticsConfig, linkConfig, new JdbcTemplate(), new TransactionTemplate());
+    ClickCounter clickCounter = new ClickCounter(new JdbcTemplate());
+    LinkExpiryIndex linkExpiryIndex =
+        new LinkExpiryIndex(linkConfig, new LinkExpiryConfig(), event -> {});
+    LinkInvalidationPublisher linkInvalidationPublisher =
+        new LinkInvalidationPublisher(new LinkInvalidationConfig(), new JdbcTemplate());
+    LinkShortenerService service =
+        new LinkShortenerService(
+            new UserIdentityService(
+                new UserIdentityConfig(), InMemoryRepositories.userRepository()),
+            InMemoryRepositories.linkRepository(links),
+            new UrlService(new UrlConfig(), new HashSlugGenerator()),
+            linkConfig,
+            linkCache,
+            clickCounter,
+            linkExpiryIndex,
+            slugFilter,
+            slugStore,
+            replicaReads,
+            linkInvalidationPublisher,
+            new LinkEvictions(
+                replicaReads,
+                linkCache,
+                clickCounter,
+                linkExpiryIndex,
+                slugFilter,
+                slugStore,
+                linkInvalidationPublisher,
+                clickAnalytics));
+
+    AdmissionLimiter admissionLimiter = new AdmissionLimiter(new LinkAdmissionConfig());
+    LinkRedirectConfig linkRedirectConfig = new LinkRedirectConfig();
+    RedirectCachePolicy redirectCachePolicy =
+        new RedirectCachePolicy(linkRedirectConfig, linkConfig);
+    // Очистка и инвалидация нужны метрикам только при выгрузке, которой в бенчмарке нет
+    LinkMetrics linkMetrics =
+        new LinkMetrics(
+            new SimpleMeterRegistry(),
+            linkCache,
+            null,
+            slugFilter,
+            slugStore,
+            clickAnalytics,
+            replicaReads,
+            null,
+            admissionLimiter);
+    RedirectHandler redirectHandler =
+        new RedirectHandler(
+            service, linkMetrics, clickAnalytics, admissionLimiter, redirectCachePolicy);
+    LinkController controller =
+        new LinkController(
+            service,
+            null,
+            null,
+            new LinkBatchConfig(),
+            new ObjectMapper(),
+            linkMetrics,
+            clickAnalytics,
+            admissionLimiter,
+            redirectHandler);
+
+    context = new GenericWebApplicationContext(new MockServletContext());
+    AnnotationConfigUtils.registerAnnotationConfigProcessors(context);
+    context.registerBean(WebMvcConfig.class);
+    context.registerBean(LinkController.class, () -> controller);
+    context.refresh();
+    dispatcherServlet = new DispatcherServlet(context);
+    dispatcherServlet.init(new MockServletConfig(context.getServletContext()));
+    toDispatcher = dispatcherServlet::service;
+
+    filter = new RedirectFastPathFilter(linkRedirectConfig, redirectHandler, context);
+    filter.afterSingletonsInstantiated();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    dispatcherServlet.destroy();
+    context.close();
+  }
+
+  @Benchmark
+  public MockHttpServletResponse dispatcherRedirect() throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    dispatcherServlet.service(new MockHttpServletRequest("GET", SLUG_PATH), response);
+    return response;
+  }
+
+  @Benchmark
+  public MockHttpServletResponse fastPathRedirect() throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("GET", SLUG_PATH), response, toDispatcher);
+    return response;
+  }
+
+  @Benchmark
+  public MockHttpServletResponse dispatcherNotFound() throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    dispatcherServlet.service(new MockHttpServletRequest("GET", MISSING_SLUG_PATH), response);
+    return response;
+  }
+
+  @Benchmark
+  public MockHttpServletResponse fastPathNotFound() throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("GET", MISSING_SLUG_PATH), response, toDispatcher);
+    return response;
+  }
+}
@@ -0,0 +1,205 @@
+package ru.yartsev_vladislav.link_shortener.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import ru.yartsev_vladislav.link_shortener.LinkShortenerApplication;
+import ru.yartsev_vladislav.link_shortener.entity.Link;
+import ru.yartsev_vladislav.link_shortener.entity.User;
+import ru.yartsev_vladislav.link_shortener.repository.LinkRepository;
+import ru.yartsev_vladislav.link_shortener.repository.UserRepository;
+
+/**
+ * Нагрузочное сравнение режимов обслуживания переходов в запущенном приложении: пул платформенных
+ * потоков Tomcat ({@code server.tomcat.threads.max = 200}) против виртуального потока на запрос
+ * ({@code spring.threads.virtual.enabled=true}).
+ *
+ * <p>Приложение поднимается целиком, как в {@code @SpringBootTest} со случайным портом: встроенный
+ * Tomcat, {@code RedirectFastPathFilter}, сервис и настоящий пул Hikari размера {@code poolSize}
+ * поверх H2 в памяти. Каждая команда JDBC дополнительно ждёт {@value #JDBC_LATENCY_MS} мс,
+ * удерживая соединение из пула, — так имитируется сетевая задержка настоящей БД.
+ *
+ * <p>{@value #CONCURRENCY} потоков JMH по HTTP переходят по ссылкам с лимитом: такой переход всегда
+ * ходит в БД условным {@code UPDATE}. Режим {@code SampleTime} даёт распределение задержки ответа,
+ * включая ожидание потока Tomcat и соединения из пула, с процентилями p50/p99/p99.9.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(RedirectLoadBenchmark.CONCURRENCY)
+public class RedirectLoadBenchmark {
+  static final int CONCURRENCY = 400;
+  private static final int TOMCAT_MAX_THREADS = 200;
+  private static final long JDBC_LATENCY_MS = 2;
+  private static final int LINKS = 1000;
+
+  @Param({"false", "true"})
+  public boolean virtualThreads;
+
+  // Пока пул соединений меньше пула потоков, узким местом остаётся БД и режимы не различаются
+  @Param({"50", "400"})
+  public int poolSize;
+
+  private ConfigurableApplicationContext context;
+  private HttpClient client;
+  private HttpRequest[] requests;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context =
+        new SpringApplicationBuilder(LinkShortenerApplication.class, JdbcLatencyConfig.class)
+            .properties(
+                "server.port=0",
+                "server.tomcat.threads.max=" + TOMCAT_MAX_THREADS,
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                "spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                // Миграции и секции рассчитаны на PostgreSQL, схему H2 создаёт Hibernate
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.flyway.enabled=false",
+                "link.partition.enabled=false",
+                // Сравниваются режимы потоков: ограничитель не должен отбрасывать переходы
+                "link.admission.enabled=false",
+                // Запись аналитики пачками делила бы пул соединений с переходами
+                "link.analytics.enabled=false")
+            .run();
+
+    User owner = context.getBean(UserRepository.class).save(new User());
+    List<Link> links = new ArrayList<>(LINKS);
+    for (int i = 0; i < LINKS; i++) {
+      links.add(
+          new Link(
+              String.format("load%04d", i), "https://example.com/" + i, owner, Integer.MAX_VALUE));
+    }
+    context.getBean(LinkRepository.class).saveAll(links);
+
+    int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+    requests = new HttpRequest[LINKS];
+    for (int i = 0; i < LINKS; i++) {
+      URI uri = URI.create("http://localhost:" + port + "/" + links.get(i).getSlug());
+      requests[i] = HttpRequest.newBuilder(uri).build();
+    }
+    // Переадресации не выполняются: измеряется ответ 302 самого приложения
+    client =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    client.close();
+    context.close();
+  }
+
+  @Benchmark
+  public int redirect() throws Exception {
+    HttpRequest request = requests[ThreadLocalRandom.current().nextInt(LINKS)];
+    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+    if (response.statusCode() != 302) {
+      throw new IllegalStateException(
+          "Unexpected status " + response.statusCode() + " for " + request.uri());
+    }
+    return response.statusCode();
+  }
+
+  /** Добавляет задержку {@value #JDBC_LATENCY_MS} мс к каждой команде JDBC приложения. */
+  static class JdbcLatencyConfig {
+    @Bean
+    static BeanPostProcessor jdbcLatencyPostProcessor() {
+      return new BeanPostProcessor() {
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+          return "dataSource".equals(beanName) ? new SlowDataSource((DataSource) bean) : bean;
+        }
+      };
+    }
+  }
+
+  // Задержка выдерживается внутри выполнения команды, то есть при занятом соединении из пула
+  private static final class SlowDataSource extends DelegatingDataSource {
+    SlowDataSource(DataSource targetDataSource) {
+      super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      return slowConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+      return slowConnection(super.getConnection(username, password));
+    }
+
+    private static Connection slowConnection(Connection connection) {
+      return proxy(
+          Connection.class,
+          (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (Statement.class.isAssignableFrom(method.getReturnType())) {
+              return slowStatement(method.getReturnType(), result);
+            }
+            return result;
+          });
+    }
+
+    private static Object slowStatement(Class<?> type, Object statement) {
+      return proxy(
+          type,
+          (proxy, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+              Thread.sleep(JDBC_LATENCY_MS);
+            }
+            return invoke(statement, method, args);
+          });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+      return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+      try {
+        return method.invoke(target, args);
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+    }
+  }
+}
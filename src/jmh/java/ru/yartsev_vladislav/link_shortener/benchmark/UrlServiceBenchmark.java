@@ -0,0 +1,44 @@
+package ru.yartsev_vladislav.link_shortener.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.yartsev_vladislav.link_shortener.config.UrlConfig;
+import ru.yartsev_vladislav.link_shortener.service.HashSlugGenerator;
+import ru.yartsev_vladislav.link_shortener.service.UrlService;
+
+@State(Scope.Benchmark)
+public class UrlServiceBenchmark {
+  @Param({
+    "https://example.com",
+    "https://docs.example.com:8443/guide/getting-started?utm_source=newsletter&utm_medium=email"
+  })
+  public String url;
+
+  private static final String SALT = "f19b92f3-8a3e-4c63-9b77-1e9c50450fa1";
+
+  private UrlService urlService;
+
+  @Setup
+  public void setUp() {
+    urlService = new UrlService(new UrlConfig(), new HashSlugGenerator());
+  }
+
+  @Benchmark
+  public String generateLinkSlug() {
+    return urlService.generateLinkSlug(url, SALT);
+  }
+
+  @Benchmark
+  public String validateUrl() {
+    urlService.validateUrl(url);
+    return url;
+  }
+
+  @Benchmark
+  public String generateShortUrl() {
+    return urlService.generateShortUrl("3UmIUftimB9");
+  }
+}
@@ -0,0 +1,49 @@
+package ru.yartsev_vladislav.link_shortener.benchmark;
+
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.yartsev_vladislav.link_shortener.config.UrlConfig;
+import ru.yartsev_vladislav.link_shortener.service.HashSlugGenerator;
+import ru.yartsev_vladislav.link_shortener.service.UrlService;
+
+/** Однопроходный канонизатор URL против прежней проверки регуляркой. */
+@State(Scope.Benchmark)
+public class UrlValidationBenchmark {
+  private static final String URL_REGEX = "^(https?)://([\\w.-]+)(:[0-9]+)?(/.*)?$";
+  private static final Pattern URL_PATTERN = Pattern.compile(URL_REGEX);
+
+  @Param({
+    "https://example.com/",
+    "HTTPS://Example.COM:443",
+    "https://docs.example.com:8443/guide/getting-started?utm_source=newsletter&utm_medium=email",
+    "https://example.com/%7euser/files?name=%d0%bf%d1%80%d0%b8%d0%bc%d0%b5%d1%80"
+  })
+  public String url;
+
+  private UrlService urlService;
+
+  @Setup
+  public void setUp() {
+    urlService = new UrlService(new UrlConfig(), new HashSlugGenerator());
+  }
+
+  @Benchmark
+  public String canonicalizeUrl() {
+    return urlService.canonicalizeUrl(url);
+  }
+
+  // Прежняя реализация validateUrl: регулярка компилировалась на каждый вызов
+  @Benchmark
+  public boolean regexCompiledPerCall() {
+    return Pattern.compile(URL_REGEX).matcher(url).matches();
+  }
+
+  @Benchmark
+  public boolean regexPrecompiled() {
+    return URL_PATTERN.matcher(url).matches();
+  }
+}
@@ -2,10 +2,8 @@ package ru.yartsev_vladislav.link_shortener;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableScheduling
 public class LinkShortenerApplication {
 
   public static void main(String[] args) {
@@ -0,0 +1,14 @@
+package ru.yartsev_vladislav.link_shortener;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Задачи по расписанию (очистка, секции, фильтр slug, аналитика, инвалидация) выполняются только
+ * при обслуживании запросов: в режиме импорта ({@code link.import.file} задан) они не запускаются.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnExpression("'${link.import.file:}'.isEmpty()")
+public class SchedulingConfiguration {}
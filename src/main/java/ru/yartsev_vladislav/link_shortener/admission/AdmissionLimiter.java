@@ -0,0 +1,150 @@
+package ru.yartsev_vladislav.link_shortener.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.yartsev_vladislav.link_shortener.config.LinkAdmissionConfig;
+import ru.yartsev_vladislav.link_shortener.model.AdmissionStatsResult;
+
+/**
+ * Адаптивный лимит одновременных переходов и созданий ссылок.
+ *
+ * <p>Когда БД замедляется, запросы сверх лимита получают 503 сразу, а не ждут соединения из пула,
+ * поэтому задержка принятых запросов остаётся ограниченной. Лимит подбирается по AIMD: запрос
+ * дольше {@code link.admission.target-latency-ms} уменьшает его в {@code
+ * link.admission.backoff-ratio} раз, быстрые запросы при занятом лимите увеличивают его примерно на
+ * единицу за каждые {@code limit} запросов. Созданию ссылок доступна только доля лимита {@code
+ * link.admission.create-limit-ratio}, поэтому при перегрузке первыми отклоняются они, а не
+ * переходы. Пакетному созданию доступна ещё меньшая доля {@code link.admission.batch-limit-ratio}.
+ */
+@Component
+public class AdmissionLimiter {
+  public enum Priority {
+    REDIRECT,
+    CREATE,
+    BATCH
+  }
+
+  private final LinkAdmissionConfig linkAdmissionConfig;
+  private final long targetLatencyNanos;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  // Лимит меняется только под блокировкой, а читается при каждом запросе без неё
+  private final ReentrantLock limitLock = new ReentrantLock();
+  private volatile double limit;
+  private long lastDecreaseAt;
+  private final LongAdder admitted = new LongAdder();
+  private final LongAdder rejectedRedirects = new LongAdder();
+  private final LongAdder rejectedCreates = new LongAdder();
+
+  @Autowired
+  public AdmissionLimiter(LinkAdmissionConfig linkAdmissionConfig) {
+    if (linkAdmissionConfig.getMinLimit() <= 0
+        || linkAdmissionConfig.getMinLimit() > linkAdmissionConfig.getMaxLimit()) {
+      throw new IllegalArgumentException("Admission limits should satisfy 0 < min <= max");
+    }
+    this.linkAdmissionConfig = linkAdmissionConfig;
+    this.targetLatencyNanos =
+        TimeUnit.MILLISECONDS.toNanos(linkAdmissionConfig.getTargetLatencyMs());
+    this.limit =
+        Math.clamp(
+            linkAdmissionConfig.getInitialLimit(),
+            linkAdmissionConfig.getMinLimit(),
+            linkAdmissionConfig.getMaxLimit());
+    this.lastDecreaseAt = System.nanoTime() - targetLatencyNanos;
+  }
+
+  public boolean isEnabled() {
+    return linkAdmissionConfig.isEnabled();
+  }
+
+  public int getRetryAfterSeconds() {
+    return linkAdmissionConfig.getRetryAfterSeconds();
+  }
+
+  // Занимает место под запрос; при true вызывающий обязан вызвать release
+  public boolean tryAcquire(Priority priority) {
+    if (!linkAdmissionConfig.isEnabled()) {
+      return true;
+    }
+
+    int allowed = allowed(priority);
+    while (true) {
+      int current = inFlight.get();
+      if (current >= allowed) {
+        (priority == Priority.REDIRECT ? rejectedRedirects : rejectedCreates).increment();
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        admitted.increment();
+        return true;
+      }
+    }
+  }
+
+  // startedAt — System.nanoTime() до tryAcquire
+  public void release(long startedAt) {
+    if (!linkAdmissionConfig.isEnabled()) {
+      return;
+    }
+
+    int current = inFlight.getAndDecrement();
+    long now = System.nanoTime();
+    onSample(now - startedAt, current, now);
+  }
+
+  // Освобождает место без замера задержки: длительность пакета не говорит о перегрузке БД
+  public void releaseWithoutSample() {
+    if (!linkAdmissionConfig.isEnabled()) {
+      return;
+    }
+
+    inFlight.decrementAndGet();
+  }
+
+  void onSample(long latencyNanos, int inFlightBeforeRelease, long now) {
+    limitLock.lock();
+    try {
+      if (latencyNanos > targetLatencyNanos) {
+        // Запросы, застрявшие в одной волне перегрузки, завершаются пачкой: без паузы между
+        // уменьшениями они сразу сбросили бы лимит до минимума
+        if (now - lastDecreaseAt >= targetLatencyNanos) {
+          limit = Math.max(linkAdmissionConfig.getMinLimit(), limit * backoffRatio());
+          lastDecreaseAt = now;
+        }
+      } else if (inFlightBeforeRelease * 2 >= limit) {
+        // При малой нагрузке лимит не проверяется, поэтому и не растёт
+        limit = Math.min(linkAdmissionConfig.getMaxLimit(), limit + 1 / limit);
+      }
+    } finally {
+      limitLock.unlock();
+    }
+  }
+
+  int allowed(Priority priority) {
+    if (priority == Priority.REDIRECT) {
+      return (int) limit;
+    }
+    double ratio =
+        priority == Priority.BATCH
+            ? linkAdmissionConfig.getBatchLimitRatio()
+            : linkAdmissionConfig.getCreateLimitRatio();
+    return Math.max(1, (int) (limit * ratio));
+  }
+
+  public AdmissionStatsResult getStats() {
+    return new AdmissionStatsResult(
+        linkAdmissionConfig.isEnabled(),
+        (int) limit,
+        inFlight.get(),
+        admitted.sum(),
+        rejectedRedirects.sum(),
+        rejectedCreates.sum());
+  }
+
+  private double backoffRatio() {
+    return Math.clamp(linkAdmissionConfig.getBackoffRatio(), 0.1, 0.99);
+  }
+}
@@ -0,0 +1,288 @@
+package ru.yartsev_vladislav.link_shortener.analytics;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yartsev_vladislav.link_shortener.config.ClickAnalyticsConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkConfig;
+import ru.yartsev_vladislav.link_shortener.model.ClickAnalyticsStatsResult;
+import ru.yartsev_vladislav.link_shortener.model.ClickSeriesPoint;
+
+/**
+ * Асинхронная аналитика переходов.
+ *
+ * <p>Переход только кладёт событие в {@link ClickEventRingBuffer} без блокировок и запросов к БД.
+ * Фоновая задача раз в {@code link.analytics.flush-delay-ms} забирает события пакетами по {@code
+ * link.analytics.batch-size} и одной транзакцией дописывает их в журнал {@code link_clicks} и
+ * увеличивает почасовые итоги в {@code link_click_rollups}, по которым строятся временные ряды.
+ * Если буфер заполнен, новые события отбрасываются, а при ошибке записи в БД теряется пакет: на
+ * переходы по ссылкам аналитика не влияет. Оба случая учитываются в статистике.
+ *
+ * <p>Итоги удалённой или истёкшей ссылки удаляются вместе с ней, чтобы новая ссылка с тем же slug
+ * не унаследовала чужую историю. Журнал и оставшиеся итоги старше срока жизни ссылок с запасом
+ * {@code link.analytics.retention-margin-hours} удаляются раз в {@code
+ * link.analytics.retention-delay-ms} частями по {@code link.analytics.batch-size} строк.
+ */
+@Component
+public class ClickAnalytics {
+  private static final Logger log = LoggerFactory.getLogger(ClickAnalytics.class);
+  private static final String INSERT_CLICK_SQL =
+      "INSERT INTO link_clicks (slug, clicked_at, referrer, user_agent_class, country) "
+          + "VALUES (?, ?, ?, ?, ?)";
+  private static final String UPDATE_ROLLUP_SQL =
+      "UPDATE link_click_rollups SET clicks = clicks + ? WHERE slug = ? AND bucket_start = ?";
+  private static final String INSERT_ROLLUP_SQL =
+      "INSERT INTO link_click_rollups (slug, bucket_start, clicks) VALUES (?, ?, ?)";
+  private static final String SELECT_SERIES_SQL =
+      "SELECT bucket_start, clicks FROM link_click_rollups "
+          + "WHERE slug = ? AND bucket_start >= ? AND bucket_start < ? ORDER BY bucket_start";
+  private static final String DELETE_SLUG_ROLLUPS_SQL =
+      "DELETE FROM link_click_rollups WHERE slug = ?";
+  // Части выбираются по индексам clicked_at и bucket_start, чтобы не держать длинную транзакцию
+  private static final String DELETE_EXPIRED_CLICKS_SQL =
+      "DELETE FROM link_clicks WHERE id IN "
+          + "(SELECT id FROM link_clicks WHERE clicked_at < ? ORDER BY clicked_at LIMIT ?)";
+  private static final String DELETE_EXPIRED_ROLLUPS_SQL =
+      "DELETE FROM link_click_rollups WHERE (slug, bucket_start) IN "
+          + "(SELECT slug, bucket_start FROM link_click_rollups WHERE bucket_start < ? "
+          + "ORDER BY bucket_start LIMIT ?)";
+  private static final int MAX_REFERRER_LENGTH = 512;
+  private static final int MAX_COUNTRY_LENGTH = 8;
+  private static final int PERSIST_ATTEMPTS = 2;
+
+  private final ClickAnalyticsConfig clickAnalyticsConfig;
+  private final LinkConfig linkConfig;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ClickEventRingBuffer buffer;
+  // Потребитель буфера должен быть один: плановый сброс и сброс при остановке не пересекаются
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private final LongAdder accepted = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder persisted = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+
+  @Autowired
+  public ClickAnalytics(
+      ClickAnalyticsConfig clickAnalyticsConfig,
+      LinkConfig linkConfig,
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate) {
+    this.clickAnalyticsConfig = clickAnalyticsConfig;
+    this.linkConfig = linkConfig;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.buffer = new ClickEventRingBuffer(clickAnalyticsConfig.getBufferCapacity());
+  }
+
+  public void record(String slug, String referrer, String userAgent, String country) {
+    if (!clickAnalyticsConfig.isEnabled()) {
+      return;
+    }
+
+    ClickEvent event =
+        new ClickEvent(slug, System.currentTimeMillis(), referrer, userAgent, country);
+    if (buffer.offer(event)) {
+      accepted.increment();
+    } else {
+      dropped.increment();
+    }
+  }
+
+  public String getCountryHeader() {
+    return clickAnalyticsConfig.getCountryHeader();
+  }
+
+  @Scheduled(fixedDelayString = "${link.analytics.flush-delay-ms}")
+  public void flush() {
+    flushLock.lock();
+    try {
+      // Не больше одного буфера за запуск, чтобы непрерывный поток переходов не занял задачу
+      int drained = 0;
+      int batchSize = clickAnalyticsConfig.getBatchSize();
+      while (drained < buffer.getCapacity()) {
+        List<ClickEvent> batch = pollBatch(batchSize);
+        if (batch.isEmpty()) {
+          return;
+        }
+        persist(batch);
+        drained += batch.size();
+        if (batch.size() < batchSize) {
+          return;
+        }
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    flush();
+  }
+
+  // Почасовой ряд читается только из итогов, без обращения к журналу переходов
+  public List<ClickSeriesPoint> getSeries(String slug, LocalDateTime from, LocalDateTime to) {
+    return jdbcTemplate.query(
+        SELECT_SERIES_SQL,
+        (resultSet, rowNum) ->
+            new ClickSeriesPoint(
+                resultSet.getObject(1, LocalDateTime.class), resultSet.getLong(2)),
+        slug,
+        from,
+        to);
+  }
+
+  // Удаляет итоги удалённых ссылок; их журнал остаётся до удаления по сроку хранения
+  public void forget(Collection<String> slugs) {
+    if (!clickAnalyticsConfig.isEnabled() || slugs.isEmpty()) {
+      return;
+    }
+
+    try {
+      jdbcTemplate.batchUpdate(
+          DELETE_SLUG_ROLLUPS_SQL,
+          slugs,
+          clickAnalyticsConfig.getBatchSize(),
+          (statement, slug) -> statement.setString(1, slug));
+    } catch (DataAccessException e) {
+      log.warn("Could not delete click rollups of {} links", slugs.size(), e);
+    }
+  }
+
+  // Выполняется и при выключенной аналитике: записанные раньше переходы тоже нужно удалить
+  @Scheduled(fixedDelayString = "${link.analytics.retention-delay-ms}")
+  public void deleteExpiredClicks() {
+    LocalDateTime threshold =
+        LocalDateTime.now()
+            .minusSeconds(linkConfig.getTimeToLeave())
+            .minusHours(clickAnalyticsConfig.getRetentionMarginHours());
+    try {
+      long clicks = deleteChunked(DELETE_EXPIRED_CLICKS_SQL, threshold);
+      long rollups = deleteChunked(DELETE_EXPIRED_ROLLUPS_SQL, threshold);
+      if (clicks > 0 || rollups > 0) {
+        log.info(
+            "Deleted {} click events and {} click rollups older than {}",
+            clicks,
+            rollups,
+            threshold);
+      }
+    } catch (DataAccessException e) {
+      log.warn("Could not delete click events older than {}", threshold, e);
+    }
+  }
+
+  public ClickAnalyticsStatsResult getStats() {
+    return new ClickAnalyticsStatsResult(
+        clickAnalyticsConfig.isEnabled(),
+        buffer.getCapacity(),
+        buffer.size(),
+        accepted.sum(),
+        dropped.sum(),
+        persisted.sum(),
+        failed.sum());
+  }
+
+  private List<ClickEvent> pollBatch(int batchSize) {
+    List<ClickEvent> batch = new ArrayList<>();
+    ClickEvent event;
+    while (batch.size() < batchSize && (event = buffer.poll()) != null) {
+      batch.add(event);
+    }
+    return batch;
+  }
+
+  private long deleteChunked(String sql, LocalDateTime threshold) {
+    int chunkSize = clickAnalyticsConfig.getBatchSize();
+    long deleted = 0;
+    int chunk;
+    do {
+      chunk = jdbcTemplate.update(sql, threshold, chunkSize);
+      deleted += chunk;
+    } while (chunk >= chunkSize && !Thread.currentThread().isInterrupted());
+    return deleted;
+  }
+
+  private void persist(List<ClickEvent> batch) {
+    List<Object[]> clicks = new ArrayList<>(batch.size());
+    Map<RollupKey, Long> rollups = new LinkedHashMap<>();
+    for (ClickEvent event : batch) {
+      LocalDateTime clickedAt =
+          LocalDateTime.ofInstant(
+              Instant.ofEpochMilli(event.clickedAtMillis()), ZoneId.systemDefault());
+      clicks.add(
+          new Object[] {
+            event.slug(),
+            clickedAt,
+            truncate(event.referrer(), MAX_REFERRER_LENGTH),
+            UserAgentClass.of(event.userAgent()).name(),
+            truncate(event.country(), MAX_COUNTRY_LENGTH)
+          });
+      rollups.merge(
+          new RollupKey(event.slug(), clickedAt.truncatedTo(ChronoUnit.HOURS)), 1L, Long::sum);
+    }
+
+    for (int attempt = 1; attempt <= PERSIST_ATTEMPTS; attempt++) {
+      try {
+        transactionTemplate.executeWithoutResult(
+            status -> {
+              jdbcTemplate.batchUpdate(INSERT_CLICK_SQL, clicks);
+              incrementRollups(rollups);
+            });
+        persisted.add(batch.size());
+        return;
+      } catch (DuplicateKeyException e) {
+        // Строку часа одновременно вставил другой экземпляр: при повторе она увеличится UPDATE
+        if (attempt == PERSIST_ATTEMPTS) {
+          failed.add(batch.size());
+          log.warn("Could not persist {} click events", batch.size(), e);
+        }
+      } catch (DataAccessException e) {
+        failed.add(batch.size());
+        log.warn("Could not persist {} click events", batch.size(), e);
+        return;
+      }
+    }
+  }
+
+  private void incrementRollups(Map<RollupKey, Long> rollups) {
+    List<Object[]> updates = new ArrayList<>(rollups.size());
+    rollups.forEach((key, clicks) -> updates.add(new Object[] {clicks, key.slug, key.bucketStart}));
+    int[] updated = jdbcTemplate.batchUpdate(UPDATE_ROLLUP_SQL, updates);
+
+    List<Object[]> inserts = new ArrayList<>();
+    for (int i = 0; i < updated.length; i++) {
+      if (updated[i] == 0) {
+        Object[] update = updates.get(i);
+        inserts.add(new Object[] {update[1], update[2], update[0]});
+      }
+    }
+    if (!inserts.isEmpty()) {
+      jdbcTemplate.batchUpdate(INSERT_ROLLUP_SQL, inserts);
+    }
+  }
+
+  private static String truncate(String value, int maxLength) {
+    return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+  }
+
+  private record RollupKey(String slug, LocalDateTime bucketStart) {}
+}
@@ -0,0 +1,5 @@
+package ru.yartsev_vladislav.link_shortener.analytics;
+
+// Заголовки хранятся как есть: разбор откладывается до фоновой записи, чтобы не задерживать переход
+public record ClickEvent(
+    String slug, long clickedAtMillis, String referrer, String userAgent, String country) {}
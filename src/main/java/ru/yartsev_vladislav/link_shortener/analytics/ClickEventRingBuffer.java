@@ -0,0 +1,85 @@
+package ru.yartsev_vladislav.link_shortener.analytics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Ограниченный неблокирующий кольцевой буфер для многих производителей и одного потребителя.
+ *
+ * <p>Каждая ячейка хранит номер последовательности (схема Д. Вьюкова): производитель занимает
+ * позицию одним CAS по хвосту и публикует событие записью номера ячейки, а потребитель читает
+ * только опубликованные ячейки. Добавление не ждёт ни блокировок, ни потребителя: если буфер
+ * заполнен, {@link #offer} сразу возвращает {@code false}, и событие отбрасывается.
+ */
+public final class ClickEventRingBuffer {
+  private final int capacity;
+  private final int mask;
+  private final AtomicReferenceArray<ClickEvent> events;
+  private final AtomicLongArray sequences;
+  private final AtomicLong tail = new AtomicLong();
+  // Меняется только потребителем; volatile, чтобы размер можно было читать из других потоков
+  private volatile long head;
+
+  public ClickEventRingBuffer(int requestedCapacity) {
+    if (requestedCapacity <= 0 || requestedCapacity > 1 << 30) {
+      throw new IllegalArgumentException("Buffer capacity should be between 1 and 2^30");
+    }
+
+    // Степень двойки: номер ячейки получается маской вместо деления
+    capacity = requestedCapacity == 1 ? 1 : Integer.highestOneBit(requestedCapacity - 1) << 1;
+    mask = capacity - 1;
+    events = new AtomicReferenceArray<>(capacity);
+    sequences = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      sequences.set(i, i);
+    }
+  }
+
+  // Может вызываться из любого числа потоков
+  public boolean offer(ClickEvent event) {
+    long position = tail.get();
+    while (true) {
+      int index = (int) position & mask;
+      long distance = sequences.get(index) - position;
+      if (distance == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          events.set(index, event);
+          sequences.set(index, position + 1);
+          return true;
+        }
+        position = tail.get();
+      } else if (distance < 0) {
+        // Ячейку ещё не освободил потребитель: буфер заполнен
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  // Вызывается только одним потребителем
+  public ClickEvent poll() {
+    long position = head;
+    int index = (int) position & mask;
+    if (sequences.get(index) != position + 1) {
+      return null;
+    }
+
+    ClickEvent event = events.get(index);
+    events.set(index, null);
+    sequences.set(index, position + capacity);
+    head = position + 1;
+    return event;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  // Приблизительно: значение может устареть сразу после чтения
+  public int size() {
+    long size = tail.get() - head;
+    return (int) Math.max(0, Math.min(size, capacity));
+  }
+}
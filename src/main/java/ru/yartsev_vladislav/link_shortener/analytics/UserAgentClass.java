@@ -0,0 +1,37 @@
+package ru.yartsev_vladislav.link_shortener.analytics;
+
+import java.util.Locale;
+
+public enum UserAgentClass {
+  BOT,
+  MOBILE,
+  DESKTOP,
+  UNKNOWN;
+
+  private static final String[] BOT_MARKERS = {"bot", "crawl", "spider", "curl", "wget", "python"};
+  private static final String[] MOBILE_MARKERS = {"mobi", "android", "iphone", "ipad"};
+
+  public static UserAgentClass of(String userAgent) {
+    if (userAgent == null || userAgent.isBlank()) {
+      return UNKNOWN;
+    }
+
+    String value = userAgent.toLowerCase(Locale.ROOT);
+    if (containsAny(value, BOT_MARKERS)) {
+      return BOT;
+    }
+    if (containsAny(value, MOBILE_MARKERS)) {
+      return MOBILE;
+    }
+    return DESKTOP;
+  }
+
+  private static boolean containsAny(String value, String[] markers) {
+    for (String marker : markers) {
+      if (value.contains(marker)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
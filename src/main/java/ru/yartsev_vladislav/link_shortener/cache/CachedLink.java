@@ -0,0 +1,18 @@
+package ru.yartsev_vladislav.link_shortener.cache;
+
+import java.time.LocalDateTime;
+import ru.yartsev_vladislav.link_shortener.entity.Link;
+import ru.yartsev_vladislav.link_shortener.repository.LinkRedirectView;
+
+// Снимок полей ссылки, которые не меняются при переходе по ней
+public record CachedLink(
+    String slug, String fullUrl, Integer attemptsLimit, LocalDateTime createdAt) {
+  public static CachedLink of(Link link) {
+    return new CachedLink(
+        link.getSlug(), link.getFullUrl(), link.getAttemptsLimit(), link.getCreatedAt());
+  }
+
+  public static CachedLink of(LinkRedirectView view) {
+    return new CachedLink(view.slug(), view.fullUrl(), view.attemptsLimit(), view.createdAt());
+  }
+}
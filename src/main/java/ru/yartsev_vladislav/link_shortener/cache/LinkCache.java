@@ -0,0 +1,100 @@
+package ru.yartsev_vladislav.link_shortener.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.yartsev_vladislav.link_shortener.config.LinkCacheConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkConfig;
+import ru.yartsev_vladislav.link_shortener.entity.Link;
+
+/**
+ * Ограниченный по размеру и времени жизни кэш slug -> ссылка перед {@code LinkRepository}.
+ *
+ * <p>Запись никогда не переживает срок жизни самой ссылки ({@code createdAt + link.time-to-leave}),
+ * поэтому истёкшая ссылка не может быть отдана из кэша.
+ */
+@Component
+public class LinkCache {
+  private final Cache<String, CachedLink> cache;
+
+  @Autowired
+  public LinkCache(LinkCacheConfig cacheConfig, LinkConfig linkConfig) {
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(cacheConfig.getMaximumSize())
+            .expireAfter(
+                new LinkExpiry(
+                    Duration.ofSeconds(cacheConfig.getTimeToLive()),
+                    Duration.ofSeconds(linkConfig.getTimeToLeave())))
+            .recordStats()
+            .build();
+  }
+
+  public CachedLink get(String slug) {
+    return cache.getIfPresent(slug);
+  }
+
+  public void put(Link link) {
+    put(CachedLink.of(link));
+  }
+
+  public void put(CachedLink link) {
+    cache.put(link.slug(), link);
+  }
+
+  public void invalidate(String slug) {
+    cache.invalidate(slug);
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  public CacheStats getStats() {
+    return cache.stats();
+  }
+
+  public long getSize() {
+    return cache.estimatedSize();
+  }
+
+  private static class LinkExpiry implements Expiry<String, CachedLink> {
+    private final long timeToLiveNanos;
+    private final Duration linkTimeToLeave;
+
+    LinkExpiry(Duration timeToLive, Duration linkTimeToLeave) {
+      this.timeToLiveNanos = timeToLive.toNanos();
+      this.linkTimeToLeave = linkTimeToLeave;
+    }
+
+    @Override
+    public long expireAfterCreate(String slug, CachedLink link, long currentTime) {
+      LocalDateTime expirationTime = link.createdAt().plus(linkTimeToLeave);
+      Duration untilExpiration = Duration.between(LocalDateTime.now(), expirationTime);
+      if (untilExpiration.isNegative()) {
+        return 0;
+      }
+      if (untilExpiration.compareTo(Duration.ofNanos(timeToLiveNanos)) >= 0) {
+        return timeToLiveNanos;
+      }
+      return untilExpiration.toNanos();
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        String slug, CachedLink link, long currentTime, long currentDuration) {
+      return expireAfterCreate(slug, link, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(
+        String slug, CachedLink link, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
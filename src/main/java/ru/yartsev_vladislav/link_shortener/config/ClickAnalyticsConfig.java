@@ -0,0 +1,78 @@
+package ru.yartsev_vladislav.link_shortener.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "link.analytics")
+public class ClickAnalyticsConfig {
+  private boolean enabled = true;
+  // Округляется вверх до степени двойки; переходы сверх ёмкости отбрасываются
+  private int bufferCapacity = 65_536;
+  // Сколько событий записывается одной транзакцией
+  private int batchSize = 1_000;
+  // Выражается в миллисекундах
+  private long flushDelayMs = 1_000;
+  // Заголовок со страной клиента, который проставляет балансировщик или CDN
+  private String countryHeader = "CF-IPCountry";
+  // Выражается в часах: сколько журнал и итоги хранятся сверх срока жизни ссылки
+  private long retentionMarginHours = 24;
+  // Выражается в миллисекундах: период удаления устаревших переходов
+  private long retentionDelayMs = 3_600_000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getBufferCapacity() {
+    return bufferCapacity;
+  }
+
+  public void setBufferCapacity(int bufferCapacity) {
+    this.bufferCapacity = bufferCapacity;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public long getFlushDelayMs() {
+    return flushDelayMs;
+  }
+
+  public void setFlushDelayMs(long flushDelayMs) {
+    this.flushDelayMs = flushDelayMs;
+  }
+
+  public String getCountryHeader() {
+    return countryHeader;
+  }
+
+  public void setCountryHeader(String countryHeader) {
+    this.countryHeader = countryHeader;
+  }
+
+  public long getRetentionMarginHours() {
+    return retentionMarginHours;
+  }
+
+  public void setRetentionMarginHours(long retentionMarginHours) {
+    this.retentionMarginHours = retentionMarginHours;
+  }
+
+  public long getRetentionDelayMs() {
+    return retentionDelayMs;
+  }
+
+  public void setRetentionDelayMs(long retentionDelayMs) {
+    this.retentionDelayMs = retentionDelayMs;
+  }
+}
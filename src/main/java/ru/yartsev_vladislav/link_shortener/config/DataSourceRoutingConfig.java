@@ -0,0 +1,60 @@
+package ru.yartsev_vladislav.link_shortener.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "datasource.routing")
+public class DataSourceRoutingConfig {
+  // JDBC URL реплик только для чтения; пока список пуст, все запросы идут в основную БД
+  private List<String> replicaUrls = new ArrayList<>();
+  // Если не заданы, используются учётные данные основной БД
+  private String replicaUsername;
+  private String replicaPassword;
+  // Допустимое отставание реплик в миллисекундах: столько после записи ключ читается из основной БД
+  private long replicaLagMs = 5_000;
+  // Перепроверять в основной БД ссылку, которой не оказалось на реплике
+  private boolean fallbackToPrimary = true;
+
+  public List<String> getReplicaUrls() {
+    return replicaUrls;
+  }
+
+  public void setReplicaUrls(List<String> replicaUrls) {
+    this.replicaUrls = replicaUrls;
+  }
+
+  public String getReplicaUsername() {
+    return replicaUsername;
+  }
+
+  public void setReplicaUsername(String replicaUsername) {
+    this.replicaUsername = replicaUsername;
+  }
+
+  public String getReplicaPassword() {
+    return replicaPassword;
+  }
+
+  public void setReplicaPassword(String replicaPassword) {
+    this.replicaPassword = replicaPassword;
+  }
+
+  public long getReplicaLagMs() {
+    return replicaLagMs;
+  }
+
+  public void setReplicaLagMs(long replicaLagMs) {
+    this.replicaLagMs = replicaLagMs;
+  }
+
+  public boolean isFallbackToPrimary() {
+    return fallbackToPrimary;
+  }
+
+  public void setFallbackToPrimary(boolean fallbackToPrimary) {
+    this.fallbackToPrimary = fallbackToPrimary;
+  }
+}
@@ -0,0 +1,96 @@
+package ru.yartsev_vladislav.link_shortener.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "link.admission")
+public class LinkAdmissionConfig {
+  private boolean enabled = true;
+  // Сколько переходов и созданий ссылок выполняются одновременно до первых замеров задержки
+  private int initialLimit = 50;
+  private int minLimit = 10;
+  private int maxLimit = 500;
+  // Выражается в миллисекундах: запрос дольше этого считается признаком перегрузки
+  private long targetLatencyMs = 250;
+  // Во сколько раз уменьшается лимит при перегрузке
+  private double backoffRatio = 0.9;
+  // Доля лимита, доступная созданию ссылок: остаток зарезервирован за переходами
+  private double createLimitRatio = 0.5;
+  // Доля лимита, доступная пакетному созданию: пакет занимает место на всё время записи ответа
+  private double batchLimitRatio = 0.2;
+  // Выражается в секундах: значение заголовка Retry-After в ответе 503
+  private int retryAfterSeconds = 1;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getInitialLimit() {
+    return initialLimit;
+  }
+
+  public void setInitialLimit(int initialLimit) {
+    this.initialLimit = initialLimit;
+  }
+
+  public int getMinLimit() {
+    return minLimit;
+  }
+
+  public void setMinLimit(int minLimit) {
+    this.minLimit = minLimit;
+  }
+
+  public int getMaxLimit() {
+    return maxLimit;
+  }
+
+  public void setMaxLimit(int maxLimit) {
+    this.maxLimit = maxLimit;
+  }
+
+  public long getTargetLatencyMs() {
+    return targetLatencyMs;
+  }
+
+  public void setTargetLatencyMs(long targetLatencyMs) {
+    this.targetLatencyMs = targetLatencyMs;
+  }
+
+  public double getBackoffRatio() {
+    return backoffRatio;
+  }
+
+  public void setBackoffRatio(double backoffRatio) {
+    this.backoffRatio = backoffRatio;
+  }
+
+  public double getCreateLimitRatio() {
+    return createLimitRatio;
+  }
+
+  public void setCreateLimitRatio(double createLimitRatio) {
+    this.createLimitRatio = createLimitRatio;
+  }
+
+  public double getBatchLimitRatio() {
+    return batchLimitRatio;
+  }
+
+  public void setBatchLimitRatio(double batchLimitRatio) {
+    this.batchLimitRatio = batchLimitRatio;
+  }
+
+  public int getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+
+  public void setRetryAfterSeconds(int retryAfterSeconds) {
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+}
@@ -0,0 +1,29 @@
+package ru.yartsev_vladislav.link_shortener.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "link.batch")
+public class LinkBatchConfig {
+  // Сколько ссылок обрабатывается за один проход: один запрос дубликатов, один запрос slug и
+  // одна пакетная вставка
+  private int chunkSize = 500;
+  private int maxSize = 10_000;
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  public void setChunkSize(int chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+  }
+}
@@ -0,0 +1,28 @@
+package ru.yartsev_vladislav.link_shortener.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "link.cache")
+public class LinkCacheConfig {
+  private long maximumSize = 100_000;
+  // Выражается в секундах
+  private long timeToLive = 600;
+
+  public long getMaximumSize() {
+    return maximumSize;
+  }
+
+  public void setMaximumSize(long maximumSize) {
+    this.maximumSize = maximumSize;
+  }
+
+  public long getTimeToLive() {
+    return timeToLive;
+  }
+
+  public void setTimeToLive(long timeToLive) {
+    this.timeToLive = timeToLive;
+  }
+}
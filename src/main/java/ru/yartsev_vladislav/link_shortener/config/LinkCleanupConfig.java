@@ -0,0 +1,29 @@
+package ru.yartsev_vladislav.link_shortener.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "link.cleanup")
+public class LinkCleanupConfig {
+  // Сколько ссылок удаляется одной короткой транзакцией
+  private int chunkSize = 1_000;
+  // Выражается в миллисекундах; пауза между частями оставляет БД время на переходы по ссылкам
+  private long pauseMs = 100;
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  public void setChunkSize(int chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+
+  public long getPauseMs() {
+    return pauseMs;
+  }
+
+  public void setPauseMs(long pauseMs) {
+    this.pauseMs = pauseMs;
+  }
+}
@@ -0,0 +1,38 @@
+package ru.yartsev_vladislav.link_shortener.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "link.expiry")
+public class LinkExpiryConfig {
+  private boolean enabled = true;
+  // Выражается в миллисекундах; точность, с которой срабатывает истечение ссылки
+  private long tickMs = 100;
+  // Сверх этого числа ссылки не отслеживаются и удаляются только периодической очисткой
+  private int maxEntries = 1_000_000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getTickMs() {
+    return tickMs;
+  }
+
+  public void setTickMs(long tickMs) {
+    this.tickMs = tickMs;
+  }
+
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  public void setMaxEntries(int maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+}
@@ -0,0 +1,48 @@
+package ru.yartsev_vladislav.link_shortener.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "link.import")
+public class LinkImportConfig {
+  // Путь к CSV или NDJSON файлу; если не задан, приложение стартует в обычном режиме
+  private String file;
+  private int chunkSize = 5_000;
+  // Ссылки, срок жизни которых уже истёк, всё равно были бы удалены очисткой
+  private boolean skipExpired = true;
+  // Выражается в секундах
+  private long reportInterval = 10;
+
+  public String getFile() {
+    return file;
+  }
+
+  public void setFile(String file) {
+    this.file = file;
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  public void setChunkSize(int chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+
+  public boolean isSkipExpired() {
+    return skipExpired;
+  }
+
+  public void setSkipExpired(boolean skipExpired) {
+    this.skipExpired = skipExpired;
+  }
+
+  public long getReportInterval() {
+    return reportInterval;
+  }
+
+  public void setReportInterval(long reportInterval) {
+    this.reportInterval = reportInterval;
+  }
+}
@@ -0,0 +1,58 @@
+package ru.yartsev_vladislav.link_shortener.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "link.invalidation")
+public class LinkInvalidationConfig {
+  // Выключена по умолчанию: нужна PostgreSQL и несколько экземпляров приложения
+  private boolean enabled = false;
+  private String channel = "link_invalidation";
+  // Выражается в миллисекундах: за это время изменения slug копятся в одно уведомление
+  private long publishDelayMs = 50;
+  // Выражается в миллисекундах
+  private long pollDelayMs = 100;
+  // Выражается в миллисекундах: пауза перед повторным подключением и период проверки соединения
+  private long reconnectDelayMs = 5_000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public String getChannel() {
+    return channel;
+  }
+
+  public void setChannel(String channel) {
+    this.channel = channel;
+  }
+
+  public long getPublishDelayMs() {
+    return publishDelayMs;
+  }
+
+  public void setPublishDelayMs(long publishDelayMs) {
+    this.publishDelayMs = publishDelayMs;
+  }
+
+  public long getPollDelayMs() {
+    return pollDelayMs;
+  }
+
+  public void setPollDelayMs(long pollDelayMs) {
+    this.pollDelayMs = pollDelayMs;
+  }
+
+  public long getReconnectDelayMs() {
+    return reconnectDelayMs;
+  }
+
+  public void setReconnectDelayMs(long reconnectDelayMs) {
+    this.reconnectDelayMs = reconnectDelayMs;
+  }
+}
@@ -0,0 +1,50 @@
+package ru.yartsev_vladislav.link_shortener.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "link.partition")
+public class LinkPartitionConfig {
+  // Выключается только для БД, созданной без миграций (например, H2 в тестах)
+  private boolean enabled = true;
+  // Выражается в часах: 1 — секция на час, 24 — на сутки. Поиск по одному slug просматривает
+  // индексы всех секций, поэтому секций должно быть немного
+  private int intervalHours = 24;
+  // Выражается в часах: на сколько вперёд создаются секции
+  private int aheadHours = 48;
+  // Выражается в миллисекундах: период создания секций наперёд
+  private long maintenanceDelayMs = 600_000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getIntervalHours() {
+    return intervalHours;
+  }
+
+  public void setIntervalHours(int intervalHours) {
+    this.intervalHours = intervalHours;
+  }
+
+  public int getAheadHours() {
+    return aheadHours;
+  }
+
+  public void setAheadHours(int aheadHours) {
+    this.aheadHours = aheadHours;
+  }
+
+  public long getMaintenanceDelayMs() {
+    return maintenanceDelayMs;
+  }
+
+  public void setMaintenanceDelayMs(long maintenanceDelayMs) {
+    this.maintenanceDelayMs = maintenanceDelayMs;
+  }
+}
@@ -0,0 +1,60 @@
+package ru.yartsev_vladislav.link_shortener.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "link.redirect")
+public class LinkRedirectConfig {
+  // Разрешать браузерам и CDN кэшировать переходы по ссылкам без лимита
+  private boolean cacheEnabled = false;
+  // Код ответа кэшируемого перехода: 301, 302, 307 или 308
+  private int status = 302;
+  // Выражается в секундах: верхняя граница max-age, даже если ссылка живёт дольше. Удаление ссылки
+  // и установка лимита не доходят до кэшей браузеров и CDN, поэтому граница намного меньше TTL
+  private long maxAgeSeconds = 300;
+  // Отдавать ETag и Last-Modified и отвечать 304 на условные запросы
+  private boolean conditional = false;
+  // Обслуживать GET /{slug} фильтром в обход DispatcherServlet
+  private boolean fastPathEnabled = true;
+
+  public boolean isCacheEnabled() {
+    return cacheEnabled;
+  }
+
+  public void setCacheEnabled(boolean cacheEnabled) {
+    this.cacheEnabled = cacheEnabled;
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  public void setStatus(int status) {
+    this.status = status;
+  }
+
+  public long getMaxAgeSeconds() {
+    return maxAgeSeconds;
+  }
+
+  public void setMaxAgeSeconds(long maxAgeSeconds) {
+    this.maxAgeSeconds = maxAgeSeconds;
+  }
+
+  public boolean isConditional() {
+    return conditional;
+  }
+
+  public void setConditional(boolean conditional) {
+    this.conditional = conditional;
+  }
+
+  public boolean isFastPathEnabled() {
+    return fastPathEnabled;
+  }
+
+  public void setFastPathEnabled(boolean fastPathEnabled) {
+    this.fastPathEnabled = fastPathEnabled;
+  }
+}
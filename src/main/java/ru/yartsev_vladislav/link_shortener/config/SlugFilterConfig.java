@@ -0,0 +1,59 @@
+package ru.yartsev_vladislav.link_shortener.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "link.slug-filter")
+public class SlugFilterConfig {
+  // Выключен по умолчанию: ссылки, созданные другим экземпляром, фильтр видит только через
+  // рассылку link.invalidation или после перестроения
+  private boolean enabled = false;
+  // Минимальная ёмкость фильтра; при перестроении она растёт вместе с числом ссылок
+  private long expectedInsertions = 1_000_000;
+  private double falsePositiveRate = 0.01;
+  // Выражается в миллисекундах
+  private long rebuildDelayMs = 3_600_000;
+  // Выражается в миллисекундах: как часто проверять, не устарел ли фильтр раньше срока
+  private long dirtyRebuildDelayMs = 60_000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getExpectedInsertions() {
+    return expectedInsertions;
+  }
+
+  public void setExpectedInsertions(long expectedInsertions) {
+    this.expectedInsertions = expectedInsertions;
+  }
+
+  public double getFalsePositiveRate() {
+    return falsePositiveRate;
+  }
+
+  public void setFalsePositiveRate(double falsePositiveRate) {
+    this.falsePositiveRate = falsePositiveRate;
+  }
+
+  public long getRebuildDelayMs() {
+    return rebuildDelayMs;
+  }
+
+  public void setRebuildDelayMs(long rebuildDelayMs) {
+    this.rebuildDelayMs = rebuildDelayMs;
+  }
+
+  public long getDirtyRebuildDelayMs() {
+    return dirtyRebuildDelayMs;
+  }
+
+  public void setDirtyRebuildDelayMs(long dirtyRebuildDelayMs) {
+    this.dirtyRebuildDelayMs = dirtyRebuildDelayMs;
+  }
+}
@@ -0,0 +1,49 @@
+package ru.yartsev_vladislav.link_shortener.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "link.store")
+public class SlugStoreConfig {
+  // Выключено по умолчанию: изменения ссылок другими экземплярами хранилище не видит
+  private boolean enabled = false;
+  // Каталог для файлов slugs.idx и slugs.dat
+  private String path = "data/slug-store";
+  // Число слотов индекса, степень двойки; заполняется не больше чем на 3/4
+  private int capacity = 1 << 22;
+  // Наибольший размер журнала со slug и URL в байтах
+  private long maxDataBytes = 1L << 30;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  public void setPath(String path) {
+    this.path = path;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public void setCapacity(int capacity) {
+    this.capacity = capacity;
+  }
+
+  public long getMaxDataBytes() {
+    return maxDataBytes;
+  }
+
+  public void setMaxDataBytes(long maxDataBytes) {
+    this.maxDataBytes = maxDataBytes;
+  }
+}
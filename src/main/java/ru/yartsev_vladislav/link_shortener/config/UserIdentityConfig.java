@@ -0,0 +1,29 @@
+package ru.yartsev_vladislav.link_shortener.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "user.identity")
+public class UserIdentityConfig {
+  // Выдавать пользователям подписанные токены вместо записей в таблице users
+  private boolean signedTokens = false;
+  // Ключ HMAC; обязателен, если включены подписанные токены
+  private String secret = "";
+
+  public boolean isSignedTokens() {
+    return signedTokens;
+  }
+
+  public void setSignedTokens(boolean signedTokens) {
+    this.signedTokens = signedTokens;
+  }
+
+  public String getSecret() {
+    return secret;
+  }
+
+  public void setSecret(String secret) {
+    this.secret = secret;
+  }
+}
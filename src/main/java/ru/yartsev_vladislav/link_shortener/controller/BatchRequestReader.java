@@ -0,0 +1,87 @@
+package ru.yartsev_vladislav.link_shortener.controller;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import ru.yartsev_vladislav.link_shortener.model.CreateLinkOptions;
+
+/**
+ * Элементы JSON-массива из тела {@code POST /batch}, разбираемые по одному по мере обработки
+ * пакета: тело запроса не собирается в список целиком.
+ *
+ * <p>Некорректный JSON и превышение {@code maxSize} обнаруживаются во время чтения и сообщаются
+ * через {@link IllegalArgumentException}.
+ */
+final class BatchRequestReader implements Iterator<CreateLinkOptions>, Closeable {
+  private final ObjectMapper objectMapper;
+  private final JsonParser parser;
+  private final int maxSize;
+  private int read;
+  // Первый токен следующего элемента или END_ARRAY; null — ещё не прочитан
+  private JsonToken nextToken;
+
+  BatchRequestReader(ObjectMapper objectMapper, InputStream inputStream, int maxSize)
+      throws IOException {
+    this.objectMapper = objectMapper;
+    this.maxSize = maxSize;
+    this.parser = objectMapper.getFactory().createParser(inputStream);
+    try {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new IllegalArgumentException("Batch should be a JSON array");
+      }
+    } catch (JsonProcessingException | IllegalArgumentException e) {
+      parser.close();
+      throw new IllegalArgumentException("Batch should be a JSON array", e);
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (nextToken == null) {
+      try {
+        nextToken = parser.nextToken();
+      } catch (JsonProcessingException e) {
+        throw new IllegalArgumentException("Malformed batch: " + e.getOriginalMessage(), e);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      if (nextToken == null) {
+        throw new IllegalArgumentException("Malformed batch: unexpected end of input");
+      }
+    }
+    return nextToken != JsonToken.END_ARRAY;
+  }
+
+  @Override
+  public CreateLinkOptions next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    if (read == maxSize) {
+      throw new IllegalArgumentException(
+          String.format("Batch should contain at most %d links", maxSize));
+    }
+    nextToken = null;
+    read++;
+    try {
+      // Парсер стоит на первом токене элемента, null в массиве читается как null
+      return objectMapper.readValue(parser, CreateLinkOptions.class);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Malformed batch item: " + e.getOriginalMessage(), e);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    parser.close();
+  }
+}
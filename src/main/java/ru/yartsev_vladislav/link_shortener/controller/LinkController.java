@@ -1,14 +1,29 @@
 package ru.yartsev_vladislav.link_shortener.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,16 +32,29 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yartsev_vladislav.link_shortener.admission.AdmissionLimiter;
+import ru.yartsev_vladislav.link_shortener.admission.AdmissionLimiter.Priority;
+import ru.yartsev_vladislav.link_shortener.analytics.ClickAnalytics;
+import ru.yartsev_vladislav.link_shortener.config.LinkBatchConfig;
+import ru.yartsev_vladislav.link_shortener.entity.Link;
+import ru.yartsev_vladislav.link_shortener.entity.User;
+import ru.yartsev_vladislav.link_shortener.exception.FreeSlugIsNotFoundException;
 import ru.yartsev_vladislav.link_shortener.exception.LinkDoesNotExistException;
 import ru.yartsev_vladislav.link_shortener.exception.LinkHasExpiredException;
-import ru.yartsev_vladislav.link_shortener.exception.LinkLimitExceededException;
 import ru.yartsev_vladislav.link_shortener.exception.NotExpiredLinkAlreadyExistsException;
 import ru.yartsev_vladislav.link_shortener.exception.UserDoesNotExistException;
 import ru.yartsev_vladislav.link_shortener.exception.UserHasNotEnoughRightsException;
 import ru.yartsev_vladislav.link_shortener.exception.UserIsNotIdentifiedException;
+import ru.yartsev_vladislav.link_shortener.metrics.LinkMetrics;
+import ru.yartsev_vladislav.link_shortener.model.BatchCreateLinkResult;
 import ru.yartsev_vladislav.link_shortener.model.CreateLinkOptions;
+import ru.yartsev_vladislav.link_shortener.model.CreateLinkResult;
 import ru.yartsev_vladislav.link_shortener.model.EditLinkOptions;
+import ru.yartsev_vladislav.link_shortener.service.LinkBatchService;
+import ru.yartsev_vladislav.link_shortener.service.LinkListingService;
 import ru.yartsev_vladislav.link_shortener.service.LinkShortenerService;
 
 @RestController
@@ -34,11 +62,46 @@ import ru.yartsev_vladislav.link_shortener.service.LinkShortenerService;
     name = "Links",
     description = "Операции для создания, получения, редактирования и удаления коротких ссылок")
 public class LinkController {
+  private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+  private static final Duration MAX_CLICK_SERIES_RANGE = Duration.ofDays(31);
+
   private final LinkShortenerService linkShortenerService;
+  private final LinkBatchService linkBatchService;
+  private final LinkListingService linkListingService;
+  private final LinkBatchConfig linkBatchConfig;
+  private final ObjectMapper objectMapper;
+  private final LinkMetrics linkMetrics;
+  private final ClickAnalytics clickAnalytics;
+  private final AdmissionLimiter admissionLimiter;
+  private final RedirectHandler redirectHandler;
+  // Ответ при перегрузке зависит только от настроек и тоже собирается один раз
+  private final ResponseEntity<Object> overloaded;
 
   @Autowired
-  public LinkController(LinkShortenerService linkShortenerService) {
+  public LinkController(
+      LinkShortenerService linkShortenerService,
+      LinkBatchService linkBatchService,
+      LinkListingService linkListingService,
+      LinkBatchConfig linkBatchConfig,
+      ObjectMapper objectMapper,
+      LinkMetrics linkMetrics,
+      ClickAnalytics clickAnalytics,
+      AdmissionLimiter admissionLimiter,
+      RedirectHandler redirectHandler) {
     this.linkShortenerService = linkShortenerService;
+    this.linkBatchService = linkBatchService;
+    this.linkListingService = linkListingService;
+    this.linkBatchConfig = linkBatchConfig;
+    this.objectMapper = objectMapper;
+    this.linkMetrics = linkMetrics;
+    this.clickAnalytics = clickAnalytics;
+    this.admissionLimiter = admissionLimiter;
+    this.redirectHandler = redirectHandler;
+    this.overloaded =
+        ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(
+                HttpHeaders.RETRY_AFTER, String.valueOf(admissionLimiter.getRetryAfterSeconds()))
+            .body(Map.of("error", "Service is overloaded"));
   }
 
   @Operation(
@@ -52,7 +115,12 @@ public class LinkController {
     @ApiResponse(responseCode = "401", description = "Пользователь не найден", content = @Content),
     @ApiResponse(
         responseCode = "409",
-        description = "Такая ссылка уже существует и ещё не истекла",
+        description =
+            "Такая ссылка уже существует и ещё не истекла или все кандидаты slug для URL заняты",
+        content = @Content),
+    @ApiResponse(
+        responseCode = "503",
+        description = "Сервис перегружен, повторите через Retry-After секунд",
         content = @Content)
   })
   @PostMapping("/")
@@ -63,44 +131,299 @@ public class LinkController {
               example = "f19b92f3-8a3e-4c63-9b77-1e9c50450fa1")
           @RequestHeader(value = "X-User-Id", required = false)
           String userId) {
+    long startedAt = System.nanoTime();
+    if (!admissionLimiter.tryAcquire(Priority.CREATE)) {
+      return overloaded;
+    }
     try {
-      return ResponseEntity.ok(linkShortenerService.createLink(body, userId));
+      CreateLinkResult result = linkShortenerService.createLink(body, userId);
+      linkMetrics.recordCreated();
+      return ResponseEntity.ok(result);
     } catch (UserDoesNotExistException e) {
       return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", e.getMessage()));
     } catch (NotExpiredLinkAlreadyExistsException e) {
+      linkMetrics.recordConflict();
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+    } catch (FreeSlugIsNotFoundException e) {
       return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
     } catch (IllegalArgumentException e) {
       return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+    } finally {
+      admissionLimiter.release(startedAt);
     }
   }
 
+  @Operation(
+      summary = "Создать короткие ссылки пакетом",
+      description =
+          "Создаёт короткие ссылки для массива URL одного пользователя. "
+              + "Массив читается по мере обработки частей пакета, а результаты возвращаются "
+              + "построчно в формате NDJSON: у каждой строки есть индекс элемента в запросе "
+              + "и собственный статус. Если пакет длиннее допустимого или JSON обрывается, "
+              + "уже прочитанные элементы обрабатываются, а последней строкой идёт ошибка 400.")
+  @io.swagger.v3.oas.annotations.parameters.RequestBody(
+      content =
+          @Content(
+              array =
+                  @ArraySchema(schema = @Schema(implementation = CreateLinkOptions.class))))
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "Пакет принят, результаты по элементам"),
+    @ApiResponse(
+        responseCode = "400",
+        description = "Тело запроса не JSON-массив",
+        content = @Content),
+    @ApiResponse(responseCode = "401", description = "Пользователь не найден", content = @Content),
+    @ApiResponse(
+        responseCode = "503",
+        description = "Сервис перегружен, повторите через Retry-After секунд",
+        content = @Content)
+  })
+  @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> createLinks(
+      HttpServletRequest request,
+      @Parameter(
+              description = "Идентификатор пользователя",
+              example = "f19b92f3-8a3e-4c63-9b77-1e9c50450fa1")
+          @RequestHeader(value = "X-User-Id", required = false)
+          String userId)
+      throws IOException {
+    if (!admissionLimiter.tryAcquire(Priority.BATCH)) {
+      return ResponseEntity.status(overloaded.getStatusCode())
+          .headers(overloaded.getHeaders())
+          .contentType(MediaType.APPLICATION_JSON)
+          .body(outputStream -> objectMapper.writeValue(outputStream, overloaded.getBody()));
+    }
+    // Результаты пишутся уже после возврата из метода, поэтому место освобождает сам поток ответа
+    boolean streaming = false;
+    BatchRequestReader reader = null;
+    try {
+      // Тело не собирается в список: элементы разбираются по мере обработки частей пакета
+      try {
+        reader =
+            new BatchRequestReader(
+                objectMapper, request.getInputStream(), linkBatchConfig.getMaxSize());
+      } catch (IllegalArgumentException e) {
+        return errorStream(HttpStatus.BAD_REQUEST, e.getMessage());
+      }
+
+      User owner;
+      try {
+        owner = linkBatchService.resolveOwner(userId);
+      } catch (UserDoesNotExistException e) {
+        return errorStream(HttpStatus.UNAUTHORIZED, e.getMessage());
+      }
+
+      BatchRequestReader items = reader;
+      StreamingResponseBody stream =
+          outputStream -> {
+            try (items) {
+              linkBatchService.createLinks(
+                  items,
+                  owner,
+                  chunkResults -> {
+                    linkMetrics.recordBatch(chunkResults);
+                    writeLines(outputStream, chunkResults);
+                  });
+            } finally {
+              admissionLimiter.releaseWithoutSample();
+            }
+          };
+      ResponseEntity<StreamingResponseBody> response =
+          ResponseEntity.ok()
+              .header("X-User-Id", linkBatchService.publicUserId(owner))
+              .contentType(NDJSON)
+              .body(stream);
+      streaming = true;
+      return response;
+    } finally {
+      if (!streaming) {
+        if (reader != null) {
+          reader.close();
+        }
+        admissionLimiter.releaseWithoutSample();
+      }
+    }
+  }
+
+  @Operation(
+      summary = "Список ссылок пользователя",
+      description =
+          "Возвращает неистёкшие ссылки пользователя от новых к старым. "
+              + "Для получения следующей страницы передайте nextCursor из ответа "
+              + "в параметр cursor.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "Страница ссылок"),
+    @ApiResponse(
+        responseCode = "400",
+        description = "Некорректный курсор или размер страницы",
+        content = @Content),
+    @ApiResponse(
+        responseCode = "401",
+        description = "Пользователь не идентифицирован или не найден",
+        content = @Content)
+  })
+  @GetMapping("/links")
+  public ResponseEntity<Object> listLinks(
+      @Parameter(
+              description = "Идентификатор пользователя",
+              example = "f19b92f3-8a3e-4c63-9b77-1e9c50450fa1")
+          @RequestHeader(value = "X-User-Id", required = false)
+          String userId,
+      @Parameter(description = "Курсор следующей страницы из поля nextCursor")
+          @RequestParam(required = false)
+          String cursor,
+      @Parameter(description = "Размер страницы", example = "50")
+          @RequestParam(required = false)
+          Integer limit) {
+    try {
+      return ResponseEntity.ok(linkListingService.listLinks(userId, cursor, limit));
+    } catch (UserIsNotIdentifiedException | UserDoesNotExistException e) {
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", e.getMessage()));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+    }
+  }
+
+  @Operation(
+      summary = "Выгрузить все ссылки пользователя",
+      description =
+          "Возвращает все неистёкшие ссылки пользователя построчно в формате NDJSON. "
+              + "Ссылки читаются из БД курсором, поэтому размер выгрузки не ограничен.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "Ссылки пользователя"),
+    @ApiResponse(
+        responseCode = "401",
+        description = "Пользователь не идентифицирован или не найден",
+        content = @Content)
+  })
+  @GetMapping("/links/export")
+  public ResponseEntity<StreamingResponseBody> exportLinks(
+      @Parameter(
+              description = "Идентификатор пользователя",
+              example = "f19b92f3-8a3e-4c63-9b77-1e9c50450fa1")
+          @RequestHeader(value = "X-User-Id", required = false)
+          String userId) {
+    String ownerId;
+    try {
+      ownerId = linkListingService.ensureOwner(userId);
+    } catch (UserIsNotIdentifiedException | UserDoesNotExistException e) {
+      return errorStream(HttpStatus.UNAUTHORIZED, e.getMessage());
+    }
+
+    StreamingResponseBody stream =
+        outputStream -> {
+          linkListingService.exportLinks(ownerId, link -> writeLine(outputStream, link));
+          outputStream.flush();
+        };
+    return ResponseEntity.ok().contentType(NDJSON).body(stream);
+  }
+
   @Operation(
       summary = "Переход по короткой ссылке",
       description =
           "Перенаправляет на оригинальный URL по короткому slug. "
-              + "Если ссылка истекла или превышен лимит — вернёт ошибку.")
+              + "Если ссылка истекла или превышен лимит — вернёт ошибку. "
+              + "Переход по ссылке без лимита может кэшироваться и отдаваться с кодом "
+              + "link.redirect.status.")
   @ApiResponses({
     @ApiResponse(responseCode = "302", description = "Перенаправление на оригинальную ссылку"),
+    @ApiResponse(
+        responseCode = "304",
+        description = "Сохранённое клиентом перенаправление не изменилось",
+        content = @Content),
     @ApiResponse(responseCode = "404", description = "Ссылка не найдена", content = @Content),
     @ApiResponse(
         responseCode = "410",
         description = "Ссылка истекла или превышен лимит",
+        content = @Content),
+    @ApiResponse(
+        responseCode = "503",
+        description = "Сервис перегружен, повторите через Retry-After секунд",
         content = @Content)
   })
   @GetMapping("/{slug}")
-  public ResponseEntity<Object> getLink(
+  public void getLink(
+      @Parameter(description = "Короткий идентификатор ссылки", example = "3UmIUftimB9")
+          @PathVariable
+          String slug,
+      HttpServletRequest request,
+      HttpServletResponse response)
+      throws IOException {
+    // Тот же обработчик, что и у RedirectFastPathFilter: ответ пишется прямо в response
+    redirectHandler.handle(slug, request, response);
+  }
+
+  @Operation(
+      summary = "Переходы по ссылке по часам",
+      description =
+          "Возвращает владельцу ссылки число переходов по ней за каждый час промежутка "
+              + "[from, to) (по умолчанию — последние сутки), но не раньше создания ссылки. "
+              + "Часы без переходов не возвращаются. "
+              + "Данные появляются с задержкой до link.analytics.flush-delay-ms.")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "Почасовой ряд переходов"),
+    @ApiResponse(
+        responseCode = "400",
+        description = "Некорректный или слишком длинный промежуток",
+        content = @Content),
+    @ApiResponse(
+        responseCode = "403",
+        description = "Недостаточно прав у пользователя",
+        content = @Content),
+    @ApiResponse(responseCode = "404", description = "Ссылка не найдена", content = @Content),
+    @ApiResponse(
+        responseCode = "401",
+        description = "Пользователь не идентифицирован",
+        content = @Content)
+  })
+  @GetMapping("/{slug}/clicks")
+  public ResponseEntity<Object> getClickSeries(
       @Parameter(description = "Короткий идентификатор ссылки", example = "3UmIUftimB9")
           @PathVariable
-          String slug) {
+          String slug,
+      @Parameter(description = "Начало промежутка", example = "2025-01-01T00:00:00")
+          @RequestParam(value = "from", required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime from,
+      @Parameter(description = "Конец промежутка, не включается", example = "2025-01-02T00:00:00")
+          @RequestParam(value = "to", required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime to,
+      @Parameter(
+              description = "Идентификатор пользователя",
+              example = "f19b92f3-8a3e-4c63-9b77-1e9c50450fa1")
+          @RequestHeader(value = "X-User-Id")
+          String userId) {
+    LocalDateTime end = to == null ? LocalDateTime.now() : to;
+    LocalDateTime start = from == null ? end.minusDays(1) : from;
+    if (!start.isBefore(end)
+        || Duration.between(start, end).compareTo(MAX_CLICK_SERIES_RANGE) > 0) {
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+          .body(
+              Map.of(
+                  "error",
+                  String.format(
+                      "Range should be positive and at most %d days",
+                      MAX_CLICK_SERIES_RANGE.toDays())));
+    }
+
+    Link link;
     try {
-      return ResponseEntity.status(HttpStatus.FOUND)
-          .header("Location", linkShortenerService.getFullLink(slug))
-          .build();
+      link = linkShortenerService.getOwnedLink(slug, userId);
+    } catch (UserHasNotEnoughRightsException e) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
     } catch (LinkDoesNotExistException e) {
       return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
-    } catch (LinkHasExpiredException | LinkLimitExceededException e) {
-      return ResponseEntity.status(HttpStatus.GONE).body(Map.of("error", e.getMessage()));
+    } catch (UserIsNotIdentifiedException e) {
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", e.getMessage()));
+    }
+
+    // Итоги прежней ссылки с тем же slug могли ещё не удалиться: ряд начинается с часа создания
+    LocalDateTime createdAt = link.getCreatedAt().truncatedTo(ChronoUnit.HOURS);
+    if (start.isBefore(createdAt)) {
+      start = createdAt;
     }
+    return ResponseEntity.ok(clickAnalytics.getSeries(slug, start, end));
   }
 
   @Operation(
@@ -185,4 +508,30 @@ public class LinkController {
       return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
     }
   }
+
+  private ResponseEntity<StreamingResponseBody> errorStream(HttpStatus status, String error) {
+    return ResponseEntity.status(status)
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(outputStream -> objectMapper.writeValue(outputStream, Map.of("error", error)));
+  }
+
+  private void writeLines(OutputStream outputStream, List<BatchCreateLinkResult> results) {
+    for (BatchCreateLinkResult result : results) {
+      writeLine(outputStream, result);
+    }
+    try {
+      outputStream.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void writeLine(OutputStream outputStream, Object value) {
+    try {
+      outputStream.write(objectMapper.writeValueAsBytes(value));
+      outputStream.write('\n');
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
 }
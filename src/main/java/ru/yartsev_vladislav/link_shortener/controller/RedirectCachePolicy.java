@@ -0,0 +1,127 @@
+package ru.yartsev_vladislav.link_shortener.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import ru.yartsev_vladislav.link_shortener.config.LinkConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkRedirectConfig;
+import ru.yartsev_vladislav.link_shortener.model.RedirectResolution;
+
+/**
+ * Ответ на успешный переход по ссылке и его заголовки кэширования.
+ *
+ * <p>Ссылка без лимита до истечения всегда ведёт на один и тот же URL, поэтому при {@code
+ * link.redirect.cache-enabled} переход по ней кэшируется браузерами и CDN на оставшийся срок жизни
+ * ссылки (не дольше {@code link.redirect.max-age-seconds}) и отдаётся с кодом {@code
+ * link.redirect.status}. Переходы по ссылкам с лимитом помечаются {@code no-store}: каждый из них
+ * должен дойти до сервиса и быть посчитан.
+ */
+@Component
+public class RedirectCachePolicy {
+  private static final Set<Integer> REDIRECT_STATUSES = Set.of(301, 302, 307, 308);
+  private static final String NO_STORE = CacheControl.noStore().getHeaderValue();
+
+  private final LinkRedirectConfig linkRedirectConfig;
+  private final LinkConfig linkConfig;
+  private final HttpStatus cacheableStatus;
+
+  @Autowired
+  public RedirectCachePolicy(LinkRedirectConfig linkRedirectConfig, LinkConfig linkConfig) {
+    if (!REDIRECT_STATUSES.contains(linkRedirectConfig.getStatus())) {
+      throw new IllegalArgumentException("Redirect status should be one of 301, 302, 307, 308");
+    }
+    this.linkRedirectConfig = linkRedirectConfig;
+    this.linkConfig = linkConfig;
+    this.cacheableStatus = HttpStatus.valueOf(linkRedirectConfig.getStatus());
+  }
+
+  public boolean isCacheEnabled() {
+    return linkRedirectConfig.isCacheEnabled();
+  }
+
+  public ResponseEntity<Object> redirect(
+      RedirectResolution.Found found, HttpServletRequest request) {
+    if (!linkRedirectConfig.isCacheEnabled()) {
+      return ResponseEntity.status(HttpStatus.FOUND)
+          .header(HttpHeaders.LOCATION, found.fullUrl())
+          .build();
+    }
+
+    long maxAge =
+        Math.min(
+            linkRedirectConfig.getMaxAgeSeconds(),
+            (found.expiresAtMillis() - System.currentTimeMillis()) / 1000);
+    if (found.limited() || maxAge <= 0) {
+      // Постоянный код браузеры кэшируют и без max-age, поэтому некэшируемый переход всегда 302
+      return ResponseEntity.status(HttpStatus.FOUND)
+          .header(HttpHeaders.LOCATION, found.fullUrl())
+          .header(HttpHeaders.CACHE_CONTROL, NO_STORE)
+          .build();
+    }
+
+    String cacheControl =
+        CacheControl.maxAge(maxAge, TimeUnit.SECONDS).cachePublic().getHeaderValue();
+    if (!linkRedirectConfig.isConditional()) {
+      return ResponseEntity.status(cacheableStatus)
+          .header(HttpHeaders.LOCATION, found.fullUrl())
+          .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+          .build();
+    }
+
+    // URL ссылки не меняется, поэтому её версия — время создания (оно же Last-Modified) и URL:
+    // slug, освобождённый после удаления или истечения, может достаться другой ссылке
+    long createdAt =
+        found.expiresAtMillis() - TimeUnit.SECONDS.toMillis(linkConfig.getTimeToLeave());
+    String etag =
+        '"'
+            + Long.toHexString(createdAt)
+            + '-'
+            + Integer.toHexString(found.fullUrl().hashCode())
+            + '"';
+    if (isNotModified(request, etag, createdAt)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+          .eTag(etag)
+          .lastModified(createdAt)
+          .build();
+    }
+    return ResponseEntity.status(cacheableStatus)
+        .header(HttpHeaders.LOCATION, found.fullUrl())
+        .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+        .eTag(etag)
+        .lastModified(createdAt)
+        .build();
+  }
+
+  static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+    // При наличии If-None-Match заголовок If-Modified-Since не проверяется (RFC 9110, 13.2.2)
+    String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+    if (ifNoneMatch != null) {
+      for (String candidate : ifNoneMatch.split(",")) {
+        String tag = candidate.trim();
+        if (tag.startsWith("W/")) {
+          tag = tag.substring(2);
+        }
+        if (tag.equals("*") || tag.equals(etag)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    long ifModifiedSince;
+    try {
+      ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+    // Дата в заголовке передаётся с точностью до секунды
+    return ifModifiedSince != -1 && lastModified / 1000 * 1000 <= ifModifiedSince;
+  }
+}
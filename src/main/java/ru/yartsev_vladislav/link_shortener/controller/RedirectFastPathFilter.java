@@ -0,0 +1,138 @@
+package ru.yartsev_vladislav.link_shortener.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.filter.ServerHttpObservationFilter;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
+import ru.yartsev_vladislav.link_shortener.config.LinkRedirectConfig;
+
+/**
+ * Переход по ссылке в обход {@code DispatcherServlet}.
+ *
+ * <p>Переход — самый частый и самый простой запрос сервиса, но в Spring MVC он проходит поиск
+ * обработчика, разбор аргументов и сборку {@code ResponseEntity}. Фильтр регистрируется Spring Boot
+ * последним, то есть после фильтров наблюдения за запросами и перед {@code DispatcherServlet}. Он
+ * узнаёт {@code GET /{slug}} по виду пути и передаёт запрос тому же {@link RedirectHandler}, что и
+ * {@link LinkController#getLink}. Остальные запросы и пути, занятые другими обработчиками ({@code
+ * /links}, {@code /swagger}, {@code /actuator} и т. п.), уходят в Spring MVC.
+ */
+@Component
+public class RedirectFastPathFilter extends OncePerRequestFilter
+    implements SmartInitializingSingleton {
+  // Более длинные пути разбирает Spring MVC: сгенерированные slug состоят из 8 символов
+  static final int MAX_SLUG_LENGTH = 64;
+  private static final String SLUG_PATTERN = "/{slug}";
+
+  private final LinkRedirectConfig linkRedirectConfig;
+  private final RedirectHandler redirectHandler;
+  private final ApplicationContext applicationContext;
+  // Одиночные пути других обработчиков; null, пока обработчики не зарегистрированы
+  private volatile Set<String> reservedSlugs;
+
+  @Autowired
+  public RedirectFastPathFilter(
+      LinkRedirectConfig linkRedirectConfig,
+      RedirectHandler redirectHandler,
+      ApplicationContext applicationContext) {
+    this.linkRedirectConfig = linkRedirectConfig;
+    this.redirectHandler = redirectHandler;
+    this.applicationContext = applicationContext;
+  }
+
+  // Обработчики Spring MVC и Actuator к этому моменту уже зарегистрированы, а запросы ещё не идут
+  @Override
+  public void afterSingletonsInstantiated() {
+    reservedSlugs =
+        reservedSlugs(
+            applicationContext.getBeansOfType(RequestMappingInfoHandlerMapping.class).values());
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    String slug = slug(request);
+    if (slug == null) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    // Метрики http.server.requests группируются по шаблону пути, как при переходе через контроллер
+    ServerHttpObservationFilter.findObservationContext(request)
+        .ifPresent(context -> context.setPathPattern(SLUG_PATTERN));
+
+    redirectHandler.handle(slug, request, response);
+  }
+
+  // slug из пути вида /<slug>, если запрос можно обслужить в обход Spring MVC, иначе null
+  String slug(HttpServletRequest request) {
+    Set<String> reserved = reservedSlugs;
+    if (reserved == null
+        || !linkRedirectConfig.isFastPathEnabled()
+        || !"GET".equals(request.getMethod())) {
+      return null;
+    }
+
+    String uri = request.getRequestURI();
+    int start = request.getContextPath().length() + 1;
+    if (uri.length() <= start
+        || uri.length() - start > MAX_SLUG_LENGTH
+        || uri.charAt(start - 1) != '/') {
+      return null;
+    }
+    // Закодированные и необычные пути разбирает Spring MVC
+    for (int i = start; i < uri.length(); i++) {
+      if (!isSlugChar(uri.charAt(i))) {
+        return null;
+      }
+    }
+    String slug = uri.substring(start);
+    return reserved.contains(slug) ? null : slug;
+  }
+
+  static Set<String> reservedSlugs(Collection<RequestMappingInfoHandlerMapping> mappings) {
+    Set<String> reserved = new HashSet<>();
+    for (RequestMappingInfoHandlerMapping mapping : mappings) {
+      for (RequestMappingInfo info : mapping.getHandlerMethods().keySet()) {
+        for (String pattern : info.getPatternValues()) {
+          if (pattern.length() > 1 && isSlugPath(pattern)) {
+            reserved.add(pattern.substring(1));
+          }
+        }
+      }
+    }
+    return Set.copyOf(reserved);
+  }
+
+  private static boolean isSlugPath(String pattern) {
+    if (pattern.charAt(0) != '/') {
+      return false;
+    }
+    for (int i = 1; i < pattern.length(); i++) {
+      if (!isSlugChar(pattern.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isSlugChar(char c) {
+    return (c >= 'a' && c <= 'z')
+        || (c >= 'A' && c <= 'Z')
+        || (c >= '0' && c <= '9')
+        || c == '-'
+        || c == '_';
+  }
+}
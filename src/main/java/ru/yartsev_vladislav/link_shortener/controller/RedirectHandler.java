@@ -0,0 +1,116 @@
+package ru.yartsev_vladislav.link_shortener.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import ru.yartsev_vladislav.link_shortener.admission.AdmissionLimiter;
+import ru.yartsev_vladislav.link_shortener.admission.AdmissionLimiter.Priority;
+import ru.yartsev_vladislav.link_shortener.analytics.ClickAnalytics;
+import ru.yartsev_vladislav.link_shortener.metrics.LinkMetrics;
+import ru.yartsev_vladislav.link_shortener.model.RedirectResolution;
+import ru.yartsev_vladislav.link_shortener.service.LinkShortenerService;
+
+/**
+ * Обслуживание перехода {@code GET /{slug}}: ограничение нагрузки, разрешение ссылки, метрики,
+ * аналитика и ответ 302/404/410/503.
+ *
+ * <p>Используется и {@link RedirectFastPathFilter}, и {@link LinkController#getLink}, поэтому
+ * переход ведёт себя одинаково при любом значении {@code link.redirect.fast-path-enabled}. Ответ
+ * пишется прямо в {@link HttpServletResponse}, а тела ошибок не зависят от slug и закодированы
+ * заранее.
+ */
+@Component
+public class RedirectHandler {
+  private static final String JSON = MediaType.APPLICATION_JSON_VALUE;
+  private static final byte[] LINK_NOT_FOUND = error("Link does not exist");
+  private static final byte[] LINK_EXPIRED = error("Link has expired");
+  private static final byte[] LINK_LIMIT_EXCEEDED = error("Link limit exceeded");
+  private static final byte[] OVERLOADED = error("Service is overloaded");
+
+  private final LinkShortenerService linkShortenerService;
+  private final LinkMetrics linkMetrics;
+  private final ClickAnalytics clickAnalytics;
+  private final AdmissionLimiter admissionLimiter;
+  private final RedirectCachePolicy redirectCachePolicy;
+  private final String retryAfter;
+
+  @Autowired
+  public RedirectHandler(
+      LinkShortenerService linkShortenerService,
+      LinkMetrics linkMetrics,
+      ClickAnalytics clickAnalytics,
+      AdmissionLimiter admissionLimiter,
+      RedirectCachePolicy redirectCachePolicy) {
+    this.linkShortenerService = linkShortenerService;
+    this.linkMetrics = linkMetrics;
+    this.clickAnalytics = clickAnalytics;
+    this.admissionLimiter = admissionLimiter;
+    this.redirectCachePolicy = redirectCachePolicy;
+    this.retryAfter = String.valueOf(admissionLimiter.getRetryAfterSeconds());
+  }
+
+  public void handle(String slug, HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    long startedAt = System.nanoTime();
+    if (!admissionLimiter.tryAcquire(Priority.REDIRECT)) {
+      response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+      write(response, HttpStatus.SERVICE_UNAVAILABLE, OVERLOADED);
+      return;
+    }
+    RedirectResolution resolution;
+    try {
+      resolution = linkShortenerService.resolveRedirect(slug);
+    } finally {
+      admissionLimiter.release(startedAt);
+    }
+    linkMetrics.recordRedirect(resolution);
+
+    switch (resolution) {
+      case RedirectResolution.Found found -> {
+        // Событие только кладётся в буфер, запись в БД выполняется в фоне
+        clickAnalytics.record(
+            slug,
+            request.getHeader(HttpHeaders.REFERER),
+            request.getHeader(HttpHeaders.USER_AGENT),
+            request.getHeader(clickAnalytics.getCountryHeader()));
+        redirect(found, request, response);
+      }
+      case RedirectResolution.NotFound() -> write(response, HttpStatus.NOT_FOUND, LINK_NOT_FOUND);
+      case RedirectResolution.Expired() -> write(response, HttpStatus.GONE, LINK_EXPIRED);
+      case RedirectResolution.LimitExceeded() ->
+          write(response, HttpStatus.GONE, LINK_LIMIT_EXCEEDED);
+    }
+  }
+
+  private void redirect(
+      RedirectResolution.Found found, HttpServletRequest request, HttpServletResponse response) {
+    if (!redirectCachePolicy.isCacheEnabled()) {
+      response.setStatus(HttpStatus.FOUND.value());
+      response.setHeader(HttpHeaders.LOCATION, found.fullUrl());
+      return;
+    }
+
+    ResponseEntity<Object> entity = redirectCachePolicy.redirect(found, request);
+    response.setStatus(entity.getStatusCode().value());
+    entity.getHeaders().forEach((name, values) -> values.forEach(v -> response.addHeader(name, v)));
+  }
+
+  private static void write(HttpServletResponse response, HttpStatus status, byte[] body)
+      throws IOException {
+    response.setStatus(status.value());
+    response.setContentType(JSON);
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
+  }
+
+  private static byte[] error(String message) {
+    return ("{\"error\":\"" + message + "\"}").getBytes(StandardCharsets.UTF_8);
+  }
+}
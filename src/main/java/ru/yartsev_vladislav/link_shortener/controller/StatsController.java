@@ -0,0 +1,134 @@
+package ru.yartsev_vladislav.link_shortener.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yartsev_vladislav.link_shortener.admission.AdmissionLimiter;
+import ru.yartsev_vladislav.link_shortener.analytics.ClickAnalytics;
+import ru.yartsev_vladislav.link_shortener.cache.LinkCache;
+import ru.yartsev_vladislav.link_shortener.filter.SlugFilter;
+import ru.yartsev_vladislav.link_shortener.invalidation.LinkInvalidationListener;
+import ru.yartsev_vladislav.link_shortener.model.AdmissionStatsResult;
+import ru.yartsev_vladislav.link_shortener.model.CacheStatsResult;
+import ru.yartsev_vladislav.link_shortener.model.CleanupStatsResult;
+import ru.yartsev_vladislav.link_shortener.model.ClickAnalyticsStatsResult;
+import ru.yartsev_vladislav.link_shortener.model.InvalidationStatsResult;
+import ru.yartsev_vladislav.link_shortener.model.SlugFilterStatsResult;
+import ru.yartsev_vladislav.link_shortener.model.SlugStoreStatsResult;
+import ru.yartsev_vladislav.link_shortener.service.LinkCleaner;
+import ru.yartsev_vladislav.link_shortener.store.SlugStore;
+
+@RestController
+@Tag(name = "Stats", description = "Служебная статистика для подбора параметров сервиса")
+public class StatsController {
+  private final LinkCache linkCache;
+  private final LinkCleaner linkCleaner;
+  private final SlugFilter slugFilter;
+  private final SlugStore slugStore;
+  private final ClickAnalytics clickAnalytics;
+  private final LinkInvalidationListener linkInvalidationListener;
+  private final AdmissionLimiter admissionLimiter;
+
+  @Autowired
+  public StatsController(
+      LinkCache linkCache,
+      LinkCleaner linkCleaner,
+      SlugFilter slugFilter,
+      SlugStore slugStore,
+      ClickAnalytics clickAnalytics,
+      LinkInvalidationListener linkInvalidationListener,
+      AdmissionLimiter admissionLimiter) {
+    this.linkCache = linkCache;
+    this.linkCleaner = linkCleaner;
+    this.slugFilter = slugFilter;
+    this.slugStore = slugStore;
+    this.clickAnalytics = clickAnalytics;
+    this.linkInvalidationListener = linkInvalidationListener;
+    this.admissionLimiter = admissionLimiter;
+  }
+
+  @Operation(
+      summary = "Статистика кэша ссылок",
+      description = "Возвращает размер кэша и счётчики попаданий, промахов и вытеснений.")
+  @ApiResponse(responseCode = "200", description = "Статистика кэша")
+  @GetMapping("/stats/cache")
+  public CacheStatsResult getCacheStats() {
+    CacheStats stats = linkCache.getStats();
+    return new CacheStatsResult(
+        linkCache.getSize(),
+        stats.hitCount(),
+        stats.missCount(),
+        stats.evictionCount(),
+        stats.hitRate());
+  }
+
+  @Operation(
+      summary = "Статистика очистки ссылок",
+      description =
+          "Возвращает число удалённых истёкших ссылок, длительность последнего запуска очистки "
+              + "и время удаления одной части.")
+  @ApiResponse(responseCode = "200", description = "Статистика очистки")
+  @GetMapping("/stats/cleanup")
+  public CleanupStatsResult getCleanupStats() {
+    return linkCleaner.getStats();
+  }
+
+  @Operation(
+      summary = "Статистика фильтра slug",
+      description =
+          "Возвращает заполненность и объём памяти фильтра существующих slug, ожидаемую долю "
+              + "ложноположительных ответов и число переходов, отклонённых без запроса к БД.")
+  @ApiResponse(responseCode = "200", description = "Статистика фильтра")
+  @GetMapping("/stats/slug-filter")
+  public SlugFilterStatsResult getSlugFilterStats() {
+    return slugFilter.getStats();
+  }
+
+  @Operation(
+      summary = "Статистика хранилища ссылок",
+      description =
+          "Возвращает заполненность таблицы и журнала данных хранилища ссылок вне кучи, число "
+              + "сжатий журнала и число переходов, обслуженных без запроса к БД.")
+  @ApiResponse(responseCode = "200", description = "Статистика хранилища")
+  @GetMapping("/stats/slug-store")
+  public SlugStoreStatsResult getSlugStoreStats() {
+    return slugStore.getStats();
+  }
+
+  @Operation(
+      summary = "Статистика аналитики переходов",
+      description =
+          "Возвращает заполненность буфера событий переходов и число принятых, отброшенных, "
+              + "записанных и потерянных при ошибке записи событий.")
+  @ApiResponse(responseCode = "200", description = "Статистика аналитики")
+  @GetMapping("/stats/click-analytics")
+  public ClickAnalyticsStatsResult getClickAnalyticsStats() {
+    return clickAnalytics.getStats();
+  }
+
+  @Operation(
+      summary = "Статистика межузловой инвалидации",
+      description =
+          "Возвращает, слушает ли экземпляр канал инвалидации, число отправленных и полученных "
+              + "slug, переподключений и полных сбросов локальных кэшей.")
+  @ApiResponse(responseCode = "200", description = "Статистика инвалидации")
+  @GetMapping("/stats/invalidation")
+  public InvalidationStatsResult getInvalidationStats() {
+    return linkInvalidationListener.getStats();
+  }
+
+  @Operation(
+      summary = "Статистика ограничения нагрузки",
+      description =
+          "Возвращает текущий адаптивный лимит одновременных переходов и созданий ссылок, "
+              + "число выполняющихся, принятых и отклонённых с ответом 503 запросов.")
+  @ApiResponse(responseCode = "200", description = "Статистика ограничения нагрузки")
+  @GetMapping("/stats/admission")
+  public AdmissionStatsResult getAdmissionStats() {
+    return admissionLimiter.getStats();
+  }
+}
@@ -0,0 +1,77 @@
+package ru.yartsev_vladislav.link_shortener.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import ru.yartsev_vladislav.link_shortener.config.DataSourceRoutingConfig;
+
+/**
+ * Источник данных приложения: основная БД из {@code spring.datasource} и реплики из {@code
+ * datasource.routing.replica-urls} за {@link ReplicaRoutingDataSource}.
+ *
+ * <p>Пул основной БД настраивается свойствами {@code spring.datasource.hikari.*}, пулы реплик
+ * копируют его настройки. Все пулы публикуют метрики {@code hikaricp_connections_*} со своим
+ * именем пула.
+ */
+@Configuration
+public class DataSourceConfiguration {
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+    HikariDataSource dataSource =
+        dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    dataSource.setPoolName("primary");
+    return dataSource;
+  }
+
+  @Bean
+  public ReplicaRoutingDataSource routingDataSource(
+      HikariDataSource primaryDataSource,
+      DataSourceRoutingConfig dataSourceRoutingConfig,
+      ObjectProvider<MeterRegistry> meterRegistry) {
+    List<DataSource> replicas = new ArrayList<>();
+    List<String> replicaUrls = dataSourceRoutingConfig.getReplicaUrls();
+    for (int i = 0; i < replicaUrls.size(); i++) {
+      HikariConfig replicaConfig = new HikariConfig();
+      primaryDataSource.copyStateTo(replicaConfig);
+      replicaConfig.setPoolName("replica-" + i);
+      replicaConfig.setJdbcUrl(replicaUrls.get(i));
+      replicaConfig.setReadOnly(true);
+      if (!isBlank(dataSourceRoutingConfig.getReplicaUsername())) {
+        replicaConfig.setUsername(dataSourceRoutingConfig.getReplicaUsername());
+        replicaConfig.setPassword(dataSourceRoutingConfig.getReplicaPassword());
+      }
+      if (replicaConfig.getMetricRegistry() == null
+          && replicaConfig.getMetricsTrackerFactory() == null) {
+        meterRegistry.ifAvailable(replicaConfig::setMetricRegistry);
+      }
+      // Как и основной, пул реплики открывает соединения при первом запросе
+      HikariDataSource replica = new HikariDataSource();
+      replicaConfig.copyStateTo(replica);
+      replicas.add(replica);
+    }
+    return new ReplicaRoutingDataSource(primaryDataSource, replicas);
+  }
+
+  // Соединение берётся из выбранного пула при первом запросе, а не при начале транзакции
+  @Bean
+  @Primary
+  public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+    return new LazyConnectionDataSourceProxy(routingDataSource);
+  }
+
+  private static boolean isBlank(String value) {
+    return value == null || value.isBlank();
+  }
+}
@@ -0,0 +1,103 @@
+package ru.yartsev_vladislav.link_shortener.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.yartsev_vladislav.link_shortener.config.DataSourceRoutingConfig;
+
+/**
+ * Чтения, которые можно отдать реплике.
+ *
+ * <p>Ключ чтения — slug или id владельца. Ключ, записанный этим экземпляром за последние {@code
+ * datasource.routing.replica-lag-ms}, читается из основной БД, чтобы пользователь видел свои
+ * изменения, пока реплика их догоняет. Пока реплики не настроены, чтения выполняются как есть.
+ */
+@Component
+public class ReplicaReads {
+  // Ключи сверх этого числа вытесняются раньше срока, и их чтения уходят на реплику
+  private static final long MAX_RECENT_WRITES = 100_000;
+
+  private final boolean enabled;
+  private final boolean fallbackToPrimary;
+  private final Cache<String, Boolean> recentWrites;
+  private final LongAdder replicaReads = new LongAdder();
+  private final LongAdder primaryReads = new LongAdder();
+  private final LongAdder fallbacks = new LongAdder();
+
+  @Autowired
+  public ReplicaReads(DataSourceRoutingConfig dataSourceRoutingConfig) {
+    this.enabled = !dataSourceRoutingConfig.getReplicaUrls().isEmpty();
+    this.fallbackToPrimary = dataSourceRoutingConfig.isFallbackToPrimary();
+    this.recentWrites =
+        Caffeine.newBuilder()
+            .maximumSize(MAX_RECENT_WRITES)
+            .expireAfterWrite(Duration.ofMillis(dataSourceRoutingConfig.getReplicaLagMs()))
+            .build();
+  }
+
+  public <T> T read(String key, Supplier<T> query) {
+    if (!enabled) {
+      return query.get();
+    }
+    if (recentWrites.getIfPresent(key) != null) {
+      primaryReads.increment();
+      return query.get();
+    }
+
+    replicaReads.increment();
+    return ReplicaRoutingDataSource.onReplica(query);
+  }
+
+  public void run(String key, Runnable query) {
+    read(
+        key,
+        () -> {
+          query.run();
+          return null;
+        });
+  }
+
+  // Промах на реплике перепроверяется в основной БД: строка могла не успеть доехать до реплики
+  public <T> Optional<T> readOrFallback(String key, Supplier<Optional<T>> query) {
+    if (!enabled || recentWrites.getIfPresent(key) != null) {
+      return read(key, query);
+    }
+
+    replicaReads.increment();
+    Optional<T> result = ReplicaRoutingDataSource.onReplica(query);
+    if (result.isPresent() || !fallbackToPrimary) {
+      return result;
+    }
+
+    fallbacks.increment();
+    return query.get();
+  }
+
+  public void markWritten(String key) {
+    if (enabled) {
+      recentWrites.put(key, Boolean.TRUE);
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public long getReplicaReads() {
+    return replicaReads.sum();
+  }
+
+  // Чтения недавно записанных ключей, отправленные в основную БД
+  public long getPrimaryReads() {
+    return primaryReads.sum();
+  }
+
+  public long getFallbacks() {
+    return fallbacks.sum();
+  }
+}
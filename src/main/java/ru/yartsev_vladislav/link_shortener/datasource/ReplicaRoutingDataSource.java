@@ -0,0 +1,77 @@
+package ru.yartsev_vladislav.link_shortener.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Выбирает для соединения основную БД или одну из реплик.
+ *
+ * <p>Реплика выбирается по кругу только внутри {@link #onReplica}, всё остальное (записи,
+ * транзакции, инкременты счётчиков) идёт в основную БД. Источник оборачивается в {@code
+ * LazyConnectionDataSourceProxy}, поэтому выбор делается при первом запросе транзакции, а не при
+ * её начале.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+  private static final String PRIMARY = "primary";
+  private static final ThreadLocal<Boolean> replicaRead = new ThreadLocal<>();
+
+  private final List<DataSource> replicaDataSources;
+  private final String[] replicas;
+  private final AtomicInteger next = new AtomicInteger();
+
+  public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources) {
+    this.replicaDataSources = List.copyOf(replicaDataSources);
+    Map<Object, Object> targets = new HashMap<>();
+    targets.put(PRIMARY, primary);
+    replicas = new String[replicaDataSources.size()];
+    for (int i = 0; i < replicas.length; i++) {
+      replicas[i] = "replica-" + i;
+      targets.put(replicas[i], replicaDataSources.get(i));
+    }
+    setTargetDataSources(targets);
+    setDefaultTargetDataSource(primary);
+    setLenientFallback(false);
+  }
+
+  public boolean hasReplicas() {
+    return replicas.length > 0;
+  }
+
+  // Запросы внутри query читаются с реплики; вложенный вызов не сбрасывает внешний
+  static <T> T onReplica(Supplier<T> query) {
+    Boolean previous = replicaRead.get();
+    replicaRead.set(Boolean.TRUE);
+    try {
+      return query.get();
+    } finally {
+      if (previous == null) {
+        replicaRead.remove();
+      }
+    }
+  }
+
+  // Пулы реплик не являются бинами, поэтому закрываются вместе с маршрутизатором
+  @Override
+  public void close() {
+    for (DataSource replica : replicaDataSources) {
+      if (replica instanceof HikariDataSource hikariDataSource) {
+        hikariDataSource.close();
+      }
+    }
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (replicas.length == 0 || replicaRead.get() == null) {
+      return PRIMARY;
+    }
+    return replicas[Math.floorMod(next.getAndIncrement(), replicas.length)];
+  }
+}
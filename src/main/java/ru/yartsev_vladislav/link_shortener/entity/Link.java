@@ -2,17 +2,31 @@ package ru.yartsev_vladislav.link_shortener.entity;
 
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ConstraintMode;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import java.time.LocalDateTime;
+import org.springframework.data.domain.Persistable;
 
 @Entity
-@Table(name = "links")
-public class Link {
+@Table(
+    name = "links",
+    indexes = {
+      @Index(name = "links_owner_created_at_slug_idx", columnList = "owner_id, created_at, slug"),
+      @Index(name = "links_created_at_idx", columnList = "created_at")
+    })
+public class Link implements Persistable<String> {
 
   @Id private String slug;
 
@@ -24,10 +38,22 @@ public class Link {
 
   @Nonnull private LocalDateTime createdAt;
 
-  @ManyToOne
-  @JoinColumn(name = "owner_id", nullable = false)
+  // Без внешнего ключа: при подписанных токенах владельца может не быть в таблице users
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(
+      name = "owner_id",
+      nullable = false,
+      foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
   private User owner;
 
+  // Тот же столбец owner_id только для чтения: проверка владельца не загружает пользователя
+  @Column(name = "owner_id", insertable = false, updatable = false)
+  private String ownerId;
+
+  // Slug задаётся приложением, поэтому новизну сущности нельзя определить по пустому id.
+  // Новая ссылка сохраняется через INSERT и не может молча перезаписать чужую с тем же slug.
+  @Transient private boolean isNew = true;
+
   public Link() {}
 
   public Link(String slug, String fullUrl, User owner, Integer limit, Integer attempts) {
@@ -43,7 +69,7 @@ public class Link {
   public Link(String slug, String fullUrl, User owner) {
     this.slug = slug;
     this.fullUrl = fullUrl;
-    this.owner = owner;
+    setOwner(owner);
   }
 
   public String getSlug() {
@@ -95,10 +121,31 @@ public class Link {
 
   public void setOwner(User owner) {
     this.owner = owner;
+    this.ownerId = owner == null ? null : owner.getId();
+  }
+
+  public String getOwnerId() {
+    return ownerId;
+  }
+
+  @Override
+  public String getId() {
+    return slug;
+  }
+
+  @Override
+  public boolean isNew() {
+    return isNew;
   }
 
   @PrePersist
   protected void onCreate() {
     createdAt = LocalDateTime.now();
   }
+
+  @PostLoad
+  @PostPersist
+  protected void markNotNew() {
+    isNew = false;
+  }
 }
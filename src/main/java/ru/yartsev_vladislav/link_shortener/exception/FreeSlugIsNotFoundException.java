@@ -0,0 +1,7 @@
+package ru.yartsev_vladislav.link_shortener.exception;
+
+public class FreeSlugIsNotFoundException extends Exception {
+  public FreeSlugIsNotFoundException(String url) {
+    super(String.format("Could not generate a free slug for url '%s'", url));
+  }
+}
@@ -4,6 +4,10 @@ import ru.yartsev_vladislav.link_shortener.entity.Link;
 
 public class LinkHasExpiredException extends Exception {
   public LinkHasExpiredException(Link link) {
-    super(String.format("Link '/%s' has expired", link.getSlug()));
+    this(link.getSlug());
+  }
+
+  public LinkHasExpiredException(String slug) {
+    super(String.format("Link '/%s' has expired", slug));
   }
 }
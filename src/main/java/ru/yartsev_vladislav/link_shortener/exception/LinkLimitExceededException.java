@@ -4,6 +4,10 @@ import ru.yartsev_vladislav.link_shortener.entity.Link;
 
 public class LinkLimitExceededException extends Exception {
   public LinkLimitExceededException(Link link) {
-    super(String.format("Link '/%s' limit exceeded", link.getSlug()));
+    this(link.getSlug());
+  }
+
+  public LinkLimitExceededException(String slug) {
+    super(String.format("Link '/%s' limit exceeded", slug));
   }
 }
@@ -7,6 +7,6 @@ public class NotExpiredLinkAlreadyExistsException extends Exception {
     super(
         String.format(
             "Link '/%s' for user '%s' already exists and not expired",
-            link.getFullUrl(), link.getOwner().getId()));
+            link.getFullUrl(), link.getOwnerId()));
   }
 }
@@ -0,0 +1,7 @@
+package ru.yartsev_vladislav.link_shortener.exception;
+
+public class UrlIsTooLongException extends IllegalArgumentException {
+  public UrlIsTooLongException(int maxLength) {
+    super(String.format("Url should be at most %d characters long", maxLength));
+  }
+}
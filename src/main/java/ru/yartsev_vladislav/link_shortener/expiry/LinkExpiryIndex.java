@@ -0,0 +1,144 @@
+package ru.yartsev_vladislav.link_shortener.expiry;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yartsev_vladislav.link_shortener.config.LinkConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkExpiryConfig;
+
+/**
+ * Сроки истечения ссылок, с которыми работал этот экземпляр приложения.
+ *
+ * <p>Дедлайн каждой ссылки ({@code createdAt + link.time-to-leave}) хранится в {@link
+ * TimingWheel}; раз в {@code link.expiry.tick-ms} колесо продвигается, и по сработавшим ссылкам
+ * публикуется {@link LinksExpiredEvent}. Так ссылки истекают с точностью до тика без сканирования
+ * таблицы {@code links}; ссылки, которых этот экземпляр не видел, удаляет периодическая очистка.
+ *
+ * <p>{@link #track} и {@link #forget} вызываются на пути перехода, поэтому они не берут блокировок:
+ * изменение кладётся в неблокирующую очередь, а колесо и таблица таймеров меняются только на тике,
+ * который сначала применяет накопленные изменения в порядке их поступления.
+ */
+@Component
+public class LinkExpiryIndex {
+  private final LinkConfig linkConfig;
+  private final LinkExpiryConfig linkExpiryConfig;
+  private final ApplicationEventPublisher eventPublisher;
+  private final Queue<Change> changes = new ConcurrentLinkedQueue<>();
+  // Изменения в очереди; ограничивает её между тиками тем же link.expiry.max-entries
+  private final AtomicInteger queuedChanges = new AtomicInteger();
+  // Тики не должны пересекаться: колесо и таблица таймеров меняются только под этой блокировкой
+  private final ReentrantLock tickLock = new ReentrantLock();
+  private final TimingWheel<String> wheel;
+  // Нужен, чтобы перепоставить или отменить таймер ссылки
+  private final Map<String, TimingWheel.Timeout<String>> timeouts = new HashMap<>();
+
+  @Autowired
+  public LinkExpiryIndex(
+      LinkConfig linkConfig,
+      LinkExpiryConfig linkExpiryConfig,
+      ApplicationEventPublisher eventPublisher) {
+    this.linkConfig = linkConfig;
+    this.linkExpiryConfig = linkExpiryConfig;
+    this.eventPublisher = eventPublisher;
+    this.wheel = new TimingWheel<>(linkExpiryConfig.getTickMs(), System.currentTimeMillis());
+  }
+
+  public void track(String slug, LocalDateTime createdAt) {
+    if (!linkExpiryConfig.isEnabled()) {
+      return;
+    }
+    // Неотслеженную ссылку всё равно удалит периодическая очистка
+    if (queuedChanges.get() >= linkExpiryConfig.getMaxEntries()) {
+      return;
+    }
+
+    long deadline =
+        createdAt
+            .plusSeconds(linkConfig.getTimeToLeave())
+            .atZone(ZoneId.systemDefault())
+            .toInstant()
+            .toEpochMilli();
+    enqueue(new Change(slug, deadline));
+  }
+
+  public void forget(String slug) {
+    if (!linkExpiryConfig.isEnabled()) {
+      return;
+    }
+    enqueue(new Change(slug, Change.FORGET));
+  }
+
+  public int size() {
+    tickLock.lock();
+    try {
+      applyChanges();
+      return timeouts.size();
+    } finally {
+      tickLock.unlock();
+    }
+  }
+
+  @Scheduled(fixedRateString = "${link.expiry.tick-ms}")
+  public void tick() {
+    List<String> expired;
+    tickLock.lock();
+    try {
+      applyChanges();
+      expired = wheel.advance(System.currentTimeMillis());
+      for (String slug : expired) {
+        timeouts.remove(slug);
+      }
+    } finally {
+      tickLock.unlock();
+    }
+
+    // Слушатели вызываются вне блокировки, чтобы следующий тик не ждал удаления из БД
+    if (!expired.isEmpty()) {
+      eventPublisher.publishEvent(new LinksExpiredEvent(expired, LocalDateTime.now()));
+    }
+  }
+
+  private void enqueue(Change change) {
+    queuedChanges.incrementAndGet();
+    changes.add(change);
+  }
+
+  // Вызывается под tickLock
+  private void applyChanges() {
+    Change change;
+    while ((change = changes.poll()) != null) {
+      queuedChanges.decrementAndGet();
+      if (change.deadlineMillis() == Change.FORGET) {
+        TimingWheel.Timeout<String> timeout = timeouts.remove(change.slug());
+        if (timeout != null) {
+          wheel.cancel(timeout);
+        }
+        continue;
+      }
+
+      TimingWheel.Timeout<String> previous = timeouts.get(change.slug());
+      if (previous == null && timeouts.size() >= linkExpiryConfig.getMaxEntries()) {
+        continue;
+      }
+      if (previous != null) {
+        wheel.cancel(previous);
+      }
+      timeouts.put(change.slug(), wheel.schedule(change.slug(), change.deadlineMillis()));
+    }
+  }
+
+  // Новый дедлайн ссылки или FORGET, если ссылку больше не нужно отслеживать
+  private record Change(String slug, long deadlineMillis) {
+    static final long FORGET = Long.MIN_VALUE;
+  }
+}
@@ -0,0 +1,7 @@
+package ru.yartsev_vladislav.link_shortener.expiry;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** Публикуется {@link LinkExpiryIndex}, когда у отслеживаемых ссылок наступил срок истечения. */
+public record LinksExpiredEvent(List<String> slugs, LocalDateTime expiredAt) {}
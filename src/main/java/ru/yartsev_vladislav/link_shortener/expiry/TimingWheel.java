@@ -0,0 +1,164 @@
+package ru.yartsev_vladislav.link_shortener.expiry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Иерархическое колесо таймеров.
+ *
+ * <p>Время делится на тики по {@code tickMs}. Колесо состоит из {@value #LEVELS} уровней по {@value
+ * #SLOTS} ячеек: ячейка уровня {@code L} покрывает {@code SLOTS^L} тиков, так что четыре уровня
+ * вмещают дедлайны на годы вперёд. Таймер кладётся в ячейку самого мелкого уровня, который до него
+ * достаёт, и опускается на уровень ниже, когда колесо доходит до его ячейки. Ячейка — двусвязный
+ * список, поэтому добавление и отмена таймера выполняются за O(1), а продвижение колеса трогает
+ * только сработавшие и опускаемые таймеры.
+ *
+ * <p>Колесо не создаёт своих потоков: время продвигает вызывающий через {@link #advance(long)}.
+ * Колесо не потокобезопасно: все вызовы должны идти из одного потока или под одной внешней
+ * блокировкой.
+ *
+ * @param <T> значение, которое возвращается при срабатывании таймера
+ */
+public class TimingWheel<T> {
+  static final int LEVELS = 4;
+  static final int SLOTS = 256;
+
+  private static final int SLOT_BITS = 8;
+  private static final int SLOT_MASK = SLOTS - 1;
+
+  private final long tickMs;
+  private final Timeout<T>[][] wheel;
+  private long currentTick;
+  private int size;
+
+  @SuppressWarnings("unchecked")
+  public TimingWheel(long tickMs, long startMillis) {
+    if (tickMs <= 0) {
+      throw new IllegalArgumentException("Tick should be more than 0");
+    }
+    this.tickMs = tickMs;
+    this.currentTick = startMillis / tickMs;
+    this.wheel = new Timeout[LEVELS][SLOTS];
+    for (int level = 0; level < LEVELS; level++) {
+      for (int slot = 0; slot < SLOTS; slot++) {
+        wheel[level][slot] = Timeout.sentinel();
+      }
+    }
+  }
+
+  /** Ставит таймер; уже наступивший дедлайн сработает на следующем тике. */
+  public Timeout<T> schedule(T value, long deadlineMillis) {
+    // Округляем вверх, чтобы таймер не сработал раньше дедлайна
+    long deadlineTick = Math.max(-Math.floorDiv(-deadlineMillis, tickMs), currentTick + 1);
+    Timeout<T> timeout = new Timeout<>(value, deadlineTick);
+    place(timeout);
+    size++;
+    return timeout;
+  }
+
+  /** Отменяет таймер; возвращает false, если он уже сработал или отменён. */
+  public boolean cancel(Timeout<T> timeout) {
+    if (timeout.previous == null) {
+      return false;
+    }
+    unlink(timeout);
+    size--;
+    return true;
+  }
+
+  /** Продвигает колесо до {@code nowMillis} и возвращает значения сработавших таймеров. */
+  public List<T> advance(long nowMillis) {
+    long targetTick = nowMillis / tickMs;
+    List<T> expired = new ArrayList<>();
+    while (currentTick < targetTick) {
+      if (size == 0) {
+        // Пустое колесо нечего прокручивать по тикам, например после долгого простоя
+        currentTick = targetTick;
+        break;
+      }
+
+      currentTick++;
+      // Сначала опускаем таймеры со старших уровней: часть из них может сработать на этом же тике
+      for (int level = LEVELS - 1; level > 0; level--) {
+        if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+          cascade(level, slotOf(currentTick, level));
+        }
+      }
+
+      Timeout<T> head = wheel[0][slotOf(currentTick, 0)];
+      while (head.next != head) {
+        Timeout<T> timeout = head.next;
+        unlink(timeout);
+        size--;
+        expired.add(timeout.value);
+      }
+    }
+    return expired;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  private void cascade(int level, int slot) {
+    Timeout<T> head = wheel[level][slot];
+    Timeout<T> timeout = head.next;
+    // Отвязываем всю ячейку разом: опущенный таймер может снова попасть в неё же
+    head.next = head;
+    head.previous = head;
+    while (timeout != head) {
+      Timeout<T> next = timeout.next;
+      place(timeout);
+      timeout = next;
+    }
+  }
+
+  private void place(Timeout<T> timeout) {
+    long delta = timeout.deadlineTick - currentTick;
+    int level = 0;
+    while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+      level++;
+    }
+
+    Timeout<T> head = wheel[level][slotOf(timeout.deadlineTick, level)];
+    timeout.previous = head.previous;
+    timeout.next = head;
+    head.previous.next = timeout;
+    head.previous = timeout;
+  }
+
+  private void unlink(Timeout<T> timeout) {
+    timeout.previous.next = timeout.next;
+    timeout.next.previous = timeout.previous;
+    timeout.previous = null;
+    timeout.next = null;
+  }
+
+  private static int slotOf(long tick, int level) {
+    return (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+  }
+
+  /** Поставленный таймер; нужен, чтобы отменить его. */
+  public static final class Timeout<T> {
+    private final T value;
+    private final long deadlineTick;
+    private Timeout<T> previous;
+    private Timeout<T> next;
+
+    private Timeout(T value, long deadlineTick) {
+      this.value = value;
+      this.deadlineTick = deadlineTick;
+    }
+
+    private static <T> Timeout<T> sentinel() {
+      Timeout<T> head = new Timeout<>(null, 0);
+      head.previous = head;
+      head.next = head;
+      return head;
+    }
+
+    public T getValue() {
+      return value;
+    }
+  }
+}
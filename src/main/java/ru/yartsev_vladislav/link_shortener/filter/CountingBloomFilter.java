@@ -0,0 +1,167 @@
+package ru.yartsev_vladislav.link_shortener.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Потокобезопасный счётный фильтр Блума для строк.
+ *
+ * <p>Вместо битов хранятся 4-битные счётчики (по 16 в одном {@code long}), поэтому элемент можно
+ * удалить. Число счётчиков и хэш-функций подбирается по ожидаемому числу элементов и допустимой
+ * доле ложноположительных ответов. Ложноотрицательных ответов нет, пока удаляются только ранее
+ * добавленные элементы. Счётчик, дошедший до 15, больше не меняется: после переполнения нельзя
+ * понять, сколько элементов на него пришлось.
+ */
+public final class CountingBloomFilter {
+  private static final int COUNTER_BITS = 4;
+  private static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+  private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+  private static final long MAX_COUNTER = COUNTER_MASK;
+
+  private final long expectedInsertions;
+  private final AtomicLongArray words;
+  private final int counters;
+  private final int hashFunctions;
+  private final AtomicLong size = new AtomicLong();
+
+  public CountingBloomFilter(long expectedInsertions, double falsePositiveRate) {
+    if (expectedInsertions <= 0) {
+      throw new IllegalArgumentException("Expected insertions should be more than 0");
+    }
+    if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException("False positive rate should be between 0 and 1");
+    }
+
+    this.expectedInsertions = expectedInsertions;
+    // m = -n * ln(p) / ln(2)^2, k = m / n * ln(2)
+    double optimalCounters =
+        -expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+    if (optimalCounters > Integer.MAX_VALUE - COUNTERS_PER_WORD) {
+      throw new IllegalArgumentException("Filter is too large");
+    }
+    this.counters = Math.max(COUNTERS_PER_WORD, (int) Math.ceil(optimalCounters));
+    this.hashFunctions =
+        Math.max(1, (int) Math.round((double) counters / expectedInsertions * Math.log(2)));
+    this.words = new AtomicLongArray((counters + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD);
+  }
+
+  public void add(String value) {
+    long hash = hash(value);
+    long step = step(hash);
+    for (int i = 0; i < hashFunctions; i++) {
+      increment(index(hash, step, i));
+    }
+    size.incrementAndGet();
+  }
+
+  public void remove(String value) {
+    long hash = hash(value);
+    long step = step(hash);
+    for (int i = 0; i < hashFunctions; i++) {
+      decrement(index(hash, step, i));
+    }
+    size.decrementAndGet();
+  }
+
+  public boolean mightContain(String value) {
+    long hash = hash(value);
+    long step = step(hash);
+    for (int i = 0; i < hashFunctions; i++) {
+      if (counter(index(hash, step, i)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Число добавленных и не удалённых элементов
+  public long getSize() {
+    return size.get();
+  }
+
+  public long getExpectedInsertions() {
+    return expectedInsertions;
+  }
+
+  public int getCounters() {
+    return counters;
+  }
+
+  public int getHashFunctions() {
+    return hashFunctions;
+  }
+
+  public long getMemoryBytes() {
+    return (long) words.length() * Long.BYTES;
+  }
+
+  // (1 - e^(-k * n / m))^k при текущем числе элементов
+  public double getExpectedFalsePositiveRate() {
+    double fill = -(double) hashFunctions * Math.max(size.get(), 0) / counters;
+    return Math.pow(1 - Math.exp(fill), hashFunctions);
+  }
+
+  private int index(long hash, long step, int i) {
+    // Двойное хэширование: g_i(x) = h1(x) + i * h2(x) вместо k независимых хэш-функций
+    return (int) Long.remainderUnsigned(hash + i * step, counters);
+  }
+
+  private long counter(int index) {
+    long word = words.get(index / COUNTERS_PER_WORD);
+    return (word >>> shift(index)) & COUNTER_MASK;
+  }
+
+  private void increment(int index) {
+    int wordIndex = index / COUNTERS_PER_WORD;
+    int shift = shift(index);
+    while (true) {
+      long word = words.get(wordIndex);
+      long counter = (word >>> shift) & COUNTER_MASK;
+      if (counter == MAX_COUNTER || words.compareAndSet(wordIndex, word, word + (1L << shift))) {
+        return;
+      }
+    }
+  }
+
+  private void decrement(int index) {
+    int wordIndex = index / COUNTERS_PER_WORD;
+    int shift = shift(index);
+    while (true) {
+      long word = words.get(wordIndex);
+      long counter = (word >>> shift) & COUNTER_MASK;
+      if (counter == 0
+          || counter == MAX_COUNTER
+          || words.compareAndSet(wordIndex, word, word - (1L << shift))) {
+        return;
+      }
+    }
+  }
+
+  private static int shift(int index) {
+    return (index % COUNTERS_PER_WORD) * COUNTER_BITS;
+  }
+
+  // FNV-1a по символам строки с перемешиванием финализатора MurmurHash3
+  private static long hash(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      hash ^= value.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    return mix(hash);
+  }
+
+  // Нечётный шаг обходит счётчики без коротких циклов
+  private static long step(long hash) {
+    return mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+  }
+
+  private static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
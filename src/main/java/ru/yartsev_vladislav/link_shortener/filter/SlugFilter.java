@@ -0,0 +1,250 @@
+package ru.yartsev_vladislav.link_shortener.filter;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yartsev_vladislav.link_shortener.config.SlugFilterConfig;
+import ru.yartsev_vladislav.link_shortener.model.SlugFilterStatsResult;
+
+/**
+ * Фильтр существующих slug перед обращением к БД при переходе.
+ *
+ * <p>Хранит все slug таблицы {@code links} в {@link CountingBloomFilter}: если фильтр отвечает, что
+ * slug нет, переход сразу получает 404 без запроса к БД. Фильтр строится потоковым чтением таблицы
+ * при старте и перестраивается раз в {@code link.slug-filter.rebuild-delay-ms}, а между
+ * перестроениями обновляется при создании и удалении ссылок этим экземпляром и при создании ссылок
+ * другими экземплярами (их рассылает {@code LinkInvalidationPublisher}). Пока фильтр не построен
+ * или выключен, он пропускает все slug.
+ *
+ * <p>Счётчики уменьшаются только для slug, которые точно были добавлены: прочитаны из таблицы или
+ * добавлены после начала чтения. Удаление любого другого slug, например созданного другим
+ * экземпляром, уведомление о котором ещё не пришло, могло бы уменьшить чужие счётчики и дать
+ * ложный 404. Такой slug не удаляется, а фильтр помечается устаревшим и перестраивается раньше
+ * срока, не позже чем через {@code link.slug-filter.dirty-rebuild-delay-ms}.
+ */
+@Component
+public class SlugFilter {
+  private static final Logger log = LoggerFactory.getLogger(SlugFilter.class);
+  private static final String COUNT_SQL = "SELECT count(*) FROM links";
+  private static final String SELECT_SLUGS_SQL = "SELECT slug FROM links";
+  private static final int FETCH_SIZE = 1000;
+  // Время создания ссылки проставляется до вставки, а строка видна чтению только после фиксации
+  private static final Duration SNAPSHOT_MARGIN = Duration.ofMinutes(1);
+
+  private final SlugFilterConfig slugFilterConfig;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  private volatile Generation filter;
+  // Перестраиваемый фильтр тоже получает изменения, чтобы не потерять ссылки, созданные во время
+  // чтения таблицы
+  private volatile Generation rebuilding;
+  private volatile boolean dirty;
+  // Плановое перестроение и перестроение устаревшего фильтра не выполняются одновременно
+  private final ReentrantLock rebuildLock = new ReentrantLock();
+  private final LongAdder checks = new LongAdder();
+  private final LongAdder rejections = new LongAdder();
+  private volatile LocalDateTime lastRebuildAt;
+  private volatile long lastRebuildDurationMs;
+
+  @Autowired
+  public SlugFilter(
+      SlugFilterConfig slugFilterConfig,
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate) {
+    this.slugFilterConfig = slugFilterConfig;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+  }
+
+  public boolean mightContain(String slug) {
+    Generation current = filter;
+    if (current == null) {
+      return true;
+    }
+
+    checks.increment();
+    if (current.filter.mightContain(slug)) {
+      return true;
+    }
+    rejections.increment();
+    return false;
+  }
+
+  public void add(String slug) {
+    Generation current = filter;
+    if (current != null) {
+      current.add(slug);
+    }
+    // Сразу после перестроения оба поля ещё указывают на новый фильтр
+    Generation next = rebuilding;
+    if (next != null && next != current) {
+      next.add(slug);
+    }
+  }
+
+  // Вызывается только после удаления строки из БД; createdAt — время создания ссылки или его
+  // верхняя граница
+  public void remove(String slug, LocalDateTime createdAt) {
+    Generation current = filter;
+    if (current != null && !current.remove(slug, createdAt)) {
+      dirty = true;
+    }
+    // Чтение таблицы могло ещё не дойти до slug: его счётчики уменьшаются, только если он был
+    // добавлен, иначе в новом фильтре в худшем случае останется лишний slug
+    Generation next = rebuilding;
+    if (next != null && next != current && next.added.remove(slug)) {
+      next.filter.remove(slug);
+    }
+  }
+
+  // Вызывается, если создания ссылок другими экземплярами могли пройти мимо: до перестроения
+  // фильтр пропускает все slug
+  public void reset() {
+    if (filter != null || rebuilding != null) {
+      filter = null;
+      dirty = true;
+    }
+  }
+
+  @Scheduled(initialDelay = 0, fixedDelayString = "${link.slug-filter.rebuild-delay-ms}")
+  public void rebuild() {
+    rebuildLock.lock();
+    try {
+      rebuildLocked();
+    } finally {
+      rebuildLock.unlock();
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${link.slug-filter.dirty-rebuild-delay-ms}")
+  public void rebuildIfDirty() {
+    if (dirty) {
+      rebuild();
+    }
+  }
+
+  boolean isDirty() {
+    return dirty;
+  }
+
+  private void rebuildLocked() {
+    dirty = false;
+    if (!slugFilterConfig.isEnabled()) {
+      filter = null;
+      return;
+    }
+
+    LocalDateTime startedAt = LocalDateTime.now();
+    long rebuildStartedAt = System.nanoTime();
+    Long count = jdbcTemplate.queryForObject(COUNT_SQL, Long.class);
+    // Запас на рост числа ссылок до следующего перестроения
+    long capacity =
+        Math.max(slugFilterConfig.getExpectedInsertions(), (count == null ? 0 : count) * 3 / 2);
+    Generation next =
+        new Generation(
+            new CountingBloomFilter(capacity, slugFilterConfig.getFalsePositiveRate()),
+            startedAt.minus(SNAPSHOT_MARGIN));
+
+    rebuilding = next;
+    try {
+      // Курсорное чтение порциями PostgreSQL выполняет только внутри транзакции
+      transactionTemplate.executeWithoutResult(
+          status ->
+              jdbcTemplate.query(
+                  connection -> {
+                    PreparedStatement statement = connection.prepareStatement(SELECT_SLUGS_SQL);
+                    statement.setFetchSize(FETCH_SIZE);
+                    return statement;
+                  },
+                  (RowCallbackHandler) resultSet -> next.filter.add(resultSet.getString(1))));
+      filter = next;
+    } finally {
+      rebuilding = null;
+    }
+
+    lastRebuildAt = startedAt;
+    lastRebuildDurationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - rebuildStartedAt);
+    log.info(
+        "Slug filter rebuilt: {} slugs, {} KiB, {} ms",
+        next.filter.getSize(),
+        next.filter.getMemoryBytes() / 1024,
+        lastRebuildDurationMs);
+  }
+
+  public SlugFilterStatsResult getStats() {
+    Generation generation = filter;
+    CountingBloomFilter current = generation == null ? null : generation.filter;
+    if (current == null) {
+      return new SlugFilterStatsResult(
+          slugFilterConfig.isEnabled(),
+          false,
+          0,
+          0,
+          0,
+          0,
+          0,
+          checks.sum(),
+          rejections.sum(),
+          lastRebuildAt,
+          lastRebuildDurationMs);
+    }
+    return new SlugFilterStatsResult(
+        true,
+        true,
+        current.getSize(),
+        current.getExpectedInsertions(),
+        current.getMemoryBytes(),
+        current.getHashFunctions(),
+        current.getExpectedFalsePositiveRate(),
+        checks.sum(),
+        rejections.sum(),
+        lastRebuildAt,
+        lastRebuildDurationMs);
+  }
+
+  // Фильтр вместе с тем, что точно известно о его содержимом
+  private static final class Generation {
+    private final CountingBloomFilter filter;
+    // Ссылки, созданные раньше, прочитаны из таблицы
+    private final LocalDateTime readUpTo;
+    // Slug, добавленные после начала чтения таблицы; без них нельзя отличить такой slug от
+    // ложноположительного ответа
+    private final Set<String> added = ConcurrentHashMap.newKeySet();
+
+    private Generation(CountingBloomFilter filter, LocalDateTime readUpTo) {
+      this.filter = filter;
+      this.readUpTo = readUpTo;
+    }
+
+    private void add(String slug) {
+      added.add(slug);
+      filter.add(slug);
+    }
+
+    // Возвращает false, если не известно, добавлялся ли slug в фильтр
+    private boolean remove(String slug, LocalDateTime createdAt) {
+      if (added.remove(slug) || createdAt.isBefore(readUpTo)) {
+        // Ответ "нет" значит, что счётчики slug уже обнулены другими удалениями
+        if (filter.mightContain(slug)) {
+          filter.remove(slug);
+        }
+        return true;
+      }
+      return false;
+    }
+  }
+}
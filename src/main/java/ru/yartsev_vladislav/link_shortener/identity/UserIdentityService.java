@@ -0,0 +1,92 @@
+package ru.yartsev_vladislav.link_shortener.identity;
+
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.yartsev_vladislav.link_shortener.config.UserIdentityConfig;
+import ru.yartsev_vladislav.link_shortener.entity.User;
+import ru.yartsev_vladislav.link_shortener.exception.UserDoesNotExistException;
+import ru.yartsev_vladislav.link_shortener.exception.UserIsNotIdentifiedException;
+import ru.yartsev_vladislav.link_shortener.repository.UserRepository;
+
+/**
+ * Идентификация пользователя по заголовку {@code X-User-Id}.
+ *
+ * <p>По умолчанию пользователь — строка таблицы {@code users}: анонимный запрос создаёт её, а
+ * переданный id проверяется запросом к БД. При {@code user.identity.signed-tokens=true} клиент
+ * получает подписанный токен ({@link UserTokenSigner}), который проверяется локально, и таблица
+ * {@code users} не читается и не пополняется. Идентификаторы без подписи, выданные до включения
+ * токенов, по-прежнему принимаются после проверки в БД.
+ */
+@Component
+public class UserIdentityService {
+  private final UserRepository userRepository;
+  private final UserTokenSigner signer;
+
+  @Autowired
+  public UserIdentityService(UserIdentityConfig userIdentityConfig, UserRepository userRepository) {
+    this.userRepository = userRepository;
+    this.signer =
+        userIdentityConfig.isSignedTokens()
+            ? new UserTokenSigner(userIdentityConfig.getSecret())
+            : null;
+  }
+
+  // Владелец новых ссылок: новый пользователь для анонимного запроса или проверенный существующий
+  public User ensureUser(String userId) throws UserDoesNotExistException {
+    if (userId == null) {
+      if (signer != null) {
+        return new User(UUID.randomUUID().toString());
+      }
+      return userRepository.save(new User());
+    }
+
+    if (signer != null && UserTokenSigner.isToken(userId)) {
+      String verifiedUserId =
+          signer.verify(userId).orElseThrow(() -> new UserDoesNotExistException(userId));
+      return new User(verifiedUserId);
+    }
+
+    Optional<User> user = userRepository.findById(userId);
+    if (user.isEmpty()) {
+      throw new UserDoesNotExistException(userId);
+    }
+    return user.get();
+  }
+
+  // id пользователя для сравнения с владельцем ссылки. Без токенов существование пользователя не
+  // проверяется, а с токенами id без подписи принимается только у пользователя из таблицы users:
+  // иначе UUID, отрезанный от чужого токена, открывал бы доступ к ссылкам его владельца
+  public String resolveUserId(String userId) throws UserIsNotIdentifiedException {
+    if (userId == null) {
+      throw new UserIsNotIdentifiedException(userId);
+    }
+    if (signer == null) {
+      return userId;
+    }
+    if (UserTokenSigner.isToken(userId)) {
+      return signer.verify(userId).orElseThrow(() -> new UserIsNotIdentifiedException(userId));
+    }
+    if (!userRepository.existsById(userId)) {
+      throw new UserIsNotIdentifiedException(userId);
+    }
+    return userId;
+  }
+
+  // id существующего пользователя, например, для списка его ссылок
+  public String ensureUserId(String userId)
+      throws UserIsNotIdentifiedException, UserDoesNotExistException {
+    String resolvedUserId = resolveUserId(userId);
+    // С токенами id без подписи уже проверен в resolveUserId
+    if (signer == null && !userRepository.existsById(resolvedUserId)) {
+      throw new UserDoesNotExistException(userId);
+    }
+    return resolvedUserId;
+  }
+
+  // Значение, которое клиент передаёт в X-User-Id в следующих запросах
+  public String publicId(User user) {
+    return signer == null ? user.getId() : signer.sign(user.getId());
+  }
+}
@@ -0,0 +1,80 @@
+package ru.yartsev_vladislav.link_shortener.identity;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Подписанный токен пользователя вида {@code <id>.<подпись>}, где подпись — HMAC-SHA256 от id,
+ * усечённый до 128 бит, в base64url. Токен проверяется без обращения к БД: подделать его без ключа
+ * нельзя.
+ */
+public final class UserTokenSigner {
+  private static final String ALGORITHM = "HmacSHA256";
+  private static final int SIGNATURE_BYTES = 16;
+  private static final char SEPARATOR = '.';
+
+  private final Mac prototype;
+
+  public UserTokenSigner(String secret) {
+    if (secret == null || secret.length() < 32) {
+      throw new IllegalArgumentException("User token secret should contain at least 32 characters");
+    }
+    try {
+      prototype = Mac.getInstance(ALGORITHM);
+      prototype.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public String sign(String userId) {
+    return userId + SEPARATOR + encode(signature(userId));
+  }
+
+  // Возвращает id пользователя, если подпись токена верна
+  public Optional<String> verify(String token) {
+    int separator = token.lastIndexOf(SEPARATOR);
+    if (separator <= 0) {
+      return Optional.empty();
+    }
+
+    String userId = token.substring(0, separator);
+    byte[] actual;
+    try {
+      actual = Base64.getUrlDecoder().decode(token.substring(separator + 1));
+    } catch (IllegalArgumentException e) {
+      return Optional.empty();
+    }
+    // Сравнение за постоянное время, чтобы подпись нельзя было подобрать по времени ответа
+    if (!MessageDigest.isEqual(signature(userId), actual)) {
+      return Optional.empty();
+    }
+    return Optional.of(userId);
+  }
+
+  public static boolean isToken(String userId) {
+    return userId.indexOf(SEPARATOR) >= 0;
+  }
+
+  private byte[] signature(String userId) {
+    Mac mac;
+    try {
+      // Mac не потокобезопасен, а копия инициализированного прототипа дешевле Mac.getInstance
+      mac = (Mac) prototype.clone();
+    } catch (CloneNotSupportedException e) {
+      throw new IllegalStateException(e);
+    }
+    byte[] signature = mac.doFinal(userId.getBytes(StandardCharsets.UTF_8));
+    return Arrays.copyOf(signature, SIGNATURE_BYTES);
+  }
+
+  private static String encode(byte[] signature) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+  }
+}
@@ -0,0 +1,29 @@
+package ru.yartsev_vladislav.link_shortener.importer;
+
+import java.util.Map;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+/**
+ * Режим импорта ({@code link.import.file} задан) не обслуживает запросы: HTTP-сервер не
+ * поднимается, а задачи по расписанию выключает {@code SchedulingConfiguration}.
+ */
+public class ImportModeEnvironmentPostProcessor implements EnvironmentPostProcessor {
+  static final String IMPORT_FILE_PROPERTY = "link.import.file";
+  private static final String PROPERTY_SOURCE_NAME = "linkImportMode";
+
+  @Override
+  public void postProcessEnvironment(
+      ConfigurableEnvironment environment, SpringApplication application) {
+    if (!environment.containsProperty(IMPORT_FILE_PROPERTY)) {
+      return;
+    }
+    environment
+        .getPropertySources()
+        .addFirst(
+            new MapPropertySource(
+                PROPERTY_SOURCE_NAME, Map.of("spring.main.web-application-type", "none")));
+  }
+}
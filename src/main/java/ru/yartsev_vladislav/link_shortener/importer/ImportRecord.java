@@ -0,0 +1,6 @@
+package ru.yartsev_vladislav.link_shortener.importer;
+
+import java.time.LocalDateTime;
+
+/** Строка импортируемого файла: URL ещё не канонизирован. */
+public record ImportRecord(String url, String ownerId, Integer limit, LocalDateTime createdAt) {}
@@ -0,0 +1,138 @@
+package ru.yartsev_vladislav.link_shortener.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Разбирает строки импортируемого файла с полями {@code url, owner, limit, createdAt}.
+ *
+ * <p>CSV разбирается справа налево: запятая может встретиться только в URL, поэтому три последних
+ * разделителя однозначно отделяют остальные поля. Пустые {@code limit} и {@code createdAt} означают
+ * «без лимита» и «создана сейчас».
+ */
+public class ImportRecordParser {
+  public enum Format {
+    CSV,
+    NDJSON;
+
+    public static Format of(String fileName) {
+      String lowerCaseName = fileName.toLowerCase();
+      return lowerCaseName.endsWith(".ndjson") || lowerCaseName.endsWith(".jsonl") ? NDJSON : CSV;
+    }
+  }
+
+  private final Format format;
+  private final ObjectMapper objectMapper;
+
+  public ImportRecordParser(Format format, ObjectMapper objectMapper) {
+    this.format = format;
+    this.objectMapper = objectMapper;
+  }
+
+  public boolean isHeader(String line) {
+    return format == Format.CSV && line.startsWith("url,");
+  }
+
+  public ImportRecord parse(String line) {
+    return format == Format.CSV ? parseCsv(line) : parseNdjson(line);
+  }
+
+  private ImportRecord parseCsv(String line) {
+    int createdAtSeparator = line.lastIndexOf(',');
+    int limitSeparator =
+        createdAtSeparator > 0 ? line.lastIndexOf(',', createdAtSeparator - 1) : -1;
+    int ownerSeparator = limitSeparator > 0 ? line.lastIndexOf(',', limitSeparator - 1) : -1;
+    if (ownerSeparator < 0) {
+      throw new IllegalArgumentException("Line should contain url, owner, limit and createdAt");
+    }
+
+    return toRecord(
+        unquote(line.substring(0, ownerSeparator)),
+        unquote(line.substring(ownerSeparator + 1, limitSeparator)),
+        unquote(line.substring(limitSeparator + 1, createdAtSeparator)),
+        unquote(line.substring(createdAtSeparator + 1)));
+  }
+
+  private ImportRecord parseNdjson(String line) {
+    JsonNode node;
+    try {
+      node = objectMapper.readTree(line);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Line is not a valid JSON object", e);
+    }
+    if (node == null || !node.isObject()) {
+      throw new IllegalArgumentException("Line is not a valid JSON object");
+    }
+
+    return toRecord(
+        textOf(node, "url"),
+        textOf(node, "owner"),
+        textOf(node, "limit"),
+        textOf(node, "createdAt"));
+  }
+
+  private ImportRecord toRecord(String url, String ownerId, String limit, String createdAt) {
+    if (url == null || url.isEmpty()) {
+      throw new IllegalArgumentException("Url should not be empty");
+    }
+    if (ownerId == null || ownerId.isEmpty()) {
+      throw new IllegalArgumentException("Owner should not be empty");
+    }
+
+    return new ImportRecord(url, ownerId, parseLimit(limit), parseCreatedAt(createdAt));
+  }
+
+  private static Integer parseLimit(String limit) {
+    if (limit == null || limit.isEmpty()) {
+      return null;
+    }
+    int parsedLimit;
+    try {
+      parsedLimit = Integer.parseInt(limit);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(String.format("Limit '%s' is not a number", limit));
+    }
+    if (parsedLimit <= 0) {
+      throw new IllegalArgumentException("Limit should more than 0");
+    }
+    return parsedLimit;
+  }
+
+  private static LocalDateTime parseCreatedAt(String createdAt) {
+    if (createdAt == null || createdAt.isEmpty()) {
+      return LocalDateTime.now();
+    }
+    try {
+      return LocalDateTime.parse(createdAt);
+    } catch (DateTimeParseException e) {
+      // Время со смещением переводится в часовой пояс приложения, в котором ссылки хранят
+      // время создания (см. Link.onCreate)
+      try {
+        return OffsetDateTime.parse(createdAt)
+            .atZoneSameInstant(ZoneId.systemDefault())
+            .toLocalDateTime();
+      } catch (DateTimeParseException offsetException) {
+        throw new IllegalArgumentException(
+            String.format("CreatedAt '%s' is not an ISO-8601 date-time", createdAt));
+      }
+    }
+  }
+
+  private static String textOf(JsonNode node, String field) {
+    JsonNode value = node.get(field);
+    return value == null || value.isNull() ? null : value.asText().trim();
+  }
+
+  private static String unquote(String value) {
+    String trimmed = value.trim();
+    if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+      return trimmed.substring(1, trimmed.length() - 1).replace("\"\"", "\"");
+    }
+    return trimmed;
+  }
+}
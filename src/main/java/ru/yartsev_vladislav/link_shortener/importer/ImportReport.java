@@ -0,0 +1,28 @@
+package ru.yartsev_vladislav.link_shortener.importer;
+
+import java.time.Duration;
+
+/**
+ * Итог импорта.
+ *
+ * @param read строк прочитано в этом запуске (без пропущенных по checkpoint)
+ * @param imported ссылок записано или уже было записано прошлым запуском
+ * @param skippedExpired ссылок пропущено, потому что срок их жизни истёк
+ * @param rejected строк с некорректными данными
+ * @param failed ссылок, для которых не нашлось свободного slug
+ */
+public record ImportReport(
+    long read, long imported, long skippedExpired, long rejected, long failed, Duration elapsed) {
+
+  public double getRowsPerSecond() {
+    long millis = Math.max(elapsed.toMillis(), 1);
+    return read * 1000.0 / millis;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "read=%d, imported=%d, skippedExpired=%d, rejected=%d, failed=%d, elapsed=%ds, %.0f rows/s",
+        read, imported, skippedExpired, rejected, failed, elapsed.toSeconds(), getRowsPerSecond());
+  }
+}
@@ -0,0 +1,46 @@
+package ru.yartsev_vladislav.link_shortener.importer;
+
+import java.nio.file.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+import ru.yartsev_vladislav.link_shortener.config.LinkImportConfig;
+
+/**
+ * Режим импорта: если задан {@code link.import.file}, приложение импортирует файл и завершается.
+ * Код выхода 0 — все корректные строки записаны, 2 — для части ссылок не нашлось свободного slug.
+ */
+@Component
+@ConditionalOnProperty(prefix = "link.import", name = "file")
+public class LinkImportRunner implements ApplicationRunner {
+  private static final Logger log = LoggerFactory.getLogger(LinkImportRunner.class);
+
+  private final LinkImporter linkImporter;
+  private final LinkImportConfig linkImportConfig;
+  private final ConfigurableApplicationContext context;
+
+  @Autowired
+  public LinkImportRunner(
+      LinkImporter linkImporter,
+      LinkImportConfig linkImportConfig,
+      ConfigurableApplicationContext context) {
+    this.linkImporter = linkImporter;
+    this.linkImportConfig = linkImportConfig;
+    this.context = context;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) throws Exception {
+    ImportReport report = linkImporter.importFile(Path.of(linkImportConfig.getFile()));
+    log.info("Import finished: {}", report);
+
+    int exitCode = report.failed() == 0 ? 0 : 2;
+    System.exit(SpringApplication.exit(context, () -> exitCode));
+  }
+}
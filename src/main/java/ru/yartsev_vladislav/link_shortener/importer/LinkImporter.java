@@ -0,0 +1,313 @@
+package ru.yartsev_vladislav.link_shortener.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yartsev_vladislav.link_shortener.config.LinkConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkImportConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkPartitionConfig;
+import ru.yartsev_vladislav.link_shortener.invalidation.LinkInvalidationPublisher;
+import ru.yartsev_vladislav.link_shortener.partition.LinkPartitionManager;
+import ru.yartsev_vladislav.link_shortener.service.LinkShortenerService;
+import ru.yartsev_vladislav.link_shortener.service.UrlService;
+
+/**
+ * Потоковый импорт ссылок из CSV или NDJSON файла.
+ *
+ * <p>Файл читается построчно, в памяти держится только текущая часть из {@code
+ * link.import.chunk-size} строк. Часть записывается в одной транзакции пакетными {@code INSERT ...
+ * WHERE NOT EXISTS}: slug, занятые другими ссылками, перебираются следующими кандидатами
+ * генератора, а ссылка, уже записанная с тем же URL и владельцем, считается импортированной.
+ * Поэтому повторная запись части безопасна, и после сбоя импорт продолжается с последнего
+ * checkpoint.
+ */
+@Component
+public class LinkImporter {
+  private static final Logger log = LoggerFactory.getLogger(LinkImporter.class);
+
+  // Некорректных строк может быть очень много, в лог попадают только первые из них
+  private static final int MAX_LOGGED_REJECTIONS = 100;
+
+  private static final String INSERT_USER_SQL =
+      "INSERT INTO users (id) VALUES (?) ON CONFLICT (id) DO NOTHING";
+  // Первичный ключ секционированной таблицы включает created_at, поэтому ON CONFLICT (slug)
+  // неприменим: занятый slug проверяется подзапросом
+  private static final String INSERT_LINK_SQL =
+      "INSERT INTO links (slug, full_url, owner_id, attempts, attempts_limit, created_at) "
+          + "SELECT ?, ?, ?, 0, ?, ? WHERE NOT EXISTS (SELECT 1 FROM links WHERE slug = ?)";
+  private static final String SELECT_OCCUPANTS_SQL =
+      "SELECT slug, full_url, owner_id FROM links WHERE slug IN (:slugs)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final UrlService urlService;
+  private final LinkConfig linkConfig;
+  private final LinkImportConfig linkImportConfig;
+  private final LinkPartitionConfig linkPartitionConfig;
+  private final LinkPartitionManager linkPartitionManager;
+  private final LinkInvalidationPublisher linkInvalidationPublisher;
+  private final ObjectMapper objectMapper;
+
+  @Autowired
+  public LinkImporter(
+      JdbcTemplate jdbcTemplate,
+      NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      UrlService urlService,
+      LinkConfig linkConfig,
+      LinkImportConfig linkImportConfig,
+      LinkPartitionConfig linkPartitionConfig,
+      LinkPartitionManager linkPartitionManager,
+      LinkInvalidationPublisher linkInvalidationPublisher,
+      ObjectMapper objectMapper) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.urlService = urlService;
+    this.linkConfig = linkConfig;
+    this.linkImportConfig = linkImportConfig;
+    this.linkPartitionConfig = linkPartitionConfig;
+    this.linkPartitionManager = linkPartitionManager;
+    this.linkInvalidationPublisher = linkInvalidationPublisher;
+    this.objectMapper = objectMapper;
+  }
+
+  public ImportReport importFile(Path file) throws IOException {
+    Path checkpointFile = file.resolveSibling(file.getFileName() + ".checkpoint");
+    long processedLines = readCheckpoint(checkpointFile);
+    if (processedLines > 0) {
+      log.info("Resuming import of {} after line {}", file, processedLines);
+    }
+
+    ImportRecordParser parser =
+        new ImportRecordParser(
+            ImportRecordParser.Format.of(file.getFileName().toString()), objectMapper);
+    Progress progress = new Progress(System.nanoTime());
+    LocalDateTime expiredLinksCreatedAtThreshold =
+        LocalDateTime.now().minusSeconds(linkConfig.getTimeToLeave());
+
+    List<PendingLink> chunk = new ArrayList<>(linkImportConfig.getChunkSize());
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      long lineNumber = 0;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        if (lineNumber <= processedLines
+            || line.isBlank()
+            || (lineNumber == 1 && parser.isHeader(line))) {
+          continue;
+        }
+
+        progress.read++;
+        try {
+          ImportRecord record = parser.parse(line);
+          // Для истёкших ссылок секций уже может не быть
+          if ((linkImportConfig.isSkipExpired() || linkPartitionConfig.isEnabled())
+              && record.createdAt().isBefore(expiredLinksCreatedAtThreshold)) {
+            progress.skippedExpired++;
+          } else {
+            chunk.add(
+                new PendingLink(
+                    urlService.canonicalizeUrl(record.url()),
+                    record.ownerId(),
+                    record.limit(),
+                    record.createdAt()));
+          }
+        } catch (IllegalArgumentException e) {
+          if (progress.rejected++ < MAX_LOGGED_REJECTIONS) {
+            log.warn("Line {} rejected: {}", lineNumber, e.getMessage());
+          }
+        }
+
+        if (chunk.size() >= linkImportConfig.getChunkSize()) {
+          writeChunk(chunk, progress);
+          writeCheckpoint(checkpointFile, lineNumber);
+          chunk.clear();
+          progress.reportIfDue();
+        }
+      }
+
+      if (!chunk.isEmpty()) {
+        writeChunk(chunk, progress);
+      }
+    }
+
+    Files.deleteIfExists(checkpointFile);
+    return progress.toReport();
+  }
+
+  private void writeChunk(List<PendingLink> chunk, Progress progress) {
+    List<String> importedSlugs = new ArrayList<>(chunk.size());
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          // Тысячи строк части не должны занимать по блокировке slug каждая
+          linkPartitionManager.markBulkInsert();
+          Set<String> ownerIds = new LinkedHashSet<>();
+          for (PendingLink pendingLink : chunk) {
+            ownerIds.add(pendingLink.ownerId);
+          }
+          jdbcTemplate.batchUpdate(
+              INSERT_USER_SQL,
+              ownerIds,
+              ownerIds.size(),
+              (statement, ownerId) -> statement.setString(1, ownerId));
+
+          List<PendingLink> unresolved = chunk;
+          for (int attempt = 0;
+              attempt < LinkShortenerService.SLUG_MAX_ATTEMPTS && !unresolved.isEmpty();
+              attempt++) {
+            unresolved = insertLinks(unresolved, attempt, importedSlugs);
+          }
+
+          for (PendingLink pendingLink : unresolved) {
+            log.warn(
+                "Could not generate a free slug for url '{}' of user '{}'",
+                pendingLink.url,
+                pendingLink.ownerId);
+          }
+          progress.failed += unresolved.size();
+        });
+    progress.imported += importedSlugs.size();
+
+    // Работающие экземпляры добавят slug в фильтры и не ответят на переход 404. Планировщик в
+    // режиме импорта не запущен, поэтому уведомления отправляются сразу после фиксации части
+    linkInvalidationPublisher.publishAllCreated(importedSlugs);
+    linkInvalidationPublisher.flush();
+  }
+
+  // Вставляет кандидатов и возвращает ссылки, чей slug оказался занят другой ссылкой
+  private List<PendingLink> insertLinks(
+      List<PendingLink> pendingLinks, int attempt, List<String> importedSlugs) {
+    for (PendingLink pendingLink : pendingLinks) {
+      pendingLink.slug = urlService.generateLinkSlug(pendingLink.url, pendingLink.ownerId, attempt);
+    }
+
+    jdbcTemplate.batchUpdate(
+        INSERT_LINK_SQL,
+        pendingLinks,
+        pendingLinks.size(),
+        (statement, pendingLink) -> {
+          statement.setString(1, pendingLink.slug);
+          statement.setString(2, pendingLink.url);
+          statement.setString(3, pendingLink.ownerId);
+          statement.setObject(4, pendingLink.limit, Types.INTEGER);
+          statement.setObject(5, pendingLink.createdAt);
+          statement.setString(6, pendingLink.slug);
+        });
+
+    // Число вставленных строк драйвер может не вернуть (reWriteBatchedInserts), поэтому
+    // результат проверяется по тому, кто в итоге занимает каждый slug
+    Map<String, String> occupants = new HashMap<>();
+    namedParameterJdbcTemplate.query(
+        SELECT_OCCUPANTS_SQL,
+        Map.of("slugs", pendingLinks.stream().map(pendingLink -> pendingLink.slug).toList()),
+        resultSet -> {
+          occupants.put(
+              resultSet.getString("slug"),
+              occupantKey(resultSet.getString("full_url"), resultSet.getString("owner_id")));
+        });
+
+    List<PendingLink> collided = new ArrayList<>();
+    for (PendingLink pendingLink : pendingLinks) {
+      if (occupantKey(pendingLink.url, pendingLink.ownerId)
+          .equals(occupants.get(pendingLink.slug))) {
+        importedSlugs.add(pendingLink.slug);
+      } else {
+        collided.add(pendingLink);
+      }
+    }
+    return collided;
+  }
+
+  private static String occupantKey(String url, String ownerId) {
+    return ownerId + ' ' + url;
+  }
+
+  private static long readCheckpoint(Path checkpointFile) throws IOException {
+    if (!Files.exists(checkpointFile)) {
+      return 0;
+    }
+    return Long.parseLong(Files.readString(checkpointFile).trim());
+  }
+
+  // Checkpoint пишется после коммита части: при сбое между ними часть будет записана повторно
+  private static void writeCheckpoint(Path checkpointFile, long lineNumber) throws IOException {
+    Path temporaryFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+    Files.writeString(temporaryFile, Long.toString(lineNumber));
+    Files.move(
+        temporaryFile,
+        checkpointFile,
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static class PendingLink {
+    private final String url;
+    private final String ownerId;
+    private final Integer limit;
+    private final LocalDateTime createdAt;
+    private String slug;
+
+    PendingLink(String url, String ownerId, Integer limit, LocalDateTime createdAt) {
+      this.url = url;
+      this.ownerId = ownerId;
+      this.limit = limit;
+      this.createdAt = createdAt;
+    }
+  }
+
+  private class Progress {
+    private final long startedAt;
+    private long lastReportedAt;
+    private long read;
+    private long imported;
+    private long skippedExpired;
+    private long rejected;
+    private long failed;
+
+    Progress(long startedAt) {
+      this.startedAt = startedAt;
+      this.lastReportedAt = startedAt;
+    }
+
+    void reportIfDue() {
+      long now = System.nanoTime();
+      long reportInterval = Duration.ofSeconds(linkImportConfig.getReportInterval()).toNanos();
+      if (now - lastReportedAt >= reportInterval) {
+        lastReportedAt = now;
+        log.info("Import progress: {}", toReport());
+      }
+    }
+
+    ImportReport toReport() {
+      return new ImportReport(
+          read,
+          imported,
+          skippedExpired,
+          rejected,
+          failed,
+          Duration.ofNanos(System.nanoTime() - startedAt));
+    }
+  }
+}
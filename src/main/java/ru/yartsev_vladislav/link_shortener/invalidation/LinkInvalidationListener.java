@@ -0,0 +1,214 @@
+package ru.yartsev_vladislav.link_shortener.invalidation;
+
+import jakarta.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yartsev_vladislav.link_shortener.cache.LinkCache;
+import ru.yartsev_vladislav.link_shortener.config.LinkInvalidationConfig;
+import ru.yartsev_vladislav.link_shortener.datasource.ReplicaReads;
+import ru.yartsev_vladislav.link_shortener.filter.SlugFilter;
+import ru.yartsev_vladislav.link_shortener.model.InvalidationStatsResult;
+import ru.yartsev_vladislav.link_shortener.store.SlugStore;
+
+/**
+ * Слушает канал {@code link.invalidation.channel} на отдельном соединении основной БД, убирает
+ * slug, изменённые другими экземплярами, из {@link LinkCache} и {@link SlugStore} и добавляет slug
+ * созданных ими ссылок в {@link SlugFilter}.
+ *
+ * <p>Уведомления забираются раз в {@code link.invalidation.poll-delay-ms} без блокировки потока
+ * планировщика. Оборванное соединение переоткрывается через {@code
+ * link.invalidation.reconnect-delay-ms}. Пока канал не слушается (до первого подключения и между
+ * обрывом и переподключением), уведомления теряются, поэтому после каждого подключения локальные
+ * кэши сбрасываются целиком, {@link SlugStore} перестраивается из БД, а фильтр slug не
+ * используется до ближайшего перестроения.
+ */
+@Component
+public class LinkInvalidationListener {
+  private static final Logger log = LoggerFactory.getLogger(LinkInvalidationListener.class);
+  private static final Pattern CHANNEL_PATTERN = Pattern.compile("[a-z_][a-z0-9_]*");
+  private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+  private final LinkInvalidationConfig linkInvalidationConfig;
+  private final DataSource dataSource;
+  private final LinkInvalidationPublisher publisher;
+  private final LinkCache linkCache;
+  private final SlugStore slugStore;
+  private final ReplicaReads replicaReads;
+  private final SlugFilter slugFilter;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final LongAdder receivedSlugs = new LongAdder();
+  private final LongAdder reconnects = new LongAdder();
+  private final LongAdder fullFlushes = new LongAdder();
+
+  private volatile Connection connection;
+  private boolean listenedBefore;
+  private long reconnectAt;
+  private long checkedAt;
+
+  @Autowired
+  public LinkInvalidationListener(
+      LinkInvalidationConfig linkInvalidationConfig,
+      DataSource dataSource,
+      LinkInvalidationPublisher publisher,
+      LinkCache linkCache,
+      SlugStore slugStore,
+      ReplicaReads replicaReads,
+      SlugFilter slugFilter) {
+    // Имя канала подставляется в LISTEN без параметров, поэтому допускается только идентификатор
+    if (!CHANNEL_PATTERN.matcher(linkInvalidationConfig.getChannel()).matches()) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Invalidation channel '%s' is not valid", linkInvalidationConfig.getChannel()));
+    }
+    this.linkInvalidationConfig = linkInvalidationConfig;
+    this.dataSource = dataSource;
+    this.publisher = publisher;
+    this.linkCache = linkCache;
+    this.slugStore = slugStore;
+    this.replicaReads = replicaReads;
+    this.slugFilter = slugFilter;
+  }
+
+  @Scheduled(fixedDelayString = "${link.invalidation.poll-delay-ms}")
+  public void poll() {
+    if (!linkInvalidationConfig.isEnabled()) {
+      return;
+    }
+
+    lock.lock();
+    try {
+      long now = System.currentTimeMillis();
+      if (connection == null) {
+        if (now < reconnectAt) {
+          return;
+        }
+        listen();
+      } else if (now - checkedAt >= linkInvalidationConfig.getReconnectDelayMs()) {
+        // Без запросов драйвер не заметит оборванное соединение
+        if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+          throw new SQLException("Invalidation listener connection is not valid");
+        }
+        checkedAt = now;
+      }
+
+      PGNotification[] notifications = connection.unwrap(PGConnection.class).getNotifications();
+      if (notifications != null) {
+        for (PGNotification notification : notifications) {
+          receive(notification.getParameter());
+        }
+      }
+    } catch (SQLException e) {
+      log.warn(
+          "Invalidation listener failed, reconnecting in {} ms",
+          linkInvalidationConfig.getReconnectDelayMs(),
+          e);
+      closeConnection();
+      reconnectAt = System.currentTimeMillis() + linkInvalidationConfig.getReconnectDelayMs();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @PreDestroy
+  public void close() {
+    lock.lock();
+    try {
+      closeConnection();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public InvalidationStatsResult getStats() {
+    return new InvalidationStatsResult(
+        linkInvalidationConfig.isEnabled(),
+        connection != null,
+        publisher.getPublishedSlugs(),
+        publisher.getNotifications(),
+        receivedSlugs.sum(),
+        reconnects.sum(),
+        fullFlushes.sum());
+  }
+
+  void receive(String payload) {
+    String[] parts = payload.split(LinkInvalidationPublisher.SEPARATOR);
+    boolean created = parts[0].startsWith(LinkInvalidationPublisher.CREATED_PREFIX);
+    String nodeId =
+        created ? parts[0].substring(LinkInvalidationPublisher.CREATED_PREFIX.length()) : parts[0];
+    if (nodeId.equals(publisher.getNodeId())) {
+      return;
+    }
+
+    if (created) {
+      for (int i = 1; i < parts.length; i++) {
+        slugFilter.add(parts[i]);
+      }
+      receivedSlugs.add(parts.length - 1);
+      return;
+    }
+
+    for (int i = 1; i < parts.length; i++) {
+      linkCache.invalidate(parts[i]);
+      slugStore.remove(parts[i]);
+      // Реплика может ещё не получить изменение с другого экземпляра
+      replicaReads.markWritten(parts[i]);
+    }
+    receivedSlugs.add(parts.length - 1);
+  }
+
+  private void listen() throws SQLException {
+    Connection next = dataSource.getConnection();
+    try (Statement statement = next.createStatement()) {
+      statement.execute("LISTEN " + linkInvalidationConfig.getChannel());
+    } catch (SQLException e) {
+      next.close();
+      throw e;
+    }
+
+    connection = next;
+    checkedAt = System.currentTimeMillis();
+    if (listenedBefore) {
+      reconnects.increment();
+    }
+    listenedBefore = true;
+
+    // Пока канал не слушался, изменения на других экземплярах могли пройти мимо. Хранилище
+    // перестраивается уже после подписки: изменения, сделанные во время перестроения, придут
+    // уведомлениями и будут применены следующими опросами
+    linkCache.invalidateAll();
+    slugFilter.reset();
+    slugStore.rebuild();
+    fullFlushes.increment();
+    log.info("Listening for link invalidations on channel {}", linkInvalidationConfig.getChannel());
+  }
+
+  private void closeConnection() {
+    if (connection == null) {
+      return;
+    }
+    // Соединение возвращается в пул, поэтому подписка снимается
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("UNLISTEN *");
+    } catch (SQLException e) {
+      log.debug("Could not unlisten invalidation channel", e);
+    }
+    try {
+      connection.close();
+    } catch (SQLException e) {
+      log.debug("Could not close invalidation listener connection", e);
+    }
+    connection = null;
+  }
+}
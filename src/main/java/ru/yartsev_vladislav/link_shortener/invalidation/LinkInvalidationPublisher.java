@@ -0,0 +1,165 @@
+package ru.yartsev_vladislav.link_shortener.invalidation;
+
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yartsev_vladislav.link_shortener.config.LinkInvalidationConfig;
+
+/**
+ * Отправляет другим экземплярам приложения slug, изменённые или удалённые этим экземпляром, через
+ * PostgreSQL {@code NOTIFY}.
+ *
+ * <p>Slug копятся в наборе и раз в {@code link.invalidation.publish-delay-ms} уходят в канал
+ * {@code link.invalidation.channel} уведомлениями не длиннее предела PostgreSQL: всплеск изменений
+ * (очистка, пакетное создание) стоит нескольких запросов, а повторы одного slug схлопываются.
+ * Slug новых ссылок отправляются отдельными уведомлениями с префиксом {@link #CREATED_PREFIX}:
+ * получатели добавляют их в фильтр slug.
+ */
+@Component
+public class LinkInvalidationPublisher {
+  private static final Logger log = LoggerFactory.getLogger(LinkInvalidationPublisher.class);
+  private static final String NOTIFY_SQL = "SELECT pg_notify(?, ?)";
+  // PostgreSQL принимает уведомления короче 8000 байт
+  static final int MAX_PAYLOAD_BYTES = 7900;
+  static final String SEPARATOR = "\n";
+  // Ставится перед id экземпляра в уведомлениях о новых ссылках
+  static final String CREATED_PREFIX = "+";
+
+  private final LinkInvalidationConfig linkInvalidationConfig;
+  private final JdbcTemplate jdbcTemplate;
+  // Уведомления этого экземпляра помечаются его id, чтобы он не обрабатывал их сам
+  private final String nodeId = UUID.randomUUID().toString();
+  private final Set<String> pending = ConcurrentHashMap.newKeySet();
+  private final Set<String> pendingCreated = ConcurrentHashMap.newKeySet();
+  private final LongAdder publishedSlugs = new LongAdder();
+  private final LongAdder notifications = new LongAdder();
+
+  @Autowired
+  public LinkInvalidationPublisher(
+      LinkInvalidationConfig linkInvalidationConfig, JdbcTemplate jdbcTemplate) {
+    this.linkInvalidationConfig = linkInvalidationConfig;
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  // Вызывается после изменения или удаления строки в БД; свои кэши вызывающий чистит сам
+  public void publish(String slug) {
+    if (linkInvalidationConfig.isEnabled()) {
+      pending.add(slug);
+    }
+  }
+
+  public void publishAll(Collection<String> slugs) {
+    if (linkInvalidationConfig.isEnabled()) {
+      pending.addAll(slugs);
+    }
+  }
+
+  // Вызывается после вставки строки в БД
+  public void publishCreated(String slug) {
+    if (linkInvalidationConfig.isEnabled()) {
+      pendingCreated.add(slug);
+    }
+  }
+
+  public void publishAllCreated(Collection<String> slugs) {
+    if (linkInvalidationConfig.isEnabled()) {
+      pendingCreated.addAll(slugs);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${link.invalidation.publish-delay-ms}")
+  public void flush() {
+    if (!linkInvalidationConfig.isEnabled()) {
+      return;
+    }
+
+    send(pendingCreated, CREATED_PREFIX + nodeId);
+    send(pending, nodeId);
+  }
+
+  @PreDestroy
+  public void close() {
+    flush();
+  }
+
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  public long getPublishedSlugs() {
+    return publishedSlugs.sum();
+  }
+
+  public long getNotifications() {
+    return notifications.sum();
+  }
+
+  private void send(Set<String> source, String header) {
+    if (source.isEmpty()) {
+      return;
+    }
+
+    List<String> slugs = new ArrayList<>();
+    for (Iterator<String> iterator = source.iterator(); iterator.hasNext(); ) {
+      slugs.add(iterator.next());
+      iterator.remove();
+    }
+
+    List<List<String>> chunks = chunks(header, slugs);
+    for (int i = 0; i < chunks.size(); i++) {
+      try {
+        jdbcTemplate.query(
+            NOTIFY_SQL,
+            (RowCallbackHandler) resultSet -> {},
+            linkInvalidationConfig.getChannel(),
+            header + SEPARATOR + String.join(SEPARATOR, chunks.get(i)));
+      } catch (DataAccessException e) {
+        // Неотправленные slug уйдут со следующей отправкой
+        for (int j = i; j < chunks.size(); j++) {
+          source.addAll(chunks.get(j));
+        }
+        log.warn("Could not publish link invalidation", e);
+        return;
+      }
+      notifications.increment();
+      publishedSlugs.add(chunks.get(i).size());
+    }
+  }
+
+  // Делит slug на уведомления "header\nslug1\nslug2...", каждое не длиннее MAX_PAYLOAD_BYTES;
+  // header — id экземпляра, у новых ссылок с префиксом CREATED_PREFIX
+  static List<List<String>> chunks(String header, List<String> slugs) {
+    List<List<String>> chunks = new ArrayList<>();
+    List<String> chunk = new ArrayList<>();
+    int payloadBytes = header.length();
+    for (String slug : slugs) {
+      int slugBytes = SEPARATOR.length() + slug.getBytes(StandardCharsets.UTF_8).length;
+      if (!chunk.isEmpty() && payloadBytes + slugBytes > MAX_PAYLOAD_BYTES) {
+        chunks.add(chunk);
+        chunk = new ArrayList<>();
+        payloadBytes = header.length();
+      }
+      chunk.add(slug);
+      payloadBytes += slugBytes;
+    }
+    if (!chunk.isEmpty()) {
+      chunks.add(chunk);
+    }
+    return chunks;
+  }
+}
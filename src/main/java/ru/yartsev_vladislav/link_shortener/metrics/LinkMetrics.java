@@ -0,0 +1,219 @@
+package ru.yartsev_vladislav.link_shortener.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import ru.yartsev_vladislav.link_shortener.admission.AdmissionLimiter;
+import ru.yartsev_vladislav.link_shortener.analytics.ClickAnalytics;
+import ru.yartsev_vladislav.link_shortener.cache.LinkCache;
+import ru.yartsev_vladislav.link_shortener.datasource.ReplicaReads;
+import ru.yartsev_vladislav.link_shortener.filter.SlugFilter;
+import ru.yartsev_vladislav.link_shortener.invalidation.LinkInvalidationListener;
+import ru.yartsev_vladislav.link_shortener.model.BatchCreateLinkResult;
+import ru.yartsev_vladislav.link_shortener.model.ClickAnalyticsStatsResult;
+import ru.yartsev_vladislav.link_shortener.model.RedirectResolution;
+import ru.yartsev_vladislav.link_shortener.service.LinkCleaner;
+import ru.yartsev_vladislav.link_shortener.store.SlugStore;
+
+/**
+ * Метрики сервиса для Prometheus ({@code GET /actuator/prometheus}).
+ *
+ * <p>Счётчики исходов создания ссылок и переходов увеличиваются контроллером. Статистика кэша,
+ * очистки, фильтра slug, хранилища ссылок, аналитики переходов, инвалидации и ограничения нагрузки,
+ * которую отдают {@code /stats/*}, публикуется функциональными метриками: значения читаются из тех
+ * же источников только при выгрузке метрик.
+ */
+@Component
+public class LinkMetrics {
+  private final Counter createdSingle;
+  private final Counter createdBatch;
+  private final Counter conflictSingle;
+  private final Counter conflictBatch;
+  private final Counter redirectFound;
+  private final Counter redirectNotFound;
+  private final Counter redirectExpired;
+  private final Counter redirectLimitExceeded;
+
+  @Autowired
+  public LinkMetrics(
+      MeterRegistry meterRegistry,
+      LinkCache linkCache,
+      LinkCleaner linkCleaner,
+      SlugFilter slugFilter,
+      SlugStore slugStore,
+      ClickAnalytics clickAnalytics,
+      ReplicaReads replicaReads,
+      LinkInvalidationListener linkInvalidationListener,
+      AdmissionLimiter admissionLimiter) {
+    // Счётчики создаются заранее, чтобы не искать их в реестре на каждом запросе
+    createdSingle = creationCounter(meterRegistry, "link.created", "single");
+    createdBatch = creationCounter(meterRegistry, "link.created", "batch");
+    conflictSingle = creationCounter(meterRegistry, "link.conflicts", "single");
+    conflictBatch = creationCounter(meterRegistry, "link.conflicts", "batch");
+    redirectFound = redirectCounter(meterRegistry, "found");
+    redirectNotFound = redirectCounter(meterRegistry, "not_found");
+    redirectExpired = redirectCounter(meterRegistry, "expired");
+    redirectLimitExceeded = redirectCounter(meterRegistry, "limit_exceeded");
+
+    Gauge.builder("link.cache.size", linkCache, LinkCache::getSize)
+        .description("Число ссылок в кэше переходов")
+        .register(meterRegistry);
+    FunctionCounter.builder("link.cache.requests", linkCache, cache -> cache.getStats().hitCount())
+        .tag("result", "hit")
+        .register(meterRegistry);
+    FunctionCounter.builder("link.cache.requests", linkCache, cache -> cache.getStats().missCount())
+        .tag("result", "miss")
+        .register(meterRegistry);
+    FunctionCounter.builder(
+            "link.cache.evictions", linkCache, cache -> cache.getStats().evictionCount())
+        .register(meterRegistry);
+
+    FunctionCounter.builder(
+            "link.cleanup.deleted", linkCleaner, cleaner -> cleaner.getStats().totalDeleted)
+        .description("Число ссылок, удалённых периодической очисткой")
+        .register(meterRegistry);
+    TimeGauge.builder(
+            "link.cleanup.last.duration",
+            linkCleaner,
+            TimeUnit.MILLISECONDS,
+            cleaner -> cleaner.getStats().lastRunDurationMs)
+        .register(meterRegistry);
+    TimeGauge.builder(
+            "link.cleanup.chunk.max.latency",
+            linkCleaner,
+            TimeUnit.MILLISECONDS,
+            cleaner -> cleaner.getStats().maxChunkLatencyMs)
+        .description("Наибольшее время транзакции удаления одной части")
+        .register(meterRegistry);
+
+    Gauge.builder("link.slug.filter.size", slugFilter, filter -> filter.getStats().size)
+        .register(meterRegistry);
+    FunctionCounter.builder(
+            "link.slug.filter.checks", slugFilter, filter -> filter.getStats().checks)
+        .register(meterRegistry);
+    FunctionCounter.builder(
+            "link.slug.filter.rejections", slugFilter, filter -> filter.getStats().rejections)
+        .description("Переходы, отклонённые фильтром без запроса к БД")
+        .register(meterRegistry);
+
+    Gauge.builder("link.store.size", slugStore, store -> store.getStats().size)
+        .register(meterRegistry);
+    Gauge.builder("link.store.data.bytes", slugStore, store -> store.getStats().dataBytes)
+        .register(meterRegistry);
+    FunctionCounter.builder("link.store.requests", slugStore, store -> store.getStats().hits)
+        .tag("result", "hit")
+        .register(meterRegistry);
+    FunctionCounter.builder("link.store.requests", slugStore, store -> store.getStats().misses)
+        .tag("result", "miss")
+        .register(meterRegistry);
+    FunctionCounter.builder("link.store.rejected", slugStore, store -> store.getStats().rejected)
+        .description("Ссылки, не поместившиеся в хранилище и оставленные в кэше в куче")
+        .register(meterRegistry);
+
+    Gauge.builder("link.analytics.buffered", clickAnalytics, a -> a.getStats().buffered)
+        .register(meterRegistry);
+    clickEventsCounter(meterRegistry, clickAnalytics, "accepted", stats -> stats.accepted);
+    clickEventsCounter(meterRegistry, clickAnalytics, "dropped", stats -> stats.dropped);
+    clickEventsCounter(meterRegistry, clickAnalytics, "persisted", stats -> stats.persisted);
+    clickEventsCounter(meterRegistry, clickAnalytics, "failed", stats -> stats.failed);
+
+    FunctionCounter.builder("link.datasource.reads", replicaReads, ReplicaReads::getReplicaReads)
+        .tag("target", "replica")
+        .register(meterRegistry);
+    FunctionCounter.builder("link.datasource.reads", replicaReads, ReplicaReads::getPrimaryReads)
+        .tag("target", "primary")
+        .description("Чтения недавно изменённых ключей, отправленные в основную БД")
+        .register(meterRegistry);
+    FunctionCounter.builder("link.datasource.fallbacks", replicaReads, ReplicaReads::getFallbacks)
+        .description("Промахи на реплике, перепроверенные в основной БД")
+        .register(meterRegistry);
+
+    FunctionCounter.builder(
+            "link.invalidation.slugs",
+            linkInvalidationListener,
+            listener -> listener.getStats().publishedSlugs)
+        .tag("direction", "published")
+        .register(meterRegistry);
+    FunctionCounter.builder(
+            "link.invalidation.slugs",
+            linkInvalidationListener,
+            listener -> listener.getStats().receivedSlugs)
+        .tag("direction", "received")
+        .register(meterRegistry);
+    FunctionCounter.builder(
+            "link.invalidation.full.flushes",
+            linkInvalidationListener,
+            listener -> listener.getStats().fullFlushes)
+        .description("Полные сбросы локальных кэшей после подключения к каналу инвалидации")
+        .register(meterRegistry);
+
+    Gauge.builder("link.admission.limit", admissionLimiter, limiter -> limiter.getStats().limit)
+        .description("Адаптивный лимит одновременных переходов и созданий ссылок")
+        .register(meterRegistry);
+    Gauge.builder("link.admission.in.flight", admissionLimiter, l -> l.getStats().inFlight)
+        .register(meterRegistry);
+    FunctionCounter.builder(
+            "link.admission.rejected", admissionLimiter, l -> l.getStats().rejectedRedirects)
+        .tag("priority", "redirect")
+        .register(meterRegistry);
+    FunctionCounter.builder(
+            "link.admission.rejected", admissionLimiter, l -> l.getStats().rejectedCreates)
+        .tag("priority", "create")
+        .description("Запросы, отклонённые с ответом 503 из-за превышения лимита")
+        .register(meterRegistry);
+  }
+
+  public void recordCreated() {
+    createdSingle.increment();
+  }
+
+  public void recordConflict() {
+    conflictSingle.increment();
+  }
+
+  public void recordBatch(List<BatchCreateLinkResult> results) {
+    for (BatchCreateLinkResult result : results) {
+      if (result.status == HttpStatus.OK.value()) {
+        createdBatch.increment();
+      } else if (result.status == HttpStatus.CONFLICT.value()) {
+        conflictBatch.increment();
+      }
+    }
+  }
+
+  public void recordRedirect(RedirectResolution resolution) {
+    switch (resolution) {
+      case RedirectResolution.Found found -> redirectFound.increment();
+      case RedirectResolution.NotFound notFound -> redirectNotFound.increment();
+      case RedirectResolution.Expired expired -> redirectExpired.increment();
+      case RedirectResolution.LimitExceeded limitExceeded -> redirectLimitExceeded.increment();
+    }
+  }
+
+  private static Counter creationCounter(MeterRegistry meterRegistry, String name, String source) {
+    return Counter.builder(name).tag("source", source).register(meterRegistry);
+  }
+
+  private static void clickEventsCounter(
+      MeterRegistry meterRegistry,
+      ClickAnalytics clickAnalytics,
+      String result,
+      ToLongFunction<ClickAnalyticsStatsResult> value) {
+    FunctionCounter.builder(
+            "link.analytics.events", clickAnalytics, a -> value.applyAsLong(a.getStats()))
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  private static Counter redirectCounter(MeterRegistry meterRegistry, String outcome) {
+    return Counter.builder("link.redirects").tag("outcome", outcome).register(meterRegistry);
+  }
+}
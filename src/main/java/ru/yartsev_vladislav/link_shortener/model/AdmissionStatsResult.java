@@ -0,0 +1,27 @@
+package ru.yartsev_vladislav.link_shortener.model;
+
+public class AdmissionStatsResult {
+  public boolean enabled;
+  // Текущий адаптивный лимит одновременных запросов
+  public int limit;
+  public int inFlight;
+  public long admitted;
+  // Запросы, получившие 503 из-за превышения лимита
+  public long rejectedRedirects;
+  public long rejectedCreates;
+
+  public AdmissionStatsResult(
+      boolean enabled,
+      int limit,
+      int inFlight,
+      long admitted,
+      long rejectedRedirects,
+      long rejectedCreates) {
+    this.enabled = enabled;
+    this.limit = limit;
+    this.inFlight = inFlight;
+    this.admitted = admitted;
+    this.rejectedRedirects = rejectedRedirects;
+    this.rejectedCreates = rejectedCreates;
+  }
+}
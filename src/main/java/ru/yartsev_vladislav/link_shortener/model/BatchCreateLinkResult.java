@@ -0,0 +1,20 @@
+package ru.yartsev_vladislav.link_shortener.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchCreateLinkResult {
+  // Позиция ссылки во входном массиве
+  public int index;
+  // HTTP-код, который вернул бы одиночный POST /
+  public int status;
+  public String shortUrl;
+  public String error;
+
+  public BatchCreateLinkResult(int index, int status, String shortUrl, String error) {
+    this.index = index;
+    this.status = status;
+    this.shortUrl = shortUrl;
+    this.error = error;
+  }
+}
@@ -0,0 +1,17 @@
+package ru.yartsev_vladislav.link_shortener.model;
+
+public class CacheStatsResult {
+  public long size;
+  public long hits;
+  public long misses;
+  public long evictions;
+  public double hitRate;
+
+  public CacheStatsResult(long size, long hits, long misses, long evictions, double hitRate) {
+    this.size = size;
+    this.hits = hits;
+    this.misses = misses;
+    this.evictions = evictions;
+    this.hitRate = hitRate;
+  }
+}
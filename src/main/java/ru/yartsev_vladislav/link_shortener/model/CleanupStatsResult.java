@@ -0,0 +1,31 @@
+package ru.yartsev_vladislav.link_shortener.model;
+
+import java.time.LocalDateTime;
+
+public class CleanupStatsResult {
+  public long totalDeleted;
+  public LocalDateTime lastRunAt;
+  public long lastRunDeleted;
+  public long lastRunChunks;
+  public long lastRunDurationMs;
+  // Время одной транзакции удаления: сколько удерживаются блокировки строк
+  public long lastChunkLatencyMs;
+  public long maxChunkLatencyMs;
+
+  public CleanupStatsResult(
+      long totalDeleted,
+      LocalDateTime lastRunAt,
+      long lastRunDeleted,
+      long lastRunChunks,
+      long lastRunDurationMs,
+      long lastChunkLatencyMs,
+      long maxChunkLatencyMs) {
+    this.totalDeleted = totalDeleted;
+    this.lastRunAt = lastRunAt;
+    this.lastRunDeleted = lastRunDeleted;
+    this.lastRunChunks = lastRunChunks;
+    this.lastRunDurationMs = lastRunDurationMs;
+    this.lastChunkLatencyMs = lastChunkLatencyMs;
+    this.maxChunkLatencyMs = maxChunkLatencyMs;
+  }
+}
@@ -0,0 +1,31 @@
+package ru.yartsev_vladislav.link_shortener.model;
+
+public class ClickAnalyticsStatsResult {
+  public boolean enabled;
+  public int bufferCapacity;
+  // События, ещё не записанные в БД
+  public int buffered;
+  public long accepted;
+  // Отброшены при заполненном буфере
+  public long dropped;
+  public long persisted;
+  // Потеряны из-за ошибки записи в БД
+  public long failed;
+
+  public ClickAnalyticsStatsResult(
+      boolean enabled,
+      int bufferCapacity,
+      int buffered,
+      long accepted,
+      long dropped,
+      long persisted,
+      long failed) {
+    this.enabled = enabled;
+    this.bufferCapacity = bufferCapacity;
+    this.buffered = buffered;
+    this.accepted = accepted;
+    this.dropped = dropped;
+    this.persisted = persisted;
+    this.failed = failed;
+  }
+}
@@ -0,0 +1,14 @@
+package ru.yartsev_vladislav.link_shortener.model;
+
+import java.time.LocalDateTime;
+
+public class ClickSeriesPoint {
+  // Начало часа
+  public LocalDateTime hour;
+  public long clicks;
+
+  public ClickSeriesPoint(LocalDateTime hour, long clicks) {
+    this.hour = hour;
+    this.clicks = clicks;
+  }
+}
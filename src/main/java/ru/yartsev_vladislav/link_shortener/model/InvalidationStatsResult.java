@@ -0,0 +1,30 @@
+package ru.yartsev_vladislav.link_shortener.model;
+
+public class InvalidationStatsResult {
+  public boolean enabled;
+  // true, пока открыто соединение, слушающее канал
+  public boolean listening;
+  public long publishedSlugs;
+  public long notifications;
+  public long receivedSlugs;
+  public long reconnects;
+  // Полные сбросы локальных кэшей после периода, когда уведомления могли потеряться
+  public long fullFlushes;
+
+  public InvalidationStatsResult(
+      boolean enabled,
+      boolean listening,
+      long publishedSlugs,
+      long notifications,
+      long receivedSlugs,
+      long reconnects,
+      long fullFlushes) {
+    this.enabled = enabled;
+    this.listening = listening;
+    this.publishedSlugs = publishedSlugs;
+    this.notifications = notifications;
+    this.receivedSlugs = receivedSlugs;
+    this.reconnects = reconnects;
+    this.fullFlushes = fullFlushes;
+  }
+}
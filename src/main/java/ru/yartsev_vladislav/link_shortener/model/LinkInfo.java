@@ -0,0 +1,28 @@
+package ru.yartsev_vladislav.link_shortener.model;
+
+import java.time.LocalDateTime;
+
+public class LinkInfo {
+  public String slug;
+  public String shortUrl;
+  public String fullUrl;
+  // Учитывает переходы, ещё не сброшенные в БД
+  public long attempts;
+  public Integer attemptsLimit;
+  public LocalDateTime createdAt;
+
+  public LinkInfo(
+      String slug,
+      String shortUrl,
+      String fullUrl,
+      long attempts,
+      Integer attemptsLimit,
+      LocalDateTime createdAt) {
+    this.slug = slug;
+    this.shortUrl = shortUrl;
+    this.fullUrl = fullUrl;
+    this.attempts = attempts;
+    this.attemptsLimit = attemptsLimit;
+    this.createdAt = createdAt;
+  }
+}
@@ -0,0 +1,14 @@
+package ru.yartsev_vladislav.link_shortener.model;
+
+import java.util.List;
+
+public class LinkPage {
+  public List<LinkInfo> links;
+  // Передаётся в параметр cursor для получения следующей страницы; null на последней странице
+  public String nextCursor;
+
+  public LinkPage(List<LinkInfo> links, String nextCursor) {
+    this.links = links;
+    this.nextCursor = nextCursor;
+  }
+}
@@ -0,0 +1,24 @@
+package ru.yartsev_vladislav.link_shortener.model;
+
+/**
+ * Результат перехода по короткой ссылке.
+ *
+ * <p>Отсутствующая, истёкшая ссылка и превышенный лимит — штатные исходы перехода, поэтому они
+ * возвращаются значением, а не исключением. Неуспешные исходы не зависят от ссылки и представлены
+ * общими экземплярами, так что переход по мёртвому slug ничего не выделяет в памяти.
+ */
+public sealed interface RedirectResolution {
+  RedirectResolution NOT_FOUND = new NotFound();
+  RedirectResolution EXPIRED = new Expired();
+  RedirectResolution LIMIT_EXCEEDED = new LimitExceeded();
+
+  // limited — у ссылки есть лимит переходов, поэтому каждый переход должен дойти до сервиса
+  record Found(String fullUrl, boolean limited, long expiresAtMillis)
+      implements RedirectResolution {}
+
+  record NotFound() implements RedirectResolution {}
+
+  record Expired() implements RedirectResolution {}
+
+  record LimitExceeded() implements RedirectResolution {}
+}
@@ -0,0 +1,44 @@
+package ru.yartsev_vladislav.link_shortener.model;
+
+import java.time.LocalDateTime;
+
+public class SlugFilterStatsResult {
+  public boolean enabled;
+  // false, пока фильтр не построен: до этого все slug проверяются в БД
+  public boolean ready;
+  public long size;
+  public long capacity;
+  public long memoryBytes;
+  public int hashFunctions;
+  public double expectedFalsePositiveRate;
+  public long checks;
+  // Переходы, отклонённые фильтром без обращения к БД
+  public long rejections;
+  public LocalDateTime lastRebuildAt;
+  public long lastRebuildDurationMs;
+
+  public SlugFilterStatsResult(
+      boolean enabled,
+      boolean ready,
+      long size,
+      long capacity,
+      long memoryBytes,
+      int hashFunctions,
+      double expectedFalsePositiveRate,
+      long checks,
+      long rejections,
+      LocalDateTime lastRebuildAt,
+      long lastRebuildDurationMs) {
+    this.enabled = enabled;
+    this.ready = ready;
+    this.size = size;
+    this.capacity = capacity;
+    this.memoryBytes = memoryBytes;
+    this.hashFunctions = hashFunctions;
+    this.expectedFalsePositiveRate = expectedFalsePositiveRate;
+    this.checks = checks;
+    this.rejections = rejections;
+    this.lastRebuildAt = lastRebuildAt;
+    this.lastRebuildDurationMs = lastRebuildDurationMs;
+  }
+}
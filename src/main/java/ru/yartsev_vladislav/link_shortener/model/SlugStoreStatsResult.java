@@ -0,0 +1,39 @@
+package ru.yartsev_vladislav.link_shortener.model;
+
+public class SlugStoreStatsResult {
+  public boolean enabled;
+  public long size;
+  public long capacity;
+  // Занято в журнале, включая записи удалённых ссылок до уплотнения
+  public long dataBytes;
+  public long liveDataBytes;
+  public long maxDataBytes;
+  public long compactions;
+  public long hits;
+  public long misses;
+  // Ссылки, не поместившиеся в заполненное хранилище
+  public long rejected;
+
+  public SlugStoreStatsResult(
+      boolean enabled,
+      long size,
+      long capacity,
+      long dataBytes,
+      long liveDataBytes,
+      long maxDataBytes,
+      long compactions,
+      long hits,
+      long misses,
+      long rejected) {
+    this.enabled = enabled;
+    this.size = size;
+    this.capacity = capacity;
+    this.dataBytes = dataBytes;
+    this.liveDataBytes = liveDataBytes;
+    this.maxDataBytes = maxDataBytes;
+    this.compactions = compactions;
+    this.hits = hits;
+    this.misses = misses;
+    this.rejected = rejected;
+  }
+}
@@ -0,0 +1,273 @@
+package ru.yartsev_vladislav.link_shortener.partition;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yartsev_vladislav.link_shortener.config.LinkPartitionConfig;
+
+/**
+ * Секции таблицы {@code links}, разбитой по диапазонам {@code created_at} (миграция {@code
+ * V2__partition_links.sql}).
+ *
+ * <p>Раз в {@code link.partition.maintenance-delay-ms} создаются секции по {@code
+ * link.partition.interval-hours} часов на {@code link.partition.ahead-hours} часов вперёд. Секция
+ * создаётся отдельной таблицей и присоединяется к {@code links}: присоединение пустой таблицы не
+ * блокирует чтение и запись ссылок. Секции, все ссылки которых истекли, отсоединяются без
+ * блокировки {@code links} ({@code DETACH PARTITION ... CONCURRENTLY}, PostgreSQL 14+) и удаляются
+ * целиком вместо построчного {@code DELETE}.
+ *
+ * <p>Уникальность slug во всех секциях проверяет триггер {@code links_unique_slug} под
+ * advisory-блокировкой. Вставки частями (пакет, импорт) объявляют себя через {@link
+ * #markBulkInsert()} и держат одну блокировку на транзакцию, поэтому размер части не ограничен
+ * {@code max_locks_per_transaction}.
+ */
+@Component
+public class LinkPartitionManager {
+  private static final Logger log = LoggerFactory.getLogger(LinkPartitionManager.class);
+  // Имена секций начинаются с этого префикса; по нему находятся и отсоединённые секции
+  static final String PARTITION_PREFIX = "links_p";
+  private static final String SELECT_PARTITIONS_SQL =
+      "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid), i.inhdetachpending "
+          + "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+          + "WHERE i.inhparent = 'links'::regclass";
+  // Секции, отсоединённые, но не удалённые прошлой очисткой (например, из-за остановки приложения)
+  private static final String SELECT_DETACHED_SQL =
+      "SELECT relname FROM pg_class WHERE relkind = 'r' AND NOT relispartition "
+          + "AND relname LIKE 'links\\_p%' AND pg_table_is_visible(oid)";
+  private static final Pattern BOUND_PATTERN =
+      Pattern.compile("FOR VALUES FROM \\((.+)\\) TO \\((.+)\\)");
+  private static final DateTimeFormatter NAME_FORMATTER =
+      DateTimeFormatter.ofPattern("yyyyMMdd_HHmm");
+  private static final DateTimeFormatter BOUND_FORMATTER =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+  private static final int FETCH_SIZE = 1000;
+  private static final String SELECT_IS_PARTITIONED_SQL =
+      "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('links'))";
+  // Флаг транзакции для триггера links_unique_slug (миграция V4__bulk_slug_lock.sql)
+  private static final String MARK_BULK_INSERT_SQL =
+      "SELECT set_config('links.bulk_insert', 'on', true)";
+
+  private final LinkPartitionConfig linkPartitionConfig;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  @Autowired
+  public LinkPartitionManager(
+      LinkPartitionConfig linkPartitionConfig,
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate) {
+    if (linkPartitionConfig.getIntervalHours() <= 0) {
+      throw new IllegalArgumentException("Partition interval should be positive");
+    }
+    this.linkPartitionConfig = linkPartitionConfig;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+  }
+
+  public boolean isEnabled() {
+    return linkPartitionConfig.isEnabled();
+  }
+
+  // Без link.partition.enabled секции наперёд не создаются, и вставки в секционированную таблицу
+  // перестанут проходить, как только истечёт последняя секция: такой запуск лучше не допустить
+  @EventListener(ContextRefreshedEvent.class)
+  public void verifyPartitioning() {
+    if (!linkPartitionConfig.isEnabled() && isLinksPartitioned()) {
+      throw new IllegalStateException(
+          "Table links is partitioned, link.partition.enabled should be true");
+    }
+  }
+
+  // Вставка частью берёт одну блокировку на транзакцию вместо блокировки на каждую строку;
+  // вызывается внутри транзакции, выполняющей вставку
+  public void markBulkInsert() {
+    if (linkPartitionConfig.isEnabled()) {
+      jdbcTemplate.queryForObject(MARK_BULK_INSERT_SQL, String.class);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${link.partition.maintenance-delay-ms}")
+  public void createPartitionsAhead() {
+    if (!linkPartitionConfig.isEnabled()) {
+      return;
+    }
+
+    List<Partition> planned =
+        plan(
+            partitions(),
+            LocalDateTime.now(),
+            linkPartitionConfig.getIntervalHours(),
+            linkPartitionConfig.getAheadHours());
+    for (Partition partition : planned) {
+      // Таблица и её присоединение видны другим транзакциям только вместе
+      transactionTemplate.executeWithoutResult(
+          status -> {
+            jdbcTemplate.execute(
+                String.format(
+                    "CREATE TABLE %s (LIKE links INCLUDING DEFAULTS INCLUDING CONSTRAINTS)",
+                    partition.name()));
+            jdbcTemplate.execute(
+                String.format(
+                    "ALTER TABLE links ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')",
+                    partition.name(),
+                    BOUND_FORMATTER.format(partition.from()),
+                    BOUND_FORMATTER.format(partition.to())));
+          });
+    }
+    if (!planned.isEmpty()) {
+      log.info("Created {} link partitions up to {}", planned.size(), planned.getLast().to());
+    }
+  }
+
+  // Отсоединяет секции, все ссылки которых созданы раньше порога, и возвращает имена их таблиц
+  public List<String> detachExpiredPartitions(LocalDateTime expiredLinksCreatedAtThreshold) {
+    List<String> detached =
+        new ArrayList<>(jdbcTemplate.queryForList(SELECT_DETACHED_SQL, String.class));
+    for (Partition partition : partitions()) {
+      if (partition.to() == null || partition.to().isAfter(expiredLinksCreatedAtThreshold)) {
+        continue;
+      }
+      // Не может выполняться в транзакции; прерванное отсоединение завершается через FINALIZE
+      jdbcTemplate.execute(
+          String.format(
+              "ALTER TABLE links DETACH PARTITION %s %s",
+              partition.name(),
+              partition.detachPending() ? "FINALIZE" : "CONCURRENTLY"));
+      detached.add(partition.name());
+    }
+    return detached;
+  }
+
+  // Передаёт slug отсоединённой секции частями по chunkSize и удаляет её таблицу
+  public long dropPartition(String table, int chunkSize, Consumer<List<String>> onSlugs) {
+    Long dropped =
+        transactionTemplate.execute(
+            status -> {
+              List<String> chunk = new ArrayList<>(chunkSize);
+              long[] count = {0};
+              // Курсорное чтение порциями PostgreSQL выполняет только внутри транзакции
+              jdbcTemplate.query(
+                  connection -> {
+                    PreparedStatement statement =
+                        connection.prepareStatement("SELECT slug FROM " + table);
+                    statement.setFetchSize(FETCH_SIZE);
+                    return statement;
+                  },
+                  (RowCallbackHandler)
+                      resultSet -> {
+                        chunk.add(resultSet.getString(1));
+                        count[0]++;
+                        if (chunk.size() >= chunkSize) {
+                          onSlugs.accept(List.copyOf(chunk));
+                          chunk.clear();
+                        }
+                      });
+              if (!chunk.isEmpty()) {
+                onSlugs.accept(List.copyOf(chunk));
+              }
+              jdbcTemplate.execute("DROP TABLE " + table);
+              return count[0];
+            });
+    log.info("Dropped link partition {} with {} links", table, dropped);
+    return dropped == null ? 0 : dropped;
+  }
+
+  private boolean isLinksPartitioned() {
+    String database =
+        jdbcTemplate.execute(
+            (ConnectionCallback<String>)
+                connection -> connection.getMetaData().getDatabaseProductName());
+    // Секционирование создают только миграции PostgreSQL
+    if (!"PostgreSQL".equals(database)) {
+      return false;
+    }
+    Boolean partitioned = jdbcTemplate.queryForObject(SELECT_IS_PARTITIONED_SQL, Boolean.class);
+    return Boolean.TRUE.equals(partitioned);
+  }
+
+  private List<Partition> partitions() {
+    List<Partition> partitions = new ArrayList<>();
+    jdbcTemplate.query(
+        SELECT_PARTITIONS_SQL,
+        (RowCallbackHandler)
+            resultSet -> {
+              Partition partition =
+                  parse(resultSet.getString(1), resultSet.getString(2), resultSet.getBoolean(3));
+              if (partition != null) {
+                partitions.add(partition);
+              }
+            });
+    return partitions;
+  }
+
+  // Секции от конца последней существующей (или от начала текущего интервала) до now + aheadHours
+  static List<Partition> plan(
+      List<Partition> partitions, LocalDateTime now, int intervalHours, int aheadHours) {
+    LocalDateTime from = null;
+    for (Partition partition : partitions) {
+      if (partition.to() == null) {
+        // Секция до MAXVALUE уже покрывает всё будущее
+        return List.of();
+      }
+      if (from == null || partition.to().isAfter(from)) {
+        from = partition.to();
+      }
+    }
+    if (from == null) {
+      from = floor(now, intervalHours);
+    }
+
+    List<Partition> planned = new ArrayList<>();
+    LocalDateTime until = now.plusHours(aheadHours);
+    while (from.isBefore(until)) {
+      LocalDateTime to = floor(from, intervalHours).plusHours(intervalHours);
+      planned.add(new Partition(PARTITION_PREFIX + NAME_FORMATTER.format(from), from, to, false));
+      from = to;
+    }
+    return planned;
+  }
+
+  // Разбирает границы вида "FOR VALUES FROM ('...') TO ('...')"; секцию DEFAULT пропускает
+  static Partition parse(String name, String bound, boolean detachPending) {
+    Matcher matcher = BOUND_PATTERN.matcher(bound);
+    if (!matcher.matches()) {
+      return null;
+    }
+    return new Partition(
+        name, parseValue(matcher.group(1)), parseValue(matcher.group(2)), detachPending);
+  }
+
+  // Начало интервала, в который попадает момент; интервалы отсчитываются от начала эпохи
+  static LocalDateTime floor(LocalDateTime time, int intervalHours) {
+    long hours = Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 3600);
+    return LocalDateTime.ofEpochSecond(
+        (hours - Math.floorMod(hours, intervalHours)) * 3600, 0, ZoneOffset.UTC);
+  }
+
+  // null означает MINVALUE или MAXVALUE
+  private static LocalDateTime parseValue(String value) {
+    if (!value.startsWith("'")) {
+      return null;
+    }
+    return LocalDateTime.parse(value.substring(1, value.length() - 1).replace(' ', 'T'));
+  }
+
+  record Partition(String name, LocalDateTime from, LocalDateTime to, boolean detachPending) {}
+}
@@ -0,0 +1,7 @@
+package ru.yartsev_vladislav.link_shortener.repository;
+
+import java.time.LocalDateTime;
+
+// Поля ссылки, нужные для перехода; выбираются без сущности Link и её владельца
+public record LinkRedirectView(
+    String slug, String fullUrl, int attempts, Integer attemptsLimit, LocalDateTime createdAt) {}
@@ -1,13 +1,82 @@
 package ru.yartsev_vladislav.link_shortener.repository;
 
+import jakarta.persistence.QueryHint;
+import jakarta.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ru.yartsev_vladislav.link_shortener.entity.Link;
 
 public interface LinkRepository extends JpaRepository<Link, String> {
+  // Переход читает только нужные столбцы: без загрузки владельца и без отслеживания сущности
+  @Query(
+      "select new ru.yartsev_vladislav.link_shortener.repository.LinkRedirectView("
+          + "l.slug, l.fullUrl, l.attempts, l.attemptsLimit, l.createdAt) "
+          + "from Link l where l.slug = :slug")
+  Optional<LinkRedirectView> findRedirectViewBySlug(@Param("slug") String slug);
+
   Optional<Link> findByFullUrlAndOwnerIdAndCreatedAtGreaterThanEqual(
       String fullUrl, String ownerId, LocalDateTime createdAt);
 
-  void deleteAllByCreatedAtBefore(LocalDateTime createdAt);
+  List<Link> findAllByOwnerIdAndFullUrlInAndCreatedAtGreaterThanEqual(
+      String ownerId, Collection<String> fullUrls, LocalDateTime createdAt);
+
+  // Первая страница ссылок владельца, от новых к старым
+  @Query(
+      "select l from Link l where l.owner.id = :ownerId and l.createdAt >= :createdAt "
+          + "order by l.createdAt desc, l.slug desc")
+  List<Link> findFirstPageByOwnerId(
+      @Param("ownerId") String ownerId, @Param("createdAt") LocalDateTime createdAt, Limit limit);
+
+  // Следующая страница: keyset по (createdAt, slug) последней ссылки предыдущей страницы, индекс
+  // links_owner_created_at_slug_idx позволяет не перечитывать пропущенные строки, как OFFSET
+  @Query(
+      "select l from Link l where l.owner.id = :ownerId and l.createdAt >= :createdAt "
+          + "and (l.createdAt, l.slug) < (:afterCreatedAt, :afterSlug) "
+          + "order by l.createdAt desc, l.slug desc")
+  List<Link> findPageByOwnerIdAfter(
+      @Param("ownerId") String ownerId,
+      @Param("createdAt") LocalDateTime createdAt,
+      @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+      @Param("afterSlug") String afterSlug,
+      Limit limit);
+
+  // Читает ссылки курсором БД по 1000 строк; вызывать внутри транзакции и закрывать поток
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query(
+      "select l from Link l where l.owner.id = :ownerId and l.createdAt >= :createdAt "
+          + "order by l.createdAt desc, l.slug desc")
+  Stream<Link> streamAllByOwnerId(
+      @Param("ownerId") String ownerId, @Param("createdAt") LocalDateTime createdAt);
+
+  // Увеличивает счётчик только у неистёкшей ссылки, лимит которой ещё не исчерпан
+  @Modifying
+  @Transactional
+  @Query(
+      "update Link l set l.attempts = l.attempts + 1 "
+          + "where l.slug = :slug and l.createdAt >= :createdAt "
+          + "and (l.attemptsLimit is null or l.attempts < l.attemptsLimit)")
+  int incrementAttemptsIfAllowed(
+      @Param("slug") String slug, @Param("createdAt") LocalDateTime createdAt);
+
+  // Меняет лимит, не перезаписывая счётчик: переходы, посчитанные после чтения ссылки, сохраняются
+  @Modifying
+  @Transactional
+  @Query(
+      "update Link l set l.attemptsLimit = :limit, l.attempts = l.attempts + :drained "
+          + "where l.slug = :slug")
+  int updateAttemptsLimit(
+      @Param("slug") String slug, @Param("limit") Integer limit, @Param("drained") int drained);
 }
@@ -0,0 +1,88 @@
+package ru.yartsev_vladislav.link_shortener.service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Отложенная запись счётчика переходов.
+ *
+ * <p>Переходы копятся в памяти по slug (блокировки {@link ConcurrentHashMap} разбиты по корзинам,
+ * поэтому конкурентные переходы по разным ссылкам не мешают друг другу) и периодически сбрасываются
+ * в БД одним пакетным {@code UPDATE}. При штатной остановке приложения накопленное сбрасывается.
+ */
+@Component
+public class ClickCounter {
+  private static final String FLUSH_SQL = "UPDATE links SET attempts = attempts + ? WHERE slug = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ConcurrentHashMap<String, Long> pending = new ConcurrentHashMap<>();
+  // Не synchronized: блокировка на мониторе во время JDBC-запроса закрепляет виртуальный поток
+  // за потоком-носителем
+  private final ReentrantLock flushLock = new ReentrantLock();
+
+  @Autowired
+  public ClickCounter(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public void increment(String slug) {
+    pending.merge(slug, 1L, Long::sum);
+  }
+
+  public long getPending(String slug) {
+    return pending.getOrDefault(slug, 0L);
+  }
+
+  // Забирает ещё не сброшенные переходы по ссылке, чтобы они не попали в БД при следующем сбросе
+  public long drain(String slug) {
+    Long delta = pending.remove(slug);
+    return delta == null ? 0 : delta;
+  }
+
+  @Scheduled(fixedDelayString = "${scheduler.click-counter-flush-delay-ms}")
+  public void flush() {
+    flushLock.lock();
+    try {
+      flushPending();
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    flush();
+  }
+
+  private void flushPending() {
+    if (pending.isEmpty()) {
+      return;
+    }
+
+    List<Object[]> batch = new ArrayList<>();
+    for (String slug : pending.keySet()) {
+      Long delta = pending.remove(slug);
+      if (delta != null && delta > 0) {
+        batch.add(new Object[] {delta, slug});
+      }
+    }
+
+    try {
+      jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+    } catch (DataAccessException e) {
+      // Возвращаем несброшенные переходы, чтобы не потерять их до следующей попытки
+      for (Object[] args : batch) {
+        pending.merge((String) args[1], (Long) args[0], Long::sum);
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package ru.yartsev_vladislav.link_shortener.service;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Генерирует slug фиксированной длины из 64-битного хэша в стиле XXH64 от пары (url, salt).
+ *
+ * <p>Строки читаются посимвольно без копирования, slug собирается сразу в {@code char[]}. Номер
+ * попытки подмешивается в начальное состояние хэша, поэтому каждая следующая попытка даёт
+ * независимый кандидат.
+ */
+@Component
+public class HashSlugGenerator implements SlugGenerator {
+  public static final int SLUG_LENGTH = 8;
+
+  private static final char[] BASE62_ALPHABET =
+      "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+  // 62^8: количество различных slug длины SLUG_LENGTH
+  private static final long SLUG_SPACE = 218_340_105_584_896L;
+
+  private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+  private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long PRIME_3 = 0x165667B19E3779F9L;
+  private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+  private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+
+  @Override
+  public String generate(String url, String salt, int attempt) {
+    long value = Long.remainderUnsigned(hash(url, salt, attempt), SLUG_SPACE);
+
+    char[] slug = new char[SLUG_LENGTH];
+    for (int i = SLUG_LENGTH - 1; i >= 0; i--) {
+      slug[i] = BASE62_ALPHABET[(int) (value % 62)];
+      value /= 62;
+    }
+    return new String(slug);
+  }
+
+  static long hash(String url, String salt, int attempt) {
+    long hash = PRIME_5 + attempt * PRIME_1;
+    hash = update(hash, url);
+    // Длина url разделяет строки, чтобы пары ("ab", "c") и ("a", "bc") не совпадали
+    hash = mixBlock(hash, url.length());
+    hash = update(hash, salt);
+    hash += (long) (url.length() + salt.length()) << 1;
+    return avalanche(hash);
+  }
+
+  private static long update(long hash, String value) {
+    int length = value.length();
+    int i = 0;
+    for (; i + 4 <= length; i += 4) {
+      long block =
+          (long) value.charAt(i)
+              | (long) value.charAt(i + 1) << 16
+              | (long) value.charAt(i + 2) << 32
+              | (long) value.charAt(i + 3) << 48;
+      hash = mixBlock(hash, block);
+    }
+    for (; i < length; i++) {
+      hash ^= value.charAt(i) * PRIME_5;
+      hash = Long.rotateLeft(hash, 11) * PRIME_1;
+    }
+    return hash;
+  }
+
+  private static long mixBlock(long hash, long block) {
+    long round = Long.rotateLeft(block * PRIME_2, 31) * PRIME_1;
+    hash ^= round;
+    return Long.rotateLeft(hash, 27) * PRIME_1 + PRIME_4;
+  }
+
+  private static long avalanche(long hash) {
+    hash ^= hash >>> 33;
+    hash *= PRIME_2;
+    hash ^= hash >>> 29;
+    hash *= PRIME_3;
+    hash ^= hash >>> 32;
+    return hash;
+  }
+}
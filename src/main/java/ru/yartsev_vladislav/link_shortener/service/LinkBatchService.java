@@ -0,0 +1,347 @@
+package ru.yartsev_vladislav.link_shortener.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yartsev_vladislav.link_shortener.config.LinkBatchConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkConfig;
+import ru.yartsev_vladislav.link_shortener.datasource.ReplicaReads;
+import ru.yartsev_vladislav.link_shortener.entity.Link;
+import ru.yartsev_vladislav.link_shortener.entity.User;
+import ru.yartsev_vladislav.link_shortener.exception.FreeSlugIsNotFoundException;
+import ru.yartsev_vladislav.link_shortener.exception.NotExpiredLinkAlreadyExistsException;
+import ru.yartsev_vladislav.link_shortener.exception.UserDoesNotExistException;
+import ru.yartsev_vladislav.link_shortener.expiry.LinkExpiryIndex;
+import ru.yartsev_vladislav.link_shortener.filter.SlugFilter;
+import ru.yartsev_vladislav.link_shortener.invalidation.LinkInvalidationPublisher;
+import ru.yartsev_vladislav.link_shortener.model.BatchCreateLinkResult;
+import ru.yartsev_vladislav.link_shortener.model.CreateLinkOptions;
+import ru.yartsev_vladislav.link_shortener.model.CreateLinkResult;
+import ru.yartsev_vladislav.link_shortener.partition.LinkPartitionManager;
+import ru.yartsev_vladislav.link_shortener.repository.LinkRepository;
+import ru.yartsev_vladislav.link_shortener.store.SlugStore;
+
+/**
+ * Пакетное создание ссылок одного пользователя.
+ *
+ * <p>Ссылки обрабатываются частями по {@code link.batch.chunk-size}: на часть приходится один
+ * запрос дубликатов, один запрос занятых slug (повторяется только для коллизий) и одна пакетная
+ * вставка через Hibernate. Результаты отдаются потребителю сразу после обработки части.
+ */
+@Component
+public class LinkBatchService {
+  private final LinkShortenerService linkShortenerService;
+  private final LinkRepository linkRepository;
+  private final UrlService urlService;
+  private final LinkConfig linkConfig;
+  private final LinkBatchConfig linkBatchConfig;
+  private final LinkExpiryIndex linkExpiryIndex;
+  private final SlugFilter slugFilter;
+  private final SlugStore slugStore;
+  private final ReplicaReads replicaReads;
+  private final LinkInvalidationPublisher linkInvalidationPublisher;
+  private final LinkEvictions linkEvictions;
+  private final LinkPartitionManager linkPartitionManager;
+  private final TransactionTemplate transactionTemplate;
+
+  @Autowired
+  public LinkBatchService(
+      LinkShortenerService linkShortenerService,
+      LinkRepository linkRepository,
+      UrlService urlService,
+      LinkConfig linkConfig,
+      LinkBatchConfig linkBatchConfig,
+      LinkExpiryIndex linkExpiryIndex,
+      SlugFilter slugFilter,
+      SlugStore slugStore,
+      ReplicaReads replicaReads,
+      LinkInvalidationPublisher linkInvalidationPublisher,
+      LinkEvictions linkEvictions,
+      LinkPartitionManager linkPartitionManager,
+      TransactionTemplate transactionTemplate) {
+    this.linkShortenerService = linkShortenerService;
+    this.linkRepository = linkRepository;
+    this.urlService = urlService;
+    this.linkConfig = linkConfig;
+    this.linkBatchConfig = linkBatchConfig;
+    this.linkExpiryIndex = linkExpiryIndex;
+    this.slugFilter = slugFilter;
+    this.slugStore = slugStore;
+    this.replicaReads = replicaReads;
+    this.linkInvalidationPublisher = linkInvalidationPublisher;
+    this.linkEvictions = linkEvictions;
+    this.linkPartitionManager = linkPartitionManager;
+    this.transactionTemplate = transactionTemplate;
+  }
+
+  public User resolveOwner(String userId) throws UserDoesNotExistException {
+    return linkShortenerService.ensureUser(userId);
+  }
+
+  public String publicUserId(User owner) {
+    return linkShortenerService.publicUserId(owner);
+  }
+
+  /**
+   * Создаёт ссылки частями по {@code link.batch.chunk-size}, забирая элементы из {@code options}
+   * по мере обработки: в памяти одновременно держится только текущая часть пакета.
+   *
+   * <p>{@link IllegalArgumentException} из итератора (некорректный или слишком большой пакет)
+   * завершает обработку: уже прочитанные элементы создаются, а последней строкой отдаётся ошибка
+   * 400 с индексом первого непрочитанного элемента.
+   */
+  public void createLinks(
+      Iterator<CreateLinkOptions> options,
+      User owner,
+      Consumer<List<BatchCreateLinkResult>> chunkResultsConsumer) {
+    // URL, уже встреченные в этом пакете: повтор внутри пакета — такой же конфликт, как и с БД
+    Set<String> batchUrls = new HashSet<>();
+    int chunkSize = linkBatchConfig.getChunkSize();
+    List<CreateLinkOptions> chunk = new ArrayList<>(chunkSize);
+    int offset = 0;
+    boolean more = true;
+    while (more) {
+      String error = null;
+      try {
+        while (chunk.size() < chunkSize && (more = options.hasNext())) {
+          chunk.add(options.next());
+        }
+      } catch (IllegalArgumentException e) {
+        error = e.getMessage();
+        more = false;
+      }
+
+      if (!chunk.isEmpty()) {
+        chunkResultsConsumer.accept(createChunk(chunk, offset, owner, batchUrls));
+        offset += chunk.size();
+        chunk.clear();
+      }
+      if (error != null) {
+        chunkResultsConsumer.accept(
+            List.of(
+                new BatchCreateLinkResult(offset, HttpStatus.BAD_REQUEST.value(), null, error)));
+      }
+    }
+  }
+
+  private List<BatchCreateLinkResult> createChunk(
+      List<CreateLinkOptions> chunk, int offset, User owner, Set<String> batchUrls) {
+    BatchCreateLinkResult[] results = new BatchCreateLinkResult[chunk.size()];
+
+    Map<String, PendingLink> pendingByUrl = new LinkedHashMap<>();
+    for (int position = 0; position < chunk.size(); position++) {
+      CreateLinkOptions item = chunk.get(position);
+      try {
+        if (item == null) {
+          throw new IllegalArgumentException("Link options should not be null");
+        }
+        String url = urlService.canonicalizeUrl(item.url);
+        linkShortenerService.validateLimit(item.limit);
+
+        if (batchUrls.add(url)) {
+          pendingByUrl.put(url, new PendingLink(offset + position, url, item.limit));
+        } else {
+          results[position] = conflict(offset + position, url, owner);
+        }
+      } catch (IllegalArgumentException e) {
+        results[position] =
+            new BatchCreateLinkResult(
+                offset + position, HttpStatus.BAD_REQUEST.value(), null, e.getMessage());
+      }
+    }
+
+    if (!pendingByUrl.isEmpty()) {
+      LocalDateTime expiredLinksCreatedAtThreshold =
+          LocalDateTime.now().minusSeconds(linkConfig.getTimeToLeave());
+      List<Link> notExpiredLinks =
+          replicaReads.read(
+              owner.getId(),
+              () ->
+                  linkRepository.findAllByOwnerIdAndFullUrlInAndCreatedAtGreaterThanEqual(
+                      owner.getId(), pendingByUrl.keySet(), expiredLinksCreatedAtThreshold));
+      for (Link notExpiredLink : notExpiredLinks) {
+        PendingLink pendingLink = pendingByUrl.remove(notExpiredLink.getFullUrl());
+        if (pendingLink != null) {
+          results[pendingLink.index - offset] = conflict(pendingLink.index, pendingLink.url, owner);
+        }
+      }
+
+      insertLinks(assignSlugs(pendingByUrl.values(), owner), owner, results, offset);
+    }
+
+    return Arrays.asList(results);
+  }
+
+  // Подбирает каждой ссылке свободный slug, проверяя кандидатов одним запросом на попытку
+  private List<PendingLink> assignSlugs(Iterable<PendingLink> pendingLinks, User owner) {
+    List<PendingLink> assigned = new ArrayList<>();
+    List<Link> expiredLinks = new ArrayList<>();
+    Set<String> claimedSlugs = new HashSet<>();
+
+    List<PendingLink> unresolved = new ArrayList<>();
+    pendingLinks.forEach(unresolved::add);
+    for (int attempt = 0;
+        attempt < LinkShortenerService.SLUG_MAX_ATTEMPTS && !unresolved.isEmpty();
+        attempt++) {
+      Map<String, PendingLink> candidates = new HashMap<>();
+      List<PendingLink> collided = new ArrayList<>();
+      for (PendingLink pendingLink : unresolved) {
+        String slug = urlService.generateLinkSlug(pendingLink.url, owner.getId(), attempt);
+        if (claimedSlugs.contains(slug) || candidates.putIfAbsent(slug, pendingLink) != null) {
+          collided.add(pendingLink);
+        }
+      }
+
+      for (Link linkFromDb : linkRepository.findAllById(candidates.keySet())) {
+        if (linkShortenerService.isLinkExpired(linkFromDb)) {
+          expiredLinks.add(linkFromDb);
+        } else {
+          collided.add(candidates.remove(linkFromDb.getSlug()));
+        }
+      }
+
+      for (Map.Entry<String, PendingLink> candidate : candidates.entrySet()) {
+        claimedSlugs.add(candidate.getKey());
+        candidate.getValue().slug = candidate.getKey();
+        assigned.add(candidate.getValue());
+      }
+      unresolved = collided;
+    }
+    assigned.addAll(unresolved);
+
+    if (!expiredLinks.isEmpty()) {
+      linkRepository.deleteAllInBatch(expiredLinks);
+      List<String> expiredSlugs = new ArrayList<>(expiredLinks.size());
+      // Верхняя граница времени создания удалённых ссылок
+      LocalDateTime createdAtThreshold = expiredLinks.get(0).getCreatedAt();
+      for (Link expiredLink : expiredLinks) {
+        expiredSlugs.add(expiredLink.getSlug());
+        if (expiredLink.getCreatedAt().isAfter(createdAtThreshold)) {
+          createdAtThreshold = expiredLink.getCreatedAt();
+        }
+      }
+      linkEvictions.evictAll(expiredSlugs, createdAtThreshold);
+    }
+
+    return assigned;
+  }
+
+  private void insertLinks(
+      List<PendingLink> pendingLinks, User owner, BatchCreateLinkResult[] results, int offset) {
+    List<Link> links = new ArrayList<>();
+    for (PendingLink pendingLink : pendingLinks) {
+      if (pendingLink.slug == null) {
+        results[pendingLink.index - offset] =
+            new BatchCreateLinkResult(
+                pendingLink.index,
+                HttpStatus.CONFLICT.value(),
+                null,
+                String.format("Could not generate a free slug for url '%s'", pendingLink.url));
+        continue;
+      }
+
+      Link link = new Link(pendingLink.slug, pendingLink.url, owner);
+      link.setAttemptsLimit(pendingLink.limit);
+      links.add(link);
+    }
+
+    try {
+      // Одна блокировка триггера links_unique_slug на часть вместо блокировки на каждую строку
+      transactionTemplate.executeWithoutResult(
+          status -> {
+            linkPartitionManager.markBulkInsert();
+            linkRepository.saveAll(links);
+          });
+    } catch (DataIntegrityViolationException e) {
+      if (!UniqueViolations.isUniqueViolation(e)) {
+        throw e;
+      }
+      // Кто-то параллельно занял один из slug, вся вставка откатилась: создаём ссылки по одной
+      insertLinksOneByOne(pendingLinks, owner, results, offset);
+      return;
+    }
+    replicaReads.markWritten(owner.getId());
+    for (Link link : links) {
+      replicaReads.markWritten(link.getSlug());
+      linkExpiryIndex.track(link.getSlug(), link.getCreatedAt());
+      slugFilter.add(link.getSlug());
+      slugStore.put(link);
+      linkInvalidationPublisher.publishCreated(link.getSlug());
+    }
+
+    for (PendingLink pendingLink : pendingLinks) {
+      if (pendingLink.slug != null) {
+        results[pendingLink.index - offset] =
+            new BatchCreateLinkResult(
+                pendingLink.index,
+                HttpStatus.OK.value(),
+                urlService.generateShortUrl(pendingLink.slug),
+                null);
+      }
+    }
+  }
+
+  private void insertLinksOneByOne(
+      List<PendingLink> pendingLinks, User owner, BatchCreateLinkResult[] results, int offset) {
+    for (PendingLink pendingLink : pendingLinks) {
+      if (pendingLink.slug == null) {
+        continue;
+      }
+
+      CreateLinkOptions options = new CreateLinkOptions();
+      options.url = pendingLink.url;
+      options.limit = pendingLink.limit;
+      try {
+        CreateLinkResult result = linkShortenerService.createLinkForOwner(options, owner);
+        results[pendingLink.index - offset] =
+            new BatchCreateLinkResult(
+                pendingLink.index, HttpStatus.OK.value(), result.shortUrl, null);
+      } catch (NotExpiredLinkAlreadyExistsException e) {
+        results[pendingLink.index - offset] = conflict(pendingLink.index, pendingLink.url, owner);
+      } catch (FreeSlugIsNotFoundException e) {
+        results[pendingLink.index - offset] =
+            new BatchCreateLinkResult(
+                pendingLink.index, HttpStatus.CONFLICT.value(), null, e.getMessage());
+      } catch (RuntimeException e) {
+        results[pendingLink.index - offset] =
+            new BatchCreateLinkResult(
+                pendingLink.index, HttpStatus.INTERNAL_SERVER_ERROR.value(), null, e.getMessage());
+      }
+    }
+  }
+
+  private BatchCreateLinkResult conflict(int index, String url, User owner) {
+    return new BatchCreateLinkResult(
+        index,
+        HttpStatus.CONFLICT.value(),
+        null,
+        String.format(
+            "Link '/%s' for user '%s' already exists and not expired", url, owner.getId()));
+  }
+
+  private static class PendingLink {
+    private final int index;
+    private final String url;
+    private final Integer limit;
+    private String slug;
+
+    PendingLink(int index, String url, Integer limit) {
+      this.index = index;
+      this.url = url;
+      this.limit = limit;
+    }
+  }
+}
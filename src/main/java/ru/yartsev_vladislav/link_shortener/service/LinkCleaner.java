@@ -0,0 +1,207 @@
+package ru.yartsev_vladislav.link_shortener.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yartsev_vladislav.link_shortener.config.LinkCleanupConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkConfig;
+import ru.yartsev_vladislav.link_shortener.expiry.LinksExpiredEvent;
+import ru.yartsev_vladislav.link_shortener.model.CleanupStatsResult;
+import ru.yartsev_vladislav.link_shortener.partition.LinkPartitionManager;
+
+/**
+ * Инкрементальная очистка истёкших ссылок.
+ *
+ * <p>Ссылки удаляются частями по {@code link.cleanup.chunk-size}, каждая часть — отдельная короткая
+ * транзакция: выбрать самые старые истёкшие slug по индексу {@code created_at} и удалить их пакетом
+ * по первичному ключу. Строки, заблокированные параллельной транзакцией, пропускаются ({@code SKIP
+ * LOCKED}), а пауза между частями не даёт очистке занять БД целиком.
+ *
+ * <p>Если таблица секционирована ({@code link.partition.enabled=true}), строки не удаляются:
+ * целиком удаляются секции, все ссылки которых истекли, а их slug убираются из памяти частями по
+ * {@code link.cleanup.chunk-size}. В статистике частью тогда считается секция.
+ */
+@Component
+public class LinkCleaner {
+  private static final String SELECT_EXPIRED_SQL =
+      "SELECT slug FROM links WHERE created_at < ? ORDER BY created_at LIMIT ? "
+          + "FOR UPDATE SKIP LOCKED";
+  private static final String DELETE_SQL = "DELETE FROM links WHERE slug = ?";
+  // Slug истёкшей ссылки мог уже занять новая ссылка, поэтому срок жизни проверяется повторно
+  private static final String DELETE_EXPIRED_SQL =
+      "DELETE FROM links WHERE slug = ? AND created_at < ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final LinkConfig linkConfig;
+  private final LinkCleanupConfig linkCleanupConfig;
+  private final LinkEvictions linkEvictions;
+  private final LinkPartitionManager linkPartitionManager;
+  // Не synchronized: очистка ждёт БД и спит между частями, а блокировка на мониторе закрепила бы
+  // виртуальный поток планировщика за потоком-носителем
+  private final ReentrantLock cleanupLock = new ReentrantLock();
+
+  private volatile CleanupStatsResult stats = new CleanupStatsResult(0, null, 0, 0, 0, 0, 0);
+
+  @Autowired
+  public LinkCleaner(
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      LinkConfig linkConfig,
+      LinkCleanupConfig linkCleanupConfig,
+      LinkEvictions linkEvictions,
+      LinkPartitionManager linkPartitionManager) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.linkConfig = linkConfig;
+    this.linkCleanupConfig = linkCleanupConfig;
+    this.linkEvictions = linkEvictions;
+    this.linkPartitionManager = linkPartitionManager;
+  }
+
+  @Scheduled(fixedDelayString = "${scheduler.link-cleanup-delay-ms}")
+  public void cleanupExpiredLinks() {
+    cleanupLock.lock();
+    try {
+      cleanupExpiredLinksLocked();
+    } finally {
+      cleanupLock.unlock();
+    }
+  }
+
+  // Удаляет ссылки, истечение которых отследил LinkExpiryIndex, не дожидаясь очистки
+  @EventListener
+  public void onLinksExpired(LinksExpiredEvent event) {
+    LocalDateTime expiredLinksCreatedAtThreshold =
+        LocalDateTime.now().minusSeconds(linkConfig.getTimeToLeave());
+    List<String> slugs = event.slugs();
+    // Строки секционированной таблицы удаляются вместе с секцией, до тех пор переход вернёт 410
+    if (linkPartitionManager.isEnabled()) {
+      linkEvictions.evictRetained(slugs);
+      return;
+    }
+
+    int chunkSize = linkCleanupConfig.getChunkSize();
+    for (int from = 0; from < slugs.size(); from += chunkSize) {
+      List<String> chunk = slugs.subList(from, Math.min(from + chunkSize, slugs.size()));
+      int[][] deleted =
+          transactionTemplate.execute(
+              status ->
+                  jdbcTemplate.batchUpdate(
+                      DELETE_EXPIRED_SQL,
+                      chunk,
+                      chunk.size(),
+                      (statement, slug) -> {
+                        statement.setString(1, slug);
+                        statement.setObject(2, expiredLinksCreatedAtThreshold);
+                      }));
+      // Из памяти убираются только действительно удалённые строки: slug мог занять новая ссылка
+      if (deleted != null && deleted.length > 0) {
+        List<String> deletedSlugs = new ArrayList<>();
+        for (int i = 0; i < deleted[0].length && i < chunk.size(); i++) {
+          if (deleted[0][i] > 0) {
+            deletedSlugs.add(chunk.get(i));
+          }
+        }
+        linkEvictions.evictAll(deletedSlugs, expiredLinksCreatedAtThreshold);
+      }
+    }
+  }
+
+  public CleanupStatsResult getStats() {
+    return stats;
+  }
+
+  private void cleanupExpiredLinksLocked() {
+    LocalDateTime startedAt = LocalDateTime.now();
+    LocalDateTime expiredLinksCreatedAtThreshold =
+        startedAt.minusSeconds(linkConfig.getTimeToLeave());
+    long runStartedAt = System.nanoTime();
+    long deleted = 0;
+    long chunks = 0;
+    long lastChunkLatencyMs = 0;
+    long maxChunkLatencyMs = stats.maxChunkLatencyMs;
+
+    try {
+      if (linkPartitionManager.isEnabled()) {
+        for (String partition :
+            linkPartitionManager.detachExpiredPartitions(expiredLinksCreatedAtThreshold)) {
+          long chunkStartedAt = System.nanoTime();
+          deleted +=
+              linkPartitionManager.dropPartition(
+                  partition,
+                  linkCleanupConfig.getChunkSize(),
+                  slugs -> linkEvictions.evictAll(slugs, expiredLinksCreatedAtThreshold));
+          lastChunkLatencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - chunkStartedAt);
+          maxChunkLatencyMs = Math.max(maxChunkLatencyMs, lastChunkLatencyMs);
+          chunks++;
+        }
+        return;
+      }
+
+      while (true) {
+        long chunkStartedAt = System.nanoTime();
+        List<String> slugs = deleteChunk(expiredLinksCreatedAtThreshold);
+        lastChunkLatencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - chunkStartedAt);
+        maxChunkLatencyMs = Math.max(maxChunkLatencyMs, lastChunkLatencyMs);
+        deleted += slugs.size();
+        chunks++;
+
+        linkEvictions.evictAll(slugs, expiredLinksCreatedAtThreshold);
+
+        if (slugs.size() < linkCleanupConfig.getChunkSize() || !pause()) {
+          break;
+        }
+      }
+    } finally {
+      stats =
+          new CleanupStatsResult(
+              stats.totalDeleted + deleted,
+              startedAt,
+              deleted,
+              chunks,
+              TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - runStartedAt),
+              lastChunkLatencyMs,
+              maxChunkLatencyMs);
+    }
+  }
+
+  private List<String> deleteChunk(LocalDateTime expiredLinksCreatedAtThreshold) {
+    return transactionTemplate.execute(
+        status -> {
+          List<String> slugs =
+              jdbcTemplate.queryForList(
+                  SELECT_EXPIRED_SQL,
+                  String.class,
+                  expiredLinksCreatedAtThreshold,
+                  linkCleanupConfig.getChunkSize());
+          if (!slugs.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                DELETE_SQL, slugs, slugs.size(), (statement, slug) -> statement.setString(1, slug));
+          }
+          return slugs;
+        });
+  }
+
+  // Возвращает false, если поток прервали (например, при остановке приложения)
+  private boolean pause() {
+    if (linkCleanupConfig.getPauseMs() <= 0) {
+      return true;
+    }
+    try {
+      Thread.sleep(linkCleanupConfig.getPauseMs());
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package ru.yartsev_vladislav.link_shortener.service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.yartsev_vladislav.link_shortener.analytics.ClickAnalytics;
+import ru.yartsev_vladislav.link_shortener.cache.LinkCache;
+import ru.yartsev_vladislav.link_shortener.datasource.ReplicaReads;
+import ru.yartsev_vladislav.link_shortener.expiry.LinkExpiryIndex;
+import ru.yartsev_vladislav.link_shortener.filter.SlugFilter;
+import ru.yartsev_vladislav.link_shortener.invalidation.LinkInvalidationPublisher;
+import ru.yartsev_vladislav.link_shortener.store.SlugStore;
+
+/**
+ * Удаление ссылки из всех структур в памяти после удаления её строки из БД.
+ *
+ * <p>Удаление, очистка истёкших ссылок и освобождение slug истёкшей ссылки при создании новой
+ * вызывают один и тот же набор шагов, поэтому ни одна из структур не остаётся со slug, которого уже
+ * нет в БД.
+ */
+@Component
+public class LinkEvictions {
+  private final ReplicaReads replicaReads;
+  private final LinkCache linkCache;
+  private final ClickCounter clickCounter;
+  private final LinkExpiryIndex linkExpiryIndex;
+  private final SlugFilter slugFilter;
+  private final SlugStore slugStore;
+  private final LinkInvalidationPublisher linkInvalidationPublisher;
+  private final ClickAnalytics clickAnalytics;
+
+  @Autowired
+  public LinkEvictions(
+      ReplicaReads replicaReads,
+      LinkCache linkCache,
+      ClickCounter clickCounter,
+      LinkExpiryIndex linkExpiryIndex,
+      SlugFilter slugFilter,
+      SlugStore slugStore,
+      LinkInvalidationPublisher linkInvalidationPublisher,
+      ClickAnalytics clickAnalytics) {
+    this.replicaReads = replicaReads;
+    this.linkCache = linkCache;
+    this.clickCounter = clickCounter;
+    this.linkExpiryIndex = linkExpiryIndex;
+    this.slugFilter = slugFilter;
+    this.slugStore = slugStore;
+    this.linkInvalidationPublisher = linkInvalidationPublisher;
+    this.clickAnalytics = clickAnalytics;
+  }
+
+  // Строка ссылки уже удалена; createdAt — время создания ссылки или его верхняя граница
+  public void evict(String slug, LocalDateTime createdAt) {
+    evictAll(List.of(slug), createdAt);
+  }
+
+  // Все ссылки созданы раньше createdAtThreshold; уведомление и аналитика — одним запросом на всех
+  public void evictAll(Collection<String> slugs, LocalDateTime createdAtThreshold) {
+    evictAll(slugs, createdAtThreshold, true);
+  }
+
+  // Ссылки истекли, но их строки удаляются позже (вместе с секцией): фильтр slug и итоги переходов
+  // не трогаются до удаления строк, потому что счётчики фильтра уменьшаются ровно один раз
+  public void evictRetained(Collection<String> slugs) {
+    evictAll(slugs, null, false);
+  }
+
+  private void evictAll(
+      Collection<String> slugs, LocalDateTime createdAtThreshold, boolean rowsDeleted) {
+    if (slugs.isEmpty()) {
+      return;
+    }
+    for (String slug : slugs) {
+      replicaReads.markWritten(slug);
+      linkCache.invalidate(slug);
+      clickCounter.drain(slug);
+      linkExpiryIndex.forget(slug);
+      if (rowsDeleted) {
+        slugFilter.remove(slug, createdAtThreshold);
+      }
+      slugStore.remove(slug);
+    }
+    linkInvalidationPublisher.publishAll(slugs);
+    if (rowsDeleted) {
+      clickAnalytics.forget(slugs);
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package ru.yartsev_vladislav.link_shortener.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import ru.yartsev_vladislav.link_shortener.config.LinkConfig;
+import ru.yartsev_vladislav.link_shortener.datasource.ReplicaReads;
+import ru.yartsev_vladislav.link_shortener.entity.Link;
+import ru.yartsev_vladislav.link_shortener.exception.UserDoesNotExistException;
+import ru.yartsev_vladislav.link_shortener.exception.UserIsNotIdentifiedException;
+import ru.yartsev_vladislav.link_shortener.identity.UserIdentityService;
+import ru.yartsev_vladislav.link_shortener.model.LinkInfo;
+import ru.yartsev_vladislav.link_shortener.model.LinkPage;
+import ru.yartsev_vladislav.link_shortener.repository.LinkRepository;
+
+/**
+ * Список неистёкших ссылок пользователя, от новых к старым.
+ *
+ * <p>Страницы листаются по курсору — паре {@code (createdAt, slug)} последней ссылки страницы,
+ * поэтому стоимость страницы не растёт с её номером. Выгрузка всех ссылок читает их курсором БД и
+ * не держит в памяти больше одной порции. Оба чтения идут на реплику, если владелец не менял
+ * ссылки в пределах её отставания.
+ */
+@Component
+public class LinkListingService {
+  public static final int DEFAULT_PAGE_SIZE = 50;
+  public static final int MAX_PAGE_SIZE = 1000;
+
+  private static final char CURSOR_SEPARATOR = '|';
+
+  private final LinkRepository linkRepository;
+  private final UserIdentityService userIdentityService;
+  private final UrlService urlService;
+  private final LinkConfig linkConfig;
+  private final ClickCounter clickCounter;
+  private final EntityManager entityManager;
+  private final ReplicaReads replicaReads;
+
+  @Autowired
+  public LinkListingService(
+      LinkRepository linkRepository,
+      UserIdentityService userIdentityService,
+      UrlService urlService,
+      LinkConfig linkConfig,
+      ClickCounter clickCounter,
+      EntityManager entityManager,
+      ReplicaReads replicaReads) {
+    this.linkRepository = linkRepository;
+    this.userIdentityService = userIdentityService;
+    this.urlService = urlService;
+    this.linkConfig = linkConfig;
+    this.clickCounter = clickCounter;
+    this.entityManager = entityManager;
+    this.replicaReads = replicaReads;
+  }
+
+  // Возвращает id владельца, по которому хранятся его ссылки
+  public String ensureOwner(String userId)
+      throws UserIsNotIdentifiedException, UserDoesNotExistException {
+    return userIdentityService.ensureUserId(userId);
+  }
+
+  public LinkPage listLinks(String userId, String cursor, Integer pageSize)
+      throws UserIsNotIdentifiedException, UserDoesNotExistException {
+    String ownerId = ensureOwner(userId);
+    int limit = pageSize == null ? DEFAULT_PAGE_SIZE : pageSize;
+    if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+      throw new IllegalArgumentException(
+          String.format("Limit should be between 1 and %d", MAX_PAGE_SIZE));
+    }
+
+    // Запрашиваем на одну ссылку больше, чтобы узнать, есть ли следующая страница
+    List<Link> links;
+    if (cursor == null) {
+      links =
+          replicaReads.read(
+              ownerId,
+              () ->
+                  linkRepository.findFirstPageByOwnerId(
+                      ownerId, getExpiredLinksCreatedAtThreshold(), Limit.of(limit + 1)));
+    } else {
+      Cursor after = decodeCursor(cursor);
+      links =
+          replicaReads.read(
+              ownerId,
+              () ->
+                  linkRepository.findPageByOwnerIdAfter(
+                      ownerId,
+                      getExpiredLinksCreatedAtThreshold(),
+                      after.createdAt(),
+                      after.slug(),
+                      Limit.of(limit + 1)));
+    }
+
+    boolean hasNextPage = links.size() > limit;
+    List<LinkInfo> page = new ArrayList<>(Math.min(links.size(), limit));
+    for (int i = 0; i < links.size() && i < limit; i++) {
+      page.add(toLinkInfo(links.get(i)));
+    }
+
+    String nextCursor = hasNextPage ? encodeCursor(links.get(limit - 1)) : null;
+    return new LinkPage(page, nextCursor);
+  }
+
+  @Transactional
+  public void exportLinks(String ownerId, Consumer<LinkInfo> consumer) {
+    // Соединение транзакции берётся при первом запросе, поэтому его ещё можно взять с реплики
+    replicaReads.run(
+        ownerId,
+        () -> {
+          try (Stream<Link> links =
+              linkRepository.streamAllByOwnerId(ownerId, getExpiredLinksCreatedAtThreshold())) {
+            links.forEach(
+                link -> {
+                  consumer.accept(toLinkInfo(link));
+                  // Иначе контекст персистентности накопит все прочитанные ссылки
+                  entityManager.detach(link);
+                });
+          }
+        });
+  }
+
+  private LinkInfo toLinkInfo(Link link) {
+    return new LinkInfo(
+        link.getSlug(),
+        urlService.generateShortUrl(link.getSlug()),
+        link.getFullUrl(),
+        link.getAttempts() + clickCounter.getPending(link.getSlug()),
+        link.getAttemptsLimit(),
+        link.getCreatedAt());
+  }
+
+  private LocalDateTime getExpiredLinksCreatedAtThreshold() {
+    return LocalDateTime.now().minusSeconds(linkConfig.getTimeToLeave());
+  }
+
+  private static String encodeCursor(Link link) {
+    String cursor = link.getCreatedAt().toString() + CURSOR_SEPARATOR + link.getSlug();
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static Cursor decodeCursor(String cursor) {
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separator = decoded.indexOf(CURSOR_SEPARATOR);
+      if (separator < 0) {
+        throw new IllegalArgumentException(String.format("Cursor '%s' is not valid", cursor));
+      }
+
+      return new Cursor(
+          LocalDateTime.parse(decoded.substring(0, separator)), decoded.substring(separator + 1));
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException(String.format("Cursor '%s' is not valid", cursor));
+    }
+  }
+
+  private record Cursor(LocalDateTime createdAt, String slug) {}
+}
@@ -1,14 +1,19 @@
 package ru.yartsev_vladislav.link_shortener.service;
 
-import jakarta.transaction.Transactional;
+import io.micrometer.core.annotation.Timed;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Component;
+import ru.yartsev_vladislav.link_shortener.cache.CachedLink;
+import ru.yartsev_vladislav.link_shortener.cache.LinkCache;
 import ru.yartsev_vladislav.link_shortener.config.LinkConfig;
+import ru.yartsev_vladislav.link_shortener.datasource.ReplicaReads;
 import ru.yartsev_vladislav.link_shortener.entity.Link;
 import ru.yartsev_vladislav.link_shortener.entity.User;
+import ru.yartsev_vladislav.link_shortener.exception.FreeSlugIsNotFoundException;
 import ru.yartsev_vladislav.link_shortener.exception.LinkDoesNotExistException;
 import ru.yartsev_vladislav.link_shortener.exception.LinkHasExpiredException;
 import ru.yartsev_vladislav.link_shortener.exception.LinkLimitExceededException;
@@ -16,79 +21,196 @@ import ru.yartsev_vladislav.link_shortener.exception.NotExpiredLinkAlreadyExists
 import ru.yartsev_vladislav.link_shortener.exception.UserDoesNotExistException;
 import ru.yartsev_vladislav.link_shortener.exception.UserHasNotEnoughRightsException;
 import ru.yartsev_vladislav.link_shortener.exception.UserIsNotIdentifiedException;
+import ru.yartsev_vladislav.link_shortener.expiry.LinkExpiryIndex;
+import ru.yartsev_vladislav.link_shortener.filter.SlugFilter;
+import ru.yartsev_vladislav.link_shortener.identity.UserIdentityService;
+import ru.yartsev_vladislav.link_shortener.invalidation.LinkInvalidationPublisher;
 import ru.yartsev_vladislav.link_shortener.model.CreateLinkOptions;
 import ru.yartsev_vladislav.link_shortener.model.CreateLinkResult;
 import ru.yartsev_vladislav.link_shortener.model.EditLinkOptions;
+import ru.yartsev_vladislav.link_shortener.model.RedirectResolution;
+import ru.yartsev_vladislav.link_shortener.repository.LinkRedirectView;
 import ru.yartsev_vladislav.link_shortener.repository.LinkRepository;
-import ru.yartsev_vladislav.link_shortener.repository.UserRepository;
+import ru.yartsev_vladislav.link_shortener.store.SlugStore;
+import ru.yartsev_vladislav.link_shortener.store.StoredLink;
 
+// Время каждого публичного метода с гистограммой для p50/p95/p99 (метрика link.service)
+@Timed(value = "link.service", histogram = true, percentiles = {0.5, 0.95, 0.99})
 @Component
 public class LinkShortenerService {
-  private final UserRepository userRepository;
+  public static final int SLUG_MAX_ATTEMPTS = 16;
+
+  private final UserIdentityService userIdentityService;
   private final LinkRepository linkRepository;
   private final UrlService urlService;
   private final LinkConfig linkConfig;
+  private final LinkCache linkCache;
+  private final ClickCounter clickCounter;
+  private final LinkExpiryIndex linkExpiryIndex;
+  private final SlugFilter slugFilter;
+  private final SlugStore slugStore;
+  private final ReplicaReads replicaReads;
+  private final LinkInvalidationPublisher linkInvalidationPublisher;
+  private final LinkEvictions linkEvictions;
 
   @Autowired
   public LinkShortenerService(
-      UserRepository userRepository,
+      UserIdentityService userIdentityService,
       LinkRepository linkRepository,
       UrlService urlService,
-      LinkConfig linkConfig) {
-    this.userRepository = userRepository;
+      LinkConfig linkConfig,
+      LinkCache linkCache,
+      ClickCounter clickCounter,
+      LinkExpiryIndex linkExpiryIndex,
+      SlugFilter slugFilter,
+      SlugStore slugStore,
+      ReplicaReads replicaReads,
+      LinkInvalidationPublisher linkInvalidationPublisher,
+      LinkEvictions linkEvictions) {
+    this.userIdentityService = userIdentityService;
     this.linkRepository = linkRepository;
     this.urlService = urlService;
     this.linkConfig = linkConfig;
+    this.linkCache = linkCache;
+    this.clickCounter = clickCounter;
+    this.linkExpiryIndex = linkExpiryIndex;
+    this.slugFilter = slugFilter;
+    this.slugStore = slugStore;
+    this.replicaReads = replicaReads;
+    this.linkInvalidationPublisher = linkInvalidationPublisher;
+    this.linkEvictions = linkEvictions;
   }
 
   public CreateLinkResult createLink(CreateLinkOptions options, String userId)
-      throws UserDoesNotExistException, NotExpiredLinkAlreadyExistsException {
-    User owner = ensureUser(userId);
-    String url = options.url;
+      throws UserDoesNotExistException,
+          NotExpiredLinkAlreadyExistsException,
+          FreeSlugIsNotFoundException {
+    return createLinkForOwner(options, ensureUser(userId));
+  }
+
+  // Владелец уже определён вызывающим, например, пакетным созданием: с подписанными токенами его
+  // id — не токен, и повторная идентификация по нему не прошла бы
+  public CreateLinkResult createLinkForOwner(CreateLinkOptions options, User owner)
+      throws NotExpiredLinkAlreadyExistsException, FreeSlugIsNotFoundException {
+    String url = urlService.canonicalizeUrl(options.url);
     Integer limit = options.limit;
 
-    urlService.validateUrl(url);
     validateLimit(limit);
 
+    LocalDateTime expiredLinksCreatedAtThreshold =
+        LocalDateTime.now().minusSeconds(linkConfig.getTimeToLeave());
+    // Ссылки владельца, создававшего ссылки в пределах отставания реплики, ищутся в основной БД
     Optional<Link> notExpiredLink =
-        linkRepository.findByFullUrlAndOwnerIdAndCreatedAtGreaterThanEqual(
-            url, owner.getId(), LocalDateTime.now().minusSeconds(linkConfig.getTimeToLeave()));
+        replicaReads.read(
+            owner.getId(),
+            () ->
+                linkRepository.findByFullUrlAndOwnerIdAndCreatedAtGreaterThanEqual(
+                    url, owner.getId(), expiredLinksCreatedAtThreshold));
     if (notExpiredLink.isPresent()) {
       throw new NotExpiredLinkAlreadyExistsException(notExpiredLink.get());
     }
 
-    String slug = urlService.generateLinkSlug(url, owner.getId());
-
-    Optional<Link> linkFromDb = linkRepository.findById(slug);
-    if (linkFromDb.isPresent() && isLinkExpired(linkFromDb.get())) {
-      linkRepository.delete(linkFromDb.get());
-    }
-
-    Link link = new Link(slug, url, owner);
-    if (limit != null) {
-      link.setAttemptsLimit(limit);
+    for (int attempt = 0; attempt < SLUG_MAX_ATTEMPTS; attempt++) {
+      String slug = urlService.generateLinkSlug(url, owner.getId(), attempt);
+      if (!isSlugAvailable(slug)) {
+        continue;
+      }
+
+      Link link = new Link(slug, url, owner);
+      if (limit != null) {
+        link.setAttemptsLimit(limit);
+      }
+      try {
+        link = linkRepository.save(link);
+      } catch (DataIntegrityViolationException e) {
+        if (!UniqueViolations.isUniqueViolation(e)) {
+          throw e;
+        }
+        // Slug успели занять параллельным запросом, пробуем следующий кандидат
+        continue;
+      }
+      replicaReads.markWritten(owner.getId());
+      replicaReads.markWritten(link.getSlug());
+      linkExpiryIndex.track(link.getSlug(), link.getCreatedAt());
+      slugFilter.add(link.getSlug());
+      slugStore.put(link);
+      linkInvalidationPublisher.publishCreated(link.getSlug());
+      String shortUrl = urlService.generateShortUrl(link.getSlug());
+
+      return new CreateLinkResult(publicUserId(owner), shortUrl);
     }
-    link = linkRepository.save(link);
-    String shortUrl = urlService.generateShortUrl(link.getSlug());
 
-    return new CreateLinkResult(owner.getId(), shortUrl);
+    throw new FreeSlugIsNotFoundException(url);
   }
 
   public String getFullLink(String slug)
       throws LinkDoesNotExistException, LinkHasExpiredException, LinkLimitExceededException {
-    Optional<Link> optionalLink = linkRepository.findById(slug);
-    if (optionalLink.isEmpty()) {
-      throw new LinkDoesNotExistException(slug);
+    return switch (resolveRedirect(slug)) {
+      case RedirectResolution.Found found -> found.fullUrl();
+      case RedirectResolution.NotFound() -> throw new LinkDoesNotExistException(slug);
+      case RedirectResolution.Expired() -> throw new LinkHasExpiredException(slug);
+      case RedirectResolution.LimitExceeded() -> throw new LinkLimitExceededException(slug);
+    };
+  }
+
+  // Переход без исключений: неуспешные исходы возвращаются общими экземплярами RedirectResolution
+  public RedirectResolution resolveRedirect(String slug) {
+    CachedLink link = linkCache.get(slug);
+    if (link != null) {
+      return redirect(
+          slug, link.fullUrl(), link.attemptsLimit(), expiresAtMillis(link.createdAt()));
     }
-    Link link = optionalLink.get();
 
-    validateLinkExpiration(link);
-    validateLinkLimitExceeding(link);
+    // Хранилище вне кучи отвечает без БД, поэтому ссылки без лимита открываются и при её отказе
+    StoredLink storedLink = slugStore.get(slug);
+    if (storedLink != null) {
+      return storedLink.isExpired(System.currentTimeMillis())
+          ? RedirectResolution.EXPIRED
+          : redirect(
+              slug,
+              storedLink.fullUrl(),
+              storedLink.attemptsLimit(),
+              storedLink.expiresAtMillis());
+    }
+
+    // Несуществующие slug (сканирование ботами) отсекаются без запроса к БД
+    if (!slugFilter.mightContain(slug)) {
+      return RedirectResolution.NOT_FOUND;
+    }
+
+    // Чтение с реплики; промах перепроверяется в основной БД на случай только что созданной ссылки
+    Optional<LinkRedirectView> view =
+        replicaReads.readOrFallback(slug, () -> linkRepository.findRedirectViewBySlug(slug));
+    if (view.isEmpty()) {
+      return RedirectResolution.NOT_FOUND;
+    }
+    if (isExpired(view.get().createdAt())) {
+      return RedirectResolution.EXPIRED;
+    }
+
+    link = CachedLink.of(view.get());
+    if (!slugStore.put(link)) {
+      linkCache.put(link);
+    }
+    linkExpiryIndex.track(slug, link.createdAt());
+    return redirect(slug, link.fullUrl(), link.attemptsLimit(), expiresAtMillis(link.createdAt()));
+  }
 
-    link.setAttempts(link.getAttempts() + 1);
-    linkRepository.save(link);
+  private RedirectResolution redirect(
+      String slug, String fullUrl, Integer attemptsLimit, long expiresAtMillis) {
+    if (attemptsLimit == null) {
+      clickCounter.increment(slug);
+      return new RedirectResolution.Found(fullUrl, false, expiresAtMillis);
+    }
 
-    return link.getFullUrl();
+    // Проверка срока жизни, лимита и инкремент выполняются одним запросом, без гонки между ними
+    LocalDateTime expiredLinksCreatedAtThreshold =
+        LocalDateTime.now().minusSeconds(linkConfig.getTimeToLeave());
+    if (linkRepository.incrementAttemptsIfAllowed(slug, expiredLinksCreatedAtThreshold) == 0) {
+      return rejectLink(slug);
+    }
+
+    return new RedirectResolution.Found(fullUrl, true, expiresAtMillis);
   }
 
   public void deleteLink(String slug, String ownerId)
@@ -98,6 +220,16 @@ public class LinkShortenerService {
     Link link = ensureLinkWithOwner(slug, ownerId);
 
     linkRepository.delete(link);
+    replicaReads.markWritten(link.getOwnerId());
+    linkEvictions.evict(slug, link.getCreatedAt());
+  }
+
+  // Ссылка, статистику которой может смотреть только её владелец
+  public Link getOwnedLink(String slug, String ownerId)
+      throws UserHasNotEnoughRightsException,
+          LinkDoesNotExistException,
+          UserIsNotIdentifiedException {
+    return ensureLinkWithOwner(slug, ownerId);
   }
 
   public void editLink(String slug, String ownerId, EditLinkOptions options)
@@ -110,40 +242,34 @@ public class LinkShortenerService {
     validateLinkExpiration(link);
     validateLimit(options.limit);
 
-    link.setAttemptsLimit(options.limit);
-    linkRepository.save(link);
-  }
-
-  @Scheduled(fixedRateString = "${scheduler.link-cleanup-delay-ms}")
-  @Transactional
-  public void cleanupExpiredLinks() {
-    LocalDateTime now = LocalDateTime.now();
-    LocalDateTime expiredLinksCreatedAtThreshold = now.minusSeconds(linkConfig.getTimeToLeave());
-
-    linkRepository.deleteAllByCreatedAtBefore(expiredLinksCreatedAtThreshold);
+    // Ссылка с лимитом считается в БД, поэтому накопленные в памяти переходы переносим туда же.
+    // Счётчик увеличивается в самом UPDATE: прочитанное значение attempts могло устареть
+    int drained = (int) clickCounter.drain(slug);
+    if (linkRepository.updateAttemptsLimit(slug, options.limit, drained) == 0) {
+      throw new LinkDoesNotExistException(slug);
+    }
+    replicaReads.markWritten(slug);
+    replicaReads.markWritten(link.getOwnerId());
+    linkCache.invalidate(slug);
+    slugStore.put(new CachedLink(slug, link.getFullUrl(), options.limit, link.getCreatedAt()));
+    linkInvalidationPublisher.publish(slug);
   }
 
   protected User ensureUser(String userId) throws UserDoesNotExistException {
-    if (userId == null) {
-      User user = new User();
-      return userRepository.save(user);
-    }
-
-    Optional<User> user = userRepository.findById(userId);
-    if (user.isEmpty()) {
-      throw new UserDoesNotExistException(userId);
-    }
+    return userIdentityService.ensureUser(userId);
+  }
 
-    return user.get();
+  // Значение X-User-Id, которое возвращается клиенту вместе с созданной ссылкой
+  public String publicUserId(User user) {
+    return userIdentityService.publicId(user);
   }
 
-  protected Link ensureLinkWithOwner(String slug, String ownerId)
+  protected Link ensureLinkWithOwner(String slug, String userId)
       throws UserIsNotIdentifiedException,
           LinkDoesNotExistException,
           UserHasNotEnoughRightsException {
-    if (ownerId == null) {
-      throw new UserIsNotIdentifiedException(ownerId);
-    }
+    // Подписанный токен проверяется локально, без запроса к таблице users
+    String ownerId = userIdentityService.resolveUserId(userId);
 
     Optional<Link> optionalLink = linkRepository.findById(slug);
     if (optionalLink.isEmpty()) {
@@ -151,13 +277,42 @@ public class LinkShortenerService {
     }
 
     Link link = optionalLink.get();
-    if (!link.getOwner().getId().equals(ownerId)) {
+    if (!ownerId.equals(link.getOwnerId())) {
       throw new UserHasNotEnoughRightsException(ownerId);
     }
 
     return link;
   }
 
+  // Определяет, почему условный инкремент не изменил ни одной строки
+  protected RedirectResolution rejectLink(String slug) {
+    Optional<LinkRedirectView> view = linkRepository.findRedirectViewBySlug(slug);
+    if (view.isEmpty()) {
+      linkCache.invalidate(slug);
+      slugStore.remove(slug);
+      return RedirectResolution.NOT_FOUND;
+    }
+
+    return isExpired(view.get().createdAt())
+        ? RedirectResolution.EXPIRED
+        : RedirectResolution.LIMIT_EXCEEDED;
+  }
+
+  // Slug свободен, если он не занят или занят уже истёкшей ссылкой, которую можно удалить
+  protected boolean isSlugAvailable(String slug) {
+    Optional<Link> linkFromDb = linkRepository.findById(slug);
+    if (linkFromDb.isEmpty()) {
+      return true;
+    }
+    if (!isLinkExpired(linkFromDb.get())) {
+      return false;
+    }
+
+    linkRepository.delete(linkFromDb.get());
+    linkEvictions.evict(slug, linkFromDb.get().getCreatedAt());
+    return true;
+  }
+
   protected void validateLimit(Integer limit) {
     if (limit != null && limit <= 0) {
       throw new IllegalArgumentException("Limit should more than 0");
@@ -165,15 +320,21 @@ public class LinkShortenerService {
   }
 
   protected boolean isLinkExpired(Link link) {
+    return isExpired(link.getCreatedAt());
+  }
+
+  protected boolean isExpired(LocalDateTime createdAt) {
     LocalDateTime now = LocalDateTime.now();
-    LocalDateTime expirationTime = link.getCreatedAt().plusSeconds(linkConfig.getTimeToLeave());
+    LocalDateTime expirationTime = createdAt.plusSeconds(linkConfig.getTimeToLeave());
     return now.isAfter(expirationTime);
   }
 
-  protected void validateLinkLimitExceeding(Link link) throws LinkLimitExceededException {
-    if (link.getAttemptsLimit() != null && link.getAttempts() >= link.getAttemptsLimit()) {
-      throw new LinkLimitExceededException(link);
-    }
+  private long expiresAtMillis(LocalDateTime createdAt) {
+    return createdAt
+        .plusSeconds(linkConfig.getTimeToLeave())
+        .atZone(ZoneId.systemDefault())
+        .toInstant()
+        .toEpochMilli();
   }
 
   private void validateLinkExpiration(Link link) throws LinkHasExpiredException {
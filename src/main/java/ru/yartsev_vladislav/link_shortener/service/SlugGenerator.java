@@ -0,0 +1,12 @@
+package ru.yartsev_vladislav.link_shortener.service;
+
+/**
+ * Генератор slug коротких ссылок.
+ *
+ * <p>Результат должен быть детерминированным: одни и те же {@code url}, {@code salt} и {@code
+ * attempt} всегда дают один и тот же slug, а разные {@code attempt} — независимые кандидаты для
+ * разрешения коллизий.
+ */
+public interface SlugGenerator {
+  String generate(String url, String salt, int attempt);
+}
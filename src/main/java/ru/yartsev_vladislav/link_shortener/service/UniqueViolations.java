@@ -0,0 +1,36 @@
+package ru.yartsev_vladislav.link_shortener.service;
+
+import java.sql.SQLException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+
+/**
+ * Отличает занятый slug от прочих нарушений целостности: повторять вставку с другим slug имеет
+ * смысл только при нарушении уникальности, остальные ошибки (NOT NULL, длина столбца) повтор не
+ * исправит.
+ */
+final class UniqueViolations {
+  // SQLState unique_violation: так его сообщают и PostgreSQL (в том числе триггер
+  // links_unique_slug), и H2
+  private static final String UNIQUE_VIOLATION_SQL_STATE = "23505";
+
+  private UniqueViolations() {}
+
+  static boolean isUniqueViolation(DataIntegrityViolationException e) {
+    if (e instanceof DuplicateKeyException) {
+      return true;
+    }
+    for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+      if (cause instanceof ConstraintViolationException violation
+          && violation.getKind() == ConstraintViolationException.ConstraintKind.UNIQUE) {
+        return true;
+      }
+      if (cause instanceof SQLException sqlException
+          && UNIQUE_VIOLATION_SQL_STATE.equals(sqlException.getSQLState())) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,191 @@
+package ru.yartsev_vladislav.link_shortener.service;
+
+import ru.yartsev_vladislav.link_shortener.exception.UrlIsNotValidException;
+
+/**
+ * Однопроходная проверка HTTP/HTTPS URL с приведением к каноническому виду.
+ *
+ * <p>Принимает то же, что и прежняя регулярка {@code ^(https?)://([\w.-]+)(:[0-9]+)?(/.*)?$}, но
+ * схема допускается в любом регистре, а порт должен быть в диапазоне 1..65535. Канонический вид:
+ * схема и хост в нижнем регистре, порт по умолчанию убран, пустой путь заменён на {@code /},
+ * percent-encoding незарезервированных символов раскрыт, остальные escape-последовательности в
+ * верхнем регистре. Если URL уже канонический, возвращается та же строка без аллокаций.
+ */
+final class UrlCanonicalizer {
+  private static final String HTTP = "http://";
+  private static final String HTTPS = "https://";
+  private static final int MAX_PORT = 65535;
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+  private final String url;
+  // Заполняется только с первого расхождения с исходной строкой
+  private StringBuilder canonical;
+
+  private UrlCanonicalizer(String url) {
+    this.url = url;
+  }
+
+  static String canonicalize(String url) {
+    if (url == null || url.isBlank()) {
+      throw new UrlIsNotValidException(url);
+    }
+    return new UrlCanonicalizer(url).parse();
+  }
+
+  private String parse() {
+    int length = url.length();
+    int i;
+    int defaultPort;
+    if (url.regionMatches(true, 0, HTTPS, 0, HTTPS.length())) {
+      replaceIfDiffers(0, HTTPS);
+      i = HTTPS.length();
+      defaultPort = 443;
+    } else if (url.regionMatches(true, 0, HTTP, 0, HTTP.length())) {
+      replaceIfDiffers(0, HTTP);
+      i = HTTP.length();
+      defaultPort = 80;
+    } else {
+      throw new UrlIsNotValidException(url);
+    }
+
+    int hostStart = i;
+    for (; i < length && isHostChar(url.charAt(i)); i++) {
+      char c = url.charAt(i);
+      if (c >= 'A' && c <= 'Z') {
+        rewrite(i).append((char) (c + ('a' - 'A')));
+      } else {
+        keep(i);
+      }
+    }
+    if (i == hostStart) {
+      throw new UrlIsNotValidException(url);
+    }
+
+    if (i < length && url.charAt(i) == ':') {
+      i = parsePort(i, defaultPort);
+    }
+
+    if (i == length) {
+      rewrite(i).append('/');
+      return result();
+    }
+    if (url.charAt(i) != '/') {
+      throw new UrlIsNotValidException(url);
+    }
+
+    while (i < length) {
+      char c = url.charAt(i);
+      if (isLineTerminator(c)) {
+        throw new UrlIsNotValidException(url);
+      }
+      if (c == '%' && i + 2 < length && isHex(url.charAt(i + 1)) && isHex(url.charAt(i + 2))) {
+        normalizePercentEncoding(i);
+        i += 3;
+      } else {
+        keep(i);
+        i++;
+      }
+    }
+
+    return result();
+  }
+
+  // Разбирает ":<порт>" начиная с двоеточия и возвращает позицию после порта
+  private int parsePort(int colon, int defaultPort) {
+    int length = url.length();
+    int i = colon + 1;
+    int port = 0;
+    for (; i < length && url.charAt(i) >= '0' && url.charAt(i) <= '9'; i++) {
+      port = port * 10 + (url.charAt(i) - '0');
+      if (port > MAX_PORT) {
+        throw new UrlIsNotValidException(url);
+      }
+    }
+    if (i == colon + 1 || port == 0) {
+      throw new UrlIsNotValidException(url);
+    }
+
+    if (port == defaultPort) {
+      rewrite(colon);
+    } else if (url.charAt(colon + 1) == '0') {
+      rewrite(colon).append(':').append(port);
+    } else {
+      for (int j = colon; j < i; j++) {
+        keep(j);
+      }
+    }
+    return i;
+  }
+
+  private void normalizePercentEncoding(int percent) {
+    char high = url.charAt(percent + 1);
+    char low = url.charAt(percent + 2);
+    int value = Character.digit(high, 16) << 4 | Character.digit(low, 16);
+
+    if (isUnreserved(value)) {
+      rewrite(percent).append((char) value);
+    } else if (Character.isLowerCase(high) || Character.isLowerCase(low)) {
+      rewrite(percent).append('%').append(HEX_DIGITS[value >> 4]).append(HEX_DIGITS[value & 0xF]);
+    } else {
+      keep(percent);
+      keep(percent + 1);
+      keep(percent + 2);
+    }
+  }
+
+  private void replaceIfDiffers(int from, String expected) {
+    if (url.startsWith(expected, from)) {
+      for (int i = from; i < from + expected.length(); i++) {
+        keep(i);
+      }
+    } else {
+      rewrite(from).append(expected);
+    }
+  }
+
+  private void keep(int index) {
+    if (canonical != null) {
+      canonical.append(url.charAt(index));
+    }
+  }
+
+  // Возвращает буфер канонического вида, в котором уже лежит всё до позиции расхождения
+  private StringBuilder rewrite(int divergenceIndex) {
+    if (canonical == null) {
+      canonical = new StringBuilder(url.length() + 1).append(url, 0, divergenceIndex);
+    }
+    return canonical;
+  }
+
+  private String result() {
+    return canonical == null ? url : canonical.toString();
+  }
+
+  private static boolean isHostChar(char c) {
+    return (c >= 'a' && c <= 'z')
+        || (c >= 'A' && c <= 'Z')
+        || (c >= '0' && c <= '9')
+        || c == '_'
+        || c == '.'
+        || c == '-';
+  }
+
+  private static boolean isUnreserved(int c) {
+    return (c >= 'a' && c <= 'z')
+        || (c >= 'A' && c <= 'Z')
+        || (c >= '0' && c <= '9')
+        || c == '-'
+        || c == '.'
+        || c == '_'
+        || c == '~';
+  }
+
+  private static boolean isHex(char c) {
+    return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+  }
+
+  // Те же символы, на которых останавливалась точка в прежней регулярке
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+}
@@ -1,60 +1,31 @@
 package ru.yartsev_vladislav.link_shortener.service;
 
-import java.util.regex.Pattern;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import ru.yartsev_vladislav.link_shortener.config.UrlConfig;
-import ru.yartsev_vladislav.link_shortener.exception.UrlIsNotValidException;
+import ru.yartsev_vladislav.link_shortener.exception.UrlIsTooLongException;
 
 @Component
 public class UrlService {
-  private static final String BASE62_ALPHABET =
-      "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
-  private static final int SLUG_MIN_LENGTH = 8;
-
-  private static long getHash(String a, String b) {
-    long hash = 0;
-    // Полиномиальный хеш для первой строки
-    for (char c : a.toCharArray()) {
-      hash = hash * 31 + c;
-    }
-
-    // Комбинируем вторую строку через XOR с другим множителем
-    long hashB = 0;
-    for (char c : b.toCharArray()) {
-      hashB = hashB * 37 + c;
-    }
-
-    // Объединяем два хеша через XOR, чтобы избежать переполнения
-    hash ^= hashB;
-
-    // Делаем положительным
-    return hash & 0x7FFFFFFFFFFFFFFFL;
-  }
-
-  // Кодирование хэша в base62-формат
-  private static String encodeBase62(long value, int length) {
-    StringBuilder sb = new StringBuilder();
-    while (value > 0) {
-      sb.append(BASE62_ALPHABET.charAt((int) (value % 62)));
-      value /= 62;
-    }
-    while (sb.length() < length) {
-      sb.append('0'); // дополняем до нужной длины
-    }
-    return sb.reverse().toString();
-  }
+  // Размер столбца links.full_url (varchar(255)): длинный URL не пройдёт вставку
+  public static final int MAX_URL_LENGTH = 255;
 
   private final UrlConfig urlConfig;
+  private final SlugGenerator slugGenerator;
 
   @Autowired
-  public UrlService(UrlConfig urlConfig) {
+  public UrlService(UrlConfig urlConfig, SlugGenerator slugGenerator) {
     this.urlConfig = urlConfig;
+    this.slugGenerator = slugGenerator;
   }
 
   public String generateLinkSlug(String url, String salt) {
-    long hash = getHash(url, salt);
-    return encodeBase62(hash, SLUG_MIN_LENGTH);
+    return generateLinkSlug(url, salt, 0);
+  }
+
+  // Каждая следующая попытка даёт новый детерминированный кандидат на случай коллизии
+  public String generateLinkSlug(String url, String salt, int attempt) {
+    return slugGenerator.generate(url, salt, attempt);
   }
 
   public String generateShortUrl(String slug) {
@@ -62,16 +33,15 @@ public class UrlService {
   }
 
   public void validateUrl(String url) {
-    if (url == null || url.isBlank()) {
-      throw new UrlIsNotValidException(url);
-    }
-
-    // Регулярка для простого HTTP/HTTPS URL
-    String regex = "^(https?)://([\\w.-]+)(:[0-9]+)?(/.*)?$";
-    Pattern pattern = Pattern.compile(regex);
+    canonicalizeUrl(url);
+  }
 
-    if (!pattern.matcher(url).matches()) {
-      throw new UrlIsNotValidException(url);
+  // Проверяет URL и возвращает его канонический вид, по которому ищутся дубликаты и считается slug
+  public String canonicalizeUrl(String url) {
+    String canonical = UrlCanonicalizer.canonicalize(url);
+    if (canonical.length() > MAX_URL_LENGTH) {
+      throw new UrlIsTooLongException(MAX_URL_LENGTH);
     }
+    return canonical;
   }
 }
@@ -0,0 +1,585 @@
+package ru.yartsev_vladislav.link_shortener.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Хэш-таблица slug -> ссылка вне кучи, в файлах, отображённых в память.
+ *
+ * <p>Индекс {@code slugs.idx} — открытая адресация с линейным пробированием: слоты по 32 байта
+ * хранят хэш slug, смещение записи в журнале данных, срок истечения и лимит переходов. Удаление
+ * сдвигает следующие записи цепочки назад, поэтому «надгробий» нет. Журнал {@code slugs.dat}
+ * хранит байты slug и URL и отображается сегментами; запись не пересекает границу сегмента. Когда
+ * журнал заполнен, а живых данных в нём не больше половины, он уплотняется во временный файл,
+ * который затем атомарно заменяет старый.
+ *
+ * <p>Таблица не создаёт объектов на каждую ссылку: на куче остаются только массив сегментов и
+ * заголовок. Писатель один (запись под {@link StampedLock}), читатели сначала читают без
+ * блокировки и перепроверяют штамп, а при конфликте с записью повторяют чтение под блокировкой.
+ * Файлы переживают перезапуск; если процесс упал во время уплотнения, таблица при открытии
+ * очищается.
+ */
+public final class MappedSlugTable implements Closeable {
+  public static final int DEFAULT_SEGMENT_BYTES = 1 << 28;
+  public static final int MAX_CAPACITY = 1 << 25;
+  public static final int MAX_SLUG_BYTES = Short.MAX_VALUE;
+  public static final int MAX_URL_BYTES = 1 << 16;
+
+  private static final String INDEX_FILE = "slugs.idx";
+  private static final String DATA_FILE = "slugs.dat";
+  private static final String COMPACTED_DATA_FILE = "slugs.dat.tmp";
+
+  private static final int MAGIC = 0x534c5547;
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 64;
+  private static final int HEADER_MAGIC = 0;
+  private static final int HEADER_VERSION = 4;
+  private static final int HEADER_CAPACITY = 8;
+  private static final int HEADER_SEGMENT_BYTES = 12;
+  private static final int HEADER_SIZE = 16;
+  private static final int HEADER_STATUS = 20;
+  private static final int HEADER_DATA_END = 24;
+  private static final int HEADER_LIVE_DATA = 32;
+  private static final int HEADER_SYNCED_AT = 40;
+  private static final int STATUS_CLEAN = 0;
+  private static final int STATUS_COMPACTING = 1;
+
+  private static final int SLOT_BYTES = 32;
+  private static final int SLOT_HASH = 0;
+  private static final int SLOT_DATA = 8;
+  private static final int SLOT_EXPIRES_AT = 16;
+  private static final int SLOT_LIMIT = 24;
+  private static final int SLOT_STATE = 28;
+  private static final int EMPTY = 0;
+  private static final int FULL = 1;
+  private static final int NO_LIMIT = -1;
+
+  private final Path directory;
+  private final int capacity;
+  private final int mask;
+  private final int maxSize;
+  private final int segmentBytes;
+  private final int maxSegments;
+  private final FileChannel indexChannel;
+  private final MappedByteBuffer index;
+  private final StampedLock lock = new StampedLock();
+
+  private FileChannel dataChannel;
+  private MappedByteBuffer[] segments;
+  private int size;
+  private long dataEnd;
+  private long liveData;
+  private long compactions;
+
+  private MappedSlugTable(Path directory, int capacity, long maxDataBytes, int segmentBytes)
+      throws IOException {
+    this.directory = directory;
+    this.capacity = capacity;
+    this.mask = capacity - 1;
+    // Запас свободных слотов держит цепочки пробирования короткими
+    this.maxSize = capacity / 4 * 3;
+    this.segmentBytes = segmentBytes;
+    this.maxSegments = (int) Math.max(1, maxDataBytes / segmentBytes);
+
+    Files.createDirectories(directory);
+    this.indexChannel =
+        FileChannel.open(
+            directory.resolve(INDEX_FILE),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    this.dataChannel = openData(directory.resolve(DATA_FILE));
+    if (!isCompatible()) {
+      // Файлы другой конфигурации или незавершённое уплотнение: начинаем с пустой таблицы
+      indexChannel.truncate(0);
+      dataChannel.truncate(0);
+    }
+
+    this.index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, slotOffset(capacity));
+    this.segments = new MappedByteBuffer[maxSegments];
+    if (index.getInt(HEADER_MAGIC) != MAGIC) {
+      index.putInt(HEADER_VERSION, VERSION);
+      index.putInt(HEADER_CAPACITY, capacity);
+      index.putInt(HEADER_SEGMENT_BYTES, segmentBytes);
+      index.putInt(HEADER_STATUS, STATUS_CLEAN);
+      index.putInt(HEADER_MAGIC, MAGIC);
+    }
+    size = index.getInt(HEADER_SIZE);
+    dataEnd = index.getLong(HEADER_DATA_END);
+    liveData = index.getLong(HEADER_LIVE_DATA);
+    for (int segment = 0; (long) segment * segmentBytes < dataEnd; segment++) {
+      segments[segment] = mapSegment(dataChannel, segment);
+    }
+  }
+
+  public static MappedSlugTable open(Path directory, int capacity, long maxDataBytes)
+      throws IOException {
+    return open(directory, capacity, maxDataBytes, DEFAULT_SEGMENT_BYTES);
+  }
+
+  public static MappedSlugTable open(
+      Path directory, int capacity, long maxDataBytes, int segmentBytes) throws IOException {
+    if (Integer.bitCount(capacity) != 1 || capacity < 4 || capacity > MAX_CAPACITY) {
+      throw new IllegalArgumentException(
+          String.format("Capacity should be a power of two between 4 and %d", MAX_CAPACITY));
+    }
+    if (segmentBytes <= 0 || maxDataBytes < segmentBytes) {
+      throw new IllegalArgumentException("Data size should be at least one segment");
+    }
+    return new MappedSlugTable(directory, capacity, maxDataBytes, segmentBytes);
+  }
+
+  public StoredLink get(String slug) {
+    byte[] key = slug.getBytes(StandardCharsets.UTF_8);
+    long hash = hash(key);
+
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      try {
+        StoredLink link = read(key, hash);
+        if (lock.validate(stamp)) {
+          return link;
+        }
+      } catch (RuntimeException e) {
+        // Слот читался во время записи и мог быть несогласован; повторяем под блокировкой
+      }
+    }
+
+    stamp = lock.readLock();
+    try {
+      return read(key, hash);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  // false, если таблица или журнал данных заполнены: ссылка тогда обслуживается без таблицы
+  public boolean put(String slug, String fullUrl, long expiresAtMillis, Integer attemptsLimit)
+      throws IOException {
+    byte[] key = slug.getBytes(StandardCharsets.UTF_8);
+    byte[] url = fullUrl.getBytes(StandardCharsets.UTF_8);
+    if (key.length > MAX_SLUG_BYTES || url.length > MAX_URL_BYTES) {
+      return false;
+    }
+    long hash = hash(key);
+    int limit = attemptsLimit == null ? NO_LIMIT : attemptsLimit;
+
+    long stamp = lock.writeLock();
+    try {
+      int slot = find(key, hash);
+      if (slot >= 0 && urlEquals(index.getLong(slotOffset(slot) + SLOT_DATA), url)) {
+        writeSlotValues(slot, expiresAtMillis, limit);
+        return true;
+      }
+      if (slot < 0 && size >= maxSize) {
+        return false;
+      }
+
+      long data = append(key, url);
+      if (data < 0) {
+        return false;
+      }
+      // Уплотнение журнала могло перенести записи, поэтому слот ищется заново
+      slot = find(key, hash);
+      if (slot >= 0) {
+        int base = slotOffset(slot);
+        liveData -= recordBytes(index.getLong(base + SLOT_DATA));
+        index.putLong(base + SLOT_DATA, data);
+        writeSlotValues(slot, expiresAtMillis, limit);
+      } else {
+        slot = emptySlot(hash);
+        int base = slotOffset(slot);
+        index.putLong(base + SLOT_HASH, hash);
+        index.putLong(base + SLOT_DATA, data);
+        writeSlotValues(slot, expiresAtMillis, limit);
+        // Состояние пишется последним: до этого слот не виден ни читателям, ни после перезапуска
+        index.putInt(base + SLOT_STATE, FULL);
+        size++;
+      }
+      writeCounters();
+      return true;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  public boolean remove(String slug) {
+    byte[] key = slug.getBytes(StandardCharsets.UTF_8);
+    long hash = hash(key);
+
+    long stamp = lock.writeLock();
+    try {
+      int slot = find(key, hash);
+      if (slot < 0) {
+        return false;
+      }
+      liveData -= recordBytes(index.getLong(slotOffset(slot) + SLOT_DATA));
+      shiftBack(slot);
+      size--;
+      writeCounters();
+      return true;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  // Удаляет все ссылки; журнал данных заполняется заново с начала
+  public void clear() {
+    long stamp = lock.writeLock();
+    try {
+      for (int slot = 0; slot < capacity; slot++) {
+        index.putInt(slotOffset(slot) + SLOT_STATE, EMPTY);
+      }
+      size = 0;
+      liveData = 0;
+      dataEnd = 0;
+      index.putLong(HEADER_DATA_END, dataEnd);
+      index.putLong(HEADER_SYNCED_AT, 0);
+      writeCounters();
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  // Момент, на который содержимое совпадало с БД (мс от эпохи); 0 — неизвестно
+  public long getSyncedAtMillis() {
+    return index.getLong(HEADER_SYNCED_AT);
+  }
+
+  public void setSyncedAtMillis(long syncedAtMillis) {
+    long stamp = lock.writeLock();
+    try {
+      index.putLong(HEADER_SYNCED_AT, syncedAtMillis);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public long getDataBytes() {
+    return dataEnd;
+  }
+
+  public long getLiveDataBytes() {
+    return liveData;
+  }
+
+  public long getMaxDataBytes() {
+    return (long) maxSegments * segmentBytes;
+  }
+
+  public long getCompactions() {
+    return compactions;
+  }
+
+  // Сбрасывает изменённые страницы на диск
+  public void force() {
+    long stamp = lock.readLock();
+    try {
+      index.force();
+      for (MappedByteBuffer segment : segments) {
+        if (segment != null) {
+          segment.force();
+        }
+      }
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    force();
+    indexChannel.close();
+    dataChannel.close();
+  }
+
+  private StoredLink read(byte[] key, long hash) {
+    int slot = find(key, hash);
+    if (slot < 0) {
+      return null;
+    }
+
+    int base = slotOffset(slot);
+    long data = index.getLong(base + SLOT_DATA);
+    long expiresAtMillis = index.getLong(base + SLOT_EXPIRES_AT);
+    int limit = index.getInt(base + SLOT_LIMIT);
+
+    MappedByteBuffer segment = segments[segmentOf(data)];
+    int position = positionOf(data) + Short.BYTES + key.length;
+    int urlLength = segment.getInt(position);
+    if (urlLength < 0 || urlLength > MAX_URL_BYTES) {
+      throw new IllegalStateException("Corrupted url length " + urlLength);
+    }
+    byte[] url = new byte[urlLength];
+    segment.get(position + Integer.BYTES, url);
+    return new StoredLink(
+        new String(url, StandardCharsets.UTF_8),
+        limit == NO_LIMIT ? null : limit,
+        expiresAtMillis);
+  }
+
+  private int find(byte[] key, long hash) {
+    int slot = (int) hash & mask;
+    for (int probe = 0; probe < capacity; probe++) {
+      int base = slotOffset(slot);
+      if (index.getInt(base + SLOT_STATE) == EMPTY) {
+        return -1;
+      }
+      if (index.getLong(base + SLOT_HASH) == hash
+          && keyEquals(index.getLong(base + SLOT_DATA), key)) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  private int emptySlot(long hash) {
+    int slot = (int) hash & mask;
+    while (index.getInt(slotOffset(slot) + SLOT_STATE) != EMPTY) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  // Удаление при линейном пробировании: записи, которые иначе стали бы недостижимы, сдвигаются
+  // на место освободившегося слота
+  private void shiftBack(int hole) {
+    int slot = (hole + 1) & mask;
+    while (true) {
+      int base = slotOffset(slot);
+      if (index.getInt(base + SLOT_STATE) == EMPTY) {
+        break;
+      }
+      int home = (int) index.getLong(base + SLOT_HASH) & mask;
+      // Запись можно сдвинуть, если её исходный слот не лежит циклически в (hole, slot]
+      boolean movable = hole <= slot ? home <= hole || home > slot : home <= hole && home > slot;
+      if (movable) {
+        copySlot(slot, hole);
+        hole = slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    index.putInt(slotOffset(hole) + SLOT_STATE, EMPTY);
+  }
+
+  private void copySlot(int from, int to) {
+    int source = slotOffset(from);
+    int target = slotOffset(to);
+    index.putLong(target + SLOT_HASH, index.getLong(source + SLOT_HASH));
+    index.putLong(target + SLOT_DATA, index.getLong(source + SLOT_DATA));
+    index.putLong(target + SLOT_EXPIRES_AT, index.getLong(source + SLOT_EXPIRES_AT));
+    index.putInt(target + SLOT_LIMIT, index.getInt(source + SLOT_LIMIT));
+    index.putInt(target + SLOT_STATE, FULL);
+  }
+
+  private void writeSlotValues(int slot, long expiresAtMillis, int limit) {
+    int base = slotOffset(slot);
+    index.putLong(base + SLOT_EXPIRES_AT, expiresAtMillis);
+    index.putInt(base + SLOT_LIMIT, limit);
+  }
+
+  private void writeCounters() {
+    index.putInt(HEADER_SIZE, size);
+    index.putLong(HEADER_LIVE_DATA, liveData);
+  }
+
+  // Дописывает запись в журнал; -1, если места нет даже после уплотнения
+  private long append(byte[] key, byte[] url) throws IOException {
+    int length = Short.BYTES + key.length + Integer.BYTES + url.length;
+    long offset = reserve(dataEnd, length);
+    if (offset < 0) {
+      if (liveData > getMaxDataBytes() / 2) {
+        return -1;
+      }
+      compact();
+      offset = reserve(dataEnd, length);
+      if (offset < 0) {
+        return -1;
+      }
+    }
+
+    writeRecord(segmentFor(segments, dataChannel, offset), positionOf(offset), key, url);
+    dataEnd = offset + length;
+    liveData += length;
+    index.putLong(HEADER_DATA_END, dataEnd);
+    return offset;
+  }
+
+  private long reserve(long end, int length) {
+    long offset = end;
+    if (positionOf(offset) + (long) length > segmentBytes) {
+      // Запись не помещается в остаток сегмента и начинается со следующего
+      offset = (long) (segmentOf(offset) + 1) * segmentBytes;
+    }
+    return segmentOf(offset) < maxSegments ? offset : -1;
+  }
+
+  private void compact() throws IOException {
+    Path compactedFile = directory.resolve(COMPACTED_DATA_FILE);
+    Files.deleteIfExists(compactedFile);
+    index.putInt(HEADER_STATUS, STATUS_COMPACTING);
+    index.force();
+
+    FileChannel compactedChannel = openData(compactedFile);
+    MappedByteBuffer[] compactedSegments = new MappedByteBuffer[maxSegments];
+    long end = 0;
+    for (int slot = 0; slot < capacity; slot++) {
+      int base = slotOffset(slot);
+      if (index.getInt(base + SLOT_STATE) != FULL) {
+        continue;
+      }
+      long data = index.getLong(base + SLOT_DATA);
+      int length = recordBytes(data);
+      long offset = reserve(end, length);
+      MappedByteBuffer target = segmentFor(compactedSegments, compactedChannel, offset);
+      target.put(positionOf(offset), segments[segmentOf(data)], positionOf(data), length);
+      index.putLong(base + SLOT_DATA, offset);
+      end = offset + length;
+    }
+    for (MappedByteBuffer segment : compactedSegments) {
+      if (segment != null) {
+        segment.force();
+      }
+    }
+
+    dataChannel.close();
+    Files.move(
+        compactedFile,
+        directory.resolve(DATA_FILE),
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    dataChannel = compactedChannel;
+    segments = compactedSegments;
+    dataEnd = end;
+    liveData = end;
+    compactions++;
+
+    index.putLong(HEADER_DATA_END, dataEnd);
+    index.putLong(HEADER_LIVE_DATA, liveData);
+    index.force();
+    index.putInt(HEADER_STATUS, STATUS_CLEAN);
+  }
+
+  private MappedByteBuffer segmentFor(MappedByteBuffer[] target, FileChannel channel, long offset)
+      throws IOException {
+    int segment = segmentOf(offset);
+    if (target[segment] == null) {
+      target[segment] = mapSegment(channel, segment);
+    }
+    return target[segment];
+  }
+
+  private MappedByteBuffer mapSegment(FileChannel channel, int segment) throws IOException {
+    return channel.map(FileChannel.MapMode.READ_WRITE, (long) segment * segmentBytes, segmentBytes);
+  }
+
+  private boolean isCompatible() throws IOException {
+    if (indexChannel.size() < HEADER_BYTES) {
+      return false;
+    }
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+    indexChannel.read(header, 0);
+    return header.getInt(HEADER_MAGIC) == MAGIC
+        && header.getInt(HEADER_VERSION) == VERSION
+        && header.getInt(HEADER_CAPACITY) == capacity
+        && header.getInt(HEADER_SEGMENT_BYTES) == segmentBytes
+        && header.getInt(HEADER_STATUS) == STATUS_CLEAN
+        && header.getLong(HEADER_DATA_END) <= (long) maxSegments * segmentBytes;
+  }
+
+  private boolean keyEquals(long data, byte[] key) {
+    MappedByteBuffer segment = segments[segmentOf(data)];
+    int position = positionOf(data);
+    if (segment.getShort(position) != key.length) {
+      return false;
+    }
+    position += Short.BYTES;
+    for (int i = 0; i < key.length; i++) {
+      if (segment.get(position + i) != key[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean urlEquals(long data, byte[] url) {
+    MappedByteBuffer segment = segments[segmentOf(data)];
+    int position = positionOf(data);
+    position += Short.BYTES + segment.getShort(position);
+    if (segment.getInt(position) != url.length) {
+      return false;
+    }
+    position += Integer.BYTES;
+    for (int i = 0; i < url.length; i++) {
+      if (segment.get(position + i) != url[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int recordBytes(long data) {
+    MappedByteBuffer segment = segments[segmentOf(data)];
+    int position = positionOf(data);
+    int keyLength = segment.getShort(position);
+    int urlLength = segment.getInt(position + Short.BYTES + keyLength);
+    return Short.BYTES + keyLength + Integer.BYTES + urlLength;
+  }
+
+  private static void writeRecord(MappedByteBuffer segment, int position, byte[] key, byte[] url) {
+    segment.putShort(position, (short) key.length);
+    segment.put(position + Short.BYTES, key);
+    segment.putInt(position + Short.BYTES + key.length, url.length);
+    segment.put(position + Short.BYTES + key.length + Integer.BYTES, url);
+  }
+
+  private int segmentOf(long offset) {
+    return (int) (offset / segmentBytes);
+  }
+
+  private int positionOf(long offset) {
+    return (int) (offset % segmentBytes);
+  }
+
+  private static int slotOffset(int slot) {
+    return HEADER_BYTES + slot * SLOT_BYTES;
+  }
+
+  private static FileChannel openData(Path file) throws IOException {
+    return FileChannel.open(
+        file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+  }
+
+  // FNV-1a по байтам с перемешиванием финализатора MurmurHash3
+  private static long hash(byte[] key) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : key) {
+      hash ^= b & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
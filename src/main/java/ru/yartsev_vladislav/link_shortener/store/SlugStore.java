@@ -0,0 +1,229 @@
+package ru.yartsev_vladislav.link_shortener.store;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yartsev_vladislav.link_shortener.cache.CachedLink;
+import ru.yartsev_vladislav.link_shortener.config.LinkConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkInvalidationConfig;
+import ru.yartsev_vladislav.link_shortener.config.SlugStoreConfig;
+import ru.yartsev_vladislav.link_shortener.entity.Link;
+import ru.yartsev_vladislav.link_shortener.model.SlugStoreStatsResult;
+
+/**
+ * Хранилище ссылок вне кучи для переходов без обращения к БД.
+ *
+ * <p>При {@code link.store.enabled=true} ссылки, созданные или открытые этим экземпляром, хранятся
+ * в {@link MappedSlugTable} в каталоге {@code link.store.path} вместо {@code LinkCache}: десятки
+ * миллионов ссылок не увеличивают кучу и паузы сборщика мусора. Переход по ссылке без лимита из
+ * хранилища не обращается к БД, поэтому продолжает работать при её недоступности. Файлы
+ * переживают перезапуск. Пока хранилище выключено, оно ничего не хранит.
+ *
+ * <p>При штатной остановке в файлы записывается момент синхронизации с БД, а при открытии он
+ * сбрасывается, поэтому после аварийной остановки хранилище считается рассинхронизированным. Без
+ * межузловой инвалидации хранилище с отметкой синхронизации используется как есть, иначе
+ * перестраивается из неистёкших ссылок БД. При {@code link.invalidation.enabled=true} изменения
+ * других экземпляров за время простоя неизвестны, поэтому хранилище перестраивает {@code
+ * LinkInvalidationListener} сразу после подписки на канал: сначала сброс, затем заполнение.
+ */
+@Component
+public class SlugStore {
+  private static final Logger log = LoggerFactory.getLogger(SlugStore.class);
+  private static final String SELECT_LINKS_SQL =
+      "SELECT slug, full_url, attempts_limit, created_at FROM links WHERE created_at >= ?";
+  private static final int FETCH_SIZE = 1000;
+
+  private final LinkConfig linkConfig;
+  private final LinkInvalidationConfig linkInvalidationConfig;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final MappedSlugTable table;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  // Отметка синхронизации, найденная в файлах при открытии
+  private final long syncedAtMillis;
+
+  @Autowired
+  public SlugStore(
+      SlugStoreConfig slugStoreConfig,
+      LinkConfig linkConfig,
+      LinkInvalidationConfig linkInvalidationConfig,
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate) {
+    this.linkConfig = linkConfig;
+    this.linkInvalidationConfig = linkInvalidationConfig;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.table = slugStoreConfig.isEnabled() ? openTable(slugStoreConfig) : null;
+    if (table != null) {
+      syncedAtMillis = table.getSyncedAtMillis();
+      // До штатной остановки файлы могут расходиться с БД
+      table.setSyncedAtMillis(0);
+    } else {
+      syncedAtMillis = 0;
+    }
+  }
+
+  public StoredLink get(String slug) {
+    if (table == null) {
+      return null;
+    }
+
+    StoredLink link = table.get(slug);
+    if (link == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return link;
+  }
+
+  // false, если хранилище выключено или заполнено: тогда ссылку нужно держать в LinkCache
+  public boolean put(CachedLink link) {
+    if (table == null) {
+      return false;
+    }
+
+    try {
+      if (table.put(
+          link.slug(), link.fullUrl(), expiresAtMillis(link.createdAt()), link.attemptsLimit())) {
+        return true;
+      }
+    } catch (IOException e) {
+      log.warn("Could not store link {}", link.slug(), e);
+    }
+    rejected.increment();
+    return false;
+  }
+
+  public boolean put(Link link) {
+    return put(CachedLink.of(link));
+  }
+
+  public void remove(String slug) {
+    if (table != null) {
+      table.remove(slug);
+    }
+  }
+
+  public void clear() {
+    if (table != null) {
+      table.clear();
+    }
+  }
+
+  // Узел стартует «горячим»: хранилище без отметки синхронизации перестраивается из БД
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    // С инвалидацией хранилище перестраивает слушатель после подписки на канал
+    if (table == null || linkInvalidationConfig.isEnabled()) {
+      return;
+    }
+    if (syncedAtMillis > 0) {
+      log.info(
+          "Slug store reused: {} links synced at {}",
+          table.size(),
+          Instant.ofEpochMilli(syncedAtMillis));
+      return;
+    }
+    rebuild();
+  }
+
+  // Заменяет содержимое хранилища неистёкшими ссылками из БД
+  public void rebuild() {
+    if (table == null) {
+      return;
+    }
+
+    long startedAt = System.nanoTime();
+    table.clear();
+    LocalDateTime threshold = LocalDateTime.now().minusSeconds(linkConfig.getTimeToLeave());
+    // Курсорное чтение порциями PostgreSQL выполняет только внутри транзакции
+    transactionTemplate.executeWithoutResult(
+        status ->
+            jdbcTemplate.query(
+                connection -> {
+                  PreparedStatement statement = connection.prepareStatement(SELECT_LINKS_SQL);
+                  statement.setFetchSize(FETCH_SIZE);
+                  statement.setObject(1, threshold);
+                  return statement;
+                },
+                (RowCallbackHandler)
+                    resultSet -> {
+                      int limit = resultSet.getInt(3);
+                      put(
+                          new CachedLink(
+                              resultSet.getString(1),
+                              resultSet.getString(2),
+                              resultSet.wasNull() ? null : limit,
+                              resultSet.getObject(4, LocalDateTime.class)));
+                    }));
+    log.info(
+        "Slug store rebuilt: {} links, {} ms",
+        table.size(),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+  }
+
+  @PreDestroy
+  public void close() throws IOException {
+    if (table != null) {
+      // Изменения этого экземпляра уже в файлах: при следующем старте их можно не перестраивать
+      table.setSyncedAtMillis(System.currentTimeMillis());
+      table.close();
+    }
+  }
+
+  public SlugStoreStatsResult getStats() {
+    if (table == null) {
+      return new SlugStoreStatsResult(false, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+    }
+    return new SlugStoreStatsResult(
+        true,
+        table.size(),
+        table.getCapacity(),
+        table.getDataBytes(),
+        table.getLiveDataBytes(),
+        table.getMaxDataBytes(),
+        table.getCompactions(),
+        hits.sum(),
+        misses.sum(),
+        rejected.sum());
+  }
+
+  private long expiresAtMillis(LocalDateTime createdAt) {
+    return createdAt
+        .plusSeconds(linkConfig.getTimeToLeave())
+        .atZone(ZoneId.systemDefault())
+        .toInstant()
+        .toEpochMilli();
+  }
+
+  private static MappedSlugTable openTable(SlugStoreConfig slugStoreConfig) {
+    Path path = Path.of(slugStoreConfig.getPath());
+    try {
+      MappedSlugTable table =
+          MappedSlugTable.open(
+              path, slugStoreConfig.getCapacity(), slugStoreConfig.getMaxDataBytes());
+      log.info("Slug store opened at {}: {} links", path.toAbsolutePath(), table.size());
+      return table;
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not open slug store at " + path, e);
+    }
+  }
+}
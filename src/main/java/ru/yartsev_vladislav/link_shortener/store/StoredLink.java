@@ -0,0 +1,8 @@
+package ru.yartsev_vladislav.link_shortener.store;
+
+// Ссылка из MappedSlugTable; attemptsLimit == null — ссылка без лимита переходов
+public record StoredLink(String fullUrl, Integer attemptsLimit, long expiresAtMillis) {
+  public boolean isExpired(long nowMillis) {
+    return expiresAtMillis <= nowMillis;
+  }
+}
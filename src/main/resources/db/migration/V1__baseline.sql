@@ -0,0 +1,40 @@
+-- Схема, которую раньше создавал spring.jpa.hibernate.ddl-auto=update. IF NOT EXISTS позволяет
+-- применить миграцию и к БД, созданной Hibernate: создаются только недостающие таблицы и индексы.
+
+CREATE TABLE IF NOT EXISTS users (
+    id varchar(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- Без внешнего ключа owner_id: при подписанных токенах владельца может не быть в таблице users
+CREATE TABLE IF NOT EXISTS links (
+    slug varchar(255) NOT NULL,
+    attempts integer NOT NULL,
+    attempts_limit integer,
+    created_at timestamp(6),
+    full_url varchar(255),
+    owner_id varchar(255) NOT NULL,
+    PRIMARY KEY (slug)
+);
+
+CREATE INDEX IF NOT EXISTS links_owner_created_at_slug_idx ON links (owner_id, created_at, slug);
+CREATE INDEX IF NOT EXISTS links_created_at_idx ON links (created_at);
+
+CREATE TABLE IF NOT EXISTS link_clicks (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    clicked_at timestamp(6) NOT NULL,
+    country varchar(8),
+    referrer varchar(512),
+    slug varchar(255) NOT NULL,
+    user_agent_class varchar(16) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS link_clicks_slug_clicked_at_idx ON link_clicks (slug, clicked_at);
+
+CREATE TABLE IF NOT EXISTS link_click_rollups (
+    slug varchar(255) NOT NULL,
+    bucket_start timestamp(6) NOT NULL,
+    clicks bigint NOT NULL,
+    PRIMARY KEY (slug, bucket_start)
+);
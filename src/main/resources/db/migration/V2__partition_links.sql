@@ -0,0 +1,73 @@
+-- Таблица links разбивается на секции по created_at: все ссылки живут link.time-to-leave секунд,
+-- поэтому истёкшие ссылки удаляются целыми секциями (LinkPartitionManager), без построчного DELETE.
+-- Существующие строки остаются в прежней таблице, которая становится первой секцией
+-- links_p_initial до конца текущего часа; следующие секции создаёт приложение.
+
+-- Имена индексов общие для схемы, поэтому индексы прежней таблицы переименовываются
+ALTER TABLE links RENAME TO links_p_initial;
+ALTER INDEX IF EXISTS links_pkey RENAME TO links_p_initial_pkey;
+ALTER INDEX IF EXISTS links_owner_created_at_slug_idx
+    RENAME TO links_p_initial_owner_created_at_slug_idx;
+ALTER INDEX IF EXISTS links_created_at_idx RENAME TO links_p_initial_created_at_idx;
+
+-- Внешний ключ owner_id, созданный Hibernate до отказа от него, не нужен и секции
+DO $$
+DECLARE
+    foreign_key text;
+BEGIN
+    FOR foreign_key IN
+        SELECT conname FROM pg_constraint
+        WHERE conrelid = 'links_p_initial'::regclass AND contype = 'f'
+    LOOP
+        EXECUTE format('ALTER TABLE links_p_initial DROP CONSTRAINT %I', foreign_key);
+    END LOOP;
+END
+$$;
+
+ALTER TABLE links_p_initial ALTER COLUMN created_at SET NOT NULL;
+
+-- Первичный ключ секционированной таблицы обязан включать ключ секционирования
+CREATE TABLE links (
+    slug varchar(255) NOT NULL,
+    attempts integer NOT NULL,
+    attempts_limit integer,
+    created_at timestamp(6) NOT NULL,
+    full_url varchar(255),
+    owner_id varchar(255) NOT NULL,
+    PRIMARY KEY (slug, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX links_owner_created_at_slug_idx ON links (owner_id, created_at, slug);
+CREATE INDEX links_created_at_idx ON links (created_at);
+
+DO $$
+DECLARE
+    upper_bound timestamp;
+BEGIN
+    SELECT date_trunc('hour', greatest(localtimestamp, coalesce(max(created_at), localtimestamp)))
+               + interval '1 hour'
+    INTO upper_bound
+    FROM links_p_initial;
+    EXECUTE format(
+        'ALTER TABLE links ATTACH PARTITION links_p_initial FOR VALUES FROM (MINVALUE) TO (%L)',
+        upper_bound);
+END
+$$;
+
+-- Уникальность slug во всех секциях: первичный ключ проверяет её только внутри секции.
+-- Блокировка по slug упорядочивает параллельные вставки одного slug до конца транзакции.
+CREATE FUNCTION links_unique_slug() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('links'), hashtext(NEW.slug));
+    IF EXISTS (SELECT 1 FROM links WHERE slug = NEW.slug) THEN
+        RAISE EXCEPTION USING
+            ERRCODE = 'unique_violation',
+            MESSAGE = format('Slug %s already exists', NEW.slug);
+    END IF;
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER links_unique_slug
+    BEFORE INSERT ON links
+    FOR EACH ROW EXECUTE FUNCTION links_unique_slug();
@@ -0,0 +1,4 @@
+-- Журнал и почасовые итоги переходов удаляются по времени (ClickAnalytics.deleteExpiredClicks):
+-- индексы позволяют выбирать самые старые строки частями, не просматривая таблицы целиком.
+CREATE INDEX IF NOT EXISTS link_clicks_clicked_at_idx ON link_clicks (clicked_at);
+CREATE INDEX IF NOT EXISTS link_click_rollups_bucket_start_idx ON link_click_rollups (bucket_start);
@@ -0,0 +1,24 @@
+-- links_unique_slug брал блокировку на каждую вставляемую строку и держал её до конца транзакции:
+-- часть пакета или импорта из тысяч ссылок занимала тысячи записей общей таблицы блокировок
+-- (max_locks_per_transaction * max_connections) и могла исчерпать её.
+--
+-- Транзакция, объявившая вставку частью (set_config('links.bulk_insert', 'on', true), см.
+-- LinkPartitionManager.markBulkInsert), берёт одну исключительную блокировку на всю транзакцию.
+-- Одиночные вставки держат ту же блокировку в разделяемом режиме и, как прежде, блокировку
+-- своего slug: между собой они не ждут друг друга, а с частью упорядочиваются целиком.
+CREATE OR REPLACE FUNCTION links_unique_slug() RETURNS trigger AS $$
+BEGIN
+    IF current_setting('links.bulk_insert', true) = 'on' THEN
+        PERFORM pg_advisory_xact_lock(hashtext('links_bulk'), 0);
+    ELSE
+        PERFORM pg_advisory_xact_lock_shared(hashtext('links_bulk'), 0);
+        PERFORM pg_advisory_xact_lock(hashtext('links'), hashtext(NEW.slug));
+    END IF;
+    IF EXISTS (SELECT 1 FROM links WHERE slug = NEW.slug) THEN
+        RAISE EXCEPTION USING
+            ERRCODE = 'unique_violation',
+            MESSAGE = format('Slug %s already exists', NEW.slug);
+    END IF;
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,135 @@
+package ru.yartsev_vladislav.link_shortener.admission;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yartsev_vladislav.link_shortener.admission.AdmissionLimiter.Priority;
+import ru.yartsev_vladislav.link_shortener.config.LinkAdmissionConfig;
+
+public class AdmissionLimiterModuleTest {
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+  private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+  private LinkAdmissionConfig config;
+
+  @BeforeEach
+  void setUp() {
+    config = new LinkAdmissionConfig();
+    config.setInitialLimit(10);
+    config.setMinLimit(2);
+    config.setMaxLimit(20);
+    config.setTargetLatencyMs(100);
+    config.setBackoffRatio(0.5);
+    config.setCreateLimitRatio(0.5);
+    config.setBatchLimitRatio(0.2);
+  }
+
+  @Test
+  void tryAcquire_ShouldRejectRequestsOverLimit() {
+    AdmissionLimiter limiter = new AdmissionLimiter(config);
+
+    for (int i = 0; i < 10; i++) {
+      assertTrue(limiter.tryAcquire(Priority.REDIRECT));
+    }
+
+    assertFalse(limiter.tryAcquire(Priority.REDIRECT));
+    assertEquals(10, limiter.getStats().inFlight);
+    assertEquals(1, limiter.getStats().rejectedRedirects);
+  }
+
+  @Test
+  void tryAcquire_ShouldRejectCreatesBeforeRedirects() {
+    AdmissionLimiter limiter = new AdmissionLimiter(config);
+
+    for (int i = 0; i < 5; i++) {
+      assertTrue(limiter.tryAcquire(Priority.CREATE));
+    }
+
+    assertFalse(limiter.tryAcquire(Priority.CREATE));
+    assertTrue(limiter.tryAcquire(Priority.REDIRECT));
+    assertEquals(1, limiter.getStats().rejectedCreates);
+    assertEquals(0, limiter.getStats().rejectedRedirects);
+  }
+
+  @Test
+  void tryAcquire_ShouldRejectBatchesBeforeCreates() {
+    AdmissionLimiter limiter = new AdmissionLimiter(config);
+
+    assertTrue(limiter.tryAcquire(Priority.BATCH));
+    assertTrue(limiter.tryAcquire(Priority.BATCH));
+
+    assertFalse(limiter.tryAcquire(Priority.BATCH));
+    assertTrue(limiter.tryAcquire(Priority.CREATE));
+    assertEquals(1, limiter.getStats().rejectedCreates);
+  }
+
+  @Test
+  void releaseWithoutSample_ShouldFreeSlotWithoutChangingLimit() {
+    config.setTargetLatencyMs(0);
+    AdmissionLimiter limiter = new AdmissionLimiter(config);
+    limiter.tryAcquire(Priority.BATCH);
+
+    limiter.releaseWithoutSample();
+
+    assertEquals(0, limiter.getStats().inFlight);
+    assertEquals(10, limiter.getStats().limit);
+  }
+
+  @Test
+  void release_ShouldFreeSlot() {
+    AdmissionLimiter limiter = new AdmissionLimiter(config);
+    for (int i = 0; i < 10; i++) {
+      limiter.tryAcquire(Priority.REDIRECT);
+    }
+
+    limiter.release(System.nanoTime());
+
+    assertEquals(9, limiter.getStats().inFlight);
+    assertTrue(limiter.tryAcquire(Priority.REDIRECT));
+  }
+
+  @Test
+  void onSample_ShouldDecreaseLimitOncePerTargetLatency() {
+    AdmissionLimiter limiter = new AdmissionLimiter(config);
+    long now = System.nanoTime();
+
+    limiter.onSample(SLOW, 10, now);
+    limiter.onSample(SLOW, 10, now + FAST);
+    assertEquals(5, limiter.getStats().limit);
+
+    limiter.onSample(SLOW, 10, now + SLOW);
+    assertEquals(2, limiter.getStats().limit);
+
+    limiter.onSample(SLOW, 10, now + 2 * SLOW);
+    assertEquals(2, limiter.getStats().limit);
+  }
+
+  @Test
+  void onSample_ShouldIncreaseLimitOnlyWhenItIsUsed() {
+    AdmissionLimiter limiter = new AdmissionLimiter(config);
+    long now = System.nanoTime();
+
+    for (int i = 0; i < 100; i++) {
+      limiter.onSample(FAST, 1, now);
+    }
+    assertEquals(10, limiter.getStats().limit);
+
+    for (int i = 0; i < 1_000; i++) {
+      limiter.onSample(FAST, 20, now);
+    }
+    assertEquals(20, limiter.getStats().limit);
+  }
+
+  @Test
+  void tryAcquire_ShouldAdmitEverythingWhenDisabled() {
+    config.setEnabled(false);
+    AdmissionLimiter limiter = new AdmissionLimiter(config);
+
+    for (int i = 0; i < 100; i++) {
+      assertTrue(limiter.tryAcquire(Priority.CREATE));
+    }
+    assertEquals(0, limiter.getStats().inFlight);
+  }
+}
@@ -0,0 +1,80 @@
+package ru.yartsev_vladislav.link_shortener.analytics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class ClickEventRingBufferModuleTest {
+
+  @Test
+  void constructor_ShouldRoundCapacityUpToPowerOfTwo() {
+    assertEquals(1, new ClickEventRingBuffer(1).getCapacity());
+    assertEquals(8, new ClickEventRingBuffer(5).getCapacity());
+    assertEquals(8, new ClickEventRingBuffer(8).getCapacity());
+    assertThrows(IllegalArgumentException.class, () -> new ClickEventRingBuffer(0));
+  }
+
+  @Test
+  void offer_ShouldRejectEventsWhenFullAndAcceptAfterPoll() {
+    ClickEventRingBuffer buffer = new ClickEventRingBuffer(4);
+    for (int i = 0; i < 4; i++) {
+      assertTrue(buffer.offer(event("slug" + i)));
+    }
+
+    assertFalse(buffer.offer(event("overflow")));
+    assertEquals(4, buffer.size());
+
+    assertEquals("slug0", buffer.poll().slug());
+    assertTrue(buffer.offer(event("slug4")));
+    for (int i = 1; i <= 4; i++) {
+      assertEquals("slug" + i, buffer.poll().slug());
+    }
+    assertNull(buffer.poll());
+    assertEquals(0, buffer.size());
+  }
+
+  @Test
+  void offer_ShouldNotLoseOrDuplicateEventsFromConcurrentProducers() throws Exception {
+    int producers = 8;
+    int eventsPerProducer = 20_000;
+    ClickEventRingBuffer buffer = new ClickEventRingBuffer(1024);
+    AtomicInteger accepted = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(producers);
+    ExecutorService executor = Executors.newFixedThreadPool(producers);
+    for (int p = 0; p < producers; p++) {
+      int producer = p;
+      executor.submit(
+          () -> {
+            for (int i = 0; i < eventsPerProducer; i++) {
+              if (buffer.offer(event(producer + ":" + i))) {
+                accepted.incrementAndGet();
+              }
+            }
+            done.countDown();
+          });
+    }
+
+    Set<String> received = new HashSet<>();
+    while (done.getCount() > 0 || buffer.size() > 0) {
+      ClickEvent event = buffer.poll();
+      if (event != null) {
+        assertTrue(received.add(event.slug()), "duplicate " + event.slug());
+      }
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    assertEquals(accepted.get(), received.size());
+  }
+
+  private static ClickEvent event(String slug) {
+    return new ClickEvent(slug, System.currentTimeMillis(), null, null, null);
+  }
+}
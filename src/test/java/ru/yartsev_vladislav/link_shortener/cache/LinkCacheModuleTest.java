@@ -0,0 +1,75 @@
+package ru.yartsev_vladislav.link_shortener.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yartsev_vladislav.link_shortener.config.LinkCacheConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkConfig;
+import ru.yartsev_vladislav.link_shortener.entity.Link;
+import ru.yartsev_vladislav.link_shortener.entity.User;
+
+public class LinkCacheModuleTest {
+
+  private LinkCache linkCache;
+
+  @BeforeEach
+  void setUp() {
+    LinkConfig linkConfig = mock(LinkConfig.class);
+    when(linkConfig.getTimeToLeave()).thenReturn(3600L);
+
+    LinkCacheConfig cacheConfig = new LinkCacheConfig();
+    cacheConfig.setMaximumSize(100);
+    cacheConfig.setTimeToLive(60);
+
+    linkCache = new LinkCache(cacheConfig, linkConfig);
+  }
+
+  @Test
+  void get_ShouldReturnPutLink() {
+    Link link = new Link("slug", "https://example.com", new User("user1"));
+    link.setCreatedAt(LocalDateTime.now());
+
+    linkCache.put(link);
+
+    CachedLink cachedLink = linkCache.get("slug");
+    assertNotNull(cachedLink);
+    assertEquals("https://example.com", cachedLink.fullUrl());
+  }
+
+  @Test
+  void get_ShouldNotReturnLinkPastItsExpiration() {
+    Link link = new Link("slug", "https://example.com", new User("user1"));
+    link.setCreatedAt(LocalDateTime.now().minusHours(2));
+
+    linkCache.put(link);
+
+    assertNull(linkCache.get("slug"));
+  }
+
+  @Test
+  void getStats_ShouldCountHitsAndMisses() {
+    Link link = new Link("slug", "https://example.com", new User("user1"));
+    link.setCreatedAt(LocalDateTime.now());
+    linkCache.put(link);
+
+    linkCache.get("slug");
+    linkCache.get("missing");
+
+    assertEquals(1, linkCache.getStats().hitCount());
+    assertEquals(1, linkCache.getStats().missCount());
+  }
+
+  @Test
+  void invalidate_ShouldRemoveLink() {
+    Link link = new Link("slug", "https://example.com", new User("user1"));
+    link.setCreatedAt(LocalDateTime.now());
+    linkCache.put(link);
+
+    linkCache.invalidate("slug");
+
+    assertNull(linkCache.get("slug"));
+  }
+}
@@ -1,25 +1,42 @@
 package ru.yartsev_vladislav.link_shortener.controller;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import ru.yartsev_vladislav.link_shortener.admission.AdmissionLimiter;
+import ru.yartsev_vladislav.link_shortener.analytics.ClickAnalytics;
+import ru.yartsev_vladislav.link_shortener.cache.LinkCache;
+import ru.yartsev_vladislav.link_shortener.entity.Link;
 import ru.yartsev_vladislav.link_shortener.entity.User;
 import ru.yartsev_vladislav.link_shortener.repository.LinkRepository;
 import ru.yartsev_vladislav.link_shortener.repository.UserRepository;
 
 @SpringBootTest
 @AutoConfigureMockMvc
+// Экспорт метрик в тестах по умолчанию выключен
+@AutoConfigureObservability
 class LinkControllerIntegrationTest {
 
   @Autowired private MockMvc mockMvc;
@@ -28,6 +45,16 @@ class LinkControllerIntegrationTest {
 
   @Autowired private UserRepository userRepository;
 
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Autowired private LinkCache linkCache;
+
+  @Autowired private ClickAnalytics clickAnalytics;
+
+  @Autowired private AdmissionLimiter admissionLimiter;
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
   private String testUserId;
 
   @DynamicPropertySource
@@ -38,12 +65,26 @@ class LinkControllerIntegrationTest {
     registry.add("spring.datasource.password", () -> "");
     registry.add("spring.datasource.driver-class-name", () -> "org.h2.Driver");
     registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+    // Таблицы аналитики без сущностей создаются скриптом после схемы Hibernate
+    registry.add("spring.sql.init.mode", () -> "always");
+    registry.add("spring.sql.init.schema-locations", () -> "classpath:click-analytics-schema.sql");
+    registry.add("spring.jpa.defer-datasource-initialization", () -> "true");
+    // Миграции и секции рассчитаны на PostgreSQL, схему H2 создаёт Hibernate
+    registry.add("spring.flyway.enabled", () -> "false");
+    registry.add("link.partition.enabled", () -> "false");
+    // Маленькие части, чтобы пакеты в тестах читались в несколько приёмов
+    registry.add("link.batch.chunk-size", () -> "2");
+    registry.add("link.batch.max-size", () -> "5");
+    // Счётчики запросов Hibernate для проверки числа запросов на переход
+    registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
   }
 
   @BeforeEach
   void setUp() {
     linkRepository.deleteAll();
     userRepository.deleteAll();
+    jdbcTemplate.update("DELETE FROM link_clicks");
+    jdbcTemplate.update("DELETE FROM link_click_rollups");
 
     User user = new User();
     userRepository.save(user);
@@ -99,7 +140,7 @@ class LinkControllerIntegrationTest {
     mockMvc
         .perform(MockMvcRequestBuilders.get("/" + slug))
         .andExpect(MockMvcResultMatchers.status().isFound())
-        .andExpect(MockMvcResultMatchers.header().string("Location", "https://example.com"));
+        .andExpect(MockMvcResultMatchers.header().string("Location", "https://example.com/"));
   }
 
   @Test
@@ -186,4 +227,317 @@ class LinkControllerIntegrationTest {
         .andExpect(MockMvcResultMatchers.status().isNotFound())
         .andExpect(MockMvcResultMatchers.jsonPath("$.error").exists());
   }
+
+  @Test
+  void getLink_ShouldRunSingleStatementWithoutLoadingEntities() throws Exception {
+    User owner = userRepository.findById(testUserId).orElseThrow();
+    linkRepository.save(new Link("single01", "https://example.com/single", owner));
+    linkCache.invalidateAll();
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    mockMvc
+        .perform(MockMvcRequestBuilders.get("/single01"))
+        .andExpect(MockMvcResultMatchers.status().isFound())
+        .andExpect(header().string("Location", "https://example.com/single"));
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  void getClickSeries_ShouldReturnHourlyRollupsAfterFlush() throws Exception {
+    User owner = userRepository.findById(testUserId).orElseThrow();
+    linkRepository.save(new Link("clicked1", "https://example.com/clicked", owner));
+
+    for (int i = 0; i < 3; i++) {
+      mockMvc
+          .perform(
+              get("/clicked1")
+                  .header("Referer", "https://referrer.example")
+                  .header("User-Agent", "Mozilla/5.0 (iPhone)")
+                  .header("CF-IPCountry", "RU"))
+          .andExpect(status().isFound());
+    }
+    clickAnalytics.flush();
+
+    mockMvc
+        .perform(get("/clicked1/clicks").header("X-User-Id", testUserId))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1))
+        .andExpect(jsonPath("$[0].clicks").value(3));
+    assertEquals(
+        3,
+        jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM link_clicks WHERE slug = 'clicked1' AND country = 'RU'",
+            Integer.class));
+  }
+
+  @Test
+  void getClickSeries_ShouldBeAvailableOnlyToOwner() throws Exception {
+    User owner = userRepository.findById(testUserId).orElseThrow();
+    linkRepository.save(new Link("clicked1", "https://example.com/clicked", owner));
+    User stranger = userRepository.save(new User());
+
+    mockMvc.perform(get("/clicked1/clicks")).andExpect(status().isBadRequest());
+    mockMvc
+        .perform(get("/clicked1/clicks").header("X-User-Id", stranger.getId()))
+        .andExpect(status().isForbidden());
+    mockMvc
+        .perform(get("/missing1/clicks").header("X-User-Id", testUserId))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  void getClickSeries_ShouldRejectTooLongRange() throws Exception {
+    mockMvc
+        .perform(
+            get("/clicked1/clicks")
+                .header("X-User-Id", testUserId)
+                .param("from", "2020-01-01T00:00:00"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void deleteLink_ShouldDeleteClickRollups() throws Exception {
+    User owner = userRepository.findById(testUserId).orElseThrow();
+    linkRepository.save(new Link("clicked1", "https://example.com/clicked", owner));
+    mockMvc.perform(get("/clicked1")).andExpect(status().isFound());
+    clickAnalytics.flush();
+
+    mockMvc
+        .perform(delete("/clicked1").header("X-User-Id", testUserId))
+        .andExpect(status().isOk());
+
+    // Ссылка, которая займёт этот slug, начнёт историю переходов с нуля
+    assertEquals(
+        0,
+        jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM link_click_rollups WHERE slug = 'clicked1'", Integer.class));
+  }
+
+  @Test
+  void deleteExpiredClicks_ShouldDeleteOnlyClicksOlderThanRetention() {
+    LocalDateTime old = LocalDateTime.now().minusYears(1);
+    LocalDateTime recent = LocalDateTime.now().minusMinutes(1).truncatedTo(ChronoUnit.SECONDS);
+    for (LocalDateTime clickedAt : new LocalDateTime[] {old, recent}) {
+      jdbcTemplate.update(
+          "INSERT INTO link_clicks (slug, clicked_at, user_agent_class) VALUES (?, ?, ?)",
+          "clicked1",
+          clickedAt,
+          "UNKNOWN");
+      jdbcTemplate.update(
+          "INSERT INTO link_click_rollups (slug, bucket_start, clicks) VALUES (?, ?, ?)",
+          "clicked1",
+          clickedAt,
+          1);
+    }
+
+    clickAnalytics.deleteExpiredClicks();
+
+    assertEquals(
+        recent,
+        jdbcTemplate.queryForObject("SELECT clicked_at FROM link_clicks", LocalDateTime.class));
+    assertEquals(
+        recent,
+        jdbcTemplate.queryForObject(
+            "SELECT bucket_start FROM link_click_rollups", LocalDateTime.class));
+  }
+
+  @Test
+  void getExpiredLink_ShouldReturn410() throws Exception {
+    User owner = userRepository.findById(testUserId).orElseThrow();
+    linkRepository.save(new Link("expired1", "https://example.com/expired", owner));
+    // Время создания проставляется при сохранении, поэтому состариваем ссылку запросом
+    jdbcTemplate.update(
+        "UPDATE links SET created_at = ? WHERE slug = ?",
+        LocalDateTime.now().minusYears(1),
+        "expired1");
+
+    mockMvc
+        .perform(MockMvcRequestBuilders.get("/expired1"))
+        .andExpect(MockMvcResultMatchers.status().isGone())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.error").value("Link has expired"));
+  }
+
+  @Test
+  void prometheus_ShouldExportRedirectOutcomesAndServiceTimings() throws Exception {
+    mockMvc.perform(get("/missing1")).andExpect(status().isNotFound());
+
+    String metrics =
+        mockMvc
+            .perform(get("/actuator/prometheus"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    assertTrue(metrics.contains("link_redirects_total{outcome=\"not_found\"}"));
+    assertTrue(metrics.contains("link_service_seconds_bucket"));
+    assertTrue(metrics.contains("method=\"resolveRedirect\""));
+    assertTrue(metrics.contains("http_server_requests_seconds"));
+    assertTrue(metrics.contains("hikaricp_connections_active"));
+  }
+
+  @Test
+  void createLinks_ShouldStreamResultPerItem() throws Exception {
+    String json =
+        """
+                [
+                  { "url": "https://example.com/a", "limit": 5 },
+                  { "url": "not a url" },
+                  { "url": "HTTPS://EXAMPLE.COM/a" },
+                  { "url": "https://example.com/b" }
+                ]
+                """;
+
+    MvcResult asyncResult =
+        mockMvc
+            .perform(
+                post("/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header("X-User-Id", testUserId)
+                    .content(json))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    String[] lines =
+        mockMvc
+            .perform(asyncDispatch(asyncResult))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-User-Id", testUserId))
+            .andReturn()
+            .getResponse()
+            .getContentAsString()
+            .split("\n");
+
+    assertEquals(4, lines.length);
+    assertTrue(lines[0].contains("\"status\":200"));
+    assertTrue(lines[1].contains("\"status\":400"));
+    assertTrue(lines[2].contains("\"status\":409"));
+    assertTrue(lines[3].contains("\"status\":200"));
+    assertEquals(2, linkRepository.count());
+    // Место в лимите освобождается после записи ответа
+    assertEquals(0, admissionLimiter.getStats().inFlight);
+  }
+
+  @Test
+  void createLinks_ShouldStopReadingAtMaxSize() throws Exception {
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < 6; i++) {
+      json.append(i == 0 ? "" : ",").append("{\"url\":\"https://example.com/").append(i);
+      json.append("\"}");
+    }
+    json.append("]");
+
+    MvcResult asyncResult =
+        mockMvc
+            .perform(
+                post("/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header("X-User-Id", testUserId)
+                    .content(json.toString()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    String[] lines =
+        mockMvc
+            .perform(asyncDispatch(asyncResult))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString()
+            .split("\n");
+
+    // Прочитанные до лимита элементы созданы, последняя строка сообщает о переполнении
+    assertEquals(6, lines.length);
+    for (int i = 0; i < 5; i++) {
+      assertTrue(lines[i].contains("\"status\":200"));
+    }
+    assertTrue(lines[5].contains("\"index\":5"));
+    assertTrue(lines[5].contains("\"status\":400"));
+    assertTrue(lines[5].contains("at most 5 links"));
+    assertEquals(5, linkRepository.count());
+    assertEquals(0, admissionLimiter.getStats().inFlight);
+  }
+
+  @Test
+  void createLinks_ShouldRejectNonArrayBody() throws Exception {
+    MvcResult asyncResult =
+        mockMvc
+            .perform(
+                post("/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header("X-User-Id", testUserId)
+                    .content("{ \"url\": \"https://example.com/a\" }"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    mockMvc
+        .perform(asyncDispatch(asyncResult))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error").value("Batch should be a JSON array"));
+    assertEquals(0, linkRepository.count());
+    assertEquals(0, admissionLimiter.getStats().inFlight);
+  }
+
+  @Test
+  void listLinks_ShouldPaginateWithCursor() throws Exception {
+    User owner = userRepository.findById(testUserId).orElseThrow();
+    for (int i = 0; i < 3; i++) {
+      linkRepository.save(new Link("slug000" + i, "https://example.com/" + i, owner));
+    }
+
+    String firstPage =
+        mockMvc
+            .perform(get("/links").header("X-User-Id", testUserId).param("limit", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.links.length()").value(2))
+            .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    String cursor = JsonPath.read(firstPage, "$.nextCursor");
+
+    mockMvc
+        .perform(
+            get("/links")
+                .header("X-User-Id", testUserId)
+                .param("limit", "2")
+                .param("cursor", cursor))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.links.length()").value(1))
+        .andExpect(jsonPath("$.nextCursor").doesNotExist());
+  }
+
+  @Test
+  void listLinks_WithoutUser_ShouldReturn401() throws Exception {
+    mockMvc.perform(get("/links")).andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  void exportLinks_ShouldStreamAllLinks() throws Exception {
+    User owner = userRepository.findById(testUserId).orElseThrow();
+    for (int i = 0; i < 3; i++) {
+      linkRepository.save(new Link("slug000" + i, "https://example.com/" + i, owner));
+    }
+
+    MvcResult asyncResult =
+        mockMvc
+            .perform(get("/links/export").header("X-User-Id", testUserId))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    String[] lines =
+        mockMvc
+            .perform(asyncDispatch(asyncResult))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString()
+            .split("\n");
+
+    assertEquals(3, lines.length);
+    assertTrue(lines[0].contains("\"fullUrl\":\"https://example.com/"));
+  }
 }
@@ -0,0 +1,123 @@
+package ru.yartsev_vladislav.link_shortener.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import ru.yartsev_vladislav.link_shortener.config.LinkConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkRedirectConfig;
+import ru.yartsev_vladislav.link_shortener.model.RedirectResolution;
+
+public class RedirectCachePolicyModuleTest {
+  private static final String URL = "https://example.com";
+
+  private LinkRedirectConfig redirectConfig;
+  private LinkConfig linkConfig;
+  private MockHttpServletRequest request;
+
+  @BeforeEach
+  void setUp() {
+    redirectConfig = new LinkRedirectConfig();
+    redirectConfig.setCacheEnabled(true);
+    redirectConfig.setMaxAgeSeconds(86_400);
+    linkConfig = new LinkConfig();
+    linkConfig.setTimeToLeave(3600);
+    request = new MockHttpServletRequest("GET", "/slug");
+  }
+
+  @Test
+  void redirect_ShouldReturnPlainFoundWhenCachingDisabled() {
+    redirectConfig.setCacheEnabled(false);
+
+    ResponseEntity<Object> response = policy().redirect(unlimited(600), request);
+
+    assertEquals(HttpStatus.FOUND, response.getStatusCode());
+    assertEquals(URL, response.getHeaders().getFirst(HttpHeaders.LOCATION));
+    assertNull(response.getHeaders().getCacheControl());
+  }
+
+  @Test
+  void redirect_ShouldCacheUnlimitedLinkForRemainingLifetime() {
+    redirectConfig.setStatus(301);
+
+    ResponseEntity<Object> response = policy().redirect(unlimited(600), request);
+
+    assertEquals(HttpStatus.MOVED_PERMANENTLY, response.getStatusCode());
+    assertEquals(URL, response.getHeaders().getFirst(HttpHeaders.LOCATION));
+    assertTrue(maxAge(response) > 590 && maxAge(response) <= 600);
+  }
+
+  @Test
+  void redirect_ShouldCapMaxAge() {
+    redirectConfig.setMaxAgeSeconds(60);
+
+    assertEquals(60, maxAge(policy().redirect(unlimited(600), request)));
+  }
+
+  @Test
+  void redirect_ShouldNotStoreLinkWithLimit() {
+    redirectConfig.setStatus(308);
+    long expiresAt = System.currentTimeMillis() + 600_000;
+
+    ResponseEntity<Object> response =
+        policy().redirect(new RedirectResolution.Found(URL, true, expiresAt), request);
+
+    assertEquals(HttpStatus.FOUND, response.getStatusCode());
+    assertEquals("no-store", response.getHeaders().getCacheControl());
+  }
+
+  @Test
+  void redirect_ShouldAnswerNotModifiedToMatchingETag() {
+    redirectConfig.setConditional(true);
+    RedirectCachePolicy policy = policy();
+    RedirectResolution.Found found = unlimited(600);
+    String etag = policy.redirect(found, request).getHeaders().getETag();
+
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + etag);
+    ResponseEntity<Object> response = policy.redirect(found, request);
+
+    assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+    assertNull(response.getHeaders().getFirst(HttpHeaders.LOCATION));
+    assertEquals(etag, response.getHeaders().getETag());
+  }
+
+  @Test
+  void redirect_ShouldAnswerNotModifiedSinceCreation() {
+    redirectConfig.setConditional(true);
+    RedirectResolution.Found found = unlimited(600);
+    long createdAt = found.expiresAtMillis() - 3_600_000;
+
+    request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, createdAt - 1000);
+    assertEquals(HttpStatus.FOUND, policy().redirect(found, request).getStatusCode());
+
+    request = new MockHttpServletRequest("GET", "/slug");
+    request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, createdAt + 1000);
+    assertEquals(HttpStatus.NOT_MODIFIED, policy().redirect(found, request).getStatusCode());
+  }
+
+  @Test
+  void constructor_ShouldRejectNonRedirectStatus() {
+    redirectConfig.setStatus(200);
+
+    assertThrows(IllegalArgumentException.class, this::policy);
+  }
+
+  private RedirectCachePolicy policy() {
+    return new RedirectCachePolicy(redirectConfig, linkConfig);
+  }
+
+  private static RedirectResolution.Found unlimited(long remainingSeconds) {
+    return new RedirectResolution.Found(
+        URL, false, System.currentTimeMillis() + remainingSeconds * 1000);
+  }
+
+  private static long maxAge(ResponseEntity<Object> response) {
+    String cacheControl = response.getHeaders().getCacheControl();
+    assertNotNull(cacheControl);
+    return Long.parseLong(cacheControl.replaceAll(".*max-age=(\\d+).*", "$1"));
+  }
+}
@@ -0,0 +1,146 @@
+package ru.yartsev_vladislav.link_shortener.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
+import ru.yartsev_vladislav.link_shortener.admission.AdmissionLimiter;
+import ru.yartsev_vladislav.link_shortener.analytics.ClickAnalytics;
+import ru.yartsev_vladislav.link_shortener.config.LinkAdmissionConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkRedirectConfig;
+import ru.yartsev_vladislav.link_shortener.metrics.LinkMetrics;
+import ru.yartsev_vladislav.link_shortener.model.RedirectResolution;
+import ru.yartsev_vladislav.link_shortener.service.LinkShortenerService;
+
+public class RedirectFastPathFilterModuleTest {
+  private LinkRedirectConfig redirectConfig;
+  private LinkShortenerService linkShortenerService;
+  private LinkMetrics linkMetrics;
+  private ClickAnalytics clickAnalytics;
+  private ApplicationContext applicationContext;
+  private RedirectFastPathFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    redirectConfig = new LinkRedirectConfig();
+    linkShortenerService = mock(LinkShortenerService.class);
+    linkMetrics = mock(LinkMetrics.class);
+    clickAnalytics = mock(ClickAnalytics.class);
+    when(clickAnalytics.getCountryHeader()).thenReturn("X-Country");
+    applicationContext = mock(ApplicationContext.class);
+    when(applicationContext.getBeansOfType(RequestMappingInfoHandlerMapping.class))
+        .thenReturn(Map.of("mapping", mapping("/links", "/{slug}", "/stats/cache")));
+
+    RedirectHandler redirectHandler =
+        new RedirectHandler(
+            linkShortenerService,
+            linkMetrics,
+            clickAnalytics,
+            new AdmissionLimiter(new LinkAdmissionConfig()),
+            new RedirectCachePolicy(redirectConfig, new LinkConfig()));
+    filter = new RedirectFastPathFilter(redirectConfig, redirectHandler, applicationContext);
+    filter.afterSingletonsInstantiated();
+  }
+
+  @Test
+  void doFilter_ShouldRedirectWithoutCallingChain() throws Exception {
+    when(linkShortenerService.resolveRedirect("abc123"))
+        .thenReturn(new RedirectResolution.Found("https://example.com", false, Long.MAX_VALUE));
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/abc123");
+    request.addHeader(HttpHeaders.REFERER, "https://referrer.com");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain chain = new MockFilterChain();
+
+    filter.doFilter(request, response, chain);
+
+    assertNull(chain.getRequest());
+    assertEquals(302, response.getStatus());
+    assertEquals("https://example.com", response.getHeader(HttpHeaders.LOCATION));
+    verify(linkMetrics).recordRedirect(any(RedirectResolution.Found.class));
+    verify(clickAnalytics).record("abc123", "https://referrer.com", null, null);
+  }
+
+  @Test
+  void doFilter_ShouldWritePreEncodedErrors() throws Exception {
+    when(linkShortenerService.resolveRedirect("missing1")).thenReturn(RedirectResolution.NOT_FOUND);
+    when(linkShortenerService.resolveRedirect("expired1")).thenReturn(RedirectResolution.EXPIRED);
+
+    MockHttpServletResponse notFound = perform("/missing1");
+    MockHttpServletResponse expired = perform("/expired1");
+
+    assertEquals(404, notFound.getStatus());
+    assertEquals("application/json", notFound.getContentType());
+    assertEquals("{\"error\":\"Link does not exist\"}", notFound.getContentAsString());
+    assertEquals(410, expired.getStatus());
+    assertEquals("{\"error\":\"Link has expired\"}", expired.getContentAsString());
+    verify(clickAnalytics, never()).record(any(), any(), any(), any());
+  }
+
+  @Test
+  void doFilter_ShouldPassOtherRequestsToDispatcher() throws Exception {
+    for (String path : List.of("/links", "/stats/cache", "/", "/a%20b", "/slug/clicks")) {
+      MockFilterChain chain = new MockFilterChain();
+      filter.doFilter(
+          new MockHttpServletRequest("GET", path), new MockHttpServletResponse(), chain);
+      assertNotNull(chain.getRequest(), path);
+    }
+    MockFilterChain chain = new MockFilterChain();
+    filter.doFilter(
+        new MockHttpServletRequest("DELETE", "/abc123"), new MockHttpServletResponse(), chain);
+    assertNotNull(chain.getRequest());
+
+    verifyNoInteractions(linkShortenerService);
+  }
+
+  @Test
+  void doFilter_ShouldPassEverythingWhenDisabled() throws Exception {
+    redirectConfig.setFastPathEnabled(false);
+    MockFilterChain chain = new MockFilterChain();
+
+    filter.doFilter(
+        new MockHttpServletRequest("GET", "/abc123"), new MockHttpServletResponse(), chain);
+
+    assertNotNull(chain.getRequest());
+    verifyNoInteractions(linkShortenerService);
+  }
+
+  @Test
+  void reservedSlugs_ShouldCollectSingleSegmentLiteralPaths() {
+    Set<String> reserved =
+        RedirectFastPathFilter.reservedSlugs(
+            List.of(mapping("/links", "/{slug}", "/stats/cache", "/", "/swagger")));
+
+    assertEquals(Set.of("links", "swagger"), reserved);
+  }
+
+  private MockHttpServletResponse perform(String path) throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("GET", path), response, new MockFilterChain());
+    return response;
+  }
+
+  private static RequestMappingInfoHandlerMapping mapping(String... paths) {
+    RequestMappingInfoHandlerMapping mapping = mock(RequestMappingInfoHandlerMapping.class);
+    Map<RequestMappingInfo, HandlerMethod> handlerMethods = new HashMap<>();
+    for (String path : paths) {
+      handlerMethods.put(RequestMappingInfo.paths(path).build(), mock(HandlerMethod.class));
+    }
+    when(mapping.getHandlerMethods()).thenReturn(handlerMethods);
+    return mapping;
+  }
+}
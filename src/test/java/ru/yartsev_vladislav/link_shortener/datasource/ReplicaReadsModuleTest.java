@@ -0,0 +1,116 @@
+package ru.yartsev_vladislav.link_shortener.datasource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Optional;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import ru.yartsev_vladislav.link_shortener.config.DataSourceRoutingConfig;
+
+public class ReplicaReadsModuleTest {
+  private static final String SELECT_URL_SQL = "SELECT full_url FROM links WHERE slug = ?";
+
+  private JdbcTemplate primary;
+  private JdbcTemplate replica;
+  private JdbcTemplate routed;
+  private ReplicaReads replicaReads;
+
+  @BeforeEach
+  void setUp() {
+    // Две независимые БД H2 в памяти вместо основной БД и реплики
+    DataSource primaryDataSource = h2("primary");
+    DataSource replicaDataSource = h2("replica");
+    primary = new JdbcTemplate(primaryDataSource);
+    replica = new JdbcTemplate(replicaDataSource);
+    for (JdbcTemplate database : List.of(primary, replica)) {
+      database.execute("DROP TABLE IF EXISTS links");
+      database.execute("CREATE TABLE links (slug VARCHAR(64) PRIMARY KEY, full_url VARCHAR(255))");
+    }
+
+    ReplicaRoutingDataSource routingDataSource =
+        new ReplicaRoutingDataSource(primaryDataSource, List.of(replicaDataSource));
+    routingDataSource.afterPropertiesSet();
+    routed = new JdbcTemplate(new LazyConnectionDataSourceProxy(routingDataSource));
+
+    DataSourceRoutingConfig config = new DataSourceRoutingConfig();
+    config.setReplicaUrls(List.of("jdbc:h2:mem:replica"));
+    replicaReads = new ReplicaReads(config);
+  }
+
+  @Test
+  void read_ShouldQueryReplica() {
+    primary.update("INSERT INTO links VALUES ('slug', 'https://primary.example.com')");
+    replica.update("INSERT INTO links VALUES ('slug', 'https://replica.example.com')");
+
+    assertEquals("https://replica.example.com", replicaReads.read("slug", () -> findUrl("slug")));
+    assertEquals(1, replicaReads.getReplicaReads());
+  }
+
+  @Test
+  void read_ShouldQueryPrimaryOutsideOfReplicaRead() {
+    primary.update("INSERT INTO links VALUES ('slug', 'https://primary.example.com')");
+    replica.update("INSERT INTO links VALUES ('slug', 'https://replica.example.com')");
+
+    assertEquals("https://primary.example.com", findUrl("slug"));
+  }
+
+  @Test
+  void read_ShouldQueryPrimaryForRecentlyWrittenKey() {
+    primary.update("INSERT INTO links VALUES ('slug', 'https://new.example.com')");
+    replica.update("INSERT INTO links VALUES ('slug', 'https://old.example.com')");
+
+    replicaReads.markWritten("slug");
+
+    assertEquals("https://new.example.com", replicaReads.read("slug", () -> findUrl("slug")));
+    assertEquals(1, replicaReads.getPrimaryReads());
+  }
+
+  @Test
+  void readOrFallback_ShouldQueryPrimaryIfReplicaHasNotCaughtUp() {
+    primary.update("INSERT INTO links VALUES ('slug', 'https://example.com')");
+
+    assertEquals(
+        Optional.of("https://example.com"),
+        replicaReads.readOrFallback("slug", () -> findOptionalUrl("slug")));
+    assertEquals(1, replicaReads.getFallbacks());
+  }
+
+  @Test
+  void readOrFallback_ShouldNotQueryPrimaryIfFallbackDisabled() {
+    DataSourceRoutingConfig config = new DataSourceRoutingConfig();
+    config.setReplicaUrls(List.of("jdbc:h2:mem:replica"));
+    config.setFallbackToPrimary(false);
+    replicaReads = new ReplicaReads(config);
+    primary.update("INSERT INTO links VALUES ('slug', 'https://example.com')");
+
+    assertEquals(
+        Optional.empty(), replicaReads.readOrFallback("slug", () -> findOptionalUrl("slug")));
+  }
+
+  @Test
+  void read_ShouldQueryPrimaryIfReplicasAreNotConfigured() {
+    replicaReads = new ReplicaReads(new DataSourceRoutingConfig());
+    primary.update("INSERT INTO links VALUES ('slug', 'https://primary.example.com')");
+    replica.update("INSERT INTO links VALUES ('slug', 'https://replica.example.com')");
+
+    assertEquals("https://primary.example.com", replicaReads.read("slug", () -> findUrl("slug")));
+    assertEquals(0, replicaReads.getReplicaReads());
+  }
+
+  private String findUrl(String slug) {
+    return routed.queryForObject(SELECT_URL_SQL, String.class, slug);
+  }
+
+  private Optional<String> findOptionalUrl(String slug) {
+    return routed.queryForList(SELECT_URL_SQL, String.class, slug).stream().findFirst();
+  }
+
+  private static DataSource h2(String name) {
+    return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+  }
+}
@@ -0,0 +1,91 @@
+package ru.yartsev_vladislav.link_shortener.expiry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yartsev_vladislav.link_shortener.config.LinkConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkExpiryConfig;
+
+public class LinkExpiryIndexModuleTest {
+
+  private LinkExpiryConfig linkExpiryConfig;
+  private List<Object> events;
+  private LinkExpiryIndex index;
+
+  @BeforeEach
+  void setUp() {
+    LinkConfig linkConfig = new LinkConfig();
+    linkConfig.setTimeToLeave(3600);
+    linkExpiryConfig = new LinkExpiryConfig();
+    linkExpiryConfig.setTickMs(10);
+    events = new ArrayList<>();
+    index = new LinkExpiryIndex(linkConfig, linkExpiryConfig, events::add);
+  }
+
+  @Test
+  void tick_ShouldPublishExpiredLinks() throws Exception {
+    index.track("expired", LocalDateTime.now().minusHours(2));
+    index.track("alive", LocalDateTime.now());
+
+    Thread.sleep(30);
+    index.tick();
+
+    assertEquals(1, events.size());
+    assertEquals(List.of("expired"), ((LinksExpiredEvent) events.get(0)).slugs());
+    assertEquals(1, index.size());
+  }
+
+  @Test
+  void forget_ShouldStopTrackingLink() throws Exception {
+    index.track("expired", LocalDateTime.now().minusHours(2));
+    index.forget("expired");
+
+    Thread.sleep(30);
+    index.tick();
+
+    assertTrue(events.isEmpty());
+    assertEquals(0, index.size());
+  }
+
+  @Test
+  void track_ShouldReplaceDeadlineOfSameSlug() throws Exception {
+    index.track("slug", LocalDateTime.now().minusHours(2));
+    // Slug истёкшей ссылки занят новой ссылкой
+    index.track("slug", LocalDateTime.now());
+
+    Thread.sleep(30);
+    index.tick();
+
+    assertTrue(events.isEmpty());
+    assertEquals(1, index.size());
+  }
+
+  @Test
+  void tick_ShouldApplyChangesInOrder() throws Exception {
+    // Изменения с пути перехода копятся до тика и применяются в порядке поступления
+    index.track("slug", LocalDateTime.now().minusHours(2));
+    index.forget("slug");
+    index.track("slug", LocalDateTime.now().minusHours(2));
+
+    Thread.sleep(30);
+    index.tick();
+
+    assertEquals(1, events.size());
+    assertEquals(List.of("slug"), ((LinksExpiredEvent) events.get(0)).slugs());
+    assertEquals(0, index.size());
+  }
+
+  @Test
+  void track_ShouldRespectMaxEntries() {
+    linkExpiryConfig.setMaxEntries(1);
+
+    index.track("first", LocalDateTime.now());
+    index.track("second", LocalDateTime.now());
+
+    assertEquals(1, index.size());
+  }
+}
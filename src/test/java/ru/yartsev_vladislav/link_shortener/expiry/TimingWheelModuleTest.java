@@ -0,0 +1,84 @@
+package ru.yartsev_vladislav.link_shortener.expiry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class TimingWheelModuleTest {
+  private static final long TICK_MS = 100;
+  private static final long START = 1_000_000;
+
+  @Test
+  void advance_ShouldFireTimeoutNotBeforeDeadline() {
+    TimingWheel<String> wheel = new TimingWheel<>(TICK_MS, START);
+    wheel.schedule("slug", START + 250);
+
+    assertTrue(wheel.advance(START + 200).isEmpty());
+    assertEquals(List.of("slug"), wheel.advance(START + 300));
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  void schedule_ShouldFirePastDeadlineOnNextTick() {
+    TimingWheel<String> wheel = new TimingWheel<>(TICK_MS, START);
+    wheel.schedule("slug", START - 10_000);
+
+    assertEquals(List.of("slug"), wheel.advance(START + TICK_MS));
+  }
+
+  @Test
+  void cancel_ShouldPreventFiring() {
+    TimingWheel<String> wheel = new TimingWheel<>(TICK_MS, START);
+    TimingWheel.Timeout<String> timeout = wheel.schedule("slug", START + 500);
+
+    assertTrue(wheel.cancel(timeout));
+    assertFalse(wheel.cancel(timeout));
+    assertTrue(wheel.advance(START + 1_000).isEmpty());
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  void advance_ShouldCascadeDistantTimeoutsFromUpperLevels() {
+    TimingWheel<String> wheel = new TimingWheel<>(TICK_MS, START);
+    // Дедлайны через ~сутки и ~месяц лежат на втором и третьем уровнях колеса
+    long day = START + 86_400_000L;
+    long month = START + 30L * 86_400_000L;
+    wheel.schedule("day", day);
+    wheel.schedule("month", month);
+
+    assertTrue(wheel.advance(day - TICK_MS).isEmpty());
+    assertEquals(List.of("day"), wheel.advance(day));
+    assertTrue(wheel.advance(month - TICK_MS).isEmpty());
+    assertEquals(List.of("month"), wheel.advance(month));
+  }
+
+  @Test
+  void advance_ShouldFireRandomTimeoutsOnTheirTick() {
+    Random random = new Random(42);
+    TimingWheel<Integer> wheel = new TimingWheel<>(TICK_MS, START);
+    Map<Integer, Long> deadlines = new HashMap<>();
+    for (int i = 0; i < 10_000; i++) {
+      long deadline = START + (long) (random.nextDouble() * 10_000_000);
+      deadlines.put(i, deadline);
+      wheel.schedule(i, deadline);
+    }
+
+    List<Integer> fired = new ArrayList<>();
+    for (long now = START; now <= START + 10_000_000 + TICK_MS; now += 7 * TICK_MS) {
+      for (Integer value : wheel.advance(now)) {
+        long deadline = deadlines.get(value);
+        assertTrue(deadline <= now, "fired before deadline");
+        assertTrue(deadline > now - 8 * TICK_MS, "fired too late");
+        fired.add(value);
+      }
+    }
+
+    assertEquals(deadlines.size(), fired.size());
+    assertEquals(0, wheel.size());
+  }
+}
@@ -0,0 +1,67 @@
+package ru.yartsev_vladislav.link_shortener.filter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class CountingBloomFilterModuleTest {
+
+  @Test
+  void mightContain_ShouldHaveNoFalseNegatives() {
+    CountingBloomFilter filter = new CountingBloomFilter(10_000, 0.01);
+    for (int i = 0; i < 10_000; i++) {
+      filter.add("slug" + i);
+    }
+
+    for (int i = 0; i < 10_000; i++) {
+      assertTrue(filter.mightContain("slug" + i));
+    }
+    assertEquals(10_000, filter.getSize());
+  }
+
+  @Test
+  void mightContain_ShouldKeepFalsePositiveRateNearConfigured() {
+    CountingBloomFilter filter = new CountingBloomFilter(10_000, 0.01);
+    for (int i = 0; i < 10_000; i++) {
+      filter.add("slug" + i);
+    }
+
+    int falsePositives = 0;
+    for (int i = 0; i < 100_000; i++) {
+      if (filter.mightContain("missing" + i)) {
+        falsePositives++;
+      }
+    }
+
+    assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    assertEquals(0.01, filter.getExpectedFalsePositiveRate(), 0.005);
+  }
+
+  @Test
+  void remove_ShouldForgetValueAndKeepOthers() {
+    CountingBloomFilter filter = new CountingBloomFilter(1_000, 0.01);
+    filter.add("removed");
+    filter.add("kept");
+
+    filter.remove("removed");
+
+    assertFalse(filter.mightContain("removed"));
+    assertTrue(filter.mightContain("kept"));
+    assertEquals(1, filter.getSize());
+  }
+
+  @Test
+  void constructor_ShouldSizeFilterFromExpectedInsertions() {
+    CountingBloomFilter filter = new CountingBloomFilter(1_000_000, 0.01);
+
+    // ~9.6 счётчика по 4 бита на элемент при 1% ложноположительных
+    assertEquals(7, filter.getHashFunctions());
+    assertTrue(filter.getMemoryBytes() > 4_500_000 && filter.getMemoryBytes() < 5_000_000);
+  }
+
+  @Test
+  void constructor_ShouldRejectInvalidFalsePositiveRate() {
+    assertThrows(IllegalArgumentException.class, () -> new CountingBloomFilter(1_000, 0));
+    assertThrows(IllegalArgumentException.class, () -> new CountingBloomFilter(1_000, 1));
+  }
+}
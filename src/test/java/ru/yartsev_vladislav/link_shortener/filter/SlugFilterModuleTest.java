@@ -0,0 +1,107 @@
+package ru.yartsev_vladislav.link_shortener.filter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yartsev_vladislav.link_shortener.config.SlugFilterConfig;
+
+public class SlugFilterModuleTest {
+  private JdbcTemplate jdbcTemplate;
+  private SlugFilter slugFilter;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() throws Exception {
+    jdbcTemplate = mock(JdbcTemplate.class);
+    when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(2L);
+    doAnswer(
+            invocation -> {
+              RowCallbackHandler handler = invocation.getArgument(1);
+              for (String slug : List.of("slug1", "slug2")) {
+                ResultSet resultSet = mock(ResultSet.class);
+                when(resultSet.getString(1)).thenReturn(slug);
+                handler.processRow(resultSet);
+              }
+              return null;
+            })
+        .when(jdbcTemplate)
+        .query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    doAnswer(
+            invocation -> {
+              ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+              return null;
+            })
+        .when(transactionTemplate)
+        .executeWithoutResult(any());
+
+    SlugFilterConfig config = new SlugFilterConfig();
+    config.setEnabled(true);
+    slugFilter = new SlugFilter(config, jdbcTemplate, transactionTemplate);
+    slugFilter.rebuild();
+  }
+
+  @Test
+  void remove_ShouldForgetSlugsReadFromTable() {
+    slugFilter.remove("slug1", LocalDateTime.now().minusHours(1));
+
+    assertFalse(slugFilter.mightContain("slug1"));
+    assertTrue(slugFilter.mightContain("slug2"));
+    assertFalse(slugFilter.isDirty());
+  }
+
+  @Test
+  void remove_ShouldForgetSlugsAddedAfterRebuild() {
+    slugFilter.add("slug3");
+
+    slugFilter.remove("slug3", LocalDateTime.now());
+
+    assertFalse(slugFilter.mightContain("slug3"));
+    assertFalse(slugFilter.isDirty());
+  }
+
+  @Test
+  void remove_ShouldMarkFilterDirtyInsteadOfRemovingUnknownSlug() {
+    // Ссылку создал другой экземпляр после чтения таблицы, а уведомление о ней ещё не пришло
+    slugFilter.remove("slug1", LocalDateTime.now());
+
+    assertTrue(slugFilter.mightContain("slug1"));
+    assertTrue(slugFilter.isDirty());
+
+    slugFilter.rebuildIfDirty();
+
+    assertFalse(slugFilter.isDirty());
+    verify(jdbcTemplate, times(2)).queryForObject(anyString(), eq(Long.class));
+  }
+
+  @Test
+  void rebuildIfDirty_ShouldSkipUpToDateFilter() {
+    slugFilter.rebuildIfDirty();
+
+    verify(jdbcTemplate, times(1)).queryForObject(anyString(), eq(Long.class));
+  }
+
+  @Test
+  void reset_ShouldPassAllSlugsUntilRebuild() {
+    assertFalse(slugFilter.mightContain("missing"));
+
+    slugFilter.reset();
+
+    assertTrue(slugFilter.mightContain("missing"));
+    assertTrue(slugFilter.isDirty());
+    slugFilter.rebuildIfDirty();
+    assertFalse(slugFilter.mightContain("missing"));
+  }
+}
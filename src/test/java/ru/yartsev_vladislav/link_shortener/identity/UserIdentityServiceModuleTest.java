@@ -0,0 +1,93 @@
+package ru.yartsev_vladislav.link_shortener.identity;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yartsev_vladislav.link_shortener.config.UserIdentityConfig;
+import ru.yartsev_vladislav.link_shortener.entity.User;
+import ru.yartsev_vladislav.link_shortener.exception.UserDoesNotExistException;
+import ru.yartsev_vladislav.link_shortener.exception.UserIsNotIdentifiedException;
+import ru.yartsev_vladislav.link_shortener.repository.UserRepository;
+
+public class UserIdentityServiceModuleTest {
+  private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+  private UserRepository userRepository;
+  private UserIdentityService service;
+
+  @BeforeEach
+  void setUp() {
+    userRepository = mock(UserRepository.class);
+    UserIdentityConfig config = new UserIdentityConfig();
+    config.setSignedTokens(true);
+    config.setSecret(SECRET);
+    service = new UserIdentityService(config, userRepository);
+  }
+
+  @Test
+  void ensureUser_ShouldIssueTokenWithoutDatabaseInSignedMode() throws Exception {
+    User user = service.ensureUser(null);
+    String token = service.publicId(user);
+
+    assertNotNull(user.getId());
+    assertTrue(token.startsWith(user.getId() + "."));
+    assertEquals(user.getId(), service.ensureUser(token).getId());
+    assertEquals(user.getId(), service.resolveUserId(token));
+    verifyNoInteractions(userRepository);
+  }
+
+  @Test
+  void resolveUserId_ShouldRejectTamperedToken() throws Exception {
+    String token = service.publicId(service.ensureUser(null));
+    String forged = "other-user" + token.substring(token.indexOf('.'));
+
+    assertThrows(UserIsNotIdentifiedException.class, () -> service.resolveUserId(forged));
+    assertThrows(UserIsNotIdentifiedException.class, () -> service.resolveUserId(token + "x"));
+    assertThrows(UserDoesNotExistException.class, () -> service.ensureUser(forged));
+    verifyNoInteractions(userRepository);
+  }
+
+  @Test
+  void resolveUserId_ShouldRejectStrippedTokenInSignedMode() throws Exception {
+    User user = service.ensureUser(null);
+    when(userRepository.existsById(user.getId())).thenReturn(false);
+    when(userRepository.existsById("legacy")).thenReturn(true);
+
+    assertThrows(UserIsNotIdentifiedException.class, () -> service.resolveUserId(user.getId()));
+    assertEquals("legacy", service.resolveUserId("legacy"));
+  }
+
+  @Test
+  void ensureUser_ShouldCheckLegacyIdInDatabase() {
+    when(userRepository.findById("legacy")).thenReturn(Optional.empty());
+
+    assertThrows(UserDoesNotExistException.class, () -> service.ensureUser("legacy"));
+    verify(userRepository).findById("legacy");
+  }
+
+  @Test
+  void ensureUser_ShouldSaveUserWhenTokensAreDisabled() throws Exception {
+    UserIdentityService databaseService =
+        new UserIdentityService(new UserIdentityConfig(), userRepository);
+    when(userRepository.save(any(User.class))).thenReturn(new User("saved"));
+
+    User user = databaseService.ensureUser(null);
+
+    assertEquals("saved", databaseService.publicId(user));
+    verify(userRepository).save(any(User.class));
+  }
+
+  @Test
+  void constructor_ShouldRejectShortSecret() {
+    UserIdentityConfig config = new UserIdentityConfig();
+    config.setSignedTokens(true);
+    config.setSecret("short");
+
+    assertThrows(
+        IllegalArgumentException.class, () -> new UserIdentityService(config, userRepository));
+  }
+}
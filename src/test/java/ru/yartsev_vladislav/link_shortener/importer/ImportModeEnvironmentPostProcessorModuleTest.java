@@ -0,0 +1,35 @@
+package ru.yartsev_vladislav.link_shortener.importer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+public class ImportModeEnvironmentPostProcessorModuleTest {
+
+  @Test
+  void postProcessEnvironment_ShouldDisableWebServerInImportMode() {
+    StandardEnvironment environment = new StandardEnvironment();
+    environment
+        .getPropertySources()
+        .addFirst(new MapPropertySource("args", Map.of("link.import.file", "/data/links.csv")));
+
+    new ImportModeEnvironmentPostProcessor()
+        .postProcessEnvironment(environment, new SpringApplication());
+
+    assertEquals("none", environment.getProperty("spring.main.web-application-type"));
+  }
+
+  @Test
+  void postProcessEnvironment_ShouldKeepWebServerWithoutImportFile() {
+    StandardEnvironment environment = new StandardEnvironment();
+
+    new ImportModeEnvironmentPostProcessor()
+        .postProcessEnvironment(environment, new SpringApplication());
+
+    assertNull(environment.getProperty("spring.main.web-application-type"));
+  }
+}
@@ -0,0 +1,89 @@
+package ru.yartsev_vladislav.link_shortener.importer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import org.junit.jupiter.api.Test;
+
+public class ImportRecordParserModuleTest {
+  private final ImportRecordParser csvParser =
+      new ImportRecordParser(ImportRecordParser.Format.CSV, new ObjectMapper());
+  private final ImportRecordParser ndjsonParser =
+      new ImportRecordParser(ImportRecordParser.Format.NDJSON, new ObjectMapper());
+
+  @Test
+  void format_ShouldBeDetectedByExtension() {
+    assertEquals(ImportRecordParser.Format.NDJSON, ImportRecordParser.Format.of("links.ndjson"));
+    assertEquals(ImportRecordParser.Format.NDJSON, ImportRecordParser.Format.of("LINKS.JSONL"));
+    assertEquals(ImportRecordParser.Format.CSV, ImportRecordParser.Format.of("links.csv"));
+  }
+
+  @Test
+  void parseCsv_ShouldKeepCommasInsideUrl() {
+    ImportRecord record =
+        csvParser.parse("https://example.com/a?tags=x,y,z,user-1,5,2024-01-02T03:04:05");
+
+    assertEquals("https://example.com/a?tags=x,y,z", record.url());
+    assertEquals("user-1", record.ownerId());
+    assertEquals(5, record.limit());
+    assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5), record.createdAt());
+  }
+
+  @Test
+  void parseCsv_ShouldUnquoteFieldsAndTreatEmptyLimitAsUnlimited() {
+    ImportRecord record = csvParser.parse("\"https://example.com/\"\"q\"\"\",\"user-1\",,");
+
+    assertEquals("https://example.com/\"q\"", record.url());
+    assertNull(record.limit());
+    assertNotNull(record.createdAt());
+  }
+
+  @Test
+  void parseCsv_ShouldConvertOffsetToLocalTime() {
+    ImportRecord record = csvParser.parse("https://example.com,user-1,,2024-01-02T03:04:05-03:00");
+
+    LocalDateTime expected =
+        OffsetDateTime.parse("2024-01-02T03:04:05-03:00")
+            .atZoneSameInstant(ZoneId.systemDefault())
+            .toLocalDateTime();
+    assertEquals(expected, record.createdAt());
+  }
+
+  @Test
+  void parseCsv_ShouldRejectMalformedLines() {
+    assertThrows(IllegalArgumentException.class, () -> csvParser.parse("https://example.com"));
+    assertThrows(
+        IllegalArgumentException.class, () -> csvParser.parse("https://example.com,user-1,x,"));
+    assertThrows(
+        IllegalArgumentException.class, () -> csvParser.parse("https://example.com,user-1,0,"));
+    assertThrows(IllegalArgumentException.class, () -> csvParser.parse("https://example.com,,,"));
+  }
+
+  @Test
+  void isHeader_ShouldRecognizeCsvHeaderOnly() {
+    assertTrue(csvParser.isHeader("url,owner,limit,createdAt"));
+    assertFalse(ndjsonParser.isHeader("url,owner,limit,createdAt"));
+  }
+
+  @Test
+  void parseNdjson_ShouldReadFieldsByName() {
+    ImportRecord record =
+        ndjsonParser.parse(
+            "{\"owner\":\"user-1\",\"url\":\"https://example.com\",\"limit\":3,"
+                + "\"createdAt\":\"2024-01-02T03:04:05\"}");
+
+    assertEquals("https://example.com", record.url());
+    assertEquals("user-1", record.ownerId());
+    assertEquals(3, record.limit());
+    assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5), record.createdAt());
+  }
+
+  @Test
+  void parseNdjson_ShouldRejectInvalidJson() {
+    assertThrows(IllegalArgumentException.class, () -> ndjsonParser.parse("{\"url\":"));
+    assertThrows(IllegalArgumentException.class, () -> ndjsonParser.parse("[1,2]"));
+  }
+}
@@ -0,0 +1,207 @@
+package ru.yartsev_vladislav.link_shortener.importer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yartsev_vladislav.link_shortener.config.LinkConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkImportConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkPartitionConfig;
+import ru.yartsev_vladislav.link_shortener.invalidation.LinkInvalidationPublisher;
+import ru.yartsev_vladislav.link_shortener.partition.LinkPartitionManager;
+import ru.yartsev_vladislav.link_shortener.service.UrlService;
+
+public class LinkImporterModuleTest {
+  @TempDir Path directory;
+
+  // Таблица links: slug -> "владелец URL"
+  private final Map<String, String> links = new HashMap<>();
+  // Вставка ссылки с этим URL обрывается, как при потере соединения
+  private String failingUrl;
+  private LinkInvalidationPublisher publisher;
+  private LinkImporter importer;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    // INSERT ... WHERE NOT EXISTS: занятый slug пропускается без ошибки
+    when(jdbcTemplate.batchUpdate(
+            startsWith("INSERT INTO links"),
+            anyCollection(),
+            anyInt(),
+            any(ParameterizedPreparedStatementSetter.class)))
+        .thenAnswer(
+            invocation -> {
+              ParameterizedPreparedStatementSetter<Object> setter = invocation.getArgument(3);
+              for (Object item : invocation.<Collection<?>>getArgument(1)) {
+                Map<Integer, Object> parameters = new HashMap<>();
+                PreparedStatement statement = mock(PreparedStatement.class);
+                doAnswer(call -> parameters.put(call.getArgument(0), call.getArgument(1)))
+                    .when(statement)
+                    .setString(anyInt(), any());
+                setter.setValues(statement, item);
+                if (parameters.get(2).equals(failingUrl)) {
+                  throw new DataAccessResourceFailureException("connection lost");
+                }
+                links.putIfAbsent(
+                    (String) parameters.get(1), parameters.get(3) + " " + parameters.get(2));
+              }
+              return new int[0][];
+            });
+
+    NamedParameterJdbcTemplate namedParameterJdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+    doAnswer(
+            invocation -> {
+              RowCallbackHandler handler = invocation.getArgument(2);
+              for (Object slug : invocation.<Map<String, List<?>>>getArgument(1).get("slugs")) {
+                String occupant = links.get((String) slug);
+                if (occupant != null) {
+                  ResultSet resultSet = mock(ResultSet.class);
+                  when(resultSet.getString("slug")).thenReturn((String) slug);
+                  when(resultSet.getString("owner_id")).thenReturn(occupant.split(" ")[0]);
+                  when(resultSet.getString("full_url")).thenReturn(occupant.split(" ")[1]);
+                  handler.processRow(resultSet);
+                }
+              }
+              return null;
+            })
+        .when(namedParameterJdbcTemplate)
+        .query(startsWith("SELECT slug"), anyMap(), any(RowCallbackHandler.class));
+
+    TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    doAnswer(
+            invocation -> {
+              invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+              return null;
+            })
+        .when(transactionTemplate)
+        .executeWithoutResult(any());
+
+    // Кандидат slug зависит от URL и номера попытки
+    UrlService urlService = mock(UrlService.class);
+    when(urlService.canonicalizeUrl(anyString()))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+    when(urlService.generateLinkSlug(anyString(), anyString(), anyInt()))
+        .thenAnswer(invocation -> slug(invocation.getArgument(0), invocation.getArgument(2)));
+
+    LinkConfig linkConfig = new LinkConfig();
+    linkConfig.setTimeToLeave(3600);
+    LinkImportConfig linkImportConfig = new LinkImportConfig();
+    linkImportConfig.setChunkSize(2);
+    LinkPartitionConfig linkPartitionConfig = new LinkPartitionConfig();
+    linkPartitionConfig.setEnabled(false);
+    publisher = mock(LinkInvalidationPublisher.class);
+
+    importer =
+        new LinkImporter(
+            jdbcTemplate,
+            namedParameterJdbcTemplate,
+            transactionTemplate,
+            urlService,
+            linkConfig,
+            linkImportConfig,
+            linkPartitionConfig,
+            mock(LinkPartitionManager.class),
+            publisher,
+            new ObjectMapper());
+  }
+
+  @Test
+  void importFile_ShouldPublishImportedSlugsAfterEachChunk() throws Exception {
+    Path file =
+        write(
+            "https://example.com/a,user1,,",
+            "https://example.com/b,user1,,",
+            "https://example.com/c,user2,,");
+
+    ImportReport report = importer.importFile(file);
+
+    assertEquals(3, report.imported());
+    // Другие экземпляры узнают о ссылках до конца импорта, а не после перестроения фильтра
+    verify(publisher)
+        .publishAllCreated(
+            List.of(slug("https://example.com/a", 0), slug("https://example.com/b", 0)));
+    verify(publisher).publishAllCreated(List.of(slug("https://example.com/c", 0)));
+    verify(publisher, times(2)).flush();
+  }
+
+  @Test
+  void importFile_ShouldRetryWithNextSlugCandidateOnCollision() throws Exception {
+    links.put(slug("https://example.com/a", 0), "user2 https://other.example.com/a");
+    Path file = write("https://example.com/a,user1,,");
+
+    ImportReport report = importer.importFile(file);
+
+    assertEquals(1, report.imported());
+    assertEquals(0, report.failed());
+    assertEquals("user1 https://example.com/a", links.get(slug("https://example.com/a", 1)));
+    assertEquals("user2 https://other.example.com/a", links.get(slug("https://example.com/a", 0)));
+  }
+
+  @Test
+  void importFile_ShouldTreatRewrittenChunkAsImported() throws Exception {
+    Path file = write("https://example.com/a,user1,,", "https://example.com/b,user1,,");
+    importer.importFile(file);
+
+    // Повторная запись той же части (например, после сбоя до записи checkpoint)
+    ImportReport report = importer.importFile(file);
+
+    assertEquals(2, report.imported());
+    assertEquals(0, report.failed());
+    // Ссылка, уже записанная с тем же URL и владельцем, не получает второй slug
+    assertEquals(2, links.size());
+  }
+
+  @Test
+  void importFile_ShouldResumeAfterLastCommittedChunk() throws Exception {
+    Path file =
+        write(
+            "https://example.com/a,user1,,",
+            "https://example.com/b,user1,,",
+            "https://example.com/c,user1,,");
+    Path checkpointFile = directory.resolve("links.csv.checkpoint");
+    failingUrl = "https://example.com/c";
+
+    assertThrows(DataAccessResourceFailureException.class, () -> importer.importFile(file));
+    assertEquals("2", Files.readString(checkpointFile));
+
+    failingUrl = null;
+    ImportReport report = importer.importFile(file);
+
+    // Строки до checkpoint не перечитываются
+    assertEquals(1, report.read());
+    assertEquals(1, report.imported());
+    assertEquals(3, links.size());
+    assertFalse(Files.exists(checkpointFile));
+  }
+
+  private Path write(String... lines) throws Exception {
+    Path file = directory.resolve("links.csv");
+    Files.write(file, List.of(lines));
+    return file;
+  }
+
+  private static String slug(String url, int attempt) {
+    return url.substring(url.lastIndexOf('/') + 1) + attempt;
+  }
+}
@@ -0,0 +1,165 @@
+package ru.yartsev_vladislav.link_shortener.invalidation;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yartsev_vladislav.link_shortener.cache.LinkCache;
+import ru.yartsev_vladislav.link_shortener.config.DataSourceRoutingConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkCacheConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkInvalidationConfig;
+import ru.yartsev_vladislav.link_shortener.datasource.ReplicaReads;
+import ru.yartsev_vladislav.link_shortener.entity.Link;
+import ru.yartsev_vladislav.link_shortener.entity.User;
+import ru.yartsev_vladislav.link_shortener.filter.SlugFilter;
+import ru.yartsev_vladislav.link_shortener.store.SlugStore;
+
+public class LinkInvalidationListenerModuleTest {
+  private LinkInvalidationConfig config;
+  private DataSource dataSource;
+  private LinkInvalidationPublisher publisher;
+  private LinkCache linkCache;
+  private SlugStore slugStore;
+  private SlugFilter slugFilter;
+  private LinkInvalidationListener listener;
+
+  @BeforeEach
+  void setUp() {
+    config = new LinkInvalidationConfig();
+    config.setEnabled(true);
+    dataSource = mock(DataSource.class);
+    publisher = new LinkInvalidationPublisher(config, mock(JdbcTemplate.class));
+    LinkConfig linkConfig = new LinkConfig();
+    linkConfig.setTimeToLeave(3600);
+    linkCache = new LinkCache(new LinkCacheConfig(), linkConfig);
+    slugStore = mock(SlugStore.class);
+    slugFilter = mock(SlugFilter.class);
+    listener =
+        new LinkInvalidationListener(
+            config,
+            dataSource,
+            publisher,
+            linkCache,
+            slugStore,
+            new ReplicaReads(new DataSourceRoutingConfig()),
+            slugFilter);
+  }
+
+  @Test
+  void receive_ShouldEvictSlugsChangedByAnotherInstance() {
+    cache("slug1");
+    cache("slug2");
+    cache("slug3");
+
+    listener.receive("another-node\nslug1\nslug2");
+
+    assertNull(linkCache.get("slug1"));
+    assertNull(linkCache.get("slug2"));
+    assertNotNull(linkCache.get("slug3"));
+    verify(slugStore).remove("slug1");
+    verify(slugStore).remove("slug2");
+    assertEquals(2, listener.getStats().receivedSlugs);
+  }
+
+  @Test
+  void receive_ShouldAddSlugsCreatedByAnotherInstanceToFilter() {
+    cache("slug1");
+
+    listener.receive(LinkInvalidationPublisher.CREATED_PREFIX + "another-node\nslug1\nslug2");
+
+    verify(slugFilter).add("slug1");
+    verify(slugFilter).add("slug2");
+    // Уведомление о создании не сбрасывает кэш
+    assertNotNull(linkCache.get("slug1"));
+    verifyNoInteractions(slugStore);
+    assertEquals(2, listener.getStats().receivedSlugs);
+  }
+
+  @Test
+  void receive_ShouldIgnoreOwnNotifications() {
+    cache("slug1");
+
+    listener.receive(publisher.getNodeId() + "\nslug1");
+    listener.receive(LinkInvalidationPublisher.CREATED_PREFIX + publisher.getNodeId() + "\nslug2");
+
+    assertNotNull(linkCache.get("slug1"));
+    verifyNoInteractions(slugStore, slugFilter);
+    assertEquals(0, listener.getStats().receivedSlugs);
+  }
+
+  @Test
+  void poll_ShouldRebuildStoreAfterSubscribingAndFlushing() throws Exception {
+    Connection connection = mock(Connection.class);
+    Statement statement = mock(Statement.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+    when(connection.createStatement()).thenReturn(statement);
+    when(connection.unwrap(PGConnection.class)).thenReturn(mock(PGConnection.class));
+    cache("slug1");
+
+    listener.poll();
+
+    // Сначала подписка, затем сброс фильтра и перестроение хранилища, но не наоборот
+    InOrder inOrder = inOrder(statement, slugFilter, slugStore);
+    inOrder.verify(statement).execute("LISTEN " + config.getChannel());
+    inOrder.verify(slugFilter).reset();
+    inOrder.verify(slugStore).rebuild();
+    verify(slugStore, never()).clear();
+    assertNull(linkCache.get("slug1"));
+    assertEquals(1, listener.getStats().fullFlushes);
+  }
+
+  @Test
+  void poll_ShouldRetryConnectionAfterReconnectDelay() throws Exception {
+    when(dataSource.getConnection()).thenThrow(new SQLException("connection refused"));
+    config.setReconnectDelayMs(60_000);
+
+    listener.poll();
+    listener.poll();
+
+    verify(dataSource, times(1)).getConnection();
+    assertFalse(listener.getStats().listening);
+    assertEquals(0, listener.getStats().fullFlushes);
+  }
+
+  @Test
+  void poll_ShouldNotConnectWhenDisabled() {
+    config.setEnabled(false);
+
+    listener.poll();
+
+    verifyNoInteractions(dataSource);
+  }
+
+  @Test
+  void constructor_ShouldRejectInvalidChannel() {
+    config.setChannel("links; DROP TABLE links");
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            new LinkInvalidationListener(
+                config,
+                dataSource,
+                publisher,
+                linkCache,
+                slugStore,
+                new ReplicaReads(new DataSourceRoutingConfig()),
+                slugFilter));
+  }
+
+  private void cache(String slug) {
+    Link link = new Link(slug, "https://example.com/" + slug, new User("user"));
+    link.setCreatedAt(LocalDateTime.now());
+    linkCache.put(link);
+  }
+}
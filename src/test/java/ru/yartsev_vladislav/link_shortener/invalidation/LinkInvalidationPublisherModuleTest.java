@@ -0,0 +1,140 @@
+package ru.yartsev_vladislav.link_shortener.invalidation;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import ru.yartsev_vladislav.link_shortener.config.LinkInvalidationConfig;
+
+public class LinkInvalidationPublisherModuleTest {
+  private JdbcTemplate jdbcTemplate;
+  private LinkInvalidationConfig config;
+  private LinkInvalidationPublisher publisher;
+  private List<String> payloads;
+
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate = mock(JdbcTemplate.class);
+    payloads = new ArrayList<>();
+    doAnswer(
+            invocation -> {
+              payloads.add(invocation.getArgument(3));
+              return null;
+            })
+        .when(jdbcTemplate)
+        .query(anyString(), any(RowCallbackHandler.class), any(), any());
+
+    config = new LinkInvalidationConfig();
+    config.setEnabled(true);
+    publisher = new LinkInvalidationPublisher(config, jdbcTemplate);
+  }
+
+  @Test
+  void flush_ShouldCoalesceRepeatedSlugsIntoOneNotification() {
+    publisher.publish("slug1");
+    publisher.publish("slug1");
+    publisher.publishAll(List.of("slug1", "slug2"));
+
+    publisher.flush();
+
+    assertEquals(1, payloads.size());
+    List<String> lines = List.of(payloads.get(0).split("\n"));
+    assertEquals(publisher.getNodeId(), lines.get(0));
+    assertEquals(3, lines.size());
+    assertTrue(lines.containsAll(List.of("slug1", "slug2")));
+    assertEquals(2, publisher.getPublishedSlugs());
+    assertEquals(1, publisher.getNotifications());
+  }
+
+  @Test
+  void flush_ShouldSendCreatedSlugsInSeparateNotification() {
+    publisher.publish("slug1");
+    publisher.publishCreated("slug2");
+
+    publisher.flush();
+
+    assertEquals(2, payloads.size());
+    assertTrue(payloads.contains(publisher.getNodeId() + "\nslug1"));
+    assertTrue(
+        payloads.contains(
+            LinkInvalidationPublisher.CREATED_PREFIX + publisher.getNodeId() + "\nslug2"));
+  }
+
+  @Test
+  void flush_ShouldNotNotifyWithoutChanges() {
+    publisher.flush();
+
+    verifyNoInteractions(jdbcTemplate);
+  }
+
+  @Test
+  void flush_ShouldIgnoreSlugsWhenDisabled() {
+    config.setEnabled(false);
+
+    publisher.publish("slug1");
+    publisher.publishCreated("slug2");
+    publisher.flush();
+
+    verifyNoInteractions(jdbcTemplate);
+  }
+
+  @Test
+  void flush_ShouldSplitSlugsByPayloadLimit() {
+    List<String> slugs = new ArrayList<>();
+    for (int i = 0; i < 2_000; i++) {
+      slugs.add("slug" + i);
+    }
+
+    publisher.publishAll(slugs);
+    publisher.flush();
+
+    assertTrue(payloads.size() > 1);
+    int received = 0;
+    for (String payload : payloads) {
+      assertTrue(
+          payload.getBytes(StandardCharsets.UTF_8).length
+              <= LinkInvalidationPublisher.MAX_PAYLOAD_BYTES);
+      received += payload.split("\n").length - 1;
+    }
+    assertEquals(slugs.size(), received);
+  }
+
+  @Test
+  void flush_ShouldRetryFailedNotification() {
+    doThrow(new DataAccessResourceFailureException("connection lost"))
+        .doAnswer(
+            invocation -> {
+              payloads.add(invocation.getArgument(3));
+              return null;
+            })
+        .when(jdbcTemplate)
+        .query(anyString(), any(RowCallbackHandler.class), any(), any());
+
+    publisher.publish("slug1");
+    publisher.flush();
+    assertEquals(0, publisher.getNotifications());
+
+    publisher.flush();
+
+    assertEquals(1, payloads.size());
+    assertEquals(publisher.getNodeId() + "\nslug1", payloads.get(0));
+  }
+
+  @Test
+  void chunks_ShouldKeepLongSlugInOwnChunk() {
+    String longSlug = "s".repeat(LinkInvalidationPublisher.MAX_PAYLOAD_BYTES);
+
+    List<List<String>> chunks =
+        LinkInvalidationPublisher.chunks("node", List.of("a", longSlug, "b"));
+
+    assertEquals(List.of(List.of("a"), List.of(longSlug), List.of("b")), chunks);
+  }
+}
@@ -0,0 +1,140 @@
+package ru.yartsev_vladislav.link_shortener.metrics;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yartsev_vladislav.link_shortener.admission.AdmissionLimiter;
+import ru.yartsev_vladislav.link_shortener.analytics.ClickAnalytics;
+import ru.yartsev_vladislav.link_shortener.cache.LinkCache;
+import ru.yartsev_vladislav.link_shortener.config.DataSourceRoutingConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkCacheConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkConfig;
+import ru.yartsev_vladislav.link_shortener.datasource.ReplicaReads;
+import ru.yartsev_vladislav.link_shortener.filter.SlugFilter;
+import ru.yartsev_vladislav.link_shortener.invalidation.LinkInvalidationListener;
+import ru.yartsev_vladislav.link_shortener.model.AdmissionStatsResult;
+import ru.yartsev_vladislav.link_shortener.model.BatchCreateLinkResult;
+import ru.yartsev_vladislav.link_shortener.model.CleanupStatsResult;
+import ru.yartsev_vladislav.link_shortener.model.InvalidationStatsResult;
+import ru.yartsev_vladislav.link_shortener.model.RedirectResolution;
+import ru.yartsev_vladislav.link_shortener.model.SlugFilterStatsResult;
+import ru.yartsev_vladislav.link_shortener.service.LinkCleaner;
+import ru.yartsev_vladislav.link_shortener.store.SlugStore;
+
+public class LinkMetricsModuleTest {
+  private SimpleMeterRegistry meterRegistry;
+  private LinkCleaner linkCleaner;
+  private SlugFilter slugFilter;
+  private LinkInvalidationListener linkInvalidationListener;
+  private AdmissionLimiter admissionLimiter;
+  private LinkMetrics linkMetrics;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    LinkConfig linkConfig = mock(LinkConfig.class);
+    when(linkConfig.getTimeToLeave()).thenReturn(3600L);
+    linkCleaner = mock(LinkCleaner.class);
+    slugFilter = mock(SlugFilter.class);
+    linkInvalidationListener = mock(LinkInvalidationListener.class);
+    admissionLimiter = mock(AdmissionLimiter.class);
+    linkMetrics =
+        new LinkMetrics(
+            meterRegistry,
+            new LinkCache(new LinkCacheConfig(), linkConfig),
+            linkCleaner,
+            slugFilter,
+            mock(SlugStore.class),
+            mock(ClickAnalytics.class),
+            new ReplicaReads(new DataSourceRoutingConfig()),
+            linkInvalidationListener,
+            admissionLimiter);
+  }
+
+  @Test
+  void recordRedirect_ShouldCountEachOutcome() {
+    linkMetrics.recordRedirect(new RedirectResolution.Found("https://example.com", false, 0));
+    linkMetrics.recordRedirect(RedirectResolution.NOT_FOUND);
+    linkMetrics.recordRedirect(RedirectResolution.NOT_FOUND);
+    linkMetrics.recordRedirect(RedirectResolution.EXPIRED);
+    linkMetrics.recordRedirect(RedirectResolution.LIMIT_EXCEEDED);
+
+    assertEquals(1, redirects("found"));
+    assertEquals(2, redirects("not_found"));
+    assertEquals(1, redirects("expired"));
+    assertEquals(1, redirects("limit_exceeded"));
+  }
+
+  @Test
+  void recordBatch_ShouldCountCreatedAndConflictingLinks() {
+    linkMetrics.recordCreated();
+    linkMetrics.recordBatch(
+        List.of(
+            new BatchCreateLinkResult(0, 200, "http://short/a", null),
+            new BatchCreateLinkResult(1, 409, null, "conflict"),
+            new BatchCreateLinkResult(2, 400, null, "bad url")));
+
+    assertEquals(1, meterRegistry.get("link.created").tag("source", "single").counter().count());
+    assertEquals(1, meterRegistry.get("link.created").tag("source", "batch").counter().count());
+    assertEquals(1, meterRegistry.get("link.conflicts").tag("source", "batch").counter().count());
+  }
+
+  @Test
+  void constructor_ShouldPublishCleanupAndFilterStats() {
+    when(linkCleaner.getStats())
+        .thenReturn(new CleanupStatsResult(42, LocalDateTime.now(), 2, 1, 150, 10, 30));
+    when(slugFilter.getStats())
+        .thenReturn(new SlugFilterStatsResult(true, true, 5, 100, 64, 7, 0.01, 10, 3, null, 0));
+
+    assertEquals(42, meterRegistry.get("link.cleanup.deleted").functionCounter().count());
+    assertEquals(
+        150, meterRegistry.get("link.cleanup.last.duration").timeGauge().value(MILLISECONDS));
+    assertEquals(3, meterRegistry.get("link.slug.filter.rejections").functionCounter().count());
+  }
+
+  @Test
+  void constructor_ShouldPublishInvalidationStats() {
+    when(linkInvalidationListener.getStats())
+        .thenReturn(new InvalidationStatsResult(true, true, 12, 3, 7, 1, 2));
+
+    assertEquals(12, invalidatedSlugs("published"));
+    assertEquals(7, invalidatedSlugs("received"));
+    assertEquals(2, meterRegistry.get("link.invalidation.full.flushes").functionCounter().count());
+  }
+
+  @Test
+  void constructor_ShouldPublishAdmissionStats() {
+    when(admissionLimiter.getStats()).thenReturn(new AdmissionStatsResult(true, 40, 12, 900, 3, 8));
+
+    assertEquals(40, meterRegistry.get("link.admission.limit").gauge().value());
+    assertEquals(12, meterRegistry.get("link.admission.in.flight").gauge().value());
+    assertEquals(3, rejected("redirect"));
+    assertEquals(8, rejected("create"));
+  }
+
+  private double rejected(String priority) {
+    return meterRegistry
+        .get("link.admission.rejected")
+        .tag("priority", priority)
+        .functionCounter()
+        .count();
+  }
+
+  private double invalidatedSlugs(String direction) {
+    return meterRegistry
+        .get("link.invalidation.slugs")
+        .tag("direction", direction)
+        .functionCounter()
+        .count();
+  }
+
+  private double redirects(String outcome) {
+    return meterRegistry.get("link.redirects").tag("outcome", outcome).counter().count();
+  }
+}
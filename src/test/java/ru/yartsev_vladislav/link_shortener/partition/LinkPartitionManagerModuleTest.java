@@ -0,0 +1,134 @@
+package ru.yartsev_vladislav.link_shortener.partition;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yartsev_vladislav.link_shortener.config.LinkPartitionConfig;
+import ru.yartsev_vladislav.link_shortener.partition.LinkPartitionManager.Partition;
+
+public class LinkPartitionManagerModuleTest {
+  private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 17, 12, 30);
+
+  @Test
+  void plan_ShouldCreateHourlyPartitionsFromCurrentHour() {
+    List<Partition> planned = LinkPartitionManager.plan(List.of(), NOW, 1, 3);
+
+    assertEquals(4, planned.size());
+    assertEquals("links_p20261017_1200", planned.get(0).name());
+    assertEquals(LocalDateTime.of(2026, 10, 17, 12, 0), planned.get(0).from());
+    assertEquals(LocalDateTime.of(2026, 10, 17, 13, 0), planned.get(0).to());
+    assertEquals(LocalDateTime.of(2026, 10, 17, 16, 0), planned.get(3).to());
+  }
+
+  @Test
+  void plan_ShouldContinueFromLastPartitionAndAlignToInterval() {
+    // Первая секция после миграции заканчивается не на границе суток
+    Partition initial =
+        new Partition("links_p_initial", null, LocalDateTime.of(2026, 10, 17, 13, 0), false);
+
+    List<Partition> planned = LinkPartitionManager.plan(List.of(initial), NOW, 24, 24);
+
+    assertEquals(2, planned.size());
+    assertEquals(LocalDateTime.of(2026, 10, 17, 13, 0), planned.get(0).from());
+    assertEquals(LocalDateTime.of(2026, 10, 18, 0, 0), planned.get(0).to());
+    assertEquals(LocalDateTime.of(2026, 10, 19, 0, 0), planned.get(1).to());
+  }
+
+  @Test
+  void plan_ShouldNotCreatePartitionsAlreadyCreatedAhead() {
+    Partition ahead =
+        new Partition(
+            "links_p20261018_1200",
+            LocalDateTime.of(2026, 10, 18, 12, 0),
+            LocalDateTime.of(2026, 10, 18, 13, 0),
+            false);
+
+    assertTrue(LinkPartitionManager.plan(List.of(ahead), NOW, 1, 24).isEmpty());
+  }
+
+  @Test
+  void parse_ShouldReadRangeBounds() {
+    Partition partition =
+        LinkPartitionManager.parse(
+            "links_p_initial", "FOR VALUES FROM (MINVALUE) TO ('2026-10-17 13:00:00')", true);
+
+    assertNull(partition.from());
+    assertEquals(LocalDateTime.of(2026, 10, 17, 13, 0), partition.to());
+    assertTrue(partition.detachPending());
+  }
+
+  @Test
+  void parse_ShouldSkipDefaultPartition() {
+    assertNull(LinkPartitionManager.parse("links_default", "DEFAULT", false));
+  }
+
+  @Test
+  void createPartitionsAhead_ShouldDoNothingWhenDisabled() {
+    LinkPartitionConfig config = new LinkPartitionConfig();
+    config.setEnabled(false);
+    JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    new LinkPartitionManager(config, jdbcTemplate, mock(TransactionTemplate.class))
+        .createPartitionsAhead();
+
+    verifyNoInteractions(jdbcTemplate);
+  }
+
+  @Test
+  void markBulkInsert_ShouldSetTransactionFlagForTrigger() {
+    LinkPartitionConfig config = new LinkPartitionConfig();
+    JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    new LinkPartitionManager(config, jdbcTemplate, mock(TransactionTemplate.class))
+        .markBulkInsert();
+
+    verify(jdbcTemplate)
+        .queryForObject(contains("set_config('links.bulk_insert', 'on', true)"), eq(String.class));
+  }
+
+  @Test
+  void markBulkInsert_ShouldDoNothingWithoutPartitions() {
+    LinkPartitionConfig config = new LinkPartitionConfig();
+    config.setEnabled(false);
+    JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    new LinkPartitionManager(config, jdbcTemplate, mock(TransactionTemplate.class))
+        .markBulkInsert();
+
+    verifyNoInteractions(jdbcTemplate);
+  }
+
+  @Test
+  void verifyPartitioning_ShouldFailWhenDisabledForPartitionedTable() {
+    LinkPartitionConfig config = new LinkPartitionConfig();
+    config.setEnabled(false);
+    JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("PostgreSQL");
+    when(jdbcTemplate.queryForObject(contains("pg_partitioned_table"), eq(Boolean.class)))
+        .thenReturn(true);
+    LinkPartitionManager manager =
+        new LinkPartitionManager(config, jdbcTemplate, mock(TransactionTemplate.class));
+
+    assertThrows(IllegalStateException.class, manager::verifyPartitioning);
+  }
+
+  @Test
+  void verifyPartitioning_ShouldAllowDisabledForOtherDatabases() {
+    LinkPartitionConfig config = new LinkPartitionConfig();
+    config.setEnabled(false);
+    JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+    LinkPartitionManager manager =
+        new LinkPartitionManager(config, jdbcTemplate, mock(TransactionTemplate.class));
+
+    assertDoesNotThrow(manager::verifyPartitioning);
+    verify(jdbcTemplate, never()).queryForObject(anyString(), eq(Boolean.class));
+  }
+}
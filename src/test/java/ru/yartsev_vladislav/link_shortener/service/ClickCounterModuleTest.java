@@ -0,0 +1,71 @@
+package ru.yartsev_vladislav.link_shortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class ClickCounterModuleTest {
+
+  private JdbcTemplate jdbcTemplate;
+  private ClickCounter clickCounter;
+
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate = mock(JdbcTemplate.class);
+    clickCounter = new ClickCounter(jdbcTemplate);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void flush_ShouldWriteAccumulatedAttemptsInOneBatch() {
+    clickCounter.increment("slug1");
+    clickCounter.increment("slug1");
+    clickCounter.increment("slug2");
+
+    clickCounter.flush();
+
+    ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+    verify(jdbcTemplate, times(1)).batchUpdate(anyString(), batch.capture());
+    assertEquals(2, batch.getValue().size());
+    for (Object[] args : batch.getValue()) {
+      assertEquals(args[1].equals("slug1") ? 2L : 1L, args[0]);
+    }
+    assertEquals(0, clickCounter.getPending("slug1"));
+  }
+
+  @Test
+  void flush_ShouldDoNothingWithoutAttempts() {
+    clickCounter.flush();
+
+    verifyNoInteractions(jdbcTemplate);
+  }
+
+  @Test
+  void flush_ShouldKeepAttemptsIfDatabaseFails() {
+    when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+        .thenThrow(new DataAccessResourceFailureException("db is down"));
+    clickCounter.increment("slug");
+
+    assertThrows(DataAccessResourceFailureException.class, () -> clickCounter.flush());
+
+    assertEquals(1, clickCounter.getPending("slug"));
+  }
+
+  @Test
+  void drain_ShouldRemovePendingAttempts() {
+    clickCounter.increment("slug");
+    clickCounter.increment("slug");
+
+    assertEquals(2, clickCounter.drain("slug"));
+    assertEquals(0, clickCounter.getPending("slug"));
+
+    clickCounter.flush();
+    verifyNoInteractions(jdbcTemplate);
+  }
+}
@@ -0,0 +1,57 @@
+package ru.yartsev_vladislav.link_shortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+public class HashSlugGeneratorModuleTest {
+
+  private final HashSlugGenerator slugGenerator = new HashSlugGenerator();
+
+  @Test
+  void generate_ShouldReturnSlugOfFixedLength() {
+    for (int i = 0; i < 1000; i++) {
+      String slug = slugGenerator.generate("https://example.com/" + i, "salt", 0);
+
+      assertEquals(HashSlugGenerator.SLUG_LENGTH, slug.length());
+      assertTrue(slug.chars().allMatch(Character::isLetterOrDigit));
+    }
+  }
+
+  @Test
+  void generate_ShouldNotMixUpUrlAndSaltBoundary() {
+    assertNotEquals(slugGenerator.generate("ab", "c", 0), slugGenerator.generate("a", "bc", 0));
+  }
+
+  @Test
+  void generate_ShouldKeepCollisionRateAtBirthdayBound() {
+    int count = 1_000_000;
+    // Хэши сравниваются по модулю 62^6, а не 62^8: на миллионе строк в полном пространстве slug
+    // коллизий почти не ожидается, и тест ничего бы не проверял
+    double slugSpace = Math.pow(62, 6);
+
+    long[] slugs = new long[count];
+    for (int i = 0; i < count; i++) {
+      slugs[i] =
+          Long.remainderUnsigned(
+              HashSlugGenerator.hash(
+                  "https://example.com/page/" + i, "f19b92f3-8a3e-4c63-9b77-1e9c50450fa1", 0),
+              (long) slugSpace);
+    }
+    Arrays.sort(slugs);
+
+    int collisions = 0;
+    for (int i = 1; i < count; i++) {
+      if (slugs[i] == slugs[i - 1]) {
+        collisions++;
+      }
+    }
+
+    // Для идеального хэша ожидается n^2 / 2N ~ 8.8 коллизии
+    double expected = (double) count * (count - 1) / 2 / slugSpace;
+    assertTrue(
+        collisions <= expected * 2 + 5,
+        String.format("%d collisions, expected about %.2f", collisions, expected));
+  }
+}
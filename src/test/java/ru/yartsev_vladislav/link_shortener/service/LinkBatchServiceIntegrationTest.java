@@ -0,0 +1,82 @@
+package ru.yartsev_vladislav.link_shortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import ru.yartsev_vladislav.link_shortener.entity.User;
+import ru.yartsev_vladislav.link_shortener.model.BatchCreateLinkResult;
+import ru.yartsev_vladislav.link_shortener.model.CreateLinkOptions;
+import ru.yartsev_vladislav.link_shortener.repository.LinkRepository;
+import ru.yartsev_vladislav.link_shortener.repository.UserRepository;
+
+@SpringBootTest
+class LinkBatchServiceIntegrationTest {
+
+  @Autowired private LinkBatchService linkBatchService;
+
+  @Autowired private UserRepository userRepository;
+
+  @MockitoSpyBean private LinkRepository linkRepository;
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) {
+    // Отдельная БД: контекст с подписанными токенами живёт рядом с контекстом других тестов
+    registry.add("spring.datasource.url", () -> "jdbc:h2:mem:batchdb;DB_CLOSE_DELAY=-1");
+    registry.add("spring.datasource.username", () -> "sa");
+    registry.add("spring.datasource.password", () -> "");
+    registry.add("spring.datasource.driver-class-name", () -> "org.h2.Driver");
+    registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+    // Таблицы аналитики без сущностей создаются скриптом после схемы Hibernate
+    registry.add("spring.sql.init.mode", () -> "always");
+    registry.add("spring.sql.init.schema-locations", () -> "classpath:click-analytics-schema.sql");
+    registry.add("spring.jpa.defer-datasource-initialization", () -> "true");
+    registry.add("spring.flyway.enabled", () -> "false");
+    registry.add("link.partition.enabled", () -> "false");
+    registry.add("user.identity.signed-tokens", () -> "true");
+    registry.add("user.identity.secret", () -> "0123456789abcdef0123456789abcdef");
+  }
+
+  @BeforeEach
+  void setUp() {
+    linkRepository.deleteAll();
+  }
+
+  @Test
+  void createLinks_ShouldFallBackToSingleInsertsForTokenOwner() throws Exception {
+    // Владелец с токеном: строки в users у него нет
+    User owner = linkBatchService.resolveOwner(null);
+    // Параллельный запрос будто бы занял один из slug, и пакетная вставка откатилась
+    doThrow(new DuplicateKeyException("slug race")).when(linkRepository).saveAll(any());
+
+    List<BatchCreateLinkResult> results = new ArrayList<>();
+    linkBatchService.createLinks(
+        List.of(options("https://example.com/a"), options("https://example.com/b")).iterator(),
+        owner,
+        results::addAll);
+
+    assertEquals(2, results.size());
+    for (BatchCreateLinkResult result : results) {
+      assertEquals(200, result.status, result.error);
+      assertNotNull(result.shortUrl);
+    }
+    assertEquals(2, linkRepository.count());
+    assertEquals(0, userRepository.count());
+  }
+
+  private static CreateLinkOptions options(String url) {
+    CreateLinkOptions options = new CreateLinkOptions();
+    options.url = url;
+    return options;
+  }
+}
@@ -0,0 +1,205 @@
+package ru.yartsev_vladislav.link_shortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yartsev_vladislav.link_shortener.analytics.ClickAnalytics;
+import ru.yartsev_vladislav.link_shortener.cache.LinkCache;
+import ru.yartsev_vladislav.link_shortener.config.DataSourceRoutingConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkCacheConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkCleanupConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkConfig;
+import ru.yartsev_vladislav.link_shortener.datasource.ReplicaReads;
+import ru.yartsev_vladislav.link_shortener.entity.Link;
+import ru.yartsev_vladislav.link_shortener.entity.User;
+import ru.yartsev_vladislav.link_shortener.expiry.LinkExpiryIndex;
+import ru.yartsev_vladislav.link_shortener.expiry.LinksExpiredEvent;
+import ru.yartsev_vladislav.link_shortener.filter.SlugFilter;
+import ru.yartsev_vladislav.link_shortener.invalidation.LinkInvalidationPublisher;
+import ru.yartsev_vladislav.link_shortener.model.CleanupStatsResult;
+import ru.yartsev_vladislav.link_shortener.partition.LinkPartitionManager;
+import ru.yartsev_vladislav.link_shortener.store.SlugStore;
+
+public class LinkCleanerModuleTest {
+
+  private JdbcTemplate jdbcTemplate;
+  private LinkCache linkCache;
+  private ClickCounter clickCounter;
+  private LinkExpiryIndex linkExpiryIndex;
+  private SlugFilter slugFilter;
+  private SlugStore slugStore;
+  private LinkInvalidationPublisher linkInvalidationPublisher;
+  private LinkPartitionManager linkPartitionManager;
+  private ClickAnalytics clickAnalytics;
+  private LinkCleaner linkCleaner;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    jdbcTemplate = mock(JdbcTemplate.class);
+    TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    when(transactionTemplate.execute(any()))
+        .thenAnswer(
+            invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+
+    LinkConfig linkConfig = new LinkConfig();
+    linkConfig.setTimeToLeave(3600);
+    LinkCleanupConfig linkCleanupConfig = new LinkCleanupConfig();
+    linkCleanupConfig.setChunkSize(2);
+    linkCleanupConfig.setPauseMs(0);
+
+    linkCache = new LinkCache(new LinkCacheConfig(), linkConfig);
+    clickCounter = new ClickCounter(mock(JdbcTemplate.class));
+    linkExpiryIndex = mock(LinkExpiryIndex.class);
+    slugFilter = mock(SlugFilter.class);
+    slugStore = mock(SlugStore.class);
+    linkInvalidationPublisher = mock(LinkInvalidationPublisher.class);
+    linkPartitionManager = mock(LinkPartitionManager.class);
+    clickAnalytics = mock(ClickAnalytics.class);
+    linkCleaner =
+        new LinkCleaner(
+            jdbcTemplate,
+            transactionTemplate,
+            linkConfig,
+            linkCleanupConfig,
+            new LinkEvictions(
+                new ReplicaReads(new DataSourceRoutingConfig()),
+                linkCache,
+                clickCounter,
+                linkExpiryIndex,
+                slugFilter,
+                slugStore,
+                linkInvalidationPublisher,
+                clickAnalytics),
+            linkPartitionManager);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void cleanupExpiredLinks_ShouldDeleteInChunksUntilChunkIsNotFull() {
+    when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(), any()))
+        .thenReturn(List.of("slug1", "slug2"), List.of("slug3"));
+
+    linkCleaner.cleanupExpiredLinks();
+
+    verify(jdbcTemplate, times(2)).queryForList(anyString(), eq(String.class), any(), any());
+    verify(jdbcTemplate, times(2))
+        .batchUpdate(
+            anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    CleanupStatsResult stats = linkCleaner.getStats();
+    assertEquals(3, stats.lastRunDeleted);
+    assertEquals(2, stats.lastRunChunks);
+    assertEquals(3, stats.totalDeleted);
+    assertNotNull(stats.lastRunAt);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void cleanupExpiredLinks_ShouldNotDeleteWhenNothingExpired() {
+    when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(), any()))
+        .thenReturn(List.of());
+
+    linkCleaner.cleanupExpiredLinks();
+
+    verify(jdbcTemplate, never())
+        .batchUpdate(
+            anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    assertEquals(0, linkCleaner.getStats().lastRunDeleted);
+    assertEquals(1, linkCleaner.getStats().lastRunChunks);
+  }
+
+  @Test
+  void cleanupExpiredLinks_ShouldForgetDeletedLinks() {
+    Link link = new Link("slug1", "https://example.com", new User("user"));
+    link.setCreatedAt(LocalDateTime.now());
+    linkCache.put(link);
+    clickCounter.increment("slug1");
+    when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(), any()))
+        .thenReturn(List.of("slug1"));
+
+    linkCleaner.cleanupExpiredLinks();
+
+    assertNull(linkCache.get("slug1"));
+    assertEquals(0, clickCounter.getPending("slug1"));
+    verify(linkExpiryIndex).forget("slug1");
+    verify(slugFilter).remove(eq("slug1"), any());
+    verify(linkInvalidationPublisher).publishAll(List.of("slug1"));
+    verify(clickAnalytics).forget(List.of("slug1"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void onLinksExpired_ShouldRemoveOnlyDeletedSlugsFromFilter() {
+    when(jdbcTemplate.batchUpdate(
+            anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+        .thenReturn(new int[][] {{1, 0}});
+
+    // Slug "reused" уже занят новой ссылкой, и условный DELETE его не удалил
+    linkCleaner.onLinksExpired(
+        new LinksExpiredEvent(List.of("expired", "reused"), LocalDateTime.now()));
+
+    verify(slugFilter).remove(eq("expired"), any());
+    verify(slugFilter, never()).remove(eq("reused"), any());
+    verify(slugStore).remove("expired");
+    verify(slugStore, never()).remove("reused");
+    verify(linkInvalidationPublisher).publishAll(List.of("expired"));
+    verify(clickAnalytics).forget(List.of("expired"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void cleanupExpiredLinks_ShouldDropExpiredPartitionsInsteadOfDeletingRows() {
+    when(linkPartitionManager.isEnabled()).thenReturn(true);
+    when(linkPartitionManager.detachExpiredPartitions(any()))
+        .thenReturn(List.of("links_p20261016_1200"));
+    when(linkPartitionManager.dropPartition(eq("links_p20261016_1200"), eq(2), any()))
+        .thenAnswer(
+            invocation -> {
+              Consumer<List<String>> onSlugs = invocation.getArgument(2);
+              onSlugs.accept(List.of("slug1", "slug2"));
+              onSlugs.accept(List.of("slug3"));
+              return 3L;
+            });
+
+    linkCleaner.cleanupExpiredLinks();
+
+    verify(jdbcTemplate, never()).queryForList(anyString(), eq(String.class), any(), any());
+    verify(slugFilter).remove(eq("slug1"), any());
+    verify(slugStore).remove("slug3");
+    verify(linkInvalidationPublisher).publishAll(List.of("slug3"));
+    verify(clickAnalytics).forget(List.of("slug1", "slug2"));
+    CleanupStatsResult stats = linkCleaner.getStats();
+    assertEquals(3, stats.lastRunDeleted);
+    assertEquals(1, stats.lastRunChunks);
+  }
+
+  @Test
+  void onLinksExpired_ShouldNotDeleteRowsOfPartitionedTable() {
+    when(linkPartitionManager.isEnabled()).thenReturn(true);
+    Link link = new Link("expired", "https://example.com", new User("user"));
+    link.setCreatedAt(LocalDateTime.now());
+    linkCache.put(link);
+
+    linkCleaner.onLinksExpired(new LinksExpiredEvent(List.of("expired"), LocalDateTime.now()));
+
+    assertNull(linkCache.get("expired"));
+    verify(linkExpiryIndex).forget("expired");
+    verify(slugStore).remove("expired");
+    verify(linkInvalidationPublisher).publishAll(List.of("expired"));
+    verifyNoInteractions(jdbcTemplate);
+    // Slug остаётся в фильтре до удаления секции, иначе счётчики уменьшатся дважды
+    verify(slugFilter, never()).remove(eq("expired"), any());
+    verifyNoInteractions(clickAnalytics);
+  }
+}
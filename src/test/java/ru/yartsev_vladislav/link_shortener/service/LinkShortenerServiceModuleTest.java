@@ -3,19 +3,40 @@ package ru.yartsev_vladislav.link_shortener.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yartsev_vladislav.link_shortener.analytics.ClickAnalytics;
+import ru.yartsev_vladislav.link_shortener.cache.CachedLink;
+import ru.yartsev_vladislav.link_shortener.cache.LinkCache;
+import ru.yartsev_vladislav.link_shortener.config.DataSourceRoutingConfig;
+import ru.yartsev_vladislav.link_shortener.config.LinkCacheConfig;
 import ru.yartsev_vladislav.link_shortener.config.LinkConfig;
+import ru.yartsev_vladislav.link_shortener.config.UserIdentityConfig;
+import ru.yartsev_vladislav.link_shortener.datasource.ReplicaReads;
 import ru.yartsev_vladislav.link_shortener.entity.Link;
 import ru.yartsev_vladislav.link_shortener.entity.User;
 import ru.yartsev_vladislav.link_shortener.exception.*;
+import ru.yartsev_vladislav.link_shortener.expiry.LinkExpiryIndex;
+import ru.yartsev_vladislav.link_shortener.filter.SlugFilter;
+import ru.yartsev_vladislav.link_shortener.identity.UserIdentityService;
+import ru.yartsev_vladislav.link_shortener.invalidation.LinkInvalidationPublisher;
 import ru.yartsev_vladislav.link_shortener.model.CreateLinkOptions;
 import ru.yartsev_vladislav.link_shortener.model.CreateLinkResult;
 import ru.yartsev_vladislav.link_shortener.model.EditLinkOptions;
+import ru.yartsev_vladislav.link_shortener.model.RedirectResolution;
+import ru.yartsev_vladislav.link_shortener.repository.LinkRedirectView;
 import ru.yartsev_vladislav.link_shortener.repository.LinkRepository;
 import ru.yartsev_vladislav.link_shortener.repository.UserRepository;
+import ru.yartsev_vladislav.link_shortener.store.SlugStore;
+import ru.yartsev_vladislav.link_shortener.store.StoredLink;
 
 public class LinkShortenerServiceModuleTest {
 
@@ -23,6 +44,15 @@ public class LinkShortenerServiceModuleTest {
   private UserRepository userRepository;
   private UrlService urlService;
   private LinkConfig linkConfig;
+  private LinkCache linkCache;
+  private ClickCounter clickCounter;
+  private LinkExpiryIndex linkExpiryIndex;
+  private SlugFilter slugFilter;
+  private SlugStore slugStore;
+  private LinkInvalidationPublisher linkInvalidationPublisher;
+  private ClickAnalytics clickAnalytics;
+  private ReplicaReads replicaReads;
+  private LinkEvictions linkEvictions;
   private LinkShortenerService service;
 
   @BeforeEach
@@ -33,8 +63,56 @@ public class LinkShortenerServiceModuleTest {
     linkConfig = mock(LinkConfig.class);
 
     when(linkConfig.getTimeToLeave()).thenReturn(3600L); // 1 hour TTL
-
-    service = new LinkShortenerService(userRepository, linkRepository, urlService, linkConfig);
+    when(urlService.canonicalizeUrl(anyString()))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+    // Проекция для перехода строится из той же ссылки, что возвращает findById
+    when(linkRepository.findRedirectViewBySlug(anyString()))
+        .thenAnswer(
+            invocation ->
+                linkRepository
+                    .findById(invocation.getArgument(0))
+                    .map(
+                        link ->
+                            new LinkRedirectView(
+                                link.getSlug(),
+                                link.getFullUrl(),
+                                link.getAttempts(),
+                                link.getAttemptsLimit(),
+                                link.getCreatedAt())));
+    linkCache = new LinkCache(new LinkCacheConfig(), linkConfig);
+    clickCounter = new ClickCounter(mock(JdbcTemplate.class));
+    linkExpiryIndex = mock(LinkExpiryIndex.class);
+    slugFilter = mock(SlugFilter.class);
+    when(slugFilter.mightContain(anyString())).thenReturn(true);
+    slugStore = mock(SlugStore.class);
+    linkInvalidationPublisher = mock(LinkInvalidationPublisher.class);
+    clickAnalytics = mock(ClickAnalytics.class);
+    replicaReads = new ReplicaReads(new DataSourceRoutingConfig());
+    linkEvictions =
+        new LinkEvictions(
+            replicaReads,
+            linkCache,
+            clickCounter,
+            linkExpiryIndex,
+            slugFilter,
+            slugStore,
+            linkInvalidationPublisher,
+            clickAnalytics);
+
+    service =
+        new LinkShortenerService(
+            new UserIdentityService(new UserIdentityConfig(), userRepository),
+            linkRepository,
+            urlService,
+            linkConfig,
+            linkCache,
+            clickCounter,
+            linkExpiryIndex,
+            slugFilter,
+            slugStore,
+            replicaReads,
+            linkInvalidationPublisher,
+            linkEvictions);
   }
 
   @Test
@@ -44,7 +122,7 @@ public class LinkShortenerServiceModuleTest {
     user.setId(userId);
 
     when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-    when(urlService.generateLinkSlug(anyString(), anyString())).thenReturn("slug1234");
+    when(urlService.generateLinkSlug(anyString(), anyString(), anyInt())).thenReturn("slug1234");
     when(urlService.generateShortUrl("slug1234")).thenReturn("http://short.url/slug1234");
 
     CreateLinkOptions options = new CreateLinkOptions();
@@ -65,6 +143,58 @@ public class LinkShortenerServiceModuleTest {
     assertEquals(userId, result.userId);
     assertEquals("http://short.url/slug1234", result.shortUrl);
     verify(linkRepository, times(1)).save(any(Link.class));
+    verify(slugFilter).add("slug1234");
+    // Другие экземпляры добавят slug в свои фильтры и не ответят на переход 404
+    verify(linkInvalidationPublisher).publishCreated("slug1234");
+  }
+
+  @Test
+  void createLink_ShouldRetryWithNextSlugOnUniqueViolation() throws Exception {
+    User user = new User();
+    user.setId("user1");
+    when(userRepository.findById("user1")).thenReturn(Optional.of(user));
+    when(urlService.generateLinkSlug(anyString(), anyString(), eq(0))).thenReturn("slug0000");
+    when(urlService.generateLinkSlug(anyString(), anyString(), eq(1))).thenReturn("slug0001");
+    when(linkRepository.findByFullUrlAndOwnerIdAndCreatedAtGreaterThanEqual(
+            anyString(), anyString(), any()))
+        .thenReturn(Optional.empty());
+    Link savedLink = new Link("slug0001", "https://example.com", user);
+    savedLink.setCreatedAt(LocalDateTime.now());
+    when(linkRepository.save(any(Link.class)))
+        .thenThrow(new DuplicateKeyException("slug0000"))
+        .thenReturn(savedLink);
+
+    CreateLinkOptions options = new CreateLinkOptions();
+    options.url = "https://example.com";
+    service.createLink(options, "user1");
+
+    verify(linkRepository, times(2)).save(any(Link.class));
+    verify(slugFilter).add("slug0001");
+  }
+
+  @Test
+  void createLink_ShouldRethrowOtherIntegrityViolations() {
+    User user = new User();
+    user.setId("user1");
+    when(userRepository.findById("user1")).thenReturn(Optional.of(user));
+    when(urlService.generateLinkSlug(anyString(), anyString(), anyInt())).thenReturn("slug0000");
+    when(linkRepository.findByFullUrlAndOwnerIdAndCreatedAtGreaterThanEqual(
+            anyString(), anyString(), any()))
+        .thenReturn(Optional.empty());
+    // Например, NOT NULL: другой slug эту ошибку не исправит
+    DataIntegrityViolationException notNull =
+        new DataIntegrityViolationException(
+            "not null", new SQLException("NULL not allowed", "23502"));
+    when(linkRepository.save(any(Link.class))).thenThrow(notNull);
+
+    CreateLinkOptions options = new CreateLinkOptions();
+    options.url = "https://example.com";
+
+    DataIntegrityViolationException thrown =
+        assertThrows(
+            DataIntegrityViolationException.class, () -> service.createLink(options, "user1"));
+    assertSame(notNull, thrown);
+    verify(linkRepository, times(1)).save(any(Link.class));
   }
 
   @Test
@@ -87,6 +217,58 @@ public class LinkShortenerServiceModuleTest {
         NotExpiredLinkAlreadyExistsException.class, () -> service.createLink(options, userId));
   }
 
+  @Test
+  void createLink_ShouldProbeNextSlugIfTakenByAnotherLink() throws Exception {
+    String userId = "user1";
+    User user = new User();
+    user.setId(userId);
+    when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+    when(linkRepository.findByFullUrlAndOwnerIdAndCreatedAtGreaterThanEqual(
+            anyString(), anyString(), any()))
+        .thenReturn(Optional.empty());
+
+    when(urlService.generateLinkSlug("https://example.com", userId, 0)).thenReturn("taken123");
+    when(urlService.generateLinkSlug("https://example.com", userId, 1)).thenReturn("free1234");
+    when(urlService.generateShortUrl("free1234")).thenReturn("http://short.url/free1234");
+
+    Link foreignLink = new Link("taken123", "https://other.com", new User("user2"));
+    foreignLink.setCreatedAt(LocalDateTime.now());
+    when(linkRepository.findById("taken123")).thenReturn(Optional.of(foreignLink));
+    when(linkRepository.findById("free1234")).thenReturn(Optional.empty());
+    when(linkRepository.save(any(Link.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+    CreateLinkOptions options = new CreateLinkOptions();
+    options.url = "https://example.com";
+
+    CreateLinkResult result = service.createLink(options, userId);
+
+    assertEquals("http://short.url/free1234", result.shortUrl);
+    verify(linkRepository, never()).delete(foreignLink);
+  }
+
+  @Test
+  void createLink_ShouldFailWhenAllSlugCandidatesAreTaken() {
+    String userId = "user1";
+    User user = new User();
+    user.setId(userId);
+    when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+    when(linkRepository.findByFullUrlAndOwnerIdAndCreatedAtGreaterThanEqual(
+            anyString(), anyString(), any()))
+        .thenReturn(Optional.empty());
+
+    when(urlService.generateLinkSlug(eq("https://example.com"), eq(userId), anyInt()))
+        .thenReturn("taken123");
+    Link foreignLink = new Link("taken123", "https://other.com", new User("user2"));
+    foreignLink.setCreatedAt(LocalDateTime.now());
+    when(linkRepository.findById("taken123")).thenReturn(Optional.of(foreignLink));
+
+    CreateLinkOptions options = new CreateLinkOptions();
+    options.url = "https://example.com";
+
+    assertThrows(FreeSlugIsNotFoundException.class, () -> service.createLink(options, userId));
+    verify(linkRepository, never()).save(any(Link.class));
+  }
+
   @Test
   void getFullLink_ShouldReturnUrlAndIncrementAttempts() throws Exception {
     User user = new User();
@@ -100,8 +282,43 @@ public class LinkShortenerServiceModuleTest {
     String url = service.getFullLink("slug");
 
     assertEquals("https://example.com", url);
-    assertEquals(1, link.getAttempts());
-    verify(linkRepository).save(link);
+    assertEquals(1, clickCounter.getPending("slug"));
+    verify(linkRepository, never()).save(any(Link.class));
+  }
+
+  @Test
+  void getFullLink_ShouldServeUnlimitedLinkFromCache() throws Exception {
+    User user = new User();
+    user.setId("user1");
+    Link link = new Link("slug", "https://example.com", user);
+    link.setCreatedAt(LocalDateTime.now());
+
+    when(linkRepository.findById("slug")).thenReturn(Optional.of(link));
+
+    service.getFullLink("slug");
+    String url = service.getFullLink("slug");
+
+    assertEquals("https://example.com", url);
+    assertEquals(2, clickCounter.getPending("slug"));
+    verify(linkRepository, times(1)).findRedirectViewBySlug("slug");
+  }
+
+  @Test
+  void getFullLink_ShouldIncrementLimitedLinkConditionally() throws Exception {
+    User user = new User();
+    Link link = new Link("slug", "https://example.com", user, 5);
+    link.setCreatedAt(LocalDateTime.now());
+
+    when(linkRepository.findById("slug")).thenReturn(Optional.of(link));
+    when(linkRepository.incrementAttemptsIfAllowed(eq("slug"), any())).thenReturn(1);
+
+    service.getFullLink("slug");
+    String url = service.getFullLink("slug");
+
+    assertEquals("https://example.com", url);
+    assertEquals(0, clickCounter.getPending("slug"));
+    verify(linkRepository, times(1)).findRedirectViewBySlug("slug");
+    verify(linkRepository, times(2)).incrementAttemptsIfAllowed(eq("slug"), any());
   }
 
   @Test
@@ -123,6 +340,132 @@ public class LinkShortenerServiceModuleTest {
     assertThrows(LinkLimitExceededException.class, () -> service.getFullLink("slug"));
   }
 
+  @Test
+  void getFullLink_ShouldThrowIfLinkHasExpired() {
+    User user = new User();
+    Link link = new Link("slug", "https://example.com", user);
+    link.setCreatedAt(LocalDateTime.now().minusHours(2));
+
+    when(linkRepository.findById("slug")).thenReturn(Optional.of(link));
+
+    assertThrows(LinkHasExpiredException.class, () -> service.getFullLink("slug"));
+  }
+
+  @Test
+  void getFullLink_ShouldThrowIfLimitedLinkWasDeleted() throws Exception {
+    User user = new User();
+    Link link = new Link("slug", "https://example.com", user, 5);
+    link.setCreatedAt(LocalDateTime.now());
+
+    when(linkRepository.findById("slug")).thenReturn(Optional.of(link));
+    when(linkRepository.incrementAttemptsIfAllowed(eq("slug"), any())).thenReturn(1);
+    service.getFullLink("slug");
+
+    when(linkRepository.findById("slug")).thenReturn(Optional.empty());
+    when(linkRepository.incrementAttemptsIfAllowed(eq("slug"), any())).thenReturn(0);
+
+    assertThrows(LinkDoesNotExistException.class, () -> service.getFullLink("slug"));
+    assertNull(linkCache.get("slug"));
+  }
+
+  @Test
+  void resolveRedirect_ShouldReturnFoundWithUrl() {
+    Link link = new Link("slug", "https://example.com", new User());
+    link.setCreatedAt(LocalDateTime.now());
+
+    when(linkRepository.findById("slug")).thenReturn(Optional.of(link));
+
+    long expiresAt =
+        link.getCreatedAt().plusHours(1).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    assertEquals(
+        new RedirectResolution.Found("https://example.com", false, expiresAt),
+        service.resolveRedirect("slug"));
+  }
+
+  @Test
+  void resolveRedirect_ShouldMarkLinkWithLimitAsLimited() {
+    Link link = new Link("slug", "https://example.com", new User(), 5);
+    link.setCreatedAt(LocalDateTime.now());
+
+    when(linkRepository.findById("slug")).thenReturn(Optional.of(link));
+    when(linkRepository.incrementAttemptsIfAllowed(eq("slug"), any())).thenReturn(1);
+
+    RedirectResolution.Found found =
+        assertInstanceOf(RedirectResolution.Found.class, service.resolveRedirect("slug"));
+    assertTrue(found.limited());
+  }
+
+  @Test
+  void resolveRedirect_ShouldReturnSharedNotFoundWithoutThrowing() {
+    when(linkRepository.findById("slug")).thenReturn(Optional.empty());
+
+    assertSame(RedirectResolution.NOT_FOUND, service.resolveRedirect("slug"));
+  }
+
+  @Test
+  void resolveRedirect_ShouldNotQueryDatabaseForSlugRejectedByFilter() {
+    when(slugFilter.mightContain("slug")).thenReturn(false);
+
+    assertSame(RedirectResolution.NOT_FOUND, service.resolveRedirect("slug"));
+    verify(linkRepository, never()).findRedirectViewBySlug(anyString());
+  }
+
+  @Test
+  void resolveRedirect_ShouldServeUnlimitedLinkFromStoreWithoutDatabase() {
+    when(slugStore.get("slug"))
+        .thenReturn(new StoredLink("https://example.com", null, Long.MAX_VALUE));
+
+    assertEquals(
+        new RedirectResolution.Found("https://example.com", false, Long.MAX_VALUE),
+        service.resolveRedirect("slug"));
+    assertEquals(1, clickCounter.getPending("slug"));
+    verify(linkRepository, never()).findRedirectViewBySlug(anyString());
+  }
+
+  @Test
+  void resolveRedirect_ShouldReturnExpiredForExpiredStoredLink() {
+    when(slugStore.get("slug")).thenReturn(new StoredLink("https://example.com", null, 0));
+
+    assertSame(RedirectResolution.EXPIRED, service.resolveRedirect("slug"));
+    verify(linkRepository, never()).findRedirectViewBySlug(anyString());
+  }
+
+  @Test
+  void resolveRedirect_ShouldPutLoadedLinkIntoStore() {
+    Link link = new Link("slug", "https://example.com", new User());
+    link.setCreatedAt(LocalDateTime.now());
+    when(linkRepository.findById("slug")).thenReturn(Optional.of(link));
+    when(slugStore.put(any(CachedLink.class))).thenReturn(true);
+
+    service.resolveRedirect("slug");
+
+    verify(slugStore).put(any(CachedLink.class));
+    // Ссылка из хранилища не дублируется в кэше в куче
+    assertNull(linkCache.get("slug"));
+  }
+
+  @Test
+  void resolveRedirect_ShouldReturnExpiredForExpiredLink() {
+    Link link = new Link("slug", "https://example.com", new User());
+    link.setCreatedAt(LocalDateTime.now().minusHours(2));
+
+    when(linkRepository.findById("slug")).thenReturn(Optional.of(link));
+
+    assertSame(RedirectResolution.EXPIRED, service.resolveRedirect("slug"));
+    assertNull(linkCache.get("slug"));
+  }
+
+  @Test
+  void resolveRedirect_ShouldReturnLimitExceededIfIncrementRejected() {
+    Link link = new Link("slug", "https://example.com", new User(), 5);
+    link.setCreatedAt(LocalDateTime.now());
+
+    when(linkRepository.findById("slug")).thenReturn(Optional.of(link));
+    when(linkRepository.incrementAttemptsIfAllowed(eq("slug"), any())).thenReturn(0);
+
+    assertSame(RedirectResolution.LIMIT_EXCEEDED, service.resolveRedirect("slug"));
+  }
+
   @Test
   void deleteLink_ShouldDeleteSuccessfully() throws Exception {
     User user = new User();
@@ -135,6 +478,12 @@ public class LinkShortenerServiceModuleTest {
     service.deleteLink("slug", "user1");
 
     verify(linkRepository).delete(link);
+    verify(linkExpiryIndex).forget("slug");
+    verify(slugFilter).remove("slug", link.getCreatedAt());
+    verify(slugStore).remove("slug");
+    verify(linkInvalidationPublisher).publishAll(List.of("slug"));
+    // Новая ссылка с тем же slug не должна получить историю переходов удалённой
+    verify(clickAnalytics).forget(List.of("slug"));
   }
 
   @Test
@@ -144,15 +493,120 @@ public class LinkShortenerServiceModuleTest {
     Link link = new Link("slug", "https://example.com", user);
     link.setCreatedAt(LocalDateTime.now());
 
+    when(linkRepository.findById("slug")).thenReturn(Optional.of(link));
+    when(linkRepository.updateAttemptsLimit("slug", 10, 0)).thenReturn(1);
+
+    EditLinkOptions options = new EditLinkOptions();
+    options.limit = 10;
+
+    service.editLink("slug", "user1", options);
+
+    verify(linkRepository).updateAttemptsLimit("slug", 10, 0);
+    verify(linkRepository, never()).save(any(Link.class));
+  }
+
+  @Test
+  void editLink_ShouldMovePendingAttemptsToLimitedLink() throws Exception {
+    User user = new User();
+    user.setId("user1");
+    Link link = new Link("slug", "https://example.com", user);
+    link.setCreatedAt(LocalDateTime.now());
+
+    when(linkRepository.findById("slug")).thenReturn(Optional.of(link));
+    when(linkRepository.updateAttemptsLimit("slug", 10, 2)).thenReturn(1);
+    service.getFullLink("slug");
+    service.getFullLink("slug");
+
+    EditLinkOptions options = new EditLinkOptions();
+    options.limit = 10;
+    service.editLink("slug", "user1", options);
+
+    // Переходы прибавляются в UPDATE, а не записываются поверх прочитанного значения
+    verify(linkRepository).updateAttemptsLimit("slug", 10, 2);
+    assertEquals(0, clickCounter.getPending("slug"));
+  }
+
+  @Test
+  void editLink_ShouldFailWhenLinkWasDeletedConcurrently() {
+    User user = new User();
+    user.setId("user1");
+    Link link = new Link("slug", "https://example.com", user);
+    link.setCreatedAt(LocalDateTime.now());
+
+    when(linkRepository.findById("slug")).thenReturn(Optional.of(link));
+    when(linkRepository.updateAttemptsLimit("slug", 10, 0)).thenReturn(0);
+
+    EditLinkOptions options = new EditLinkOptions();
+    options.limit = 10;
+
+    assertThrows(LinkDoesNotExistException.class, () -> service.editLink("slug", "user1", options));
+    verify(linkInvalidationPublisher, never()).publish("slug");
+  }
+
+  @Test
+  void editAndDeleteLink_ShouldRejectStrippedTokenInSignedMode() throws Exception {
+    UserIdentityConfig identityConfig = new UserIdentityConfig();
+    identityConfig.setSignedTokens(true);
+    identityConfig.setSecret("0123456789abcdef0123456789abcdef");
+    UserIdentityService userIdentityService =
+        new UserIdentityService(identityConfig, userRepository);
+    LinkShortenerService signedService =
+        new LinkShortenerService(
+            userIdentityService,
+            linkRepository,
+            urlService,
+            linkConfig,
+            linkCache,
+            clickCounter,
+            linkExpiryIndex,
+            slugFilter,
+            slugStore,
+            replicaReads,
+            linkInvalidationPublisher,
+            linkEvictions);
+
+    User owner = userIdentityService.ensureUser(null);
+    String token = userIdentityService.publicId(owner);
+    Link link = new Link("slug", "https://example.com", owner);
+    link.setCreatedAt(LocalDateTime.now());
     when(linkRepository.findById("slug")).thenReturn(Optional.of(link));
 
     EditLinkOptions options = new EditLinkOptions();
     options.limit = 10;
 
+    // UUID из токена без подписи: владельца токена нет в таблице users
+    assertThrows(
+        UserIsNotIdentifiedException.class,
+        () -> signedService.editLink("slug", owner.getId(), options));
+    assertThrows(
+        UserIsNotIdentifiedException.class, () -> signedService.deleteLink("slug", owner.getId()));
+    verify(linkRepository, never()).updateAttemptsLimit(anyString(), any(), anyInt());
+    verify(linkRepository, never()).delete(any(Link.class));
+
+    signedService.deleteLink("slug", token);
+    verify(linkRepository).delete(link);
+  }
+
+  @Test
+  void editLink_ShouldInvalidateCachedLink() throws Exception {
+    User user = new User();
+    user.setId("user1");
+    Link link = new Link("slug", "https://example.com", user);
+    link.setCreatedAt(LocalDateTime.now());
+
+    when(linkRepository.findById("slug")).thenReturn(Optional.of(link));
+
+    when(linkRepository.updateAttemptsLimit("slug", 10, 1)).thenReturn(1);
+
+    service.getFullLink("slug");
+    assertNotNull(linkCache.get("slug"));
+
+    EditLinkOptions options = new EditLinkOptions();
+    options.limit = 10;
     service.editLink("slug", "user1", options);
 
-    assertEquals(10, link.getAttemptsLimit());
-    verify(linkRepository).save(link);
+    assertNull(linkCache.get("slug"));
+    verify(linkInvalidationPublisher).publish("slug");
   }
 
   @Test
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import ru.yartsev_vladislav.link_shortener.config.UrlConfig;
 import ru.yartsev_vladislav.link_shortener.exception.UrlIsNotValidException;
+import ru.yartsev_vladislav.link_shortener.exception.UrlIsTooLongException;
 
 public class UrlServiceModuleTest {
 
@@ -19,7 +20,7 @@ public class UrlServiceModuleTest {
     Mockito.when(urlConfig.getScheme()).thenReturn("http");
     Mockito.when(urlConfig.getHostName()).thenReturn("localhost:8080");
 
-    urlService = new UrlService(urlConfig);
+    urlService = new UrlService(urlConfig, new HashSlugGenerator());
   }
 
   @Test
@@ -44,6 +45,16 @@ public class UrlServiceModuleTest {
     assertEquals(slug1, slug2, "Slug generation should be deterministic for same input");
   }
 
+  @Test
+  void generateSlug_ShouldDifferBetweenAttempts() {
+    String url = "https://example.com";
+    String salt = "randomSalt";
+
+    assertNotEquals(
+        urlService.generateLinkSlug(url, salt, 0), urlService.generateLinkSlug(url, salt, 1));
+    assertEquals(urlService.generateLinkSlug(url, salt), urlService.generateLinkSlug(url, salt, 0));
+  }
+
   @Test
   void generateShortUrl_ShouldReturnCorrectFormat() {
     String slug = "abcd1234";
@@ -67,5 +78,43 @@ public class UrlServiceModuleTest {
     assertThrows(UrlIsNotValidException.class, () -> urlService.validateUrl("ftp://example.com"));
     assertThrows(UrlIsNotValidException.class, () -> urlService.validateUrl("example.com"));
     assertThrows(UrlIsNotValidException.class, () -> urlService.validateUrl("http//example.com"));
+    assertThrows(UrlIsNotValidException.class, () -> urlService.validateUrl("http://a.com?x"));
+    assertThrows(UrlIsNotValidException.class, () -> urlService.validateUrl("http://a.com:0/"));
+    assertThrows(UrlIsNotValidException.class, () -> urlService.validateUrl("http://a.com:65536/"));
+    assertThrows(UrlIsNotValidException.class, () -> urlService.validateUrl("http://a.com/a\nb"));
+  }
+
+  @Test
+  void canonicalizeUrl_ShouldRejectUrlLongerThanColumn() {
+    String prefix = "https://example.com/";
+    String longest = prefix + "a".repeat(UrlService.MAX_URL_LENGTH - prefix.length());
+
+    assertEquals(longest, urlService.canonicalizeUrl(longest));
+    assertThrows(UrlIsTooLongException.class, () -> urlService.canonicalizeUrl(longest + "a"));
+  }
+
+  @Test
+  void canonicalizeUrl_ShouldReturnSameInstanceForCanonicalUrl() {
+    String url = "https://example.com:8080/path?q=%2F";
+
+    assertSame(url, urlService.canonicalizeUrl(url));
+  }
+
+  @Test
+  void canonicalizeUrl_ShouldNormalizeSchemeHostPortAndPath() {
+    assertEquals("https://example.com/", urlService.canonicalizeUrl("HTTPS://Example.COM:443"));
+    assertEquals("http://example.com/", urlService.canonicalizeUrl("http://example.com:80"));
+    assertEquals(
+        "http://example.com:8080/", urlService.canonicalizeUrl("http://example.com:08080"));
+    assertEquals("http://example.com/Path", urlService.canonicalizeUrl("http://EXAMPLE.com/Path"));
+  }
+
+  @Test
+  void canonicalizeUrl_ShouldNormalizePercentEncoding() {
+    assertEquals(
+        "http://example.com/~user?q=%2F%3A",
+        urlService.canonicalizeUrl("http://example.com/%7euser?q=%2f%3A"));
+    assertEquals(
+        "http://example.com/%zz%4", urlService.canonicalizeUrl("http://example.com/%zz%4"));
   }
 }
@@ -0,0 +1,134 @@
+package ru.yartsev_vladislav.link_shortener.store;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MappedSlugTableModuleTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void get_ShouldReturnStoredLinkUntilRemoved() throws Exception {
+    try (MappedSlugTable table = MappedSlugTable.open(directory, 1024, 1 << 20, 1 << 16)) {
+      assertTrue(table.put("limited", "https://example.com/a", 1000, 5));
+      assertTrue(table.put("unlimited", "https://example.com/b", 2000, null));
+
+      assertEquals(new StoredLink("https://example.com/a", 5, 1000), table.get("limited"));
+      assertEquals(new StoredLink("https://example.com/b", null, 2000), table.get("unlimited"));
+      assertNull(table.get("missing"));
+
+      assertTrue(table.remove("limited"));
+      assertFalse(table.remove("limited"));
+      assertNull(table.get("limited"));
+      assertNotNull(table.get("unlimited"));
+      assertEquals(1, table.size());
+    }
+  }
+
+  @Test
+  void put_ShouldReplaceUrlOfExistingSlug() throws Exception {
+    try (MappedSlugTable table = MappedSlugTable.open(directory, 1024, 1 << 20, 1 << 16)) {
+      table.put("slug", "https://example.com/old", 1000, null);
+      table.put("slug", "https://example.com/new", 3000, 10);
+
+      assertEquals(new StoredLink("https://example.com/new", 10, 3000), table.get("slug"));
+      assertEquals(1, table.size());
+    }
+  }
+
+  @Test
+  void clear_ShouldRemoveAllLinksAndReuseDataLog() throws Exception {
+    try (MappedSlugTable table = MappedSlugTable.open(directory, 1024, 1 << 20, 1 << 16)) {
+      for (int i = 0; i < 100; i++) {
+        table.put("slug" + i, "https://example.com/" + i, i, null);
+      }
+
+      table.clear();
+
+      assertEquals(0, table.size());
+      assertEquals(0, table.getDataBytes());
+      assertNull(table.get("slug0"));
+      assertTrue(table.put("slug0", "https://example.com/new", 0, null));
+      assertEquals(new StoredLink("https://example.com/new", null, 0), table.get("slug0"));
+    }
+  }
+
+  @Test
+  void open_ShouldKeepLinksAfterReopen() throws Exception {
+    try (MappedSlugTable table = MappedSlugTable.open(directory, 1024, 1 << 20, 1 << 16)) {
+      for (int i = 0; i < 500; i++) {
+        table.put("slug" + i, "https://example.com/" + i, i, null);
+      }
+      table.remove("slug0");
+    }
+
+    try (MappedSlugTable table = MappedSlugTable.open(directory, 1024, 1 << 20, 1 << 16)) {
+      assertEquals(499, table.size());
+      assertNull(table.get("slug0"));
+      assertEquals(new StoredLink("https://example.com/499", null, 499), table.get("slug499"));
+    }
+  }
+
+  @Test
+  void setSyncedAtMillis_ShouldSurviveReopenUntilCleared() throws Exception {
+    try (MappedSlugTable table = MappedSlugTable.open(directory, 1024, 1 << 20, 1 << 16)) {
+      assertEquals(0, table.getSyncedAtMillis());
+      table.put("slug", "https://example.com", 1000, null);
+      table.setSyncedAtMillis(12345);
+    }
+
+    try (MappedSlugTable table = MappedSlugTable.open(directory, 1024, 1 << 20, 1 << 16)) {
+      assertEquals(12345, table.getSyncedAtMillis());
+      table.clear();
+      assertEquals(0, table.getSyncedAtMillis());
+    }
+  }
+
+  @Test
+  void open_ShouldStartEmptyIfCapacityChanged() throws Exception {
+    try (MappedSlugTable table = MappedSlugTable.open(directory, 1024, 1 << 20, 1 << 16)) {
+      table.put("slug", "https://example.com", 1000, null);
+    }
+
+    try (MappedSlugTable table = MappedSlugTable.open(directory, 2048, 1 << 20, 1 << 16)) {
+      assertEquals(0, table.size());
+      assertNull(table.get("slug"));
+    }
+  }
+
+  @Test
+  void put_ShouldCompactDataLogWhenItIsFull() throws Exception {
+    try (MappedSlugTable table = MappedSlugTable.open(directory, 64, 4096, 1024)) {
+      for (int i = 0; i < 1000; i++) {
+        assertTrue(table.put("slug", "https://example.com/" + i, i, null));
+      }
+
+      assertTrue(table.getCompactions() > 0);
+      assertEquals(new StoredLink("https://example.com/999", null, 999), table.get("slug"));
+      assertTrue(table.getDataBytes() <= table.getMaxDataBytes());
+    }
+  }
+
+  @Test
+  void put_ShouldRejectLinkIfTableIsFull() throws Exception {
+    try (MappedSlugTable table = MappedSlugTable.open(directory, 4, 1 << 20, 1 << 16)) {
+      assertTrue(table.put("slug1", "https://example.com/1", 0, null));
+      assertTrue(table.put("slug2", "https://example.com/2", 0, null));
+      assertTrue(table.put("slug3", "https://example.com/3", 0, null));
+
+      // Таблица заполняется не более чем на 3/4, чтобы цепочки проб оставались короткими
+      assertFalse(table.put("slug4", "https://example.com/4", 0, null));
+      assertNull(table.get("slug4"));
+    }
+  }
+
+  @Test
+  void open_ShouldRejectCapacityThatIsNotPowerOfTwo() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> MappedSlugTable.open(directory, 1000, 1 << 20, 1 << 16));
+  }
+}
@@ -0,0 +1,24 @@
+-- Таблицы аналитики переходов для интеграционных тестов на H2. ClickAnalytics работает с ними
+-- через JDBC, сущностей у них нет, поэтому Hibernate их не создаёт; определения повторяют
+-- миграции V1 и V3.
+CREATE TABLE IF NOT EXISTS link_clicks (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    clicked_at timestamp(6) NOT NULL,
+    country varchar(8),
+    referrer varchar(512),
+    slug varchar(255) NOT NULL,
+    user_agent_class varchar(16) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS link_clicks_slug_clicked_at_idx ON link_clicks (slug, clicked_at);
+CREATE INDEX IF NOT EXISTS link_clicks_clicked_at_idx ON link_clicks (clicked_at);
+
+CREATE TABLE IF NOT EXISTS link_click_rollups (
+    slug varchar(255) NOT NULL,
+    bucket_start timestamp(6) NOT NULL,
+    clicks bigint NOT NULL,
+    PRIMARY KEY (slug, bucket_start)
+);
+
+CREATE INDEX IF NOT EXISTS link_click_rollups_bucket_start_idx ON link_click_rollups (bucket_start);